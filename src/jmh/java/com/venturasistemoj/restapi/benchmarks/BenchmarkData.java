@@ -0,0 +1,111 @@
+package com.venturasistemoj.restapi.benchmarks;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.venturasistemoj.restapi.domain.address.Address;
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumber;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.user.User;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+
+/**
+ * Realistic users, with an address and two phone numbers, shared by the benchmarks.
+ *
+ * @author Wilson Ventura
+ */
+final class BenchmarkData {
+
+	private BenchmarkData() {}
+
+	static UserDTO userDTO(long i) {
+
+		UserDTO user = UserDTO.builder()
+				.userId(i)
+				.name("Name" + i)
+				.surName("Surname" + i)
+				.birthDate(LocalDate.of(1970, Month.JANUARY, 1).plusDays(i % 15000))
+				.cpf(Cpfs.withCheckDigits(i))
+				.email("user" + i + "@prov.com")
+				.build();
+
+		user.setAddressDTO(AddressDTO.builder()
+				.addressId(i)
+				.publicPlace("Rua")
+				.streetAddress("Conde Deu, " + i)
+				.complement("Apto 101")
+				.city("Niterói")
+				.state("RJ")
+				.zipCode("24.020-000")
+				.userDTO(user)
+				.build());
+
+		// distinct numbers, as phone numbers are equal by number
+		String suffix = String.format("%03d-%04d", i / 10000 % 1000, i % 10000);
+		Set<PhoneNumberDTO> phones = new LinkedHashSet<>();
+		phones.add(PhoneNumberDTO.builder().phoneId(2 * i).type("Cel").number("(21) 96" + suffix).userDTO(user).build());
+		phones.add(PhoneNumberDTO.builder().phoneId(2 * i + 1).type("Home").number("(21) 2" + suffix).userDTO(user).build());
+		user.setPhonesDTO(phones);
+
+		return user;
+	}
+
+	static List<UserDTO> userDTOs(int size) {
+		List<UserDTO> users = new ArrayList<>(size);
+		for(int i = 1; i <= size; i++)
+			users.add(userDTO(i));
+		return users;
+	}
+
+	static User user(long i) {
+
+		UserDTO dto = userDTO(i);
+
+		User user = new User();
+		user.setUserId(dto.getUserId());
+		user.setName(dto.getName());
+		user.setSurName(dto.getSurName());
+		user.setBirthDate(dto.getBirthDate());
+		user.setCpf(dto.getCpf());
+		user.setEmail(dto.getEmail());
+
+		AddressDTO addressDTO = dto.getAddressDTO();
+		Address address = new Address();
+		address.setAddressId(addressDTO.getAddressId());
+		address.setPublicPlace(addressDTO.getPublicPlace());
+		address.setStreetAddress(addressDTO.getStreetAddress());
+		address.setComplement(addressDTO.getComplement());
+		address.setCity(addressDTO.getCity());
+		address.setState(addressDTO.getState());
+		address.setZipCode(addressDTO.getZipCode());
+		address.setUser(user);
+		user.setAddress(address);
+
+		Set<PhoneNumber> phones = new HashSet<>();
+		for(PhoneNumberDTO phoneDTO : dto.getPhonesDTO()) {
+			PhoneNumber phone = new PhoneNumber();
+			phone.setPhoneId(phoneDTO.getPhoneId());
+			phone.setType(phoneDTO.getType());
+			phone.setNumber(phoneDTO.getNumber());
+			phone.setUser(user);
+			phones.add(phone);
+		}
+		user.setPhones(phones);
+
+		return user;
+	}
+
+	static List<User> users(int size) {
+		List<User> users = new ArrayList<>(size);
+		for(int i = 1; i <= size; i++)
+			users.add(user(i));
+		return users;
+	}
+}
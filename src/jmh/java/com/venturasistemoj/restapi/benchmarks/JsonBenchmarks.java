@@ -0,0 +1,187 @@
+package com.venturasistemoj.restapi.benchmarks;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.venturasistemoj.restapi.config.JacksonConfig;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+
+/**
+ * Benchmarks of the <code>JacksonConfig</code> <code>LocalDate</code> serializer and deserializer and of full
+ * <code>UserDTO</code> JSON round-trips, single and as lists of <code>size</code> users.
+ *
+ * <p>The <code>ObjectMapper</code> is built with the <code>JacksonConfig</code> customizer, as Spring does. The
+ * <code>Formatter</code> benchmarks run the same payloads with the <code>DateTimeFormatter</code> codec the customizer
+ * had before, to compare its allocations with the gc profiler.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmarks {
+
+	@Param({ "100" })
+	private int size;
+
+	private ObjectWriter dateWriter;
+	private ObjectReader dateReader;
+	private ObjectWriter userWriter;
+	private ObjectReader userReader;
+	private ObjectWriter usersWriter;
+	private ObjectReader usersReader;
+	private ObjectWriter formatterDateWriter;
+	private ObjectReader formatterDateReader;
+	private ObjectWriter formatterUsersWriter;
+	private ObjectReader formatterUsersReader;
+
+	private final LocalDate date = LocalDate.of(1985, Month.MARCH, 10);
+	private String dateJson;
+	private UserDTO user;
+	private byte[] userJson;
+	private List<UserDTO> users;
+	private byte[] usersJson;
+
+	@Setup
+	public void setup() throws IOException {
+
+		Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+		new JacksonConfig().customizeJacksonObjectMapper().customize(builder);
+		ObjectMapper objectMapper = builder.build();
+
+		TypeReference<List<UserDTO>> listOfUsers = new TypeReference<>() {};
+
+		dateWriter = objectMapper.writerFor(LocalDate.class);
+		dateReader = objectMapper.readerFor(LocalDate.class);
+		userWriter = objectMapper.writerFor(UserDTO.class);
+		userReader = objectMapper.readerFor(UserDTO.class);
+		usersWriter = objectMapper.writerFor(listOfUsers);
+		usersReader = objectMapper.readerFor(listOfUsers);
+
+		ObjectMapper formatterMapper = builder.build().registerModule(new SimpleModule()
+				.addSerializer(LocalDate.class, new FormatterSerializer())
+				.addDeserializer(LocalDate.class, new FormatterDeserializer()));
+		formatterDateWriter = formatterMapper.writerFor(LocalDate.class);
+		formatterDateReader = formatterMapper.readerFor(LocalDate.class);
+		formatterUsersWriter = formatterMapper.writerFor(listOfUsers);
+		formatterUsersReader = formatterMapper.readerFor(listOfUsers);
+
+		dateJson = dateWriter.writeValueAsString(date);
+		user = BenchmarkData.userDTO(1);
+		userJson = userWriter.writeValueAsBytes(user);
+		users = BenchmarkData.userDTOs(size);
+		usersJson = usersWriter.writeValueAsBytes(users);
+	}
+
+	@Benchmark
+	public String serializeLocalDate() throws IOException {
+		return dateWriter.writeValueAsString(date);
+	}
+
+	@Benchmark
+	public LocalDate deserializeLocalDate() throws IOException {
+		return dateReader.readValue(dateJson);
+	}
+
+	@Benchmark
+	public String serializeLocalDateFormatter() throws IOException {
+		return formatterDateWriter.writeValueAsString(date);
+	}
+
+	@Benchmark
+	public LocalDate deserializeLocalDateFormatter() throws IOException {
+		return formatterDateReader.readValue(dateJson);
+	}
+
+	@Benchmark
+	public byte[] serializeUser() throws IOException {
+		return userWriter.writeValueAsBytes(user);
+	}
+
+	@Benchmark
+	public UserDTO deserializeUser() throws IOException {
+		return userReader.readValue(userJson);
+	}
+
+	@Benchmark
+	public UserDTO roundTripUser() throws IOException {
+		return userReader.readValue(userWriter.writeValueAsBytes(user));
+	}
+
+	@Benchmark
+	public List<UserDTO> roundTripUsers() throws IOException {
+		return usersReader.readValue(usersWriter.writeValueAsBytes(users));
+	}
+
+	@Benchmark
+	public byte[] serializeUsers() throws IOException {
+		return usersWriter.writeValueAsBytes(users);
+	}
+
+	@Benchmark
+	public List<UserDTO> deserializeUsers() throws IOException {
+		return usersReader.readValue(usersJson);
+	}
+
+	@Benchmark
+	public byte[] serializeUsersFormatter() throws IOException {
+		return formatterUsersWriter.writeValueAsBytes(users);
+	}
+
+	@Benchmark
+	public List<UserDTO> deserializeUsersFormatter() throws IOException {
+		return formatterUsersReader.readValue(usersJson);
+	}
+
+	private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(JacksonConfig.DATE_PATTERN);
+
+	private static class FormatterSerializer extends JsonSerializer<LocalDate> {
+
+		@Override
+		public void serialize(LocalDate localDate, JsonGenerator jsonGenerator, SerializerProvider serializerProvider)
+				throws IOException {
+			jsonGenerator.writeString(localDate.format(formatter));
+		}
+	}
+
+	private static class FormatterDeserializer extends JsonDeserializer<LocalDate> {
+
+		@Override
+		public LocalDate deserialize(JsonParser jsonParser, DeserializationContext deserializationContext)
+				throws IOException {
+			return LocalDate.parse(jsonParser.getText(), formatter);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.venturasistemoj.restapi.benchmarks;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.venturasistemoj.restapi.domain.address.Address;
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.address.AddressMapper;
+import com.venturasistemoj.restapi.domain.address.AddressMapperImpl;
+import com.venturasistemoj.restapi.domain.phone.PhoneMapper;
+import com.venturasistemoj.restapi.domain.phone.PhoneMapperImpl;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumber;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.user.User;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserMapper;
+import com.venturasistemoj.restapi.domain.user.UserMapperImpl;
+
+/**
+ * Benchmarks of the MapStruct generated mappers, entity to DTO and back, for lists of <code>size</code> users with an
+ * address and two phone numbers each.
+ *
+ * <p>The mappers are wired by a plain Spring context holding only the three generated implementations.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmarks {
+
+	@Param({ "10", "100", "1000" })
+	private int size;
+
+	private AnnotationConfigApplicationContext context;
+	private UserMapper userMapper;
+	private AddressMapper addressMapper;
+	private PhoneMapper phoneMapper;
+
+	private List<User> users;
+	private List<UserDTO> usersDTO;
+	private List<Address> adresses;
+	private List<AddressDTO> adressesDTO;
+	private Set<PhoneNumber> phones;
+	private Set<PhoneNumberDTO> phonesDTO;
+
+	@Setup
+	public void setup() {
+
+		context = new AnnotationConfigApplicationContext(UserMapperImpl.class, AddressMapperImpl.class,
+				PhoneMapperImpl.class);
+		userMapper = context.getBean(UserMapper.class);
+		addressMapper = context.getBean(AddressMapper.class);
+		phoneMapper = context.getBean(PhoneMapper.class);
+
+		users = BenchmarkData.users(size);
+		usersDTO = BenchmarkData.userDTOs(size);
+		adresses = users.stream().map(User::getAddress).toList();
+		adressesDTO = usersDTO.stream().map(UserDTO::getAddressDTO).toList();
+		phones = users.stream().flatMap(user -> user.getPhones().stream()).collect(Collectors.toSet());
+		phonesDTO = usersDTO.stream().flatMap(user -> user.getPhonesDTO().stream()).collect(Collectors.toSet());
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<UserDTO> usersToUsersDTO() {
+		return userMapper.usersToUsersDTO(users);
+	}
+
+	@Benchmark
+	public List<User> usersDTOToUsers() {
+		return userMapper.usersDTOToUsers(usersDTO);
+	}
+
+	@Benchmark
+	public List<AddressDTO> adressesToAdressesDTO() {
+		return addressMapper.adressesToAdressesDTO(adresses);
+	}
+
+	@Benchmark
+	public List<Address> adressesDTOToAdresses() {
+		return addressMapper.adressesDTOToAdresses(adressesDTO);
+	}
+
+	@Benchmark
+	public Set<PhoneNumberDTO> phoneNumbersToPhoneNumbersDTO() {
+		return phoneMapper.phoneNumbersToPhoneNumbersDTO(phones);
+	}
+
+	@Benchmark
+	public Set<PhoneNumber> phoneNumbersDTOToPhoneNumbers() {
+		return phoneMapper.phoneNumbersDTOToPhoneNumbers(phonesDTO);
+	}
+}
@@ -0,0 +1,174 @@
+package com.venturasistemoj.restapi.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.RestApiApplication;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.user.BulkImportReport;
+import com.venturasistemoj.restapi.domain.user.UserBulkService;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+
+/**
+ * Benchmarks of the <code>UserServiceImpl</code> create and read paths against the embedded H2 database seeded with
+ * <code>rows</code> users, each with an address and two phone numbers, on both read paths (see <code>ReadPath</code>).
+ *
+ * <ul>
+ * <li><code>getUserById</code> evicts the user from <code>userCache</code> first, so it measures the database read;
+ * <li><code>getUserByIdCached</code> measures the cache hit;
+ * <li><code>getUsersPage</code> reads pages of 50 users from random cursors;
+ * <li><code>createUser</code> creates users without address and phones, measuring the average time of a call over
+ * more forks and iterations than the reads, so the latency across the <code>rows</code> sweep, from 100 to 100,000
+ * users, can be compared; the table grows during the run.
+ * </ul>
+ *
+ * <p>The application runs without the web layer, and is started and seeded once per trial.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmarks {
+
+	private static final int PAGE_SIZE = 50;
+
+	@Param({ "100", "1000", "10000", "100000" })
+	private int rows;
+
+	@Param({ "jpa", "jdbc" })
+	private String readPath;
+
+	private ConfigurableApplicationContext context;
+	private UserService userService;
+	private DtoCache<Long, UserDTO> userCache;
+
+	private final List<Long> userIds = new ArrayList<>();
+	private final List<String> cursors = new ArrayList<>();
+	private int nextId;
+	private int nextCursor;
+	private long nextUser;
+
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void setup() throws IOException, NotFoundException {
+
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		context = new SpringApplicationBuilder(RestApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(
+						"spring.main.banner-mode=off",
+						"logging.level.root=warn",
+						"rest-api.read-path=" + readPath)
+				.run();
+
+		userService = context.getBean(UserService.class);
+		userCache = context.getBean("userCache", DtoCache.class);
+
+		seed();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public UserDTO getUserById() throws NotFoundException {
+		Long userId = nextUserId();
+		userCache.invalidate(userId); // no transaction: evicts immediately
+		return userService.getUserById(userId);
+	}
+
+	@Benchmark
+	public UserDTO getUserByIdCached() throws NotFoundException {
+		return userService.getUserById(nextUserId());
+	}
+
+	@Benchmark
+	public CursorPage<UserDTO> getUsersPage() throws NotFoundException {
+		String after = cursors.get(nextCursor++ % cursors.size());
+		return userService.getUsers(PAGE_SIZE, after);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 5, time = 2)
+	@Measurement(iterations = 10, time = 2)
+	@Fork(3)
+	public UserDTO createUser() {
+
+		long i = nextUser++;
+
+		return userService.createUser(UserDTO.builder()
+				.name("Created" + i)
+				.surName("Surname" + i)
+				.birthDate(LocalDate.of(1990, Month.JANUARY, 1))
+				.cpf(Cpfs.withCheckDigits(i))
+				.email("created" + i + "@prov.com")
+				.build());
+	}
+
+	private Long nextUserId() {
+		return userIds.get(nextId++ % userIds.size());
+	}
+
+	// imports the users through the bulk service and collects their ids and the page cursors
+	private void seed() throws IOException, NotFoundException {
+
+		ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+		UserBulkService userBulkService = context.getBean(UserBulkService.class);
+
+		byte[] json = objectMapper.writeValueAsBytes(BenchmarkData.userDTOs(rows));
+		BulkImportReport report = userBulkService.importUsers(new ByteArrayInputStream(json));
+
+		if(report.getCreated() != rows)
+			throw new IllegalStateException("Seeding failed: " + report.getRejected() + " users rejected");
+
+		report.getRows().forEach(row -> userIds.add(row.getUserId()));
+		Collections.shuffle(userIds, new Random(42));
+
+		cursors.add(null);
+		for(String after = userService.getUsers(PAGE_SIZE, null).getNextCursor(); after != null;
+				after = userService.getUsers(PAGE_SIZE, after).getNextCursor())
+			cursors.add(after);
+		Collections.shuffle(cursors, new Random(42));
+
+		nextUser = rows + 1;
+	}
+}
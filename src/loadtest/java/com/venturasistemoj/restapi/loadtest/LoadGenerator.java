@@ -0,0 +1,325 @@
+package com.venturasistemoj.restapi.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.RestApiApplication;
+
+/**
+ * <h2>Load generator of the users, adresses and phones APIs.</h2>
+ *
+ * <p>Starts the application in-process on a random port, or targets a running one with <code>target=</code>, seeds it
+ * and drives the operation mix of a <code>Scenario</code> in a closed or open loop. After the warmup, the throughput,
+ * error rate and latency percentiles of each route are printed and written as JSON to <code>report=</code> (by default
+ * <code>target/loadtest/&lt;scenario&gt;.json</code>).</p>
+ *
+ * <p>Latencies are free of coordinated omission:</p>
+ * <ul>
+ * <li>in the open loop each request has an intended start time on the fixed arrival schedule and its latency is
+ * measured from it, so the time a request waited for a free sender, behind a slow response, is counted;
+ * <li>in the closed loop, where a stalled client stops sending, the latencies are recorded with the
+ * <code>expected-interval</code> of the clients and HdrHistogram fills in the requests the stall omitted.
+ * </ul>
+ *
+ * <pre>
+ * mvn -P loadtest test-compile exec:exec@load-generator -Dloadgen.args="scenario=mixed duration=60s"
+ * mvn -P loadtest test-compile exec:exec@load-generator -Dloadgen.args="scenario=read-heavy target=http://localhost:8080"
+ * </pre>
+ *
+ * @author Wilson Ventura
+ */
+public final class LoadGenerator {
+
+	private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+	private final Scenario scenario;
+	private final Workload workload;
+	private final HttpClient client;
+	private final Map<Operation, RouteStats> stats = new EnumMap<>(Operation.class);
+
+	private long measureFrom;
+	private long end;
+
+	private LoadGenerator(Scenario scenario, Workload workload, HttpClient client) {
+		this.scenario = scenario;
+		this.workload = workload;
+		this.client = client;
+		scenario.mix().keySet().forEach(operation -> stats.put(operation, new RouteStats(operation)));
+	}
+
+	record RouteReport(String route, long requests, long errors, long skipped, double errorRate, double throughput,
+			double p50, double p90, double p99, double p999, double max, Map<String, Long> errorsByCause) {}
+
+	record Report(String scenario, String mode, String target, double seconds, Double expectedIntervalMillis,
+			List<RouteReport> routes, RouteReport total) {}
+
+	public static void main(String[] args) throws Exception {
+
+		Map<String, String> options = Arrays.stream(args)
+				.map(arg -> arg.split("=", 2))
+				.collect(Collectors.toMap(option -> option[0], option -> option.length > 1 ? option[1] : "",
+						(first, second) -> second, LinkedHashMap::new));
+
+		String scenarioName = options.getOrDefault("scenario", "mixed");
+		String target = options.get("target");
+		Path reportFile = Path.of(options.getOrDefault("report", "target/loadtest/" + scenarioName + ".json"));
+
+		Map<String, String> overrides = new LinkedHashMap<>(options);
+		overrides.keySet().removeAll(List.of("scenario", "target", "report"));
+		Scenario scenario = Scenario.load(scenarioName, overrides);
+
+		System.setProperty("spring.devtools.restart.enabled", "false"); // a restart would rerun main without arguments
+		ConfigurableApplicationContext context = target == null ? start(scenario) : null;
+		try {
+			URI base = URI.create(target != null ? target
+					: "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort());
+
+			HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+			Workload workload = new Workload(base, scenario.requestTimeout(), scenario.pageSize());
+			workload.seed(client, scenario.seedUsers());
+
+			Report report = new LoadGenerator(scenario, workload, client).run(base);
+
+			print(report);
+			Files.createDirectories(reportFile.toAbsolutePath().getParent());
+			new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+			System.out.println("Report written to " + reportFile.toAbsolutePath());
+		} finally {
+			if(context != null)
+				context.close();
+		}
+	}
+
+	private static ConfigurableApplicationContext start(Scenario scenario) {
+
+		List<String> properties = new ArrayList<>(List.of(
+				"server.port=0",
+				"spring.main.banner-mode=off",
+				"logging.level.root=warn"));
+		scenario.appProperties().forEach((key, value) -> properties.add(key + "=" + value));
+
+		return new SpringApplicationBuilder(RestApiApplication.class)
+				.properties(properties.toArray(String[]::new))
+				.run();
+	}
+
+	private Report run(URI base) throws InterruptedException {
+
+		long start = System.nanoTime();
+		measureFrom = start + scenario.warmup().toNanos();
+		end = measureFrom + scenario.duration().toNanos();
+
+		Double expectedIntervalMillis = null;
+
+		if(scenario.mode() == Scenario.Mode.OPEN)
+			runOpen(start);
+		else
+			expectedIntervalMillis = runClosed() / 1e6;
+
+		double seconds = scenario.duration().toNanos() / 1e9;
+		List<RouteReport> routes = new ArrayList<>();
+		Histogram all = new Histogram(3);
+		long successes = 0, errors = 0, skipped = 0;
+		Map<String, Long> errorsByCause = new LinkedHashMap<>();
+
+		for(RouteStats route : stats.values()) {
+			routes.add(report(route.operation().route(), route.latencies(), route.successCount(), route.errorCount(),
+					route.skippedCount(), seconds, route.errorsByCause()));
+			all.add(route.latencies());
+			successes += route.successCount();
+			errors += route.errorCount();
+			skipped += route.skippedCount();
+			route.errorsByCause().forEach((cause, count) -> errorsByCause.merge(cause, count, Long::sum));
+		}
+
+		return new Report(scenario.name(), scenario.mode().name().toLowerCase(), base.toString(), seconds,
+				expectedIntervalMillis, routes, report("total", all, successes, errors, skipped, seconds, errorsByCause));
+	}
+
+	/**
+	 * Open loop: the dispatcher releases the requests at the fixed rate and the senders, up to
+	 * <code>max-in-flight</code>, take them in order. Requests still queued <code>DRAIN_TIMEOUT</code> after the end
+	 * are counted as errors.
+	 */
+	private void runOpen(long start) throws InterruptedException {
+
+		ThreadPoolExecutor senders = new ThreadPoolExecutor(scenario.maxInFlight(), scenario.maxInFlight(), 0,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+		long interval = TimeUnit.SECONDS.toNanos(1) / scenario.rate();
+
+		for(long intended = start; intended < end; intended += interval) {
+
+			for(long now = System.nanoTime(); now < intended; now = System.nanoTime())
+				LockSupport.parkNanos(intended - now);
+
+			senders.execute(new Arrival(scenario.pick(ThreadLocalRandom.current()), intended));
+		}
+
+		senders.shutdown();
+		if( ! senders.awaitTermination(DRAIN_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS))
+			for(Runnable pending : senders.shutdownNow()) {
+				Arrival arrival = (Arrival) pending;
+				if(arrival.intendedStart >= measureFrom)
+					stats.get(arrival.operation).error("not sent");
+			}
+		senders.awaitTermination(DRAIN_TIMEOUT.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	private final class Arrival implements Runnable {
+
+		private final Operation operation;
+		private final long intendedStart;
+
+		private Arrival(Operation operation, long intendedStart) {
+			this.operation = operation;
+			this.intendedStart = intendedStart;
+		}
+
+		@Override
+		public void run() {
+			execute(operation, intendedStart, 0);
+		}
+	}
+
+	/**
+	 * Closed loop: each client sends the next request as soon as the previous one completes. Returns the expected
+	 * interval used to correct the latencies, in nanoseconds: <code>expected-interval</code>, or the mean latency of the
+	 * warmup.
+	 */
+	private long runClosed() throws InterruptedException {
+
+		LongAdder warmupNanos = new LongAdder();
+		LongAdder warmupRequests = new LongAdder();
+		AtomicLong expectedInterval = new AtomicLong(
+				scenario.expectedInterval() == null ? -1 : scenario.expectedInterval().toNanos());
+
+		ExecutorService clients = Executors.newFixedThreadPool(scenario.clients());
+		for(int i = 0; i < scenario.clients(); i++)
+			clients.execute(() -> {
+				for(long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+
+					long interval = expectedInterval.get();
+					if(interval < 0 && now >= measureFrom) { // calibrates once, at the end of the warmup
+						long requests = warmupRequests.sum();
+						expectedInterval.compareAndSet(-1, requests == 0 ? 0 : warmupNanos.sum() / requests);
+						interval = expectedInterval.get();
+					}
+
+					long latency = execute(scenario.pick(ThreadLocalRandom.current()), now, interval);
+					if(now < measureFrom && latency > 0) {
+						warmupNanos.add(latency);
+						warmupRequests.increment();
+					}
+				}
+			});
+
+		clients.shutdown();
+		clients.awaitTermination(scenario.duration().plus(scenario.warmup()).plus(DRAIN_TIMEOUT).toNanos(),
+				TimeUnit.NANOSECONDS);
+
+		return Math.max(expectedInterval.get(), 0);
+	}
+
+	/**
+	 * Sends the request of the operation and records its result if it was intended to start in the measurement
+	 * window. Returns the latency measured from the intended start, or <code>-1</code> if the request was not sent or
+	 * failed.
+	 */
+	private long execute(Operation operation, long intendedStart, long expectedInterval) {
+
+		RouteStats route = stats.get(operation);
+		boolean measured = intendedStart >= measureFrom;
+		Workload.Call call = workload.next(operation);
+
+		if(call == null) {
+			if(measured)
+				route.skipped();
+			return -1;
+		}
+
+		try {
+			HttpResponse<String> response = client.send(call.request(), BodyHandlers.ofString());
+			long latency = System.nanoTime() - intendedStart;
+
+			if(response.statusCode() != operation.expectedStatus()) {
+				if(measured)
+					route.error(String.valueOf(response.statusCode()));
+				return -1;
+			}
+
+			call.onSuccess().accept(response.body());
+			if(measured)
+				route.success(latency, expectedInterval);
+			return latency;
+
+		} catch (IOException | RuntimeException e) {
+			if(measured)
+				route.error(e.getClass().getSimpleName());
+			return -1;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return -1;
+		}
+	}
+
+	private static RouteReport report(String route, Histogram latencies, long successes, long errors, long skipped,
+			double seconds, Map<String, Long> errorsByCause) {
+
+		long requests = successes + errors;
+		return new RouteReport(route, requests, errors, skipped, requests == 0 ? 0 : errors / (double) requests,
+				successes / seconds,
+				millis(latencies, 50), millis(latencies, 90), millis(latencies, 99), millis(latencies, 99.9),
+				latencies.getTotalCount() == 0 ? 0 : latencies.getMaxValue() / 1e6, errorsByCause);
+	}
+
+	private static double millis(Histogram latencies, double percentile) {
+		return latencies.getTotalCount() == 0 ? 0 : latencies.getValueAtPercentile(percentile) / 1e6;
+	}
+
+	private static void print(Report report) {
+
+		System.out.printf("%nScenario %s (%s loop) against %s, %.0f s measured%s%n", report.scenario(), report.mode(),
+				report.target(), report.seconds(), report.expectedIntervalMillis() == null ? ""
+						: String.format(", corrected for an expected interval of %.2f ms", report.expectedIntervalMillis()));
+		System.out.printf("%-36s %9s %7s %8s %9s %9s %9s %9s %9s %9s%n", "route", "requests", "errors", "skipped",
+				"req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+		List<RouteReport> rows = new ArrayList<>(report.routes());
+		rows.add(report.total());
+		for(RouteReport route : rows)
+			System.out.printf("%-36s %9d %6.2f%% %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", route.route(),
+					route.requests(), route.errorRate() * 100, route.skipped(), route.throughput(), route.p50(),
+					route.p90(), route.p99(), route.p999(), route.max());
+
+		if( ! report.total().errorsByCause().isEmpty())
+			System.out.println("Errors by cause: " + report.total().errorsByCause());
+	}
+}
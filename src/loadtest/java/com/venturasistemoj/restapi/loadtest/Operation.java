@@ -0,0 +1,60 @@
+package com.venturasistemoj.restapi.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Operations of a load scenario, one HTTP request each. The <code>key</code> is the name of the operation in the
+ * <code>mix.*</code> weights of the scenario files and the <code>route</code> groups its results in the report.
+ *
+ * <p>Reads and updates target the seeded users. Creates and deletes follow the lifecycle of the users created during
+ * the run: <code>create-user</code>, <code>create-address</code>, <code>create-phone</code>, <code>delete-phone</code>,
+ * <code>delete-address</code>, each operation taking a user from the previous step, and <code>delete-user</code>
+ * removing the user furthest along it.</p>
+ *
+ * @author Wilson Ventura
+ */
+enum Operation {
+
+	GET_USER("get-user", "GET /rest-api/users/{userId}", 200),
+	LIST_USERS("list-users", "GET /rest-api/users?limit&after", 200),
+	CREATE_USER("create-user", "POST /rest-api/users", 201),
+	UPDATE_USER("update-user", "PUT /rest-api/users/{userId}", 200),
+	DELETE_USER("delete-user", "DELETE /rest-api/users/{userId}", 204),
+	GET_ADDRESS("get-address", "GET /rest-api/adresses/{userId}", 200),
+	CREATE_ADDRESS("create-address", "POST /rest-api/adresses/{userId}", 201),
+	UPDATE_ADDRESS("update-address", "PUT /rest-api/adresses/{userId}", 200),
+	DELETE_ADDRESS("delete-address", "DELETE /rest-api/adresses/{userId}", 204),
+	GET_PHONES("get-phones", "GET /rest-api/phones/{userId}", 200),
+	CREATE_PHONE("create-phone", "POST /rest-api/phones/{userId}", 201),
+	UPDATE_PHONE("update-phone", "PUT /rest-api/phones/{userId}", 200),
+	DELETE_PHONE("delete-phone", "DELETE /rest-api/phones/{userId}", 204);
+
+	private final String key;
+	private final String route;
+	private final int expectedStatus;
+
+	Operation(String key, String route, int expectedStatus) {
+		this.key = key;
+		this.route = route;
+		this.expectedStatus = expectedStatus;
+	}
+
+	String key() {
+		return key;
+	}
+
+	String route() {
+		return route;
+	}
+
+	int expectedStatus() {
+		return expectedStatus;
+	}
+
+	static Operation of(String key) {
+		return Arrays.stream(values())
+				.filter(operation -> operation.key.equals(key))
+				.findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Unknown operation: " + key));
+	}
+}
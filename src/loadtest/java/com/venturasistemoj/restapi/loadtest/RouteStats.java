@@ -0,0 +1,77 @@
+package com.venturasistemoj.restapi.loadtest;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Results of the requests of a route in the measurement window: the latency histogram of the successful requests, in
+ * nanoseconds with 3 significant digits, and the errors by cause (unexpected status code or exception).
+ *
+ * @author Wilson Ventura
+ */
+final class RouteStats {
+
+	private final Operation operation;
+	private final Histogram latencies = new ConcurrentHistogram(3);
+	private final LongAdder successes = new LongAdder(); // the histogram also counts the corrected samples
+	private final LongAdder skipped = new LongAdder();
+	private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+	RouteStats(Operation operation) {
+		this.operation = operation;
+	}
+
+	Operation operation() {
+		return operation;
+	}
+
+	/**
+	 * Records the latency of a successful request. With an expected interval, HdrHistogram also records the requests
+	 * a client could not send while this one was stalled (coordinated omission correction of closed loops).
+	 */
+	void success(long latencyNanos, long expectedIntervalNanos) {
+		successes.increment();
+		if(expectedIntervalNanos > 0)
+			latencies.recordValueWithExpectedInterval(latencyNanos, expectedIntervalNanos);
+		else
+			latencies.recordValue(latencyNanos);
+	}
+
+	void error(String cause) {
+		errors.computeIfAbsent(cause, key -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Counts an operation that was not sent because no user was ready for it.
+	 */
+	void skipped() {
+		skipped.increment();
+	}
+
+	Histogram latencies() {
+		return latencies;
+	}
+
+	long successCount() {
+		return successes.sum();
+	}
+
+	long skippedCount() {
+		return skipped.sum();
+	}
+
+	long errorCount() {
+		return errors.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	Map<String, Long> errorsByCause() {
+		Map<String, Long> byCause = new TreeMap<>();
+		errors.forEach((cause, count) -> byCause.put(cause, count.sum()));
+		return byCause;
+	}
+}
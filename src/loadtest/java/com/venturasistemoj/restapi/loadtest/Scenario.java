@@ -0,0 +1,135 @@
+package com.venturasistemoj.restapi.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Load scenario read from a properties file, either a file path or the name of a scenario of
+ * <code>src/loadtest/resources/scenarios</code>. Any property can be overridden on the command line.
+ *
+ * <ul>
+ * <li><code>mode</code>: <code>closed</code> (<code>clients</code> clients sending the next request as soon as the
+ * previous one completes) or <code>open</code> (requests arrive at the fixed <code>rate</code> per second whatever the
+ * response times, sent by up to <code>max-in-flight</code> concurrent senders);
+ * <li><code>warmup</code> and <code>duration</code>: the results of the warmup are discarded;
+ * <li><code>expected-interval</code>: closed loop only, the interval each client is expected to send requests at, used
+ * to correct the coordinated omission; calibrated from the mean latency of the warmup if not set;
+ * <li><code>request-timeout</code>, <code>seed.users</code> and <code>page-size</code> of the listings;
+ * <li><code>mix.&lt;operation&gt;</code>: relative weight of each <code>Operation</code>;
+ * <li><code>app.*</code>: properties of the in-process application, ignored against a running one.
+ * </ul>
+ *
+ * @author Wilson Ventura
+ */
+record Scenario(
+		String name,
+		String description,
+		Mode mode,
+		int clients,
+		int rate,
+		int maxInFlight,
+		Duration warmup,
+		Duration duration,
+		Duration expectedInterval,
+		Duration requestTimeout,
+		int seedUsers,
+		int pageSize,
+		Map<Operation, Integer> mix,
+		Map<String, String> appProperties) {
+
+	enum Mode { CLOSED, OPEN }
+
+	private static final String MIX_PREFIX = "mix.";
+	private static final String APP_PREFIX = "app.";
+
+	static Scenario load(String scenario, Map<String, String> overrides) throws IOException {
+
+		Properties properties = new Properties();
+		Path file = Path.of(scenario);
+
+		if(Files.isRegularFile(file))
+			try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			}
+		else
+			try (InputStream in = Scenario.class.getResourceAsStream("/scenarios/" + scenario + ".properties")) {
+				if(in == null)
+					throw new IllegalArgumentException("Scenario not found: " + scenario);
+				properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+			}
+
+		properties.putAll(overrides);
+
+		Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+		Map<String, String> appProperties = new LinkedHashMap<>();
+
+		for(String key : properties.stringPropertyNames()) {
+			if(key.startsWith(MIX_PREFIX)) {
+				int weight = Integer.parseInt(properties.getProperty(key).trim());
+				if(weight > 0)
+					mix.put(Operation.of(key.substring(MIX_PREFIX.length())), weight);
+			} else if(key.startsWith(APP_PREFIX))
+				appProperties.put(key.substring(APP_PREFIX.length()), properties.getProperty(key).trim());
+		}
+
+		if(mix.isEmpty())
+			throw new IllegalArgumentException("Scenario without operations (mix.*): " + scenario);
+
+		Mode mode = Mode.valueOf(properties.getProperty("mode", "closed").trim().toUpperCase());
+		int clients = Integer.parseInt(properties.getProperty("clients", "16").trim());
+		int rate = Integer.parseInt(properties.getProperty("rate", "100").trim());
+		int maxInFlight = Integer.parseInt(properties.getProperty("max-in-flight", "256").trim());
+
+		if(clients < 1 || rate < 1 || maxInFlight < 1)
+			throw new IllegalArgumentException("clients, rate and max-in-flight must be positive: " + scenario);
+
+		return new Scenario(
+				file.getFileName().toString().replaceFirst("\\.properties$", ""),
+				properties.getProperty("description", ""),
+				mode,
+				clients,
+				rate,
+				maxInFlight,
+				duration(properties, "warmup", "10s"),
+				duration(properties, "duration", "30s"),
+				properties.containsKey("expected-interval") ? duration(properties, "expected-interval", null) : null,
+				duration(properties, "request-timeout", "30s"),
+				Integer.parseInt(properties.getProperty("seed.users", "1000").trim()),
+				Integer.parseInt(properties.getProperty("page-size", "20").trim()),
+				mix,
+				appProperties);
+	}
+
+	/**
+	 * Picks an operation at random, according to the weights of the mix.
+	 */
+	Operation pick(Random random) {
+
+		int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+		int point = random.nextInt(total);
+
+		for(Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+			point -= entry.getValue();
+			if(point < 0)
+				return entry.getKey();
+		}
+		throw new IllegalStateException(); // unreachable: point < total
+	}
+
+	private static Duration duration(Properties properties, String key, String defaultValue) {
+		return DurationStyle.detectAndParse(properties.getProperty(key, defaultValue).trim());
+	}
+}
@@ -0,0 +1,302 @@
+package com.venturasistemoj.restapi.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+
+/**
+ * Builds the requests of the operations and keeps the users they target.
+ *
+ * <p>The seeded users, each with an address and a phone, are read and updated. The users created during the run move
+ * through the queues of their lifecycle (see <code>Operation</code>), so no two requests create, change or delete the
+ * same resource at the same time and every request is expected to succeed.</p>
+ *
+ * <p>The generated CPFs, names and e-mails include a random run id, so runs against a running application do not
+ * conflict with the users of previous runs.</p>
+ *
+ * @author Wilson Ventura
+ */
+final class Workload {
+
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+	private static final int SEED_CHUNK = 1000;
+
+	/**
+	 * Request of an operation and what to do with the body of its successful response.
+	 */
+	record Call(Operation operation, HttpRequest request, Consumer<String> onSuccess) {}
+
+	private record Seeded(long index, long userId, long phoneId) {}
+
+	private record Created(long index, long userId, Long phoneId) {
+
+		Created withPhone(long phoneId) {
+			return new Created(index, userId, phoneId);
+		}
+	}
+
+	private final URI base;
+	private final Duration requestTimeout;
+	private final int pageSize;
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final long runId = ThreadLocalRandom.current().nextLong(1, 1000);
+	private final AtomicLong nextIndex = new AtomicLong();
+
+	private final List<Seeded> seeded = new ArrayList<>();
+	private final List<String> pageCursors = new ArrayList<>(); // null for the first page
+
+	// lifecycle of the users created during the run
+	private final Queue<Created> withoutAddress = new ConcurrentLinkedQueue<>();
+	private final Queue<Created> withoutPhone = new ConcurrentLinkedQueue<>();
+	private final Queue<Created> onboarded = new ConcurrentLinkedQueue<>();
+	private final Queue<Created> phoneDeleted = new ConcurrentLinkedQueue<>();
+	private final Queue<Created> addressDeleted = new ConcurrentLinkedQueue<>();
+
+	Workload(URI base, Duration requestTimeout, int pageSize) {
+		this.base = base;
+		this.requestTimeout = requestTimeout;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Imports the seeded users with the bulk API, then walks the paged listing to collect the page cursors and the ids
+	 * of the seeded phones.
+	 */
+	void seed(HttpClient client, int users) throws IOException, InterruptedException {
+
+		Map<Long, Long> indexByUserId = new HashMap<>();
+
+		for(long first = 1; first <= users; first += SEED_CHUNK) {
+
+			List<Map<String, Object>> rows = new ArrayList<>(SEED_CHUNK);
+			for(long index = first; index < first + SEED_CHUNK && index <= users; index++) {
+				Map<String, Object> user = user(index, false);
+				user.put("addressDTO", address(index, false));
+				user.put("phonesDTO", List.of(phone(index, null, false)));
+				rows.add(user);
+			}
+
+			JsonNode report = send(client, request("/rest-api/users/bulk").POST(json(rows)).build(), 200);
+			for(JsonNode row : report.get("rows")) {
+				if( ! "CREATED".equals(row.get("status").asText()))
+					throw new IllegalStateException("Seed user rejected: " + row.get("message").asText());
+				indexByUserId.put(row.get("userId").asLong(), first + row.get("index").asLong());
+			}
+		}
+		nextIndex.set(users + 1L);
+
+		String cursor = null;
+		do {
+			pageCursors.add(cursor);
+			JsonNode page = send(client, request(listing(cursor)).GET().build(), 200);
+
+			for(JsonNode user : page.get("items")) {
+				Long index = indexByUserId.get(user.get("userId").asLong());
+				if(index != null)
+					seeded.add(new Seeded(index, user.get("userId").asLong(),
+							user.get("phonesDTO").get(0).get("phoneId").asLong()));
+			}
+
+			cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+		} while(cursor != null);
+
+		if(seeded.size() != users)
+			throw new IllegalStateException("Seeded " + users + " users, listed " + seeded.size());
+	}
+
+	/**
+	 * Returns the call of the operation, or <code>null</code> if no user is ready for it (such as
+	 * <code>create-address</code> before any <code>create-user</code> completed).
+	 */
+	Call next(Operation operation) {
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		boolean alternate = random.nextBoolean(); // updates alternate between two versions of the data
+
+		switch(operation) {
+
+		case GET_USER:
+			return call(operation, request("/rest-api/users/" + seeded().userId()).GET());
+
+		case LIST_USERS:
+			return call(operation, request(listing(pageCursors.get(random.nextInt(pageCursors.size())))).GET());
+
+		case UPDATE_USER: {
+			Seeded user = seeded();
+			return call(operation, request("/rest-api/users/" + user.userId()).PUT(json(user(user.index(), alternate))));
+		}
+
+		case GET_ADDRESS:
+			return call(operation, request("/rest-api/adresses/" + seeded().userId()).GET());
+
+		case UPDATE_ADDRESS: {
+			Seeded user = seeded();
+			return call(operation, request("/rest-api/adresses/" + user.userId()).PUT(json(address(user.index(), alternate))));
+		}
+
+		case GET_PHONES:
+			return call(operation, request("/rest-api/phones/" + seeded().userId()).GET());
+
+		case UPDATE_PHONE: {
+			Seeded user = seeded();
+			return call(operation, request("/rest-api/phones/" + user.userId())
+					.PUT(json(phone(user.index(), user.phoneId(), alternate))));
+		}
+
+		case CREATE_USER: {
+			long index = nextIndex.getAndIncrement();
+			return new Call(operation, request("/rest-api/users").POST(json(user(index, false))).build(),
+					body -> withoutAddress.add(new Created(index, read(body).get("userId").asLong(), null)));
+		}
+
+		case CREATE_ADDRESS: {
+			Created user = withoutAddress.poll();
+			return user == null ? null : new Call(operation,
+					request("/rest-api/adresses/" + user.userId()).POST(json(address(user.index(), false))).build(),
+					body -> withoutPhone.add(user));
+		}
+
+		case CREATE_PHONE: {
+			Created user = withoutPhone.poll();
+			return user == null ? null : new Call(operation,
+					request("/rest-api/phones/" + user.userId()).POST(json(phone(user.index(), null, false))).build(),
+					body -> onboarded.add(user.withPhone(read(body).get("phoneId").asLong())));
+		}
+
+		case DELETE_PHONE: {
+			Created user = onboarded.poll();
+			return user == null ? null : new Call(operation, request("/rest-api/phones/" + user.userId())
+					.method("DELETE", json(phone(user.index(), user.phoneId(), false))).build(),
+					body -> phoneDeleted.add(user));
+		}
+
+		case DELETE_ADDRESS: {
+			Created user = phoneDeleted.poll();
+			return user == null ? null : new Call(operation,
+					request("/rest-api/adresses/" + user.userId()).DELETE().build(),
+					body -> addressDeleted.add(user));
+		}
+
+		case DELETE_USER: {
+			Created user = furthest(addressDeleted, phoneDeleted, onboarded, withoutPhone, withoutAddress);
+			return user == null ? null : new Call(operation,
+					request("/rest-api/users/" + user.userId()).DELETE().build(), body -> {});
+		}
+
+		default:
+			throw new IllegalArgumentException(operation.name());
+		}
+	}
+
+	private Call call(Operation operation, HttpRequest.Builder request) {
+		return new Call(operation, request.build(), body -> {});
+	}
+
+	private Seeded seeded() {
+		return seeded.get(ThreadLocalRandom.current().nextInt(seeded.size()));
+	}
+
+	@SafeVarargs
+	private static Created furthest(Queue<Created>... queues) {
+		for(Queue<Created> queue : queues) {
+			Created user = queue.poll();
+			if(user != null)
+				return user;
+		}
+		return null;
+	}
+
+	private String listing(String cursor) {
+		return "/rest-api/users?limit=" + pageSize
+				+ (cursor == null ? "" : "&after=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+	}
+
+	private Map<String, Object> user(long index, boolean alternate) {
+
+		Map<String, Object> user = new LinkedHashMap<>();
+		user.put("name", "Load" + runId + "-" + index);
+		user.put("surName", "Test");
+		user.put("birthDate", LocalDate.of(1970, Month.JANUARY, 1).plusDays(index % 15_000).format(DATE_FORMAT));
+		user.put("cpf", Cpfs.withCheckDigits(runId * 1_000_000L + index));
+		user.put("email", "load" + runId + "." + index + (alternate ? "@mail.com" : "@prov.com"));
+		return user;
+	}
+
+	private static Map<String, Object> address(long index, boolean alternate) {
+
+		Map<String, Object> address = new LinkedHashMap<>();
+		address.put("publicPlace", "Rua");
+		address.put("streetAddress", "Conde Deu, " + index);
+		address.put("complement", alternate ? "Fundos" : "Casa");
+		address.put("city", "Niterói");
+		address.put("state", "RJ");
+		address.put("zipCode", "24.020-000");
+		return address;
+	}
+
+	private static Map<String, Object> phone(long index, Long phoneId, boolean alternate) {
+
+		Map<String, Object> phone = new LinkedHashMap<>();
+		phone.put("phoneId", phoneId);
+		phone.put("type", "Cel");
+		phone.put("number", String.format("(21) 9%d%03d-%04d", alternate ? 8 : 9, (index / 10_000) % 1000, index % 10_000));
+		return phone;
+	}
+
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(base.resolve(path))
+				.timeout(requestTimeout)
+				.header("Content-Type", "application/json")
+				.header("Accept", "application/json");
+	}
+
+	private HttpRequest.BodyPublisher json(Object body) {
+		try {
+			return BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private JsonNode read(String body) {
+		try {
+			return objectMapper.readTree(body);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private JsonNode send(HttpClient client, HttpRequest request, int expectedStatus)
+			throws IOException, InterruptedException {
+
+		HttpResponse<String> response = client.send(request, BodyHandlers.ofString());
+		if(response.statusCode() != expectedStatus)
+			throw new IllegalStateException(request.method() + " " + request.uri() + ": " + response.statusCode()
+					+ " " + response.body());
+		return read(response.body());
+	}
+}
@@ -0,0 +1,308 @@
+package com.venturasistemoj.restapi.aggregates;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.venturasistemoj.restapi.domain.address.Address;
+import com.venturasistemoj.restapi.domain.user.User;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * In-memory counters of the <code>Aggregates</code>, maintained by the services on every write.
+ *
+ * <p>Each counter is a <code>LongAdder</code>, striped under contention, so concurrent writers do not serialize on a
+ * shared count, and <code>snapshot()</code> reads them without touching the database.</p>
+ *
+ * <p>Like the <code>DtoCache</code> invalidations, the changes are applied <strong>after commit</strong>: inside a
+ * transaction they are merged into a per-transaction delta, applied by the <code>afterCommit</code> synchronization, so
+ * a rolled back write changes no count and a transaction applies all of its changes at once.</p>
+ *
+ * <p>Writes that bypass the services, a crash between a commit and its <code>afterCommit</code>, or a restart leave
+ * the counters apart from the database. <code>reconcile</code> recounts the aggregates from the database and corrects
+ * the counters that drifted. The recount runs at READ COMMITTED, one query per table, so it may or may not include a
+ * write committed while it runs: the keys changed while the recount runs are journaled and left as they are, and the
+ * recount is retried for them, up to <code>RECONCILE_ATTEMPTS</code> times, then left for the next reconciliation.
+ * Only a change committed before the recount ends and applied after the journal closes, within the gap between a
+ * commit and its <code>afterCommit</code>, can still be corrected twice.</p>
+ *
+ * <p>As a <code>MeterBinder</code>, the number of corrected counters is exported as the
+ * <code>rest-api.aggregates.corrections</code> metric.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Component
+public class AggregateCounters implements MeterBinder {
+
+	public enum Aggregate { USERS, USERS_BY_STATE, ADRESSES_BY_CITY, PHONES_BY_TYPE, USERS_BY_BIRTH_DECADE }
+
+	record Key(Aggregate aggregate, String value) {}
+
+	private static final String TOTAL = "";
+
+	private static final int RECONCILE_ATTEMPTS = 3;
+
+	private final ConcurrentHashMap<Key, LongAdder> counters = new ConcurrentHashMap<>();
+	private final AtomicLong corrections = new AtomicLong();
+
+	// changes apply under the read lock, concurrently, and the reconciliation replaces the counts under the write lock
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private volatile Set<Key> journal; // the keys changed while a reconciliation recounts
+
+	public void addUser(User user) {
+		countUser(user, 1);
+	}
+
+	/**
+	 * Removes the user with the address and phones removed in cascade with it.
+	 */
+	public void removeUser(User user) {
+		countUser(user, -1);
+	}
+
+	public void changeBirthDate(LocalDate from, LocalDate to) {
+		if( ! decade(from).equals(decade(to))) {
+			add(Aggregate.USERS_BY_BIRTH_DECADE, decade(from), -1);
+			add(Aggregate.USERS_BY_BIRTH_DECADE, decade(to), 1);
+		}
+	}
+
+	public void addAddress(String state, String city) {
+		countAddress(state, city, 1);
+	}
+
+	public void removeAddress(String state, String city) {
+		countAddress(state, city, -1);
+	}
+
+	public void addPhone(String type) {
+		add(Aggregate.PHONES_BY_TYPE, type, 1);
+	}
+
+	public void removePhone(String type) {
+		add(Aggregate.PHONES_BY_TYPE, type, -1);
+	}
+
+	public void changePhoneType(String from, String to) {
+		if( ! from.equals(to)) {
+			removePhone(from);
+			addPhone(to);
+		}
+	}
+
+	/**
+	 * Returns the current counts. Reads only the counters.
+	 */
+	public Aggregates snapshot() {
+
+		Map<Aggregate, Map<String, Long>> counts = new EnumMap<>(Aggregate.class);
+		for(Aggregate aggregate : Aggregate.values())
+			counts.put(aggregate, new TreeMap<>());
+
+		counters.forEach((key, counter) -> {
+			long count = counter.sum();
+			if(count != 0)
+				counts.get(key.aggregate()).put(key.value(), count);
+		});
+
+		return Aggregates.builder()
+				.users(counts.get(Aggregate.USERS).getOrDefault(TOTAL, 0L))
+				.usersByState(counts.get(Aggregate.USERS_BY_STATE))
+				.adressesByCity(counts.get(Aggregate.ADRESSES_BY_CITY))
+				.phonesByType(counts.get(Aggregate.PHONES_BY_TYPE))
+				.usersByBirthDecade(counts.get(Aggregate.USERS_BY_BIRTH_DECADE))
+				.build();
+	}
+
+	/**
+	 * Recounts the aggregates with <code>recount</code> and corrects the counters that differ from the recounted values,
+	 * except those changed while <code>recount</code> ran, which are recounted again. Returns the number of corrected
+	 * counters.
+	 */
+	public synchronized int reconcile(Supplier<Aggregates> recount) {
+
+		Set<Key> pending = null; // all the keys
+		int corrected = 0;
+
+		for(int attempt = 0; attempt < RECONCILE_ATTEMPTS && (pending == null || ! pending.isEmpty()); attempt++) {
+
+			setJournal(ConcurrentHashMap.newKeySet());
+
+			Map<Key, Long> expected;
+			try {
+				expected = keys(recount.get());
+			} catch (RuntimeException e) {
+				setJournal(null);
+				throw e;
+			}
+
+			lock.writeLock().lock();
+			try {
+				Set<Key> changed = journal;
+				journal = null;
+
+				Set<Key> keys = pending;
+				if(keys == null) {
+					keys = new HashSet<>(counters.keySet());
+					keys.addAll(expected.keySet());
+				}
+
+				pending = new HashSet<>();
+				for(Key key : keys) {
+
+					if(changed.contains(key)) { // the recount may or may not include the change
+						pending.add(key);
+						continue;
+					}
+
+					LongAdder counter = counters.computeIfAbsent(key, k -> new LongAdder());
+					long drift = expected.getOrDefault(key, 0L) - counter.sum();
+
+					if(drift != 0) {
+						counter.add(drift);
+						corrected++;
+					}
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+
+		corrections.addAndGet(corrected);
+		return corrected;
+	}
+
+	public long correctionCount() {
+		return corrections.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("rest-api.aggregates.corrections", corrections, AtomicLong::get)
+				.description("Aggregate counters corrected by the reconciliation")
+				.register(registry);
+	}
+
+	/**
+	 * Returns the decade key of a birth date: <code>1975-06-01</code> is in <code>1970</code>.
+	 */
+	public static String decade(LocalDate birthDate) {
+		return String.valueOf(Math.floorDiv(birthDate.getYear(), 10) * 10);
+	}
+
+	/**
+	 * Returns the key of a city, qualified by its state since city names repeat across states.
+	 */
+	public static String city(String city, String state) {
+		return city + "/" + state;
+	}
+
+	private void countUser(User user, int sign) {
+
+		add(Aggregate.USERS, TOTAL, sign);
+		add(Aggregate.USERS_BY_BIRTH_DECADE, decade(user.getBirthDate()), sign);
+
+		Address address = user.getAddress();
+		if(address != null)
+			countAddress(address.getState(), address.getCity(), sign);
+
+		if(user.getPhones() != null)
+			user.getPhones().forEach(phone -> add(Aggregate.PHONES_BY_TYPE, phone.getType(), sign));
+	}
+
+	private void countAddress(String state, String city, int sign) {
+		add(Aggregate.USERS_BY_STATE, state, sign); // a user has at most one address
+		add(Aggregate.ADRESSES_BY_CITY, city(city, state), sign);
+	}
+
+	// merges the change into the delta of the current transaction, or applies it if there is no transaction
+	@SuppressWarnings("unchecked")
+	private void add(Aggregate aggregate, String value, long delta) {
+
+		Key key = new Key(aggregate, value);
+
+		if( ! TransactionSynchronizationManager.isSynchronizationActive()) {
+			apply(Map.of(key, delta));
+			return;
+		}
+
+		Map<Key, Long> pending = (Map<Key, Long>) TransactionSynchronizationManager.getResource(this);
+
+		if(pending == null) {
+
+			Map<Key, Long> transactionDelta = new HashMap<>();
+			TransactionSynchronizationManager.bindResource(this, transactionDelta);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCommit() {
+					apply(transactionDelta);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResource(AggregateCounters.this);
+				}
+			});
+
+			pending = transactionDelta;
+		}
+
+		pending.merge(key, delta, Long::sum);
+	}
+
+	private void apply(Map<Key, Long> delta) {
+
+		lock.readLock().lock();
+		try {
+			delta.forEach((key, change) -> counters.computeIfAbsent(key, k -> new LongAdder()).add(change));
+
+			Set<Key> reconciling = journal;
+			if(reconciling != null)
+				reconciling.addAll(delta.keySet());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// the journal starts and stops between applied changes
+	private void setJournal(Set<Key> journal) {
+
+		lock.writeLock().lock();
+		try {
+			this.journal = journal;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private static Map<Key, Long> keys(Aggregates aggregates) {
+
+		Map<Key, Long> keys = new HashMap<>();
+		keys.put(new Key(Aggregate.USERS, TOTAL), aggregates.getUsers());
+		aggregates.getUsersByState().forEach((value, count) -> keys.put(new Key(Aggregate.USERS_BY_STATE, value), count));
+		aggregates.getAdressesByCity().forEach((value, count) -> keys.put(new Key(Aggregate.ADRESSES_BY_CITY, value), count));
+		aggregates.getPhonesByType().forEach((value, count) -> keys.put(new Key(Aggregate.PHONES_BY_TYPE, value), count));
+		aggregates.getUsersByBirthDecade()
+				.forEach((value, count) -> keys.put(new Key(Aggregate.USERS_BY_BIRTH_DECADE, value), count));
+		return keys;
+	}
+}
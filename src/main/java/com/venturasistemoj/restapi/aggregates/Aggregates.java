@@ -0,0 +1,32 @@
+package com.venturasistemoj.restapi.aggregates;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aggregate counts of users, adresses and phones.
+ *
+ * <p><code>usersByState</code> counts the users by the state of their address, <code>adressesByCity</code> the
+ * adresses by <code>city/state</code>, <code>phonesByType</code> the phone numbers by type and
+ * <code>usersByBirthDecade</code> the users by the first year of the decade of their birth date. Keys without any
+ * count are omitted and the keys of each map are sorted.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Aggregates {
+
+	private long users;
+	private Map<String, Long> usersByState;
+	private Map<String, Long> adressesByCity;
+	private Map<String, Long> phonesByType;
+	private Map<String, Long> usersByBirthDecade;
+}
@@ -0,0 +1,60 @@
+package com.venturasistemoj.restapi.aggregates;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Read-only repository that recounts the <code>Aggregates</code> from the database with <code>GROUP BY</code> queries,
+ * used by the reconciliation of <code>AggregateCounters</code>.
+ *
+ * @author Wilson Ventura
+ */
+
+@Repository
+public class AggregatesJdbcRepository {
+
+	private static final String COUNT_USERS = "select count(*) from users";
+
+	private static final String COUNT_USERS_BY_BIRTH_DECADE = "select extract(year from birth_date) / 10 * 10 as decade, "
+			+ "count(*) as total from users group by extract(year from birth_date) / 10 * 10";
+
+	private static final String COUNT_ADRESSES_BY_CITY =
+			"select state, city, count(*) as total from adresses group by state, city";
+
+	private static final String COUNT_PHONES_BY_TYPE = "select type, count(*) as total from phones group by type";
+
+	@Autowired private JdbcTemplate jdbcTemplate;
+
+	@Transactional(readOnly = true)
+	public Aggregates countAll() {
+
+		Map<String, Long> usersByState = new TreeMap<>();
+		Map<String, Long> adressesByCity = new TreeMap<>();
+		Map<String, Long> phonesByType = new TreeMap<>();
+		Map<String, Long> usersByBirthDecade = new TreeMap<>();
+
+		jdbcTemplate.query(COUNT_USERS_BY_BIRTH_DECADE,
+				rs -> { usersByBirthDecade.put(rs.getString("decade"), rs.getLong("total")); });
+
+		jdbcTemplate.query(COUNT_ADRESSES_BY_CITY, rs -> {
+			long total = rs.getLong("total");
+			usersByState.merge(rs.getString("state"), total, Long::sum);
+			adressesByCity.put(AggregateCounters.city(rs.getString("city"), rs.getString("state")), total);
+		});
+
+		jdbcTemplate.query(COUNT_PHONES_BY_TYPE, rs -> { phonesByType.put(rs.getString("type"), rs.getLong("total")); });
+
+		return Aggregates.builder()
+				.users(jdbcTemplate.queryForObject(COUNT_USERS, Long.class))
+				.usersByState(usersByState)
+				.adressesByCity(adressesByCity)
+				.phonesByType(phonesByType)
+				.usersByBirthDecade(usersByBirthDecade)
+				.build();
+	}
+}
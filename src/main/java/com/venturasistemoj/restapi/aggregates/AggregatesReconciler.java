@@ -0,0 +1,41 @@
+package com.venturasistemoj.restapi.aggregates;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.venturasistemoj.restapi.routing.ReplicaRouting;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Periodic reconciliation of the <code>AggregateCounters</code> with the database.
+ *
+ * <p>Runs at startup, which loads the counters of an existing database, and then every
+ * <code>rest-api.aggregates.reconcile-interval</code> after the end of the previous run.</p>
+ * <p>The database is counted on the primary, since the counters already include the writes a replica may lack.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Component
+@Slf4j
+public class AggregatesReconciler {
+
+	@Autowired private AggregateCounters aggregateCounters;
+	@Autowired private AggregatesJdbcRepository aggregatesJdbcRepository;
+
+	@Scheduled(initialDelay = 0, fixedDelayString = "${rest-api.aggregates.reconcile-interval:PT5M}")
+	public int reconcile() {
+
+		int corrected;
+		try (ReplicaRouting.Scope primary = ReplicaRouting.primary()) {
+			corrected = aggregateCounters.reconcile(aggregatesJdbcRepository::countAll);
+		}
+
+		if(corrected > 0)
+			log.info("Aggregate counters reconciled with the database: {} counters corrected", corrected);
+
+		return corrected;
+	}
+}
@@ -0,0 +1,50 @@
+package com.venturasistemoj.restapi.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistics of a <code>DtoCache</code>.
+ *
+ * <p><code>weight</code> is the sum of the entry weights, the bytes of a cache bounded by bytes, or the
+ * <code>size</code> of a cache bounded by entries. <code>evictionCount</code> counts the entries evicted by size or age, <code>invalidationCount</code> the
+ * invalidations requested by committed writes.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatistics {
+
+	private String name;
+	private long size;
+	private long weight;
+	private long hitCount;
+	private long missCount;
+	private double hitRate;
+	private long evictionCount;
+	private long invalidationCount;
+
+	public static CacheStatistics of(DtoCache<?, ?> cache) {
+
+		CacheStats stats = cache.stats();
+
+		return CacheStatistics.builder()
+				.name(cache.getName())
+				.size(cache.size())
+				.weight(cache.weight())
+				.hitCount(stats.hitCount())
+				.missCount(stats.missCount())
+				.hitRate(stats.hitRate())
+				.evictionCount(stats.evictionCount())
+				.invalidationCount(cache.invalidationCount())
+				.build();
+	}
+}
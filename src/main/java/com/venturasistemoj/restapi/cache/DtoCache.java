@@ -0,0 +1,223 @@
+package com.venturasistemoj.restapi.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.venturasistemoj.restapi.routing.ReplicaRouting;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded read-through cache of mapped DTOs keyed by <code>userId</code>.
+ *
+ * <p>Entries are evicted by size (<code>maximumSize</code>), or by the sum of their weights (<code>maximumWeight</code>,
+ * e.g. bytes), and by age (<code>timeToLive</code>) and hit, miss and eviction statistics are recorded.</p>
+ *
+ * <p>Writes invalidate entries <strong>after commit</strong>: an invalidation requested inside a transaction is
+ * deferred to the <code>afterCommit</code> synchronization, so a rolled back write does not evict anything and a reader
+ * cannot repopulate the entry with data the writer is about to replace.</p>
+ *
+ * <p>A reader that loaded the value before a write committed could still put the old value after the invalidation ran.
+ * To prevent this, every invalidation increments a counter which the reader samples before loading: after putting
+ * the value, if the counter changed the reader removes its own entry. Since the invalidation increments the counter
+ * before removing the key, either the reader sees the new counter or the invalidation sees the reader's entry, so no
+ * stale entry survives a committed write.</p>
+ *
+ * <p>For the same reason the loaders read the primary data source, not a replica (see <code>ReplicaRouting</code>):
+ * a lagging replica would return the value the last invalidation removed.</p>
+ *
+ * <p>As a <code>MeterBinder</code>, the cache statistics are exported as <code>cache.*</code> metrics tagged with the
+ * cache name.</p>
+ *
+ * @author Wilson Ventura
+ */
+public class DtoCache<K, V> implements MeterBinder {
+
+	/**
+	 * Loads the value of a key on a cache miss.
+	 */
+	@FunctionalInterface
+	public interface Loader<K, V> {
+		V load(K key) throws NotFoundException;
+	}
+
+	/**
+	 * Loads the values of many keys on cache misses, at once. Keys without a value are left out of the returned map.
+	 */
+	@FunctionalInterface
+	public interface BulkLoader<K, V> {
+		Map<K, V> loadAll(List<K> keys);
+	}
+
+	private final String name;
+	private final Cache<K, V> cache;
+	private final AtomicLong invalidations = new AtomicLong();
+
+	public DtoCache(String name, long maximumSize, Duration timeToLive) {
+		this.name = name;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.expireAfterWrite(timeToLive)
+				.recordStats()
+				.build();
+	}
+
+	public DtoCache(String name, long maximumWeight, Weigher<? super K, ? super V> weigher, Duration timeToLive) {
+		this.name = name;
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(maximumWeight)
+				.weigher(weigher)
+				.expireAfterWrite(timeToLive)
+				.recordStats()
+				.build();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the cached value of the key or loads, caches and returns it. Exceptions of the loader are propagated and
+	 * nothing is cached.
+	 */
+	public V get(K key, Loader<K, V> loader) throws NotFoundException {
+
+		V cached = cache.getIfPresent(key); // records the hit or the miss
+		if(cached != null)
+			return cached;
+
+		long stamp = invalidations.get();
+		V loaded;
+		try (ReplicaRouting.Scope primary = ReplicaRouting.primary()) {
+			loaded = loader.load(key);
+		}
+
+		cache.put(key, loaded);
+		if(invalidations.get() != stamp)
+			cache.asMap().remove(key, loaded); // a write committed while loading: the value may be stale
+
+		return loaded;
+	}
+
+	/**
+	 * Returns the cached values of the keys, loading and caching the missing ones with a single call of the loader,
+	 * as <code>get</code> does. The returned map follows the order of the keys and leaves out the keys without a value.
+	 */
+	public Map<K, V> getAll(Collection<K> keys, BulkLoader<K, V> loader) {
+
+		Map<K, V> values = new LinkedHashMap<>();
+		List<K> missing = new ArrayList<>();
+
+		for(K key : keys) {
+			V cached = cache.getIfPresent(key); // records the hit or the miss
+			values.put(key, cached); // a missing key keeps its place until loaded
+			if(cached == null)
+				missing.add(key);
+		}
+
+		if(missing.isEmpty())
+			return values;
+
+		long stamp = invalidations.get();
+		Map<K, V> loaded;
+		try (ReplicaRouting.Scope primary = ReplicaRouting.primary()) {
+			loaded = loader.loadAll(missing);
+		}
+
+		cache.putAll(loaded);
+		if(invalidations.get() != stamp)
+			loaded.forEach((key, value) -> cache.asMap().remove(key, value)); // see get
+
+		for(K key : missing) {
+			V value = loaded.get(key);
+			if(value != null)
+				values.put(key, value);
+			else
+				values.remove(key);
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the cached value of the key, or <code>null</code> without loading it.
+	 */
+	public V getIfPresent(K key) {
+		return cache.getIfPresent(key); // records the hit or the miss
+	}
+
+	/**
+	 * Invalidates the key after the current transaction commits, or immediately if there is no transaction.
+	 */
+	public void invalidate(K key) {
+
+		if(TransactionSynchronizationManager.isSynchronizationActive())
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					evict(key);
+				}
+			});
+		else
+			evict(key);
+	}
+
+	public void invalidateAll() {
+		invalidations.incrementAndGet();
+		cache.invalidateAll();
+	}
+
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	public long size() {
+		return cache.estimatedSize();
+	}
+
+	/**
+	 * Returns the sum of the entry weights of a cache bounded by weight, or the size of a cache bounded by size, after
+	 * the pending evictions.
+	 */
+	public long weight() {
+		cache.cleanUp();
+		return cache.policy().eviction()
+				.map(eviction -> eviction.weightedSize().orElse(size()))
+				.orElseGet(this::size);
+	}
+
+	public long invalidationCount() {
+		return invalidations.get();
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+
+		new CaffeineCacheMetrics<>(cache, name, List.of()).bindTo(registry);
+
+		FunctionCounter.builder("cache.invalidations", invalidations, AtomicLong::get)
+				.tag("cache", name)
+				.description("Invalidations requested by committed writes")
+				.register(registry);
+	}
+
+	private void evict(K key) {
+		invalidations.incrementAndGet(); // must precede the removal, see the class comment
+		cache.invalidate(key);
+	}
+}
@@ -0,0 +1,51 @@
+package com.venturasistemoj.restapi.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The encoded body of a response: its JSON bytes, when worth it a gzip-encoded copy of them, and the entity tag of
+ * the representation, <code>null</code> if it has none.
+ *
+ * <p>The entity tag is derived from the versions of the entities the body was mapped from (see <code>Tagged</code>),
+ * so it is always the tag of the body, however the body and a write interleave.</p>
+ * <p>The gzip copy is <code>null</code> for bodies shorter than the <code>gzipMinSize</code> they were encoded with,
+ * or that do not get shorter compressed.</p>
+ *
+ * @author Wilson Ventura
+ */
+public record SerializedResponse(byte[] json, byte[] gzip, String eTag) {
+
+	/**
+	 * Encodes the JSON bytes, compressing them when they have at least <code>gzipMinSize</code> bytes; a negative
+	 * <code>gzipMinSize</code> never compresses.
+	 */
+	public static SerializedResponse of(byte[] json, String eTag, int gzipMinSize) {
+
+		if(gzipMinSize < 0 || json.length < gzipMinSize)
+			return new SerializedResponse(json, null, eTag);
+
+		byte[] gzip = gzip(json);
+		return new SerializedResponse(json, gzip.length < json.length ? gzip : null, eTag);
+	}
+
+	/**
+	 * Returns the bytes held in memory, the weight of the entry in a cache bounded by bytes.
+	 */
+	public int weight() {
+		return json.length + (gzip == null ? 0 : gzip.length) + (eTag == null ? 0 : eTag.length());
+	}
+
+	private static byte[] gzip(byte[] json) {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 2);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+			gzip.write(json);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // in memory
+		}
+		return bytes.toByteArray();
+	}
+}
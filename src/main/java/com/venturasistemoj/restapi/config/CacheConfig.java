@@ -0,0 +1,70 @@
+package com.venturasistemoj.restapi.config;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.cache.SerializedResponse;
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.versioning.Tagged;
+
+/**
+ * This class provides the in-process caches of the mapped DTOs read by <code>getUserById</code>,
+ * <code>getAddressByUserId</code> and <code>getPhonesByUserId</code>, all of them keyed by <code>userId</code>. The
+ * adresses and phone sets are cached with the entity tag of their versions, see <code>Tagged</code>.
+ *
+ * <p>The size and age bounds are set by the <code>rest-api.cache.maximum-size</code> and
+ * <code>rest-api.cache.time-to-live</code> properties.</p>
+ * <p>Also provides the cache of the serialized <code>GET /rest-api/users/{userId}</code> responses, the JSON bytes
+ * and their gzip copy by <code>userId</code>, bounded by the bytes held (<code>rest-api.cache.responses.maximum-bytes
+ * </code>) instead of entries, since the size of a response depends on the phones of the user.</p>
+ * <p>The entity tags of the users, adresses and phone sets are cached by <code>EntityTag</code> key, so the
+ * conditional reads of a cached resource answer 304 without a query. A response with a body takes the tag cached
+ * with the body instead, the tag cached alone may be newer.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Configuration
+public class CacheConfig {
+
+	@Value("${rest-api.cache.maximum-size:10000}")
+	private long maximumSize;
+
+	@Value("${rest-api.cache.time-to-live:10m}")
+	private Duration timeToLive;
+
+	@Value("${rest-api.cache.responses.maximum-bytes:16777216}")
+	private long maximumBytes;
+
+	@Bean
+	public DtoCache<Long, UserDTO> userCache() {
+		return new DtoCache<>("users", maximumSize, timeToLive);
+	}
+
+	@Bean
+	public DtoCache<Long, Tagged<AddressDTO>> addressCache() {
+		return new DtoCache<>("adresses", maximumSize, timeToLive);
+	}
+
+	@Bean
+	public DtoCache<Long, Tagged<Set<PhoneNumberDTO>>> phonesCache() {
+		return new DtoCache<>("phones", maximumSize, timeToLive);
+	}
+
+	@Bean
+	public DtoCache<String, String> entityTagCache() {
+		return new DtoCache<>("entity-tags", maximumSize, timeToLive);
+	}
+
+	@Bean
+	public DtoCache<Long, SerializedResponse> userResponseCache() {
+		return new DtoCache<>("user-responses", maximumBytes, (userId, response) -> response.weight(), timeToLive);
+	}
+}
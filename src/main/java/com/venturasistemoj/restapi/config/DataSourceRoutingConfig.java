@@ -0,0 +1,106 @@
+package com.venturasistemoj.restapi.config;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.venturasistemoj.restapi.routing.DataSourceRoutingProperties;
+import com.venturasistemoj.restapi.routing.ReadYourWritesFilter;
+import com.venturasistemoj.restapi.routing.ReplicaHealthCheck;
+import com.venturasistemoj.restapi.routing.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * This class routes the read-only transactions to the replicas of <code>rest-api.datasource.replicas</code>.
+ *
+ * <p>The data source is a <code>ReplicaRoutingDataSource</code> over the HikariCP pool of the primary, configured by
+ * <code>spring.datasource.*</code>, and one HikariCP pool per replica. Every pool exports its <code>hikaricp.*</code>
+ * metrics tagged with its pool name, the name of the replica. <code>ReadYourWritesFilter</code> pins the reads of a
+ * client to the primary after its writes and <code>ReplicaHealthCheck</code> ejects and reinstates the replicas.</p>
+ * <p>Hibernate releases the connection at the end of each transaction, so each transaction is routed: by default
+ * Spring holds it for the whole session, which with open-in-view is the whole request, and a request reading before
+ * writing would write to the replica it read.</p>
+ * <p>Without replicas the data source is the one of Spring Boot and nothing is routed.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Configuration
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+@ConditionalOnProperty(name = "rest-api.datasource.replicas[0].url")
+public class DataSourceRoutingConfig {
+
+	@Bean
+	public DataSource dataSource(DataSourceProperties dataSourceProperties,
+			DataSourceRoutingProperties properties, Environment environment, MeterRegistry meterRegistry) {
+
+		HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+		primary.setMetricRegistry(meterRegistry); // Spring Boot cannot see the pool behind the routing data source
+
+		List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+
+		for(int i = 0; i < properties.getReplicas().size(); i++) {
+
+			DataSourceRoutingProperties.Replica replica = properties.getReplicas().get(i);
+			String name = replica.getName() != null ? replica.getName() : "replica-" + i;
+
+			HikariDataSource pool = new HikariDataSource();
+			pool.setPoolName(name);
+			pool.setJdbcUrl(replica.getUrl());
+			pool.setUsername(replica.getUsername());
+			pool.setPassword(replica.getPassword());
+			pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+			pool.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+			pool.setReadOnly(true);
+			pool.setInitializationFailTimeout(-1); // a replica down at startup is ejected, the application starts
+			pool.setMetricRegistry(meterRegistry);
+
+			replicas.add(new ReplicaRoutingDataSource.Replica(name, pool, () -> activeConnections(pool)));
+		}
+
+		return new ReplicaRoutingDataSource(primary, replicas, properties.getSelection(), meterRegistry);
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer connectionReleaseAfterTransaction() {
+		return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+				PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+	}
+
+	@Bean
+	public ReadYourWritesFilter readYourWritesFilter(DataSourceRoutingProperties properties) {
+		return new ReadYourWritesFilter(properties.getReadYourWritesWindow());
+	}
+
+	// the data source bean may be wrapped, by the statement counting proxy for one
+	@Bean
+	public ReplicaHealthCheck replicaHealthCheck(DataSource dataSource,
+			DataSourceRoutingProperties properties) throws SQLException {
+		return new ReplicaHealthCheck(dataSource.unwrap(ReplicaRoutingDataSource.class),
+				properties.getHealthCheckTimeout());
+	}
+
+	// the pool starts on its first connection, no connection is active before that
+	private static int activeConnections(HikariDataSource pool) {
+		HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+		return bean == null ? 0 : bean.getActiveConnections();
+	}
+}
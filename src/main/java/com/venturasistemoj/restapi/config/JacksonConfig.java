@@ -2,6 +2,8 @@ package com.venturasistemoj.restapi.config;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
 
 import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
@@ -10,11 +12,14 @@ import org.springframework.context.annotation.Configuration;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 
 /**
  * This class provides a configuration to customize the serialization and deserialization of Jackson
@@ -38,6 +43,12 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
  * <code>LocalDate</code> object. It expects the string to be in the format 'dd/MM/yyyy' and parses it using the
  * <code>DateTimeFormatter</code>.
  *
+ * Both are specialized for the 'dd/MM/yyyy' dates of the years 1 to 9999: the serializer writes the digits from a
+ * local <code>char[10]</code> into the generator, which copies them into its output buffer, and the deserializer reads
+ * them from the text characters of the parser, without the <code>String</code>, <code>StringBuilder</code> and parse context of each
+ * <code>DateTimeFormatter</code> call. Any other date or text is left to the <code>DateTimeFormatter</code>, so the
+ * wire format, the clamping of day 31 to the last day of the month and the errors are the same.
+ *
  * Finally, the <code>SimpleModule/<code> is added to the <code>Jackson2ObjectMapperBuilder</code> by calling
  * <code>jacksonObjectMapperBuilder.modules(module)</code>, ensuring that the custom serializers and deserializers are
  * registered with the Spring-managed <code>ObjectMapper</code>.
@@ -49,7 +60,11 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 @Configuration
 public class JacksonConfig {
 
-	private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+	public static final String DATE_PATTERN = "dd/MM/yyyy";
+
+	private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_PATTERN);
+
+	private static final int DATE_LENGTH = DATE_PATTERN.length();
 
 	/**
 	 * Nested class responsible for converting a <code>LocalDate</code> object into a string representation in the
@@ -60,8 +75,27 @@ public class JacksonConfig {
 		@Override
 		public void serialize(LocalDate localDate, JsonGenerator jsonGenerator, SerializerProvider serializerProvider)
 				throws IOException {
-			String formattedDate = localDate.format(formatter);
-			jsonGenerator.writeString(formattedDate);
+
+			int year = localDate.getYear();
+			if(year < 1 || year > 9999) { // signed or era years
+				jsonGenerator.writeString(localDate.format(formatter));
+				return;
+			}
+
+			char[] date = new char[DATE_LENGTH]; // does not escape, no per-thread state for virtual threads
+			writeTwoDigits(date, 0, localDate.getDayOfMonth());
+			date[2] = '/';
+			writeTwoDigits(date, 3, localDate.getMonthValue());
+			date[5] = '/';
+			writeTwoDigits(date, 6, year / 100);
+			writeTwoDigits(date, 8, year % 100);
+
+			jsonGenerator.writeString(date, 0, DATE_LENGTH); // copied into the output buffer
+		}
+
+		private static void writeTwoDigits(char[] date, int at, int value) {
+			date[at] = (char) ('0' + value / 10);
+			date[at + 1] = (char) ('0' + value % 10);
 		}
 	}
 
@@ -74,15 +108,57 @@ public class JacksonConfig {
 		@Override
 		public LocalDate deserialize(JsonParser jsonParser, DeserializationContext deserializationContext)
 				throws IOException {
+
+			if(jsonParser.hasToken(JsonToken.VALUE_STRING) && jsonParser.getTextLength() == DATE_LENGTH) {
+				LocalDate localDate = parse(jsonParser.getTextCharacters(), jsonParser.getTextOffset());
+				if(localDate != null)
+					return localDate;
+			}
+
 			String dateString = jsonParser.getText();
 			return LocalDate.parse(dateString, formatter);
 		}
+
+		/**
+		 * Returns the date of the 'dd/MM/yyyy' text at <code>offset</code>, or <code>null</code> if it is not a date of
+		 * the years 1 to 9999 with a day from 1 to 31, clamped to the last day of the month as the formatter does.
+		 */
+		private static LocalDate parse(char[] text, int offset) {
+
+			if(text[offset + 2] != '/' || text[offset + 5] != '/')
+				return null;
+
+			int day = readTwoDigits(text, offset);
+			int month = readTwoDigits(text, offset + 3);
+			int century = readTwoDigits(text, offset + 6);
+			int yearOfCentury = readTwoDigits(text, offset + 8);
+
+			if(day < 1 || day > 31 || month < 1 || month > 12 || century < 0 || yearOfCentury < 0)
+				return null;
+
+			int year = century * 100 + yearOfCentury;
+			if(year == 0)
+				return null;
+
+			return LocalDate.of(year, month, Math.min(day, Month.of(month).length(Year.isLeap(year))));
+		}
+
+		// -1 if any of the chars is not an ASCII digit
+		private static int readTwoDigits(char[] text, int at) {
+
+			int high = text[at] - '0';
+			int low = text[at + 1] - '0';
+
+			return high < 0 || high > 9 || low < 0 || low > 9 ? -1 : high * 10 + low;
+		}
 	}
 
 	/**
 	 * Defines custom serializers and deserializers for <code>LocalDate</code> using static nested classes
 	 * (<code>LocalDateSerializer</code> and <code>LocalDateDeserializer</code>), which implement the
 	 * <code>JsonSerializer</code> and <code>JsonDeserializer</code> interfaces respectively.
+	 * <p>Also sets the default of the property filters, such as <code>UserFields.FILTER</code>, to write every
+	 * property: a response replaces it only to select a sparse fieldset.</p>
 	 */
 	@Bean
 	public Jackson2ObjectMapperBuilderCustomizer customizeJacksonObjectMapper() {
@@ -99,6 +175,8 @@ public class JacksonConfig {
 			module.addDeserializer(LocalDate.class, new LocalDateDeserializer());
 
 			jacksonObjectMapperBuilder.modules(module); // Spring
+			jacksonObjectMapperBuilder.filters(new SimpleFilterProvider()
+					.setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
 		};
 	}
 
@@ -0,0 +1,32 @@
+package com.venturasistemoj.restapi.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * This class provides the Micrometer configuration of the service timers.
+ *
+ * <p>The <code>*ServiceImpl</code> classes are annotated with <code>@Timed(MetricsConfig.SERVICE_TIMER)</code> and the
+ * <code>TimedAspect</code> records every public method call in the <code>rest-api.service</code> timer, tagged by
+ * <code>class</code>, <code>method</code> and <code>exception</code>.</p>
+ * <p>The remaining metrics are bound by Spring Boot: HTTP route latencies (<code>http.server.requests</code>),
+ * Hibernate statistics (<code>hibernate.*</code>, with <code>hibernate.generate_statistics</code> enabled), the HikariCP
+ * pool (<code>hikaricp.*</code>) and the DTO caches (<code>cache.*</code>, see <code>DtoCache</code>). They are
+ * served in Prometheus text format by <code>/actuator/prometheus</code>.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Configuration
+public class MetricsConfig {
+
+	public static final String SERVICE_TIMER = "rest-api.service";
+
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+}
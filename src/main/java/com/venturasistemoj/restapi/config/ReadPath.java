@@ -0,0 +1,19 @@
+package com.venturasistemoj.restapi.config;
+
+/**
+ * Read path of the listing and lookup queries, selected by the <code>rest-api.read-path</code> property.
+ *
+ * <ul>
+ * <li><code>JPA</code>: entities are loaded by the Spring Data repositories and converted to DTOs by MapStruct;
+ * <li><code>JDBC</code>: DTOs are built directly from the SQL result sets by the <code>*JdbcRepository</code> classes,
+ * without entity hydration, persistence context or mapping.
+ * </ul>
+ *
+ * <p>Both paths produce the same JSON.</p>
+ *
+ * @author Wilson Ventura
+ */
+public enum ReadPath {
+	JPA,
+	JDBC
+}
@@ -0,0 +1,16 @@
+package com.venturasistemoj.restapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * This class enables the <code>@Scheduled</code> background jobs, such as the reconciliation of the aggregate
+ * counters (see <code>AggregatesReconciler</code>).
+ *
+ * @author Wilson Ventura
+ */
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,75 @@
+package com.venturasistemoj.restapi.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.venturasistemoj.restapi.statements.RequestStatementLog;
+import com.venturasistemoj.restapi.statements.StatementBudgetFilter;
+import com.venturasistemoj.restapi.statements.StatementBudgetProperties;
+import com.venturasistemoj.restapi.statements.StatementCountingAspect;
+import com.venturasistemoj.restapi.statements.StatementCountingListener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * This class provides the statement budget guard against N+1 regressions.
+ *
+ * <p>The data source is wrapped by a datasource-proxy <code>ProxyDataSource</code> that counts every statement
+ * execution in the <code>StatementCounter</code> scopes of the current thread. The scopes are opened for each HTTP
+ * request by <code>StatementBudgetFilter</code>, which checks the count against the per-route budgets of
+ * <code>rest-api.statements.*</code>, and for each service method call by <code>StatementCountingAspect</code>.</p>
+ * <p>With <code>rest-api.statements.enabled=false</code> the data source is not proxied and nothing is counted.
+ * The <code>RequestStatementLog</code> of the tests is only registered with
+ * <code>rest-api.statements.log-requests=true</code>.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Configuration
+@EnableConfigurationProperties(StatementBudgetProperties.class)
+@ConditionalOnProperty(name = "rest-api.statements.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementBudgetConfig {
+
+	// static: post-processes the data source before the configuration class itself is created
+	@Bean
+	public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+				if(!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource)
+					return bean;
+
+				return ProxyDataSourceBuilder.create(dataSource)
+						.name(beanName)
+						.listener(new StatementCountingListener())
+						.build();
+			}
+		};
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "rest-api.statements.log-requests", havingValue = "true")
+	public RequestStatementLog requestStatementLog() {
+		return new RequestStatementLog();
+	}
+
+	@Bean
+	public StatementBudgetFilter statementBudgetFilter(StatementBudgetProperties properties,
+			ObjectProvider<RequestStatementLog> requestStatementLog, MeterRegistry meterRegistry) {
+		return new StatementBudgetFilter(properties, requestStatementLog.getIfAvailable(), meterRegistry);
+	}
+
+	@Bean
+	public StatementCountingAspect statementCountingAspect(MeterRegistry meterRegistry) {
+		return new StatementCountingAspect(meterRegistry);
+	}
+}
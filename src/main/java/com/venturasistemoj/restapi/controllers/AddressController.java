@@ -1,8 +1,13 @@
 package com.venturasistemoj.restapi.controllers;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,13 +15,18 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.venturasistemoj.restapi.domain.address.AddressDTO;
 import com.venturasistemoj.restapi.domain.address.AddressService;
 import com.venturasistemoj.restapi.exceptions.IllegalAddressStateException;
 import com.venturasistemoj.restapi.exceptions.IllegalOperationException;
+import com.venturasistemoj.restapi.exceptions.PreconditionFailedException;
+import com.venturasistemoj.restapi.versioning.EntityTag;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
 /**
  * Adresses API interface for coordinating requests and responses.
@@ -24,6 +34,8 @@ import com.venturasistemoj.restapi.exceptions.IllegalOperationException;
  * <p>The Spring <code>@RestController</code> annotation marks the class as a controller where each method returns
  * a domain object instead of a view. It is a shortcut to include <code>@Controller</code> and
  * <code>@ResponseBody/<code> Java annotations.</p>
+ * <p>An address is served with its <code>ETag</code>, see <code>EntityTag</code>, for the conditional
+ * <code>If-None-Match</code> reads and <code>If-Match</code> updates.</p>
  *
  * @author Wilson Ventura
  */
@@ -36,6 +48,7 @@ public class AddressController {
 	private AddressService addressService;
 
 	private static final String NOT_FOUND = "Nonexistent user or address!";
+	private static final String ADDRESS_CHANGED = "Address changed since it was read!";
 
 	@PostMapping("/{userId}")
 	public ResponseEntity<?> createAddress(@PathVariable Long userId, @RequestBody AddressDTO addressDTO) {
@@ -53,29 +66,65 @@ public class AddressController {
 	}
 
 	@PutMapping("/{userId}")
-	public ResponseEntity<?> updateAddress(@PathVariable Long userId, @RequestBody AddressDTO addressDTO) {
+	public ResponseEntity<?> updateAddress(@PathVariable Long userId, @RequestBody AddressDTO addressDTO,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
 		try {
-			AddressDTO updatedAddress = addressService.updateAddress(userId, addressDTO);
+			AddressDTO updatedAddress = addressService.updateAddress(userId, addressDTO, ifMatch);
 			return ResponseEntity.ok(updatedAddress);
 		} catch (NotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
 		} catch (IllegalAddressStateException e) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		} catch (PreconditionFailedException e) {
+			return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+		} catch (OptimisticLockingFailureException e) { // changed by a concurrent write
+			return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+					.body(ADDRESS_CHANGED);
 		}
 	}
 
 	@GetMapping("/{userId}")
-	public ResponseEntity<?> getAddressByUserId(@PathVariable Long userId) {
+	public ResponseEntity<?> getAddressByUserId(@PathVariable Long userId,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
 		try {
-			AddressDTO existingAddress = addressService.getAddressByUserId(userId);
-			return ResponseEntity.ok(existingAddress);
+			if(ifNoneMatch != null) { // the tag alone, without the address on a miss
+				String tag = addressService.getAddressTag(userId);
+				if(EntityTag.matches(ifNoneMatch, tag))
+					return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+			}
+
+			// the tag of the cached address, the one read alone may be newer
+			Tagged<AddressDTO> existingAddress = addressService.getTaggedAddress(userId);
+			return ResponseEntity.ok().eTag(existingAddress.eTag()).body(existingAddress.body());
 		} catch (NotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
 		}
 	}
 
+	/**
+	 * Multi-get of the adresses of a list of users, e.g. <code>?userIds=3,1,2</code>, read at once and returned by
+	 * user in the order of the ids, with the ids of the users without address, see <code>MultiGet</code>.
+	 */
+	@GetMapping(params = { "userIds", "!limit" })
+	public ResponseEntity<?> getAdressesByUserIds(@RequestParam List<Long> userIds) {
+
+		try {
+			return ResponseEntity.ok(addressService.getAdressesByUserIds(userIds));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Multi-get of the adresses of a JSON array of user ids, for lists too long for a URL.
+	 */
+	@PostMapping(value = "/lookup", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> lookupAdresses(@RequestBody List<Long> userIds) {
+		return getAdressesByUserIds(userIds);
+	}
+
 	@GetMapping
 	public ResponseEntity<?> getAdresses() {
 
@@ -86,6 +135,40 @@ public class AddressController {
 		}
 	}
 
+	/**
+	 * Keyset paginated listing, selected when the <code>limit</code> parameter is present. The <code>after</code>
+	 * parameter takes the <code>nextCursor</code> returned by the previous page.
+	 */
+	@GetMapping(params = "limit")
+	public ResponseEntity<?> getAdresses(@RequestParam Integer limit, @RequestParam(required = false) String after) {
+
+		try {
+			return ResponseEntity.ok(addressService.getAdresses(limit, after));
+		} catch (NotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Paginated listing of the adresses in a location: <code>cep</code> prefix, or <code>state</code> with an
+	 * optional <code>city</code>.
+	 */
+	@GetMapping("/search")
+	public ResponseEntity<?> searchAdresses(@RequestParam(required = false) String cep,
+			@RequestParam(required = false) String state, @RequestParam(required = false) String city,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after) {
+
+		try {
+			return ResponseEntity.ok(addressService.searchAdresses(cep, state, city, limit, after));
+		} catch (NotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
 	@DeleteMapping("/{userId}")
 	public ResponseEntity<?> deleteAddress(@PathVariable Long userId) {
 
@@ -0,0 +1,30 @@
+package com.venturasistemoj.restapi.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.venturasistemoj.restapi.aggregates.AggregateCounters;
+
+/**
+ * Aggregates API interface serving the counts of users, adresses and phones from the in-memory
+ * <code>AggregateCounters</code>, without any database statement.
+ *
+ * @author Wilson Ventura
+ */
+
+@RestController
+@RequestMapping("/rest-api/aggregates")
+public class AggregateController {
+
+	@Autowired
+	private AggregateCounters aggregateCounters;
+
+	@GetMapping
+	public ResponseEntity<?> getAggregates() {
+		return ResponseEntity.ok(aggregateCounters.snapshot());
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.venturasistemoj.restapi.controllers;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.venturasistemoj.restapi.cache.CacheStatistics;
+import com.venturasistemoj.restapi.cache.DtoCache;
+
+/**
+ * Caches API interface exposing the hit, miss and eviction statistics of the in-process DTO caches.
+ *
+ * @author Wilson Ventura
+ */
+
+@RestController
+@RequestMapping("/rest-api/caches")
+public class CacheController {
+
+	@Autowired
+	private List<DtoCache<?, ?>> caches;
+
+	@GetMapping
+	public ResponseEntity<?> getCacheStatistics() {
+		return ResponseEntity.ok(caches.stream().map(CacheStatistics::of).toList());
+	}
+
+}
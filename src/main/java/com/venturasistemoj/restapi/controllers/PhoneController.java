@@ -1,23 +1,34 @@
 package com.venturasistemoj.restapi.controllers;
 
+import java.util.List;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberPatch;
 import com.venturasistemoj.restapi.domain.phone.PhoneService;
 import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
+import com.venturasistemoj.restapi.exceptions.PreconditionFailedException;
+import com.venturasistemoj.restapi.versioning.EntityTag;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
 /**
  * Phone Numbers API interface for coordinating requests and responses.
@@ -25,6 +36,8 @@ import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
  * <p>The Spring <code>@RestController</code> annotation marks the class as a controller where each method returns
  * a domain object instead of a view. It is a shortcut to include <code>@Controller</code> and
  * <code>@ResponseBody/<code> Java annotations.</p>
+ * <p>A user's phone set is served with its <code>ETag</code>, see <code>EntityTag</code>, for the conditional
+ * <code>If-None-Match</code> reads and the <code>If-Match</code> updates of any of its phones.</p>
  *
  * @author Wilson Ventura
  */
@@ -37,6 +50,7 @@ public class PhoneController {
 	private PhoneService phoneService;
 
 	private static final String NOT_FOUND = "Nonexistent user or phone number!";
+	private static final String PHONES_CHANGED = "Phone set changed since it was read!";
 
 	@PostMapping("/{userId}")
 	public ResponseEntity<?> createPhoneNumber(@PathVariable Long userId, @RequestBody PhoneNumberDTO phoneDTO) {
@@ -54,28 +68,105 @@ public class PhoneController {
 	}
 
 	@PutMapping("/{userId}")
-	public ResponseEntity<?> updatePhoneNumber(@PathVariable Long userId, @RequestBody PhoneNumberDTO phoneDTO) {
+	public ResponseEntity<?> updatePhoneNumber(@PathVariable Long userId, @RequestBody PhoneNumberDTO phoneDTO,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 		try {
-			Set<PhoneNumberDTO> updatedPhones = phoneService.updatePhoneNumber(userId, phoneDTO);
+			Set<PhoneNumberDTO> updatedPhones = phoneService.updatePhoneNumber(userId, phoneDTO, ifMatch);
 			return ResponseEntity.ok(updatedPhones);
 		} catch (NotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
 		} catch (IllegalPhoneStateException e) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		} catch (PreconditionFailedException e) {
+			return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+		} catch (OptimisticLockingFailureException e) { // changed by a concurrent write
+			return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+					.body(PHONES_CHANGED);
+		}
+	}
+
+	/**
+	 * Updates one phone number of the user, addressed by its id, and returns it. Unlike <code>PUT /{userId}</code>,
+	 * the rest of the user's phone set is neither read nor returned.
+	 */
+	@PutMapping("/{userId}/{phoneId}")
+	public ResponseEntity<?> updatePhoneNumber(@PathVariable Long userId, @PathVariable Long phoneId,
+			@RequestBody PhoneNumberDTO phoneDTO,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+
+		try {
+			return ResponseEntity.ok(phoneService.updatePhoneNumber(userId, phoneId, phoneDTO, ifMatch));
+		} catch (NotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
+		} catch (IllegalPhoneStateException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		} catch (PreconditionFailedException e) {
+			return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+		} catch (OptimisticLockingFailureException e) { // changed by a concurrent write
+			return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+					.body(PHONES_CHANGED);
+		}
+	}
+
+	/**
+	 * Applies a list of phone number changes, of any users, in one transaction and returns the updated phone numbers.
+	 * If a phone number does not exist, a change is invalid or a phone number was changed meanwhile, nothing is changed.
+	 */
+	@PatchMapping
+	public ResponseEntity<?> patchPhoneNumbers(@RequestBody List<PhoneNumberPatch> patches) {
+
+		try {
+			return ResponseEntity.ok(phoneService.patchPhoneNumbers(patches));
+		} catch (NotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
+		} catch (IllegalPhoneStateException | IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		} catch (OptimisticLockingFailureException e) { // changed by a concurrent write
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(PHONES_CHANGED);
 		}
 	}
 
 	@GetMapping("/{userId}")
-	public ResponseEntity<?> getPhonesByUserId(@PathVariable Long userId) {
+	public ResponseEntity<?> getPhonesByUserId(@PathVariable Long userId,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
 		try {
-			Set<PhoneNumberDTO> phones = phoneService.getPhonesByUserId(userId);
-			return ResponseEntity.ok(phones);
+			if(ifNoneMatch != null) { // the tag alone, without the phones on a miss
+				String tag = phoneService.getPhonesTag(userId);
+				if(EntityTag.matches(ifNoneMatch, tag))
+					return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).build();
+			}
+
+			// the tag of the cached phones, the one read alone may be newer
+			Tagged<Set<PhoneNumberDTO>> phones = phoneService.getTaggedPhones(userId);
+			return ResponseEntity.ok().eTag(phones.eTag()).body(phones.body());
 		} catch (NotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
 		}
 	}
 
+	/**
+	 * Multi-get of the phone sets of a list of users, e.g. <code>?userIds=3,1,2</code>, read at once and returned by
+	 * user in the order of the ids, with the ids of the users without phones, see <code>MultiGet</code>.
+	 */
+	@GetMapping(params = { "userIds", "!limit" })
+	public ResponseEntity<?> getPhonesByUserIds(@RequestParam List<Long> userIds) {
+
+		try {
+			return ResponseEntity.ok(phoneService.getPhonesByUserIds(userIds));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Multi-get of the phone sets of a JSON array of user ids, for lists too long for a URL.
+	 */
+	@PostMapping(value = "/lookup", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> lookupPhones(@RequestBody List<Long> userIds) {
+		return getPhonesByUserIds(userIds);
+	}
+
 	@GetMapping
 	public ResponseEntity<?> getPhoneNumbers() {
 
@@ -86,6 +177,22 @@ public class PhoneController {
 		}
 	}
 
+	/**
+	 * Keyset paginated listing, selected when the <code>limit</code> parameter is present. The <code>after</code>
+	 * parameter takes the <code>nextCursor</code> returned by the previous page.
+	 */
+	@GetMapping(params = "limit")
+	public ResponseEntity<?> getPhoneNumbers(@RequestParam Integer limit, @RequestParam(required = false) String after) {
+
+		try {
+			return ResponseEntity.ok(phoneService.getPhoneNumbers(limit, after));
+		} catch (NotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
 	@DeleteMapping("/{userId}")
 	public ResponseEntity<?> deletePhoneNumber(@PathVariable Long userId, @RequestBody PhoneNumberDTO phoneDTO) {
 
@@ -1,21 +1,45 @@
 package com.venturasistemoj.restapi.controllers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.cache.SerializedResponse;
+import com.venturasistemoj.restapi.domain.user.BulkImportReport;
+import com.venturasistemoj.restapi.domain.user.UserBulkService;
 import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserFields;
 import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.exceptions.IllegalAddressStateException;
+import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
 import com.venturasistemoj.restapi.exceptions.IllegalUserStateException;
+import com.venturasistemoj.restapi.exceptions.PreconditionFailedException;
+import com.venturasistemoj.restapi.versioning.EntityTag;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
 /**
  * Users API interface for coordinating requests and responses.
@@ -23,6 +47,16 @@ import com.venturasistemoj.restapi.exceptions.IllegalUserStateException;
  * <p>The Spring <code>@RestController</code> annotation marks the class as a controller where each method returns
  * a domain object instead of a view. It is a shortcut to include <code>@Controller</code> and
  * <code>@ResponseBody/<code> Java annotations.</p>
+ * <p>The read endpoints take the optional <code>fields</code> and <code>expand</code> parameters of a sparse
+ * fieldset, e.g. <code>?fields=name,email&expand=phones</code>, see <code>UserFields</code>.</p>
+ * <p>The whole user of <code>GET /{userId}</code> is served from <code>userResponseCache</code>, which holds its JSON
+ * bytes and their gzip copy until a write of the user, its address or phones: a hit writes the bytes as they are,
+ * without the service, the mapper or the <code>ObjectMapper</code>.</p>
+ * <p>The whole user is served with its <code>ETag</code>, see <code>EntityTag</code>: a request whose
+ * <code>If-None-Match</code> lists it is answered with 304 Not Modified and no body, and a <code>PUT</code> whose
+ * <code>If-Match</code> does not list it with 412 Precondition Failed.</p>
+ * <p>The <code>/aggregate</code> endpoints create and replace a user with its address and phones in one request and
+ * one transaction.</p>
  *
  * @author Wilson Ventura
  */
@@ -34,8 +68,21 @@ public class UserController {
 	@Autowired
 	private UserService userService;
 
+	@Autowired
+	private UserBulkService userBulkService;
+
+	@Autowired
+	private DtoCache<Long, SerializedResponse> userResponseCache;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${rest-api.cache.responses.gzip-min-size:256}")
+	private int gzipMinSize;
+
 	private static final String NOT_FOUND = "User(s) not found!";
 	private static final String USER_REMOVED = "User removed successfully!";
+	private static final String USER_CHANGED = "User changed since it was read!";
 
 	@PostMapping
 	public ResponseEntity<?> createUser(@RequestBody UserDTO userDTO) {
@@ -50,40 +97,186 @@ public class UserController {
 		}
 	}
 
+	/**
+	 * Creates a user with its nested address and phones in one transaction and returns the whole user.
+	 */
+	@PostMapping("/aggregate")
+	public ResponseEntity<?> createUserAggregate(@RequestBody UserDTO userDTO) {
+
+		try {
+			return ResponseEntity.status(HttpStatus.CREATED).body(userService.createUserAggregate(userDTO));
+		} catch (IllegalUserStateException | IllegalAddressStateException | IllegalPhoneStateException
+				| IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Replaces a user with its nested address and phones in one transaction and returns the whole user. The address
+	 * and phones not sent are removed.
+	 */
+	@PutMapping("/{userId}/aggregate")
+	public ResponseEntity<?> replaceUserAggregate(@PathVariable Long userId, @RequestBody UserDTO userDTO,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+
+		try {
+			return ResponseEntity.ok(userService.replaceUserAggregate(userId, userDTO, ifMatch));
+		} catch (NotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
+		} catch (IllegalUserStateException | IllegalAddressStateException | IllegalPhoneStateException
+				| IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		} catch (PreconditionFailedException e) {
+			return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+		} catch (OptimisticLockingFailureException e) { // changed by a concurrent write
+			return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+					.body(USER_CHANGED);
+		}
+	}
+
+	/**
+	 * Imports a JSON array of users, with optional nested address and phones, and returns the per-row result report.
+	 * The body is read as a stream, so the array is never fully materialized in memory. If the JSON breaks inside the
+	 * array, the report of the rows imported before the error is returned with a 400.
+	 */
+	@PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> createUsers(InputStream body) {
+
+		try {
+			BulkImportReport report = userBulkService.importUsers(body);
+			return ResponseEntity.status(report.getFailure() == null ? HttpStatus.OK : HttpStatus.BAD_REQUEST)
+					.body(report);
+		} catch (IllegalArgumentException | IOException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
 	@PutMapping("/{userId}")
-	public ResponseEntity<?> updateUser(@PathVariable Long userId, @RequestBody UserDTO userDTO) {
+	public ResponseEntity<?> updateUser(@PathVariable Long userId, @RequestBody UserDTO userDTO,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
 		try {
-			UserDTO	updatedUser = userService.updateUser(userId, userDTO);
+			UserDTO	updatedUser = userService.updateUser(userId, userDTO, ifMatch);
 			return ResponseEntity.ok(updatedUser);
 		} catch (NotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
 		} catch (IllegalUserStateException | IllegalArgumentException e) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		} catch (PreconditionFailedException e) {
+			return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+		} catch (OptimisticLockingFailureException e) { // changed by a concurrent write
+			return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+					.body(USER_CHANGED);
 		}
 	}
 
 	@GetMapping("/{userId}")
-	public ResponseEntity<?> getUserById(@PathVariable Long userId) {
+	public ResponseEntity<?> getUserById(@PathVariable Long userId, @RequestParam(required = false) String fields,
+			@RequestParam(required = false) String expand,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			@RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
 		try {
-			UserDTO	existingUser = userService.getUserById(userId);
-			return ResponseEntity.ok(existingUser);
+			UserFields userFields = UserFields.of(fields, expand);
+			if(userFields.isAll())
+				return serializedUser(userId, acceptEncoding, ifNoneMatch);
+
+			UserDTO	existingUser = userService.getUserById(userId, userFields);
+			return ok(existingUser, userFields);
 		} catch (NotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
 		}
 	}
 
+	/**
+	 * Multi-get of the users of a list of ids, e.g. <code>?ids=3,1,2</code>, read at once and returned in the order of
+	 * the ids with the ids of the nonexistent users, see <code>MultiGet</code>.
+	 */
+	@GetMapping(params = { "ids", "!limit" })
+	public ResponseEntity<?> getUsersById(@RequestParam List<Long> ids, @RequestParam(required = false) String fields,
+			@RequestParam(required = false) String expand) {
+
+		try {
+			UserFields userFields = UserFields.of(fields, expand);
+			return ok(userService.getUsersById(ids, userFields), userFields);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Multi-get of the users of a JSON array of ids, for lists too long for a URL. See <code>getUsersById</code>.
+	 */
+	@PostMapping(value = "/lookup", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> lookupUsers(@RequestBody List<Long> ids, @RequestParam(required = false) String fields,
+			@RequestParam(required = false) String expand) {
+		return getUsersById(ids, fields, expand);
+	}
+
 	@GetMapping
-	public ResponseEntity<?> getUsers() {
+	public ResponseEntity<?> getUsers(@RequestParam(required = false) String fields,
+			@RequestParam(required = false) String expand) {
+
+		try {
+			UserFields userFields = UserFields.of(fields, expand);
+			return ok(userService.getUsers(userFields), userFields);
+		} catch (NotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Keyset paginated listing, selected when the <code>limit</code> parameter is present. The <code>after</code>
+	 * parameter takes the <code>nextCursor</code> returned by the previous page.
+	 */
+	@GetMapping(params = "limit")
+	public ResponseEntity<?> getUsers(@RequestParam Integer limit, @RequestParam(required = false) String after,
+			@RequestParam(required = false) String fields, @RequestParam(required = false) String expand) {
+
+		try {
+			UserFields userFields = UserFields.of(fields, expand);
+			return ok(userService.getUsers(limit, after, userFields), userFields);
+		} catch (NotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Case and accent insensitive prefix search by one of <code>name</code>, <code>surName</code> or
+	 * <code>email</code>, keyset paginated as the listing.
+	 */
+	@GetMapping("/search")
+	public ResponseEntity<?> searchUsers(@RequestParam(required = false) String name,
+			@RequestParam(required = false) String surName, @RequestParam(required = false) String email,
+			@RequestParam(required = false) Integer limit, @RequestParam(required = false) String after,
+			@RequestParam(required = false) String fields, @RequestParam(required = false) String expand) {
 
 		try {
-			return ResponseEntity.ok(userService.getUsers());
+			UserFields userFields = UserFields.of(fields, expand);
+			return ok(userService.searchUsers(name, surName, email, limit, after, userFields), userFields);
 		} catch (NotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
 		}
 	}
 
+	/**
+	 * Exports all users, with address and phones, as newline-delimited JSON streamed from the database.
+	 */
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportUsers() {
+
+		StreamingResponseBody body = out -> userService.exportUsers(out);
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
 	@DeleteMapping("/{userId}")
 	public ResponseEntity<?> deleteUser(@PathVariable Long userId) {
 
@@ -95,4 +288,66 @@ public class UserController {
 		}
 	}
 
+	// the cached bytes of the whole user, gzip-encoded if the client accepts it, or 304 if the client has them
+	private ResponseEntity<?> serializedUser(Long userId, String acceptEncoding, String ifNoneMatch)
+			throws NotFoundException {
+
+		SerializedResponse response = userResponseCache.getIfPresent(userId);
+
+		if(ifNoneMatch != null) { // the tag alone, without the body on a miss
+			String tag = response != null ? response.eTag() : userService.getUserTag(userId);
+			if(EntityTag.matches(ifNoneMatch, tag))
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).varyBy(HttpHeaders.ACCEPT_ENCODING)
+						.build();
+		}
+
+		if(response == null)
+			response = userResponseCache.get(userId, this::serializeUser);
+
+		ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON)
+				.eTag(response.eTag())
+				.varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+		if(response.gzip() != null && acceptsGzip(acceptEncoding))
+			return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.gzip());
+
+		return ok.body(response.json());
+	}
+
+	// the tag of the versions the body is mapped from
+	private SerializedResponse serializeUser(Long userId) throws NotFoundException {
+		try {
+			Tagged<UserDTO> user = userService.getTaggedUser(userId);
+			return SerializedResponse.of(objectMapper.writeValueAsBytes(user.body()), user.eTag(), gzipMinSize);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e); // a DTO of plain values
+		}
+	}
+
+	// gzip listed in Accept-Encoding and not refused with q=0
+	private static boolean acceptsGzip(String acceptEncoding) {
+
+		if(acceptEncoding == null)
+			return false;
+
+		for(String coding : acceptEncoding.split(",")) {
+			String[] parameters = coding.split(";");
+			if(parameters[0].trim().equalsIgnoreCase("gzip"))
+				return parameters.length == 1 || ! parameters[1].trim().matches("q=0(\\.0*)?");
+		}
+		return false;
+	}
+
+	// writes only the properties of a sparse fieldset
+	private static ResponseEntity<?> ok(Object body, UserFields fields) {
+
+		if(fields.isAll())
+			return ResponseEntity.ok(body);
+
+		MappingJacksonValue value = new MappingJacksonValue(body);
+		value.setFilters(fields.filters());
+		return ResponseEntity.ok(value);
+	}
+
 }
@@ -1,17 +1,28 @@
 package com.venturasistemoj.restapi.domain.address;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.venturasistemoj.restapi.domain.user.User;
+import com.venturasistemoj.restapi.validation.Cep;
+import com.venturasistemoj.restapi.validation.CepValidator;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 /**
@@ -21,29 +32,54 @@ import lombok.Data;
  */
 
 @Entity
-@Table(name = "adresses")
+@NamedEntityGraph(name = Address.WITH_USER, attributeNodes = @NamedAttributeNode("user"))
+@Table(name = "adresses", indexes = {
+		@Index(name = "idx_adresses_state_city", columnList = "state, city, addressId"),
+		@Index(name = "idx_adresses_cep", columnList = "cep, addressId") })
 @Data
 public class Address {
 
 	/**
-	 * The <italic>zip code</italic> is the <bold>brazilian CEP</bold>.
+	 * <p>Fetch plan of an address with its owner: loads the address and the user with a single joined select instead
+	 * of one select for the address and another for its eager user.</p>
+	 */
+	public static final String WITH_USER = "Address.withUser";
+
+	/**
+	 * The <italic>zip code</italic> is the <bold>brazilian CEP</bold>, see <code>CepValidator</code>.
 	 */
-	private static final String ZIP_CODE_REGEXP = "^[\\d]{2}\\.?[\\d]{3}\\-?[\\d]{3}$";
 	private static final String ZIP_CODE_MESSAGE = "Invalid brazilian CEP!";
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "adresses_seq")
+	@SequenceGenerator(name = "adresses_seq", sequenceName = "adresses_seq", allocationSize = 50)
 	private Long addressId;
 
+	/**
+	 * <p>Optimistic lock version, incremented by every update. See <code>EntityTag</code>.</p>
+	 */
+	@Version
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Long version;
+
 	@NotNull private String publicPlace;
 	@NotNull private String streetAddress;
 	private String complement;
 	@NotNull private String city;
 	@NotNull private String state;
 
-	@Pattern(regexp = ZIP_CODE_REGEXP, message = ZIP_CODE_MESSAGE)
+	@Cep(message = ZIP_CODE_MESSAGE)
 	@NotNull private String zipCode;
 
+	/**
+	 * <p>Digits of <code>zipCode</code>, kept in sync by the JPA lifecycle callbacks below. <code>zipCode</code> keeps
+	 * the value as it was informed, with or without separators, while this column stores one form only, so that a CEP
+	 * prefix is an index range scan. Both location indexes end with <code>address_id</code>, the order of the results
+	 * within a key.</p>
+	 */
+	private String cep;
+
 	/**
 	 * <p><code>@OneToOne</code> indicates the one-to-one relationship with the <code>User</code> class.</p>
 	 * <p><code>@JoinColumn(name = "user_id")</code> specifies the column in the <code>addresses/<code> table used as
@@ -54,4 +90,10 @@ public class Address {
 	@JsonBackReference
 	User user;
 
+	@PrePersist
+	@PreUpdate
+	void updateDerivedColumns() {
+		cep = CepValidator.digits(zipCode);
+	}
+
 }
@@ -0,0 +1,43 @@
+package com.venturasistemoj.restapi.domain.address;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Read-only repository that builds <code>AddressDTO</code> objects directly from SQL result sets.
+ *
+ * <p>Used when <code>rest-api.read-path=jdbc</code>, see <code>ReadPath</code>.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Repository
+public class AddressJdbcRepository {
+
+	/**
+	 * Maps the <code>address_id</code>, <code>public_place</code>, <code>street_address</code>,
+	 * <code>complement</code>, <code>city</code>, <code>state</code> and <code>zip_code</code> columns.
+	 */
+	public static final RowMapper<AddressDTO> ROW_MAPPER = (rs, rowNum) -> AddressDTO.builder()
+			.addressId(rs.getLong("address_id"))
+			.publicPlace(rs.getString("public_place"))
+			.streetAddress(rs.getString("street_address"))
+			.complement(rs.getString("complement"))
+			.city(rs.getString("city"))
+			.state(rs.getString("state"))
+			.zipCode(rs.getString("zip_code"))
+			.build();
+
+	private static final String SELECT_ALL = "select address_id, public_place, street_address, complement, city, state, "
+			+ "zip_code from adresses order by address_id";
+
+	@Autowired private NamedParameterJdbcTemplate jdbcTemplate;
+
+	public List<AddressDTO> findAll() {
+		return jdbcTemplate.query(SELECT_ALL, ROW_MAPPER);
+	}
+}
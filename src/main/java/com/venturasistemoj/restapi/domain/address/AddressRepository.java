@@ -1,19 +1,52 @@
 package com.venturasistemoj.restapi.domain.address;
 
-import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
-import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
-import com.venturasistemoj.restapi.domain.user.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 /**
  * <p>Interface that extends <code>JpaRepository</code>, provided by Spring Data JPA with commonly used data access
- * methods for the <code>Address</code> entity. In addition to the inherited methods, the <code>findByUser</code> custom
- * method is responsible for fetching an address based on the user associated with it.</p>
+ * methods for the <code>Address</code> entity. In addition to the inherited methods, the <code>findByUserUserId</code>
+ * custom method fetches an address, with the <code>Address.WITH_USER</code> entity graph, by the foreign key of the
+ * user associated with it: a single statement which is empty both for a nonexistent user and for a user without
+ * address. <code>findByAddressIdGreaterThan</code> reads one keyset page of adresses ordered by id, with their users.
+ * <code>findAllByUserUserIdIn</code> reads the adresses of many users, with the users, in one statement.</p>
+ * <p>The location queries read one keyset page of adresses, with their users, from the <code>idx_adresses_cep</code>
+ * and <code>idx_adresses_state_city</code> indexes: each one orders by the columns of its index, so the page is a range
+ * scan of the index that stops at the page size, without sorting. The <code>cep</code> and <code>city</code>
+ * parameters with the <code>addressId</code> are the position of the last address of the previous page.</p>
  *
  * @author Wilson Ventura
  */
 
 public interface AddressRepository extends JpaRepository<Address, Long> {
 
-	Address findByUser(User user) throws NotFoundException;
+	@EntityGraph(Address.WITH_USER)
+	Optional<Address> findByUserUserId(Long userId);
+
+	@EntityGraph(Address.WITH_USER)
+	List<Address> findAllByUserUserIdIn(Collection<Long> userIds);
+
+	@EntityGraph(Address.WITH_USER)
+	List<Address> findByAddressIdGreaterThan(Long addressId, Pageable pageable);
+
+	@EntityGraph(Address.WITH_USER)
+	@Query("select a from Address a where a.cep like :prefix and a.cep >= :cep "
+			+ "and (a.cep > :cep or a.addressId > :addressId) order by a.cep, a.addressId")
+	List<Address> findByCepPrefix(String prefix, String cep, Long addressId, Pageable pageable);
+
+	@EntityGraph(Address.WITH_USER)
+	@Query("select a from Address a where a.state = :state and a.city >= :city "
+			+ "and (a.city > :city or a.addressId > :addressId) order by a.state, a.city, a.addressId")
+	List<Address> findByState(String state, String city, Long addressId, Pageable pageable);
+
+	@EntityGraph(Address.WITH_USER)
+	@Query("select a from Address a where a.state = :state and a.city = :city and a.addressId > :addressId "
+			+ "order by a.state, a.city, a.addressId")
+	List<Address> findByStateAndCity(String state, String city, Long addressId, Pageable pageable);
 }
@@ -4,8 +4,12 @@ import java.util.List;
 
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.pagination.MultiGet;
 import com.venturasistemoj.restapi.exceptions.IllegalAddressStateException;
 import com.venturasistemoj.restapi.exceptions.IllegalOperationException;
+import com.venturasistemoj.restapi.exceptions.PreconditionFailedException;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -23,10 +27,24 @@ public interface AddressService {
 	AddressDTO updateAddress(@NotNull Long userId, @Valid AddressDTO addressDTO)
 			throws NotFoundException, IllegalAddressStateException;
 
+	AddressDTO updateAddress(@NotNull Long userId, @Valid AddressDTO addressDTO, String ifMatch)
+			throws NotFoundException, IllegalAddressStateException, PreconditionFailedException;
+
+	String getAddressTag(@NotNull Long userId) throws NotFoundException;
+
 	AddressDTO getAddressByUserId(@NotNull Long userId) throws NotFoundException;
 
+	Tagged<AddressDTO> getTaggedAddress(@NotNull Long userId) throws NotFoundException;
+
+	MultiGet<AddressDTO> getAdressesByUserIds(List<Long> userIds) throws IllegalArgumentException;
+
 	List<AddressDTO> getAdresses() throws NotFoundException;
 
+	CursorPage<AddressDTO> getAdresses(Integer limit, String after) throws NotFoundException, IllegalArgumentException;
+
+	CursorPage<AddressDTO> searchAdresses(String cep, String state, String city, Integer limit, String after)
+			throws NotFoundException, IllegalArgumentException;
+
 	void deleteAddress(@NotNull Long userId) throws NotFoundException;
 
 }
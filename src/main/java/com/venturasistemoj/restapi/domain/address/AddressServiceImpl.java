@@ -1,18 +1,38 @@
 package com.venturasistemoj.restapi.domain.address;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.venturasistemoj.restapi.aggregates.AggregateCounters;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.cache.SerializedResponse;
+import com.venturasistemoj.restapi.config.MetricsConfig;
+import com.venturasistemoj.restapi.config.ReadPath;
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.pagination.KeysetPosition;
+import com.venturasistemoj.restapi.domain.pagination.MultiGet;
 import com.venturasistemoj.restapi.domain.user.User;
-import com.venturasistemoj.restapi.domain.user.UserMapper;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
 import com.venturasistemoj.restapi.domain.user.UserRepository;
 import com.venturasistemoj.restapi.exceptions.IllegalAddressStateException;
 import com.venturasistemoj.restapi.exceptions.IllegalOperationException;
+import com.venturasistemoj.restapi.exceptions.PreconditionFailedException;
+import com.venturasistemoj.restapi.validation.CepValidator;
+import com.venturasistemoj.restapi.versioning.EntityTag;
+import com.venturasistemoj.restapi.versioning.EntityTagRepository;
+import com.venturasistemoj.restapi.versioning.Tagged;
+
+import io.micrometer.core.annotation.Timed;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -24,16 +44,30 @@ import jakarta.validation.constraints.NotNull;
  */
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class AddressServiceImpl implements AddressService {
 
 	@Autowired private AddressRepository addressRepository;
 	@Autowired private AddressMapper addressMapper;
+	@Autowired private AddressJdbcRepository addressJdbcRepository;
+	@Autowired private EntityTagRepository entityTagRepository;
 
 	@Autowired private UserRepository userRepository;
-	@Autowired private UserMapper userMapper;
+
+	@Autowired private DtoCache<Long, Tagged<AddressDTO>> addressCache;
+	@Autowired private DtoCache<Long, UserDTO> userCache;
+	@Autowired private DtoCache<Long, SerializedResponse> userResponseCache;
+	@Autowired private DtoCache<String, String> entityTagCache;
+	@Autowired private AggregateCounters aggregateCounters;
+
+	@Value("${rest-api.read-path:jpa}")
+	private ReadPath readPath;
 
 	private static final String INCONPLETE_ADDRESS_DATA = "Incomplete address data!";
 	private static final String EXISTING_ADDRESS = "User already has a registered address!";
+	private static final String ADDRESS_CHANGED = "Address changed since it was read!";
+	private static final String INVALID_LOCATION =
+			"Search by a CEP prefix of 1 to 8 digits, or by a state with an optional city!";
 
 	/**
 	 * <bold>Creates a new address for an existing user.</bold>
@@ -57,10 +91,14 @@ public class AddressServiceImpl implements AddressService {
 		if( ! checkAddressState(addressDTO))
 			throw new IllegalAddressStateException(INCONPLETE_ADDRESS_DATA);
 
-		// associates address with user
-		addressDTO.setUserDTO(userMapper.userToUserDTO(existingUser));
+		// associates address with the read user, whose version marks it as persistent
+		Address address = addressMapper.addressDTOToAddress(addressDTO);
+		address.setAddressId(null); // a new address, whatever id the client sent
+		address.setUser(existingUser);
 
-		Address savedAddress = addressRepository.save(addressMapper.addressDTOToAddress(addressDTO));
+		Address savedAddress = addressRepository.save(address);
+		aggregateCounters.addAddress(savedAddress.getState(), savedAddress.getCity());
+		invalidateCaches(userId);
 		return addressMapper.addressToAddressDTO(savedAddress);
 	}
 
@@ -75,16 +113,33 @@ public class AddressServiceImpl implements AddressService {
 	@Transactional(rollbackFor = IllegalAddressStateException.class)
 	public AddressDTO updateAddress(@NotNull Long userId, @Valid AddressDTO addressDTO)
 			throws NotFoundException, IllegalAddressStateException {
+		return updateAddress(userId, addressDTO, null);
+	}
 
-		User existingUser = getUser(userId); // throws NotFoundException "Nonexistent user or address!"
+	/**
+	 * <bold>Updates an existing user's address if it was not changed since it was read.</bold>
+	 *
+	 * <p>As <code>updateAddress(userId, addressDTO)</code>, when <code>ifMatch</code>, an <code>If-Match</code> header,
+	 * lists the current <code>EntityTag</code> of the address or is <code>null</code>. Otherwise throws
+	 * <code>PreconditionFailedException</code>.</p>
+	 */
+	@Override
+	@Transactional(rollbackFor = IllegalAddressStateException.class)
+	public AddressDTO updateAddress(@NotNull Long userId, @Valid AddressDTO addressDTO, String ifMatch)
+			throws NotFoundException, IllegalAddressStateException, PreconditionFailedException {
 
-		Address existingAddress = addressRepository.findByUser(existingUser);
-		if(existingAddress == null)
-			throw new NotFoundException();
+		Address existingAddress = addressRepository.findByUserUserId(userId)
+				.orElseThrow(NotFoundException::new); // "Nonexistent user or address!"
+
+		if(ifMatch != null && ! EntityTag.matchesStrongly(ifMatch,
+				EntityTag.address(existingAddress.getAddressId(), existingAddress.getVersion())))
+			throw new PreconditionFailedException(ADDRESS_CHANGED);
 
 		if( ! checkAddressState(addressDTO))
 			throw new IllegalAddressStateException(INCONPLETE_ADDRESS_DATA);
 
+		aggregateCounters.removeAddress(existingAddress.getState(), existingAddress.getCity()); // after commit
+		aggregateCounters.addAddress(addressDTO.getState(), addressDTO.getCity());
 		existingAddress.setPublicPlace(addressDTO.getPublicPlace());
 		existingAddress.setStreetAddress(addressDTO.getStreetAddress());
 		existingAddress.setComplement(addressDTO.getComplement());
@@ -93,6 +148,7 @@ public class AddressServiceImpl implements AddressService {
 		existingAddress.setZipCode(addressDTO.getZipCode());
 
 		Address savedAddress = addressRepository.save(existingAddress);
+		invalidateCaches(userId);
 		return addressMapper.addressToAddressDTO(savedAddress);
 	}
 
@@ -100,28 +156,92 @@ public class AddressServiceImpl implements AddressService {
 	 * <bold>Gets the address of an existing user.</bold>
 	 *
 	 * <p>If the user or address does not exist, throws <code>NotFoundException</code>.</p>
+	 * <p>The DTO is served from <code>addressCache</code> when present, otherwise the address and its user are read
+	 * with a single statement.</p>
 	 */
 	@Override
 	@Transactional(readOnly = true)
 	public AddressDTO getAddressByUserId(@NotNull Long userId) throws NotFoundException {
+		return addressCache.get(userId, this::loadAddress).body();
+	}
 
-		User existingUser = getUser(userId); // throws NotFoundException "Nonexistent user or address!"
+	/**
+	 * <bold>Gets the address of an existing user with its entity tag.</bold>
+	 *
+	 * <p>As <code>getAddressByUserId</code>, with the <code>EntityTag</code> of the version the DTO was mapped from,
+	 * cached in the same entry.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Tagged<AddressDTO> getTaggedAddress(@NotNull Long userId) throws NotFoundException {
+		return addressCache.get(userId, this::loadAddress);
+	}
 
-		if(existingUser.getAddress() != null)
-			return addressMapper.addressToAddressDTO(addressRepository.findByUser(existingUser));
-		else
-			throw new NotFoundException();
+	/**
+	 * <bold>Gets the entity tag of an existing user's address.</bold>
+	 *
+	 * <p>Returns the <code>EntityTag</code> of the address, from <code>entityTagCache</code> when present, otherwise
+	 * read by a version-only query. It may be newer than the cached address: a response with the address takes the tag
+	 * of <code>getTaggedAddress</code>.</p>
+	 * <p>If the user or address does not exist, throws <code>NotFoundException</code>.</p>
+	 */
+	@Override
+	public String getAddressTag(@NotNull Long userId) throws NotFoundException {
+		return entityTagCache.get(EntityTag.ADRESSES + userId,
+				key -> entityTagRepository.findAddressTag(userId).orElseThrow(NotFoundException::new));
+	}
+
+	private Tagged<AddressDTO> loadAddress(Long userId) throws NotFoundException {
+
+		Address existingAddress = addressRepository.findByUserUserId(userId)
+				.orElseThrow(NotFoundException::new); // "Nonexistent user or address!"
+
+		return tagged(existingAddress);
+	}
+
+	/**
+	 * <bold>Gets the adresses of many users at once.</bold>
+	 *
+	 * <p>Returns the address of each of the distinct <code>userIds</code>, in their order, and the ids of the users
+	 * without address or nonexistent. See <code>MultiGet</code>. The adresses are served from <code>addressCache</code>
+	 * when present, the others are read with their users in a single <code>IN</code> query and cached.</p>
+	 * <p>If there are no ids, a <code>null</code> one or more than <code>MultiGet.MAX_IDS</code>, throws
+	 * <code>IllegalArgumentException</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public MultiGet<AddressDTO> getAdressesByUserIds(List<Long> userIds) throws IllegalArgumentException {
+
+		List<Long> ids = MultiGet.ids(userIds);
+		return MultiGet.of(ids, Tagged.bodies(addressCache.getAll(ids, this::loadAdresses)));
+	}
+
+	private Map<Long, Tagged<AddressDTO>> loadAdresses(List<Long> userIds) {
+		return addressRepository.findAllByUserUserIdIn(userIds).stream()
+				.collect(Collectors.toMap(address -> address.getUser().getUserId(), this::tagged));
+	}
+
+	private Tagged<AddressDTO> tagged(Address address) {
+		return new Tagged<>(addressMapper.addressToAddressDTO(address), EntityTag.address(address));
 	}
 
 	/**
 	 * <bold>Gets all addresses from the database.</bold>
 	 *
 	 * <p>If there is no registered address, throws <code>NotFoundException</code>.</p>
+	 * <p>On the JDBC read path the DTOs are read by <code>AddressJdbcRepository</code>.</p>
 	 */
 	@Override
 	@Transactional(readOnly = true)
 	public List<AddressDTO> getAdresses() throws NotFoundException {
 
+		if(readPath == ReadPath.JDBC) {
+			List<AddressDTO> allAdresses = addressJdbcRepository.findAll();
+			if(allAdresses.isEmpty())
+				throw new NotFoundException();
+			return allAdresses;
+		}
+
 		List<Address> allAdresses = addressRepository.findAll();
 
 		if(allAdresses.isEmpty())
@@ -130,6 +250,78 @@ public class AddressServiceImpl implements AddressService {
 		return addressMapper.adressesToAdressesDTO(allAdresses);
 	}
 
+	/**
+	 * <bold>Gets a page of database adresses.</bold>
+	 *
+	 * <p>Reads at most <code>limit</code> adresses with id greater than the <code>after</code> cursor, ordered by id,
+	 * and returns them with the cursor of the next page. See <code>CursorPage</code>.</p>
+	 * <p>If there is no registered address, throws <code>NotFoundException</code>.</p>
+	 * <p>If the cursor or the limit are invalid, throws <code>IllegalArgumentException</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPage<AddressDTO> getAdresses(Integer limit, String after)
+			throws NotFoundException, IllegalArgumentException {
+
+		Pageable request = CursorPage.request(limit, "addressId");
+		List<Address> adresses = addressRepository.findByAddressIdGreaterThan(CursorPage.after(after), request);
+
+		if(adresses.isEmpty() && after == null)
+			throw new NotFoundException();
+
+		return CursorPage.of(adresses, request, Address::getAddressId, addressMapper::adressesToAdressesDTO);
+	}
+
+	/**
+	 * <bold>Gets a page of the adresses in a location.</bold>
+	 *
+	 * <p>The location is either a <code>cep</code> prefix, with or without separators, or a <code>state</code> with an
+	 * optional <code>city</code>. Adresses are ordered by CEP, by city or by id respectively, the order of the index
+	 * that serves each query, and paginated with a keyset cursor. See <code>CursorPage</code>.</p>
+	 * <p>If no address is in the location, throws <code>NotFoundException</code>.</p>
+	 * <p>If the location, the cursor or the limit are invalid, throws <code>IllegalArgumentException</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPage<AddressDTO> searchAdresses(String cep, String state, String city, Integer limit, String after)
+			throws NotFoundException, IllegalArgumentException {
+
+		Pageable request = CursorPage.request(limit);
+		List<Address> adresses;
+		CursorPage<AddressDTO> page;
+
+		if( ! isBlank(cep) && isBlank(state) && isBlank(city)) {
+
+			String prefix = CepValidator.digits(cep);
+			if( ! isCepPrefix(cep, prefix))
+				throw new IllegalArgumentException(INVALID_LOCATION);
+
+			KeysetPosition position = CursorPage.afterPosition(after);
+			adresses = addressRepository.findByCepPrefix(prefix + "%", position.key(), position.id(), request);
+			page = CursorPage.ofPositions(adresses, request, a -> new KeysetPosition(a.getCep(), a.getAddressId()),
+					addressMapper::adressesToAdressesDTO);
+		}
+		else if(isBlank(cep) && ! isBlank(state) && isBlank(city)) {
+
+			KeysetPosition position = CursorPage.afterPosition(after);
+			adresses = addressRepository.findByState(state(state), position.key(), position.id(), request);
+			page = CursorPage.ofPositions(adresses, request, a -> new KeysetPosition(a.getCity(), a.getAddressId()),
+					addressMapper::adressesToAdressesDTO);
+		}
+		else if(isBlank(cep) && ! isBlank(state)) {
+
+			adresses = addressRepository.findByStateAndCity(state(state), city.trim(), CursorPage.after(after), request);
+			page = CursorPage.of(adresses, request, Address::getAddressId, addressMapper::adressesToAdressesDTO);
+		}
+		else
+			throw new IllegalArgumentException(INVALID_LOCATION);
+
+		if(adresses.isEmpty() && after == null)
+			throw new NotFoundException();
+
+		return page;
+	}
+
 	/**
 	 * <bold>Removes an existing user's address.</bold>
 	 *
@@ -140,15 +332,13 @@ public class AddressServiceImpl implements AddressService {
 	@Transactional
 	public void deleteAddress(@NotNull Long userId) throws NotFoundException {
 
-		User existingUser = getUser(userId); // throws NotFoundException "Nonexistent user or address!"
-
-		Address existingAddress = addressRepository.findByUser(existingUser);
+		Address existingAddress = addressRepository.findByUserUserId(userId)
+				.orElseThrow(NotFoundException::new); // "Nonexistent user or address!"
 
-		if(existingAddress != null ) {
-			existingUser.setAddress(null); // disassociates the user's address
-			addressRepository.delete(existingAddress); // delete the user's address
-		} else
-			throw new NotFoundException();
+		existingAddress.getUser().setAddress(null); // disassociates the user's address
+		addressRepository.delete(existingAddress); // delete the user's address
+		aggregateCounters.removeAddress(existingAddress.getState(), existingAddress.getCity());
+		invalidateCaches(userId);
 	}
 
 	// Checks the existence of the user to associate the address.
@@ -163,6 +353,30 @@ public class AddressServiceImpl implements AddressService {
 			throw new NotFoundException();
 	}
 
+	// Invalidates the cached address and user (which embeds the address), and their tags, after commit.
+	private void invalidateCaches(Long userId) {
+		addressCache.invalidate(userId);
+		userCache.invalidate(userId);
+		userResponseCache.invalidate(userId);
+		entityTagCache.invalidate(EntityTag.ADRESSES + userId);
+		entityTagCache.invalidate(EntityTag.USERS + userId);
+	}
+
+	// States are searched by their two-letter code, as they are registered.
+	private static String state(String state) {
+		return state.trim().toUpperCase(Locale.ROOT);
+	}
+
+	// A CEP prefix has 1 to 8 digits and no chars other than the separators.
+	private static boolean isCepPrefix(String cep, String digits) {
+		return ! digits.isEmpty() && digits.length() <= 8
+				&& cep.chars().allMatch(c -> c == '.' || c == '-' || (c >= '0' && c <= '9'));
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.isBlank();
+	}
+
 	// Checks address data consistency.
 	private boolean checkAddressState(AddressDTO addressDTO) {
 
@@ -0,0 +1,140 @@
+package com.venturasistemoj.restapi.domain.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Page of a keyset (cursor) paginated listing.
+ *
+ * <p>Listings are ordered by the entity id and each page is read with <code>WHERE id > :after ORDER BY id LIMIT n</code>,
+ * so a deep page costs the same as the first one and no <code>OFFSET</code> scan is ever issued. The cursor is the id of
+ * the last item of the page, encoded as an opaque URL-safe string. <code>nextCursor</code> is <code>null</code> on the
+ * last page.</p>
+ * <p>Listings ordered by a non-unique key, such as the search results, are paginated the same way on the pair
+ * (key, id): their cursor encodes the <code>KeysetPosition</code> of the last item.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+	public static final int DEFAULT_LIMIT = 50;
+	public static final int MAX_LIMIT = 1000;
+
+	private static final String INVALID_CURSOR = "Invalid pagination cursor!";
+	private static final char KEY_SEPARATOR = '\u001F'; // ASCII unit separator, never typed by users
+	private static final String INVALID_LIMIT = "Page limit must be between 1 and " + MAX_LIMIT + "!";
+
+	private List<T> items;
+	private String nextCursor;
+
+	/**
+	 * Decodes a cursor into the id after which the page starts (<code>0</code> for the first page).
+	 * Throws <code>IllegalArgumentException</code> if the cursor was not produced by this class.
+	 */
+	public static long after(String cursor) {
+
+		if(cursor == null || cursor.isBlank())
+			return 0L;
+
+		try {
+			return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+		} catch (IllegalArgumentException e) { // NumberFormatException included
+			throw new IllegalArgumentException(INVALID_CURSOR);
+		}
+	}
+
+	/**
+	 * Decodes a keyed cursor into the position after which the page starts (<code>KeysetPosition.FIRST</code> for the
+	 * first page). Throws <code>IllegalArgumentException</code> if the cursor was not produced by this class.
+	 */
+	public static KeysetPosition afterPosition(String cursor) {
+
+		if(cursor == null || cursor.isBlank())
+			return KeysetPosition.FIRST;
+
+		try {
+			String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int separator = position.lastIndexOf(KEY_SEPARATOR);
+			if(separator < 0)
+				throw new IllegalArgumentException(INVALID_CURSOR);
+			return new KeysetPosition(position.substring(0, separator), Long.parseLong(position.substring(separator + 1)));
+		} catch (IllegalArgumentException e) { // NumberFormatException included
+			throw new IllegalArgumentException(INVALID_CURSOR);
+		}
+	}
+
+	/**
+	 * Returns the page request for <code>limit</code> items plus one, the extra row telling whether there is a next page.
+	 * A <code>null</code> limit means <code>DEFAULT_LIMIT</code>.
+	 */
+	public static Pageable request(Integer limit, String idProperty) {
+		return PageRequest.of(0, size(limit) + 1, Sort.by(idProperty));
+	}
+
+	/**
+	 * Returns the page request of a query that declares its own <code>ORDER BY</code>, see <code>request</code>.
+	 */
+	public static Pageable request(Integer limit) {
+		return PageRequest.of(0, size(limit) + 1);
+	}
+
+	/**
+	 * Builds the page from the rows read with <code>request()</code>, mapping only the rows that are returned.
+	 */
+	public static <E, T> CursorPage<T> of(List<E> rows, Pageable request, Function<E, Long> id,
+			Function<List<E>, List<T>> mapper) {
+
+		int limit = request.getPageSize() - 1;
+
+		if(rows.size() <= limit)
+			return new CursorPage<>(mapper.apply(rows), null);
+
+		List<E> page = rows.subList(0, limit);
+		return new CursorPage<>(mapper.apply(page), encode(id.apply(page.get(limit - 1)).toString()));
+	}
+
+	/**
+	 * Builds the page of a keyed listing from the rows read with <code>request()</code>, mapping only the rows that are
+	 * returned. <code>position</code> gives the (key, id) of a row.
+	 */
+	public static <E, T> CursorPage<T> ofPositions(List<E> rows, Pageable request, Function<E, KeysetPosition> position,
+			Function<List<E>, List<T>> mapper) {
+
+		int limit = request.getPageSize() - 1;
+
+		if(rows.size() <= limit)
+			return new CursorPage<>(mapper.apply(rows), null);
+
+		List<E> page = rows.subList(0, limit);
+		KeysetPosition last = position.apply(page.get(limit - 1));
+		return new CursorPage<>(mapper.apply(page), encode(last.key() + KEY_SEPARATOR + last.id()));
+	}
+
+	private static int size(Integer limit) {
+
+		int size = limit == null ? DEFAULT_LIMIT : limit;
+
+		if(size < 1 || size > MAX_LIMIT)
+			throw new IllegalArgumentException(INVALID_LIMIT);
+
+		return size;
+	}
+
+	private static String encode(String position) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+	}
+}
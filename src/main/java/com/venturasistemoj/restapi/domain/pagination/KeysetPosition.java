@@ -0,0 +1,16 @@
+package com.venturasistemoj.restapi.domain.pagination;
+
+/**
+ * Position of a row in a listing ordered by a string <code>key</code> and then by <code>id</code>, the keys being
+ * non-unique. A keyed page starts after the position of the last row of the previous page, see
+ * <code>CursorPage.afterPosition</code>.
+ *
+ * @author Wilson Ventura
+ */
+public record KeysetPosition(String key, Long id) {
+
+	/**
+	 * Position before every row.
+	 */
+	public static final KeysetPosition FIRST = new KeysetPosition("", 0L);
+}
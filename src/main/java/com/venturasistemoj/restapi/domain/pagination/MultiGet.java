@@ -0,0 +1,71 @@
+package com.venturasistemoj.restapi.domain.pagination;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of a multi-get: the items of a list of requested ids, read at once.
+ *
+ * <p><code>items</code> maps each found id to its item, in the order of the request, and <code>missing</code> lists
+ * the ids without an item, so a missing id does not fail the whole read. Repeated ids are read and returned once.</p>
+ * <p>The ids are user ids: an item is a user, or the address or phone set of a user.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGet<T> {
+
+	public static final int MAX_IDS = CursorPage.MAX_LIMIT;
+
+	private static final String INVALID_IDS = "A multi-get takes 1 to " + MAX_IDS + " ids!";
+
+	private Map<Long, T> items;
+	private List<Long> missing;
+
+	/**
+	 * Returns the distinct requested ids, in the order of the request.
+	 * Throws <code>IllegalArgumentException</code> if there are no ids, a <code>null</code> one or more than
+	 * <code>MAX_IDS</code> distinct ids.
+	 */
+	public static List<Long> ids(Collection<Long> ids) {
+
+		if(ids == null || ids.isEmpty() || ids.stream().anyMatch(Objects::isNull))
+			throw new IllegalArgumentException(INVALID_IDS);
+
+		List<Long> distinct = ids.stream().distinct().toList();
+		if(distinct.size() > MAX_IDS)
+			throw new IllegalArgumentException(INVALID_IDS);
+
+		return distinct;
+	}
+
+	/**
+	 * Builds the result of the <code>ids</code> from the items found, keyed by id.
+	 */
+	public static <T> MultiGet<T> of(List<Long> ids, Map<Long, T> found) {
+
+		Map<Long, T> items = new LinkedHashMap<>();
+		List<Long> missing = new ArrayList<>();
+
+		for(Long id : ids) {
+			T item = found.get(id);
+			if(item != null)
+				items.put(id, item);
+			else
+				missing.add(id);
+		}
+
+		return new MultiGet<>(items, missing);
+	}
+}
@@ -0,0 +1,133 @@
+package com.venturasistemoj.restapi.domain.phone;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+
+/**
+ * Repository that builds <code>PhoneNumberDTO</code> objects directly from SQL result sets.
+ *
+ * <p>Used when <code>rest-api.read-path=jdbc</code>, see <code>ReadPath</code>, and by the bulk phone patch, which
+ * writes only the changed columns with JDBC batches (Hibernate does not batch <code>@DynamicUpdate</code>
+ * statements).</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Repository
+public class PhoneJdbcRepository {
+
+	/**
+	 * Maps the <code>phone_id</code>, <code>type</code> and <code>number</code> columns.
+	 */
+	public static final RowMapper<PhoneNumberDTO> ROW_MAPPER = (rs, rowNum) -> PhoneNumberDTO.builder()
+			.phoneId(rs.getLong("phone_id"))
+			.type(rs.getString("type"))
+			.number(rs.getString("number"))
+			.build();
+
+	private static final String SELECT_ALL = "select phone_id, type, number from phones order by phone_id";
+	private static final String SELECT_WITH_OWNER_BY_ID =
+			"select phone_id, type, number, user_id, version from phones where phone_id in (:phoneIds)";
+	private static final String UPDATE_TYPE = "update phones set type = :type, version = version + 1"
+			+ " where phone_id = :phoneId and version = :version";
+	private static final String UPDATE_NUMBER = "update phones set number = :number, version = version + 1"
+			+ " where phone_id = :phoneId and version = :version";
+	private static final String UPDATE_TYPE_AND_NUMBER = "update phones set type = :type, number = :number,"
+			+ " version = version + 1 where phone_id = :phoneId and version = :version";
+
+	/**
+	 * A phone number with the version it was read at.
+	 */
+	public record VersionedPhone(PhoneNumberDTO phone, long version) {}
+
+	@Autowired private NamedParameterJdbcTemplate jdbcTemplate;
+
+	public Set<PhoneNumberDTO> findAll() {
+		return toPhoneSet(jdbcTemplate.query(SELECT_ALL, ROW_MAPPER));
+	}
+
+	/**
+	 * Returns the phone numbers of the ids keyed by id, with their versions, each with the <code>userId</code> of its
+	 * owner in <code>userDTO</code>.
+	 */
+	public Map<Long, VersionedPhone> findAllWithOwnerById(Collection<Long> phoneIds) {
+
+		Map<Long, VersionedPhone> phones = new LinkedHashMap<>();
+		if(phoneIds.isEmpty())
+			return phones;
+
+		jdbcTemplate.query(SELECT_WITH_OWNER_BY_ID, Map.of("phoneIds", phoneIds), rs -> {
+			PhoneNumberDTO phone = ROW_MAPPER.mapRow(rs, 0);
+			phone.setUserDTO(UserDTO.builder().userId(rs.getLong("user_id")).build());
+			phones.put(phone.getPhoneId(), new VersionedPhone(phone, rs.getLong("version")));
+		});
+		return phones;
+	}
+
+	/**
+	 * Writes the changes of phone numbers, where a <code>null</code> <code>type</code> or <code>number</code> is a
+	 * column that did not change. The updates are grouped by the columns they write and each group is sent as one JDBC
+	 * batch.
+	 *
+	 * <p>As Hibernate does, each update increments the version of the phone and applies only to the version the change
+	 * was read at: if a phone was changed or removed since, throws <code>OptimisticLockingFailureException</code>, which
+	 * rolls back the transaction with the updates already sent.</p>
+	 */
+	public void updateChangedColumns(Collection<VersionedPhone> changes) {
+
+		Map<String, List<SqlParameterSource>> batches = new LinkedHashMap<>();
+
+		for(VersionedPhone versioned : changes) {
+
+			PhoneNumberDTO change = versioned.phone();
+			String sql = change.getType() == null ? UPDATE_NUMBER
+					: change.getNumber() == null ? UPDATE_TYPE
+					: UPDATE_TYPE_AND_NUMBER;
+
+			batches.computeIfAbsent(sql, key -> new ArrayList<>()).add(new MapSqlParameterSource()
+					.addValue("phoneId", change.getPhoneId())
+					.addValue("type", change.getType())
+					.addValue("number", change.getNumber())
+					.addValue("version", versioned.version()));
+		}
+
+		batches.forEach((sql, rows) -> {
+			int[] updated = jdbcTemplate.batchUpdate(sql, rows.toArray(SqlParameterSource[]::new));
+			for(int i = 0; i < updated.length; i++)
+				if(updated[i] == 0)
+					throw new OptimisticLockingFailureException("Phone number " + rows.get(i).getValue("phoneId")
+							+ " changed since it was read");
+		});
+	}
+
+	/**
+	 * Collects phone numbers with the semantics of a <code>Set&lt;PhoneNumber&gt;</code> of entities, whose equality is
+	 * the number: equal numbers collapse into the one with the lowest id. The set iterates in <code>phoneId</code>
+	 * order, as the sets mapped by <code>PhoneMapper</code> on the JPA read path.
+	 */
+	public static Set<PhoneNumberDTO> toPhoneSet(Collection<PhoneNumberDTO> phones) {
+
+		Map<String, PhoneNumberDTO> byNumber = new LinkedHashMap<>();
+		phones.stream()
+				.sorted(Comparator.comparing(PhoneNumberDTO::getPhoneId))
+				.forEach(phone -> byNumber.putIfAbsent(phone.getNumber(), phone));
+
+		return new LinkedHashSet<>(byNumber.values());
+	}
+}
@@ -1,6 +1,9 @@
 package com.venturasistemoj.restapi.domain.phone;
 
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.mapstruct.InheritInverseConfiguration;
 import org.mapstruct.IterableMapping;
@@ -35,6 +38,18 @@ public interface PhoneMapper {
 	@IterableMapping(elementTargetType = PhoneNumber.class)
 	Set<PhoneNumber> phoneNumbersDTOToPhoneNumbers(Set<PhoneNumberDTO> phones);
 
-	@InheritInverseConfiguration
-	Set<PhoneNumberDTO> phoneNumbersToPhoneNumbersDTO(Set<PhoneNumber> phones);
+	/**
+	 * Maps a phone set in <code>phoneId</code> order, the order of every phone set the API returns, instead of the
+	 * hash order of the entity set. Phones not yet persisted come last.
+	 */
+	default Set<PhoneNumberDTO> phoneNumbersToPhoneNumbersDTO(Set<PhoneNumber> phones) {
+
+		if(phones == null)
+			return null;
+
+		return phones.stream()
+				.sorted(Comparator.comparing(PhoneNumber::getPhoneId, Comparator.nullsLast(Comparator.naturalOrder())))
+				.map(this::phoneNumberToPhoneNumberDTO)
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+	}
 }
@@ -2,44 +2,75 @@ package com.venturasistemoj.restapi.domain.phone;
 
 import java.util.Objects;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.venturasistemoj.restapi.domain.user.User;
+import com.venturasistemoj.restapi.validation.Phone;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 /**
  * Entity class for a Phone Number.
  *
+ * <p><code>@DynamicUpdate</code> makes the updates write only the columns that changed, so an edit of the type does
+ * not rewrite the number and vice versa.</p>
+ *
  * @author Wilson Ventura
  */
 
 @Entity
+@NamedEntityGraph(name = PhoneNumber.WITH_USER,
+		attributeNodes = @NamedAttributeNode(value = "user", subgraph = "user"),
+		subgraphs = @NamedSubgraph(name = "user", attributeNodes = @NamedAttributeNode("address")))
 @Table(name = "phones")
+@DynamicUpdate
 @Data
 public class PhoneNumber {
 
 	/**
-	 * Brazilian phone number.
+	 * <p>Fetch plan of a phone number with its owner: loads the phone, the user and the user's address (always
+	 * loaded with the user) with a single joined select. The phone set of the user is not loaded.</p>
+	 */
+	public static final String WITH_USER = "PhoneNumber.withUser";
+
+	/**
+	 * Brazilian phone number, see <code>PhoneValidator</code>.
 	 */
-	private static final String PHONE_REGEXP = "^\\(?[1-9]{2}\\)? ?(?:[2-8]|9[1-9])[0-9]{3}\\-?[0-9]{4}$";
 	private static final String PHONE_MESSAGE = "Invalid phone number!";
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "phones_seq")
+	@SequenceGenerator(name = "phones_seq", sequenceName = "phones_seq", allocationSize = 50)
 	private Long phoneId;
 
+	/**
+	 * <p>Optimistic lock version, incremented by every update, also by the JDBC batches of the phone patch. The version
+	 * of the user's phone set is derived from the versions of its phones, see <code>EntityTag</code>.</p>
+	 */
+	@Version
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Long version;
+
 	@NotNull private String type;
 
-	@Pattern(regexp = PHONE_REGEXP, message = PHONE_MESSAGE)
+	@Phone(message = PHONE_MESSAGE)
 	@NotNull private String number;
 
 	/**
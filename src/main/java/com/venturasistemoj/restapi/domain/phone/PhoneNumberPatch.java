@@ -0,0 +1,27 @@
+package com.venturasistemoj.restapi.domain.phone;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Change of a phone number in a bulk phone patch: the phone is addressed by <code>phoneId</code> and must belong to
+ * the user <code>userId</code>. A <code>null</code> <code>type</code> or <code>number</code> keeps the current value.
+ *
+ * @author Wilson Ventura
+ */
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PhoneNumberPatch {
+
+	@NotNull private Long userId;
+	@NotNull private Long phoneId;
+
+	private String type;
+	private String number;
+}
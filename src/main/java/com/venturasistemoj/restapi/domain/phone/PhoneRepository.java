@@ -1,19 +1,39 @@
 package com.venturasistemoj.restapi.domain.phone;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-
-import com.venturasistemoj.restapi.domain.user.User;
+import org.springframework.data.jpa.repository.Query;
 
 /**
  * <p>Interface that extends <code>JpaRepository</code>, provided by Spring Data JPA with commonly used data access
  * methods for the <code>PhoneNumber</code> entity. In addition to the inherited methods, the custom method
- * <code>findAllByUser/<code> is responsible for fetching a phone set based on the associated user.</p>
+ * <code>findAllByUserUserId</code> fetches a phone set, with its owner, by the foreign key of the associated user: a
+ * single statement which is empty both for a nonexistent user and for a user without phones, and
+ * <code>findAllByUserUserIdIn</code> the phone sets of many users, with their owners, in one statement.
+ * <code>findByPhoneIdGreaterThan</code> reads one keyset page of phone numbers ordered by id, with their owners.</p>
+ * <p><code>findWithUserByPhoneIdAndUserId</code> applies the <code>PhoneNumber.WITH_USER</code> entity graph to read
+ * only the phone number to be updated, with its owner, in one statement.</p>
  *
  * @author Wilson Ventura
  */
 public interface PhoneRepository extends JpaRepository<PhoneNumber, Long> {
 
-	Set<PhoneNumber> findAllByUser(User user);
+	@EntityGraph(PhoneNumber.WITH_USER)
+	Set<PhoneNumber> findAllByUserUserId(Long userId);
+
+	@EntityGraph(PhoneNumber.WITH_USER)
+	List<PhoneNumber> findAllByUserUserIdIn(Collection<Long> userIds);
+
+	@EntityGraph(PhoneNumber.WITH_USER)
+	List<PhoneNumber> findByPhoneIdGreaterThan(Long phoneId, Pageable pageable);
+
+	@EntityGraph(PhoneNumber.WITH_USER)
+	@Query("select p from PhoneNumber p where p.phoneId = :phoneId and p.user.userId = :userId")
+	Optional<PhoneNumber> findWithUserByPhoneIdAndUserId(Long phoneId, Long userId);
 }
@@ -1,10 +1,15 @@
 package com.venturasistemoj.restapi.domain.phone;
 
+import java.util.List;
 import java.util.Set;
 
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.pagination.MultiGet;
 import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
+import com.venturasistemoj.restapi.exceptions.PreconditionFailedException;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -22,10 +27,31 @@ public interface PhoneService {
 	Set<PhoneNumberDTO> updatePhoneNumber(@NotNull Long userId,  @Valid PhoneNumberDTO phonesDTO)
 			throws NotFoundException, IllegalPhoneStateException;
 
+	Set<PhoneNumberDTO> updatePhoneNumber(@NotNull Long userId,  @Valid PhoneNumberDTO phonesDTO, String ifMatch)
+			throws NotFoundException, IllegalPhoneStateException, PreconditionFailedException;
+
+	PhoneNumberDTO updatePhoneNumber(@NotNull Long userId, @NotNull Long phoneId, @Valid PhoneNumberDTO phoneDTO)
+			throws NotFoundException, IllegalPhoneStateException;
+
+	PhoneNumberDTO updatePhoneNumber(@NotNull Long userId, @NotNull Long phoneId, @Valid PhoneNumberDTO phoneDTO,
+			String ifMatch) throws NotFoundException, IllegalPhoneStateException, PreconditionFailedException;
+
+	List<PhoneNumberDTO> patchPhoneNumbers(@NotNull List<PhoneNumberPatch> patches)
+			throws NotFoundException, IllegalPhoneStateException, IllegalArgumentException;
+
 	Set<PhoneNumberDTO> getPhonesByUserId(@NotNull Long userId) throws NotFoundException;
 
+	Tagged<Set<PhoneNumberDTO>> getTaggedPhones(@NotNull Long userId) throws NotFoundException;
+
+	String getPhonesTag(@NotNull Long userId) throws NotFoundException;
+
+	MultiGet<Set<PhoneNumberDTO>> getPhonesByUserIds(List<Long> userIds) throws IllegalArgumentException;
+
 	Set<PhoneNumberDTO> getPhoneNumbers() throws NotFoundException;
 
+	CursorPage<PhoneNumberDTO> getPhoneNumbers(Integer limit, String after)
+			throws NotFoundException, IllegalArgumentException;
+
 	void deletePhoneNumber(@NotNull Long userId, @Valid PhoneNumberDTO phoneDTO)
 			throws NotFoundException, IllegalPhoneStateException;
 }
@@ -1,20 +1,45 @@
 package com.venturasistemoj.restapi.domain.phone;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.venturasistemoj.restapi.aggregates.AggregateCounters;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.cache.SerializedResponse;
+import com.venturasistemoj.restapi.config.MetricsConfig;
+import com.venturasistemoj.restapi.config.ReadPath;
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.pagination.MultiGet;
+import com.venturasistemoj.restapi.domain.phone.PhoneJdbcRepository.VersionedPhone;
 import com.venturasistemoj.restapi.domain.user.User;
-import com.venturasistemoj.restapi.domain.user.UserMapper;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
 import com.venturasistemoj.restapi.domain.user.UserRepository;
 import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
+import com.venturasistemoj.restapi.exceptions.PreconditionFailedException;
+import com.venturasistemoj.restapi.versioning.EntityTag;
+import com.venturasistemoj.restapi.versioning.EntityTagRepository;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotNull;
 
 /**
@@ -24,15 +49,32 @@ import jakarta.validation.constraints.NotNull;
  */
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class PhoneServiceImpl implements PhoneService {
 
 	@Autowired private PhoneRepository phoneRepository;
 	@Autowired private PhoneMapper phoneMapper;
+	@Autowired private PhoneJdbcRepository phoneJdbcRepository;
+	@Autowired private EntityTagRepository entityTagRepository;
 
 	@Autowired private UserRepository userRepository;
-	@Autowired private UserMapper userMapper;
+
+	@Autowired private DtoCache<Long, Tagged<Set<PhoneNumberDTO>>> phonesCache;
+	@Autowired private DtoCache<Long, UserDTO> userCache;
+	@Autowired private DtoCache<Long, SerializedResponse> userResponseCache;
+	@Autowired private DtoCache<String, String> entityTagCache;
+	@Autowired private AggregateCounters aggregateCounters;
+
+	@Autowired private Validator validator;
+
+	@Value("${rest-api.read-path:jpa}")
+	private ReadPath readPath;
+
+	static final int MAX_PATCHES = 1000;
 
 	private static final String INCONPLETE_PHONE_DATA = "Incomplete phone number data!";
+	private static final String TOO_MANY_PATCHES = "A phone patch accepts up to " + MAX_PATCHES + " changes!";
+	private static final String PHONES_CHANGED = "Phone set changed since it was read!";
 
 	/**
 	 * <bold>Creates a new phone number for an existing user.</bold>
@@ -51,10 +93,14 @@ public class PhoneServiceImpl implements PhoneService {
 		if( ! checkPhoneState(phoneDTO))
 			throw new IllegalPhoneStateException(INCONPLETE_PHONE_DATA);
 
-		// associates phone number with user
-		phoneDTO.setUserDTO(userMapper.userToUserDTO(existingUser));
+		// associates phone number with the read user, whose version marks it as persistent
+		PhoneNumber phoneNumber = phoneMapper.phoneNumberDTOToPhoneNumber(phoneDTO);
+		phoneNumber.setPhoneId(null); // a new phone number, whatever id the client sent
+		phoneNumber.setUser(existingUser);
 
-		PhoneNumber savedPhoneNumber = phoneRepository.save(phoneMapper.phoneNumberDTOToPhoneNumber(phoneDTO));
+		PhoneNumber savedPhoneNumber = phoneRepository.save(phoneNumber);
+		aggregateCounters.addPhone(savedPhoneNumber.getType());
+		invalidateCaches(userId);
 		return phoneMapper.phoneNumberToPhoneNumberDTO(savedPhoneNumber);
 	}
 
@@ -69,58 +115,258 @@ public class PhoneServiceImpl implements PhoneService {
 	@Transactional(rollbackFor = IllegalArgumentException.class)
 	public Set<PhoneNumberDTO> updatePhoneNumber(@NotNull Long userId, @Valid PhoneNumberDTO phoneDTO)
 			throws NotFoundException, IllegalPhoneStateException {
+		return updatePhoneNumber(userId, phoneDTO, null);
+	}
 
-		User existingUser = getUser(userId); // throws NotFoundException
+	/**
+	 * <bold>Updates a phone number from an existing user's phone set if the set was not changed since it was read.</bold>
+	 *
+	 * <p>As <code>updatePhoneNumber(userId, phoneDTO)</code>, when <code>ifMatch</code>, an <code>If-Match</code>
+	 * header, lists the current <code>EntityTag</code> of the phone set or is <code>null</code>. Otherwise throws
+	 * <code>PreconditionFailedException</code>.</p>
+	 */
+	@Override
+	@Transactional(rollbackFor = IllegalArgumentException.class)
+	public Set<PhoneNumberDTO> updatePhoneNumber(@NotNull Long userId, @Valid PhoneNumberDTO phoneDTO, String ifMatch)
+			throws NotFoundException, IllegalPhoneStateException, PreconditionFailedException {
 
-		Set<PhoneNumber> userPhones = phoneRepository.findAllByUser(existingUser);
+		Set<PhoneNumber> userPhones = phoneRepository.findAllByUserUserId(userId);
 
 		if(userPhones.isEmpty())
-			throw new NotFoundException(); // no phone number to update
+			throw new NotFoundException(); // nonexistent user or no phone number to update
+
+		checkPhonesTag(userId, ifMatch);
 
 		if( ! checkPhoneState(phoneDTO))
 			throw new IllegalPhoneStateException(INCONPLETE_PHONE_DATA);
 
 		userPhones.forEach(phone -> {
 			if( phone.getPhoneId().equals(phoneDTO.getPhoneId() ) && ( ! phone.getNumber().equals(phoneDTO.getNumber())) ) {
+				aggregateCounters.changePhoneType(phone.getType(), phoneDTO.getType()); // after commit
 				phone.setType(phoneDTO.getType());
 				phone.setNumber(phoneDTO.getNumber());
 			}
 		});
 
 		phoneRepository.saveAll(userPhones);
+		invalidateCaches(userId);
 		return phoneMapper.phoneNumbersToPhoneNumbersDTO(userPhones);
 	}
 
+	/**
+	 * <bold>Updates one phone number of an existing user, addressed by its id.</bold>
+	 *
+	 * <p>Only the phone number and its owner are read, with one statement, and only the changed columns are written,
+	 * so the cost of the update does not depend on the size of the user's phone set.</p>
+	 * <p>If the user or the phone number does not exist, or the phone number belongs to another user, throws
+	 * <code>NotFoundException</code>.</p>
+	 * <p>If the phone data is incomplete or invalid, throws <code>IllegalPhoneStateException</code>.</p>
+	 * <p>Returns the updated phone number.</p>
+	 */
+	@Override
+	@Transactional
+	public PhoneNumberDTO updatePhoneNumber(@NotNull Long userId, @NotNull Long phoneId, @Valid PhoneNumberDTO phoneDTO)
+			throws NotFoundException, IllegalPhoneStateException {
+		return updatePhoneNumber(userId, phoneId, phoneDTO, null);
+	}
+
+	/**
+	 * <bold>Updates one phone number of an existing user if the phone set was not changed since it was read.</bold>
+	 *
+	 * <p>As <code>updatePhoneNumber(userId, phoneId, phoneDTO)</code>, when <code>ifMatch</code>, an
+	 * <code>If-Match</code> header, lists the current <code>EntityTag</code> of the phone set or is <code>null</code>.
+	 * Otherwise throws <code>PreconditionFailedException</code>.</p>
+	 */
+	@Override
+	@Transactional
+	public PhoneNumberDTO updatePhoneNumber(@NotNull Long userId, @NotNull Long phoneId, @Valid PhoneNumberDTO phoneDTO,
+			String ifMatch) throws NotFoundException, IllegalPhoneStateException, PreconditionFailedException {
+
+		PhoneNumber existingPhone = phoneRepository.findWithUserByPhoneIdAndUserId(phoneId, userId)
+				.orElseThrow(NotFoundException::new);
+
+		checkPhonesTag(userId, ifMatch);
+
+		if( ! checkPhoneState(phoneDTO))
+			throw new IllegalPhoneStateException(INCONPLETE_PHONE_DATA);
+
+		applyChanges(existingPhone, phoneDTO.getType(), phoneDTO.getNumber());
+		invalidateCaches(userId);
+		return phoneMapper.phoneNumberToPhoneNumberDTO(existingPhone);
+	}
+
+	/**
+	 * <bold>Applies the changes of many phone numbers, of many users, in one transaction.</bold>
+	 *
+	 * <p>The phone numbers are read with their owners in one statement and only the changed columns are written, with
+	 * one JDBC batch for each set of changed columns (see <code>PhoneJdbcRepository</code>). Either all the changes are
+	 * applied or none.</p>
+	 * <p>If there are more than 1000 changes, throws <code>IllegalArgumentException</code>.</p>
+	 * <p>If a change has no <code>userId</code> or <code>phoneId</code>, or the resulting phone data is invalid, throws
+	 * <code>IllegalPhoneStateException</code>.</p>
+	 * <p>If a phone number does not exist or belongs to another user, throws <code>NotFoundException</code>.</p>
+	 * <p>If a phone number is changed by a write committed after it was read, throws
+	 * <code>OptimisticLockingFailureException</code>.</p>
+	 * <p>Returns the updated phone numbers, in the order of the changes.</p>
+	 */
+	@Override
+	@Transactional
+	public List<PhoneNumberDTO> patchPhoneNumbers(@NotNull List<PhoneNumberPatch> patches)
+			throws NotFoundException, IllegalPhoneStateException, IllegalArgumentException {
+
+		if(patches.size() > MAX_PATCHES)
+			throw new IllegalArgumentException(TOO_MANY_PATCHES);
+
+		if(patches.stream().anyMatch(patch -> patch.getUserId() == null || patch.getPhoneId() == null))
+			throw new IllegalPhoneStateException(INCONPLETE_PHONE_DATA);
+
+		Set<Long> phoneIds = patches.stream().map(PhoneNumberPatch::getPhoneId).collect(Collectors.toSet());
+		Map<Long, VersionedPhone> stored = phoneJdbcRepository.findAllWithOwnerById(phoneIds);
+
+		// all the phone numbers are checked before any write, so a missing one leaves the others untouched
+		Map<Long, PhoneNumberDTO> patched = new LinkedHashMap<>();
+		for(PhoneNumberPatch patch : patches) {
+
+			VersionedPhone versioned = stored.get(patch.getPhoneId());
+			if(versioned == null || ! versioned.phone().getUserDTO().getUserId().equals(patch.getUserId()))
+				throw new NotFoundException();
+
+			PhoneNumberDTO phone = versioned.phone();
+
+			// a phone patched more than once keeps its last values
+			PhoneNumberDTO result = patched.computeIfAbsent(phone.getPhoneId(), id -> PhoneNumberDTO.builder()
+					.phoneId(id)
+					.type(phone.getType())
+					.number(phone.getNumber())
+					.build());
+
+			if(patch.getType() != null)
+				result.setType(patch.getType());
+			if(patch.getNumber() != null)
+				result.setNumber(patch.getNumber());
+		}
+
+		List<VersionedPhone> changes = new ArrayList<>();
+		for(PhoneNumberDTO result : patched.values()) {
+
+			validate(result.getType(), result.getNumber());
+
+			VersionedPhone versioned = stored.get(result.getPhoneId());
+			PhoneNumberDTO phone = versioned.phone();
+			boolean typeChanged = ! result.getType().equals(phone.getType());
+			boolean numberChanged = ! result.getNumber().equals(phone.getNumber());
+
+			if(typeChanged)
+				aggregateCounters.changePhoneType(phone.getType(), result.getType()); // after commit
+
+			if(typeChanged || numberChanged) // unchanged phones are not written at all
+				changes.add(new VersionedPhone(PhoneNumberDTO.builder()
+						.phoneId(result.getPhoneId())
+						.type(typeChanged ? result.getType() : null)
+						.number(numberChanged ? result.getNumber() : null)
+						.build(), versioned.version()));
+		}
+
+		phoneJdbcRepository.updateChangedColumns(changes);
+
+		patches.stream().map(PhoneNumberPatch::getUserId).distinct().forEach(this::invalidateCaches);
+		return patches.stream().map(patch -> patched.get(patch.getPhoneId())).toList();
+	}
+
 	/**
 	 * <bold>Gets the phone set of an existing user.</bold>
 	 *
 	 * If the user does not exist or there are no registered phones, throws <code>NotFoundException</code>.
+	 * The DTOs are served from <code>phonesCache</code> when present, otherwise the phones and their user are read with
+	 * a single statement.
 	 */
 	@Override
 	@Transactional(readOnly = true)
 	public Set<PhoneNumberDTO> getPhonesByUserId(@NotNull Long userId) throws NotFoundException {
+		return phonesCache.get(userId, this::loadPhones).body();
+	}
 
-		User existingUser = getUser(userId); // throws NotFoundException
+	/**
+	 * <bold>Gets the phone set of an existing user with its entity tag.</bold>
+	 *
+	 * <p>As <code>getPhonesByUserId</code>, with the <code>EntityTag</code> of the versions the DTOs were mapped from,
+	 * cached in the same entry.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Tagged<Set<PhoneNumberDTO>> getTaggedPhones(@NotNull Long userId) throws NotFoundException {
+		return phonesCache.get(userId, this::loadPhones);
+	}
 
-		if(existingUser.getPhones().isEmpty())
-			throw new NotFoundException(); // no phone numbers
-		else
-			return phoneRepository.findAllByUser(existingUser)
-					.stream()
-					.map(phoneMapper::phoneNumberToPhoneNumberDTO)
-					.collect(Collectors.toSet());
+	/**
+	 * <bold>Gets the entity tag of an existing user's phone set.</bold>
+	 *
+	 * <p>Returns the <code>EntityTag</code> of the phone set, from <code>entityTagCache</code> when present, otherwise
+	 * read by a version-only query. It may be newer than the cached phone set: a response with the phones takes the
+	 * tag of <code>getTaggedPhones</code>.</p>
+	 * <p>If the user does not exist or there are no registered phones, throws <code>NotFoundException</code>.</p>
+	 */
+	@Override
+	public String getPhonesTag(@NotNull Long userId) throws NotFoundException {
+		return entityTagCache.get(EntityTag.PHONES + userId,
+				key -> entityTagRepository.findPhonesTag(userId).orElseThrow(NotFoundException::new));
+	}
+
+	private Tagged<Set<PhoneNumberDTO>> loadPhones(Long userId) throws NotFoundException {
+
+		Set<PhoneNumber> userPhones = phoneRepository.findAllByUserUserId(userId);
+
+		if(userPhones.isEmpty())
+			throw new NotFoundException(); // nonexistent user or no phone numbers
+
+		return tagged(userPhones);
+	}
+
+	/**
+	 * <bold>Gets the phone sets of many users at once.</bold>
+	 *
+	 * <p>Returns the phone set of each of the distinct <code>userIds</code>, in their order, and the ids of the users
+	 * without phones or nonexistent. See <code>MultiGet</code>. The phone sets are served from <code>phonesCache</code>
+	 * when present, the others are read with their owners in a single <code>IN</code> query and cached.</p>
+	 * <p>If there are no ids, a <code>null</code> one or more than <code>MultiGet.MAX_IDS</code>, throws
+	 * <code>IllegalArgumentException</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public MultiGet<Set<PhoneNumberDTO>> getPhonesByUserIds(List<Long> userIds) throws IllegalArgumentException {
+
+		List<Long> ids = MultiGet.ids(userIds);
+		return MultiGet.of(ids, Tagged.bodies(phonesCache.getAll(ids, this::loadPhoneSets)));
+	}
+
+	private Map<Long, Tagged<Set<PhoneNumberDTO>>> loadPhoneSets(List<Long> userIds) {
+		return phoneRepository.findAllByUserUserIdIn(userIds).stream()
+				.collect(Collectors.groupingBy(phone -> phone.getUser().getUserId(),
+						Collectors.collectingAndThen(Collectors.toSet(), this::tagged)));
+	}
+
+	private Tagged<Set<PhoneNumberDTO>> tagged(Set<PhoneNumber> phones) {
+		return new Tagged<>(phoneMapper.phoneNumbersToPhoneNumbersDTO(phones), EntityTag.phones(phones));
 	}
 
 	/**
 	 * <bold>Gets all phone numbers from the database.</bold>
 	 *
 	 * If there are no registered phones, throws <code>NotFoundException</code>.
+	 * On the JDBC read path the DTOs are read by <code>PhoneJdbcRepository</code>.
 	 */
 	@Override
 	@Transactional(readOnly = true)
 	public Set<PhoneNumberDTO> getPhoneNumbers() throws NotFoundException {
 
-		Set<PhoneNumber> allPhones = phoneRepository.findAll()
+		if(readPath == ReadPath.JDBC) {
+			Set<PhoneNumberDTO> allPhones = phoneJdbcRepository.findAll();
+			if(allPhones.isEmpty())
+				throw new NotFoundException();
+			return allPhones;
+		}
+
+		Set<PhoneNumber> allPhones = phoneRepository.findAll(Sort.by("phoneId")) // equal numbers collapse to the first
 				.stream()
 				.collect(Collectors.toSet());
 
@@ -130,6 +376,30 @@ public class PhoneServiceImpl implements PhoneService {
 		return phoneMapper.phoneNumbersToPhoneNumbersDTO(allPhones);
 	}
 
+	/**
+	 * <bold>Gets a page of database phone numbers.</bold>
+	 *
+	 * <p>Reads at most <code>limit</code> phone numbers with id greater than the <code>after</code> cursor, ordered by
+	 * id, and returns them with the cursor of the next page. See <code>CursorPage</code>.</p>
+	 * If there are no registered phones, throws <code>NotFoundException</code>.
+	 * If the cursor or the limit are invalid, throws <code>IllegalArgumentException</code>.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPage<PhoneNumberDTO> getPhoneNumbers(Integer limit, String after)
+			throws NotFoundException, IllegalArgumentException {
+
+		Pageable request = CursorPage.request(limit, "phoneId");
+		List<PhoneNumber> phones = phoneRepository.findByPhoneIdGreaterThan(CursorPage.after(after), request);
+
+		if(phones.isEmpty() && after == null)
+			throw new NotFoundException(); // no phone numbers in database
+
+		return CursorPage.of(phones, request, PhoneNumber::getPhoneId, page -> page.stream()
+				.map(phoneMapper::phoneNumberToPhoneNumberDTO)
+				.collect(Collectors.toList()));
+	}
+
 	/**
 	 * <bold>Removes a phone number from an existing user's phone set.</bold>
 	 *
@@ -142,15 +412,18 @@ public class PhoneServiceImpl implements PhoneService {
 	public void deletePhoneNumber(@NotNull Long userId, @Valid PhoneNumberDTO phoneDTO)
 			throws NotFoundException, IllegalPhoneStateException {
 
-		User existingUser = getUser(userId); // throws NotFoundException
-
-		PhoneNumber existingPhone = phoneRepository.findById(phoneDTO.getPhoneId()).orElseThrow(NotFoundException::new);
+		PhoneNumber existingPhone = phoneRepository.findWithUserByPhoneIdAndUserId(phoneDTO.getPhoneId(), userId)
+				.orElseThrow(NotFoundException::new);
 
 		if( ! checkPhoneState(phoneDTO))
 			throw new IllegalPhoneStateException(INCONPLETE_PHONE_DATA);
 
-		existingUser.getPhones().remove(existingPhone); // disassociates phone number from user phone set
+		// disassociates phone number from user phone set, if it was loaded
+		if(Hibernate.isInitialized(existingPhone.getUser().getPhones()))
+			existingPhone.getUser().getPhones().remove(existingPhone);
 		phoneRepository.deleteById(existingPhone.getPhoneId()); // delete this user's phone number
+		aggregateCounters.removePhone(existingPhone.getType());
+		invalidateCaches(userId);
 
 	}
 
@@ -166,6 +439,53 @@ public class PhoneServiceImpl implements PhoneService {
 			throw new NotFoundException();
 	}
 
+	// Invalidates the cached phones and user (which embeds the phones), and their tags, after commit.
+	private void invalidateCaches(Long userId) {
+		phonesCache.invalidate(userId);
+		userCache.invalidate(userId);
+		userResponseCache.invalidate(userId);
+		entityTagCache.invalidate(EntityTag.PHONES + userId);
+		entityTagCache.invalidate(EntityTag.USERS + userId);
+	}
+
+	// Checks an If-Match header against the phone set tag in the database, the cached one may be stale. A change
+	// committed after the check fails the versioned update with OptimisticLockingFailureException.
+	private void checkPhonesTag(Long userId, String ifMatch) throws NotFoundException, PreconditionFailedException {
+
+		if(ifMatch != null && ! EntityTag.matchesStrongly(ifMatch,
+				entityTagRepository.findPhonesTag(userId).orElseThrow(NotFoundException::new)))
+			throw new PreconditionFailedException(PHONES_CHANGED);
+	}
+
+	// Sets the changed values (null keeps the current one) and validates the result. Unchanged phones are not written
+	// at all and, with @DynamicUpdate, changed ones only in the changed columns.
+	private void applyChanges(PhoneNumber phone, String type, String number) throws IllegalPhoneStateException {
+
+		if(type != null && ! type.equals(phone.getType())) {
+			aggregateCounters.changePhoneType(phone.getType(), type); // after commit
+			phone.setType(type);
+		}
+
+		if(number != null && ! number.equals(phone.getNumber()))
+			phone.setNumber(number);
+
+		validate(phone.getType(), phone.getNumber());
+	}
+
+	// Validates the type and number with the constraints of the PhoneNumber entity.
+	private void validate(String type, String number) throws IllegalPhoneStateException {
+
+		Set<ConstraintViolation<PhoneNumber>> violations = new HashSet<>();
+		violations.addAll(validator.validateValue(PhoneNumber.class, "type", type));
+		violations.addAll(validator.validateValue(PhoneNumber.class, "number", number));
+
+		if( ! violations.isEmpty())
+			throw new IllegalPhoneStateException(violations.stream()
+					.map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+					.sorted()
+					.collect(Collectors.joining("; ")));
+	}
+
 	// checks the consistency of phone number data.
 	private boolean checkPhoneState(PhoneNumberDTO phoneDTO) {
 
@@ -0,0 +1,73 @@
+package com.venturasistemoj.restapi.domain.user;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-row result report of a bulk user import.
+ *
+ * <p>Each row of the imported JSON array has a <code>Row</code> entry, in the same order, with its zero-based
+ * <code>index</code>, its <code>status</code> and either the generated <code>userId</code> or the rejection
+ * <code>message</code>.</p>
+ * <p>If the JSON breaks inside the array, the import stops there: the rows read before the error are reported, and
+ * <code>failure</code> gives the parser message, the <code>index</code> of the row being read and its position in the
+ * body. <code>failure</code> is <code>null</code> when the whole array was read.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Data
+@NoArgsConstructor
+public class BulkImportReport {
+
+	public enum Status { CREATED, REJECTED }
+
+	private int received;
+	private int created;
+	private int rejected;
+	private List<Row> rows = new ArrayList<>();
+	private Failure failure;
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Row {
+
+		private int index;
+		private Status status;
+		private Long userId;
+		private String message;
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Failure {
+
+		private String message;
+		private int index;
+		private int line;
+		private int column;
+	}
+
+	void created(int index, Long userId) {
+		rows.add(new Row(index, Status.CREATED, userId, null));
+		received++;
+		created++;
+	}
+
+	void rejected(int index, String message) {
+		rows.add(new Row(index, Status.REJECTED, null, message));
+		received++;
+		rejected++;
+	}
+
+	// the row being read when parsing stopped is the one after the last reported row
+	void failed(String message, int line, int column) {
+		failure = new Failure(message, received, line, column);
+	}
+}
@@ -4,9 +4,14 @@ import java.time.LocalDate;
 import java.util.Objects;
 import java.util.Set;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OptimisticLock;
+
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.venturasistemoj.restapi.domain.address.Address;
 import com.venturasistemoj.restapi.domain.phone.PhoneNumber;
+import com.venturasistemoj.restapi.validation.Cpf;
+import com.venturasistemoj.restapi.validation.EmailAddress;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -14,11 +19,18 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 /**
@@ -28,7 +40,14 @@ import lombok.Data;
  */
 
 @Entity
-@Table(name = "users")
+@NamedEntityGraph(name = User.WITH_ADDRESS_AND_PHONES, attributeNodes = {
+		@NamedAttributeNode("address"),
+		@NamedAttributeNode("phones") })
+@Table(name = "users", indexes = {
+		@Index(name = "idx_users_fingerprint", columnList = "fingerprint"),
+		@Index(name = "idx_users_search_name", columnList = "searchName, userId"),
+		@Index(name = "idx_users_search_sur_name", columnList = "searchSurName, userId"),
+		@Index(name = "idx_users_search_email", columnList = "searchEmail, userId") })
 @Data // Equivalent to @Getter, @Setter, @RequiredArgsConstructor and @ToString @EqualsAndHashCode (overridden here).
 public class User {
 
@@ -38,19 +57,33 @@ public class User {
 	 * which is only applied to instance fields and does not affect static fields.</p>
 	 */
 
-	// No check digit
-	private static final String CPF_REGEXP = "^[\\d]{3}\\.?[\\d]{3}\\.?[\\d]{3}\\-?[\\d]{2}$";
+	// With check digits, see CpfValidator
 	private static final String CPF_MESSAGE = "CPF inválido!";
 
-	// https://www.w3schools.blog/validate-email-regular-expression-regex-java
-	private static final String EMAIL_REGEXP =
-			"^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$";
+	// See EmailAddressValidator
 	private static final String EMAIL_MESSAGE = "E-mail inválido!";
 
+	/**
+	 * <p>Fetch plan of the "user with address and phones" shape read by the API: loads the whole aggregate with a single
+	 * joined select instead of one extra select for the address and one for the phones of each user.</p>
+	 */
+	public static final String WITH_ADDRESS_AND_PHONES = "User.withAddressAndPhones";
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+	@SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
 	private Long userId;
 
+	/**
+	 * <p>Optimistic lock version, incremented by every update of the user's own columns. The address and the phones
+	 * have their own versions, so their changes are excluded from this one (<code>@OptimisticLock</code> below) and
+	 * concurrent writes of different parts of the user do not conflict. See <code>EntityTag</code>.</p>
+	 */
+	@Version
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Long version;
+
 	@NotNull private String name;
 	@NotNull private String surName;
 
@@ -65,14 +98,29 @@ public class User {
 	private LocalDate birthDate;
 
 	@NotNull
-	@Pattern(regexp = CPF_REGEXP, message = CPF_MESSAGE)
+	@Cpf(message = CPF_MESSAGE)
 	@Column(unique = true)
 	private String cpf;
 
 	@NotNull
-	@Pattern(regexp = EMAIL_REGEXP, message = EMAIL_MESSAGE)
+	@EmailAddress(message = EMAIL_MESSAGE)
 	private String email;
 
+	/**
+	 * <p>Identity fingerprint of the person (see <code>UserFingerprint</code>), kept in sync by the JPA lifecycle
+	 * callbacks below and indexed so that BR2 conflicts can be detected without scanning the users table.</p>
+	 */
+	@Column(length = UserFingerprint.LENGTH)
+	private String fingerprint;
+
+	/**
+	 * <p>Search keys of <code>name</code>, <code>surName</code> and <code>email</code> (see <code>UserSearchKey</code>),
+	 * kept in sync by the JPA lifecycle callbacks below. Each one is indexed with <code>user_id</code>, the order of the
+	 * search results, so a page of a prefix search reads only its own index entries.</p>
+	 */
+	private String searchName;
+	private String searchSurName;
+	private String searchEmail;
 
 	/**
 	 * <p><code>@OneToOne</code> indicates a one-to-one relationship between the <code>User</code> and
@@ -83,6 +131,7 @@ public class User {
 	 * propagated to the <code>Address/<code> entity.</p>
 	 */
 	@OneToOne(mappedBy = "user", cascade = CascadeType.ALL)
+	@OptimisticLock(excluded = true)
 	@JsonManagedReference
 	private Address address;
 
@@ -93,8 +142,11 @@ public class User {
 	 * table has a column <code>user_id</code> that references the primary key of the users table.
 	 * <code>cascade</code> defines that persistence operations performed on the <code>User</code> entity will be
 	 * propagated to the <code>PhoneNumber/<code> entity.</p>
+	 * <p><code>@OrderBy</code> loads the phones in id order, so that of equal numbers the set keeps the first one.</p>
 	 */
 	@OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
+	@OrderBy("phoneId")
+	@OptimisticLock(excluded = true)
 	@JsonManagedReference
 	private Set<PhoneNumber> phones;
 
@@ -106,6 +158,15 @@ public class User {
 	 * in JSON serialization.</p>
 	 */
 
+	@PrePersist
+	@PreUpdate
+	void updateDerivedColumns() {
+		fingerprint = UserFingerprint.of(name, surName, birthDate, email);
+		searchName = UserSearchKey.of(name);
+		searchSurName = UserSearchKey.of(surName);
+		searchEmail = UserSearchKey.of(email);
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -0,0 +1,14 @@
+package com.venturasistemoj.restapi.domain.user;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service interface to bulk user import business logic.
+ *
+ * @author Wilson Ventura
+ */
+public interface UserBulkService {
+
+	BulkImportReport importUsers(InputStream json) throws IOException, IllegalArgumentException;
+}
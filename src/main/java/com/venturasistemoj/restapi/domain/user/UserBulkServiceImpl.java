@@ -0,0 +1,246 @@
+package com.venturasistemoj.restapi.domain.user;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.aggregates.AggregateCounters;
+import com.venturasistemoj.restapi.config.MetricsConfig;
+
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * <code>UserBulkService</code> interface implementation class to import large lists of users.
+ *
+ * <p>The JSON array is parsed as a stream, one element at a time, and processed in chunks of
+ * <code>rest-api.users.bulk.chunk-size</code> rows, each chunk in its own transaction. The parsed rows and entities in
+ * memory are bounded by the chunk size; what grows with the imported list is the report, one small entry per row, and
+ * the CPF and fingerprint of each created user.</p>
+ * <p>For each chunk:</p>
+ * <ul>
+ * <li>rows are validated with the entity constraints (user, address and phones);
+ * <li>duplicates inside the imported list, of a row of the chunk or of a user created by a previous chunk, are detected
+ * by CPF and identity fingerprint (BR2);
+ * <li>conflicts with registered users are detected with two set-based <code>IN</code> queries;
+ * <li>the accepted users are persisted with their address and phones and flushed as JDBC batches, which the pooled
+ * sequences of the entities make possible.
+ * </ul>
+ * <p>A chunk the database refuses at flush, such as a CPF registered meanwhile by another request or a value too long
+ * for its column, is rolled back and its rows reported as rejected; the import goes on with the next chunk.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Service
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class UserBulkServiceImpl implements UserBulkService {
+
+	private static final String NOT_AN_ARRAY = "Bulk import expects a JSON array of users!";
+	private static final String UNREADABLE_USER = "Unreadable user data: ";
+	private static final String DUPLICATED_USER = "Duplicated user in the imported list!";
+	private static final String CHUNK_ROLLED_BACK = "Chunk rolled back: ";
+
+	@Autowired private UserRepository userRepository;
+	@Autowired private UserMapper userMapper;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private Validator validator;
+	@Autowired private TransactionTemplate transactionTemplate;
+	@Autowired private AggregateCounters aggregateCounters;
+
+	@PersistenceContext private EntityManager entityManager;
+
+	@Value("${rest-api.users.bulk.chunk-size:500}")
+	private int chunkSize;
+
+	/**
+	 * <bold>Imports a JSON array of users, with optional nested address and phones.</bold>
+	 *
+	 * <p>Invalid rows, rows conflicting with registered users (BR2) and duplicated rows are rejected and reported
+	 * without interrupting the import.</p>
+	 * <p>If the body is not a JSON array, throws <code>IllegalArgumentException</code>. If the JSON breaks inside the
+	 * array, the rows read before the error are imported and reported, and the report's <code>failure</code> tells the
+	 * error and where parsing stopped, so the client knows which rows are persisted.</p>
+	 * <p>Returns the per-row result report.</p>
+	 */
+	@Override
+	public BulkImportReport importUsers(InputStream json) throws IOException, IllegalArgumentException {
+
+		BulkImportReport report = new BulkImportReport();
+		List<JsonNode> chunk = new ArrayList<>(chunkSize);
+		ImportedKeys imported = new ImportedKeys(new HashSet<>(), new HashSet<>());
+
+		try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+
+			if(parser.nextToken() != JsonToken.START_ARRAY)
+				throw new IllegalArgumentException(NOT_AN_ARRAY);
+
+			try {
+				while(parser.nextToken() != JsonToken.END_ARRAY) {
+
+					if(parser.currentToken() == null)
+						throw new JsonParseException(parser, NOT_AN_ARRAY); // truncated array
+
+					chunk.add(parser.readValueAsTree());
+
+					if(chunk.size() == chunkSize) {
+						importChunk(chunk, report, imported);
+						chunk.clear();
+					}
+				}
+			} catch (JsonProcessingException e) { // the chunks before it are committed
+				importChunk(chunk, report, imported);
+				JsonLocation location = e.getLocation() != null ? e.getLocation() : JsonLocation.NA;
+				report.failed(e.getOriginalMessage(), location.getLineNr(), location.getColumnNr());
+				return report;
+			}
+		}
+
+		importChunk(chunk, report, imported);
+		return report;
+	}
+
+	// the keys of the users created by the previous chunks of an import
+	private record ImportedKeys(Set<String> cpfs, Set<String> fingerprints) {}
+
+	private void importChunk(List<JsonNode> rows, BulkImportReport report, ImportedKeys imported) {
+
+		if(rows.isEmpty())
+			return;
+
+		String[] rejections = new String[rows.size()];
+		List<UserDTO> candidates = new ArrayList<>(rows.size());
+
+		for(int i = 0; i < rows.size(); i++) {
+			try {
+				candidates.add(objectMapper.treeToValue(rows.get(i), UserDTO.class));
+			} catch (JsonProcessingException e) {
+				candidates.add(null);
+				rejections[i] = UNREADABLE_USER + e.getOriginalMessage();
+			}
+		}
+
+		User[] users = new User[rows.size()];
+		String[] fingerprints = new String[rows.size()];
+
+		// row validation and duplicates inside the imported list
+		Set<String> chunkCpfs = new HashSet<>();
+		Set<String> chunkFingerprints = new HashSet<>();
+
+		for(int i = 0; i < candidates.size(); i++) {
+
+			if(rejections[i] != null)
+				continue;
+
+			User user = userMapper.userDTOToNewUser(candidates.get(i));
+			String violations = validate(user);
+
+			if(violations != null) {
+				rejections[i] = violations;
+				continue;
+			}
+
+			// the keys of a rejected row are not kept: a later row matching only that row is not a duplicate
+			String fingerprint = UserFingerprint.of(candidates.get(i));
+
+			if(chunkCpfs.contains(user.getCpf()) || chunkFingerprints.contains(fingerprint)
+					|| imported.cpfs().contains(user.getCpf()) || imported.fingerprints().contains(fingerprint)) {
+				rejections[i] = DUPLICATED_USER;
+				continue;
+			}
+
+			chunkCpfs.add(user.getCpf());
+			chunkFingerprints.add(fingerprint);
+			users[i] = user;
+			fingerprints[i] = fingerprint;
+		}
+
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+
+				// BR2 against registered users: same CPF, or same person with a different CPF
+				Set<String> registeredCpfs = chunkCpfs.isEmpty() ? Set.of() : userRepository.findCpfsByCpfIn(chunkCpfs);
+				Set<String> registeredFingerprints = chunkFingerprints.isEmpty()
+						? Set.of()
+						: userRepository.findFingerprintsByFingerprintIn(chunkFingerprints);
+
+				for(int i = 0; i < users.length; i++) {
+
+					if(users[i] == null)
+						continue;
+
+					if(registeredCpfs.contains(users[i].getCpf()) || registeredFingerprints.contains(fingerprints[i])) {
+						rejections[i] = UserServiceImpl.CPF_INCOMPATIBILITY;
+						users[i] = null;
+					} else {
+						entityManager.persist(users[i]); // cascades to address and phones
+						aggregateCounters.addUser(users[i]); // after commit
+					}
+				}
+
+				entityManager.flush();
+				entityManager.clear();
+			});
+		} catch (DataAccessException | PersistenceException e) { // the entity manager is not exception translated
+			for(int i = 0; i < users.length; i++)
+				if(users[i] != null) {
+					rejections[i] = CHUNK_ROLLED_BACK + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+					users[i] = null;
+				}
+		}
+
+		int firstIndex = report.getReceived();
+		for(int i = 0; i < rows.size(); i++) {
+			if(users[i] != null) {
+				report.created(firstIndex + i, users[i].getUserId());
+				imported.cpfs().add(users[i].getCpf());
+				imported.fingerprints().add(fingerprints[i]);
+			} else {
+				report.rejected(firstIndex + i, rejections[i]);
+			}
+		}
+	}
+
+	// returns the constraint violation messages of the user, address and phones, or null if they are valid
+	private String validate(User user) {
+
+		Set<ConstraintViolation<Object>> violations = new HashSet<>(validator.validate((Object) user));
+
+		if(user.getAddress() != null)
+			violations.addAll(validator.validate((Object) user.getAddress()));
+
+		if(user.getPhones() != null)
+			user.getPhones().forEach(phone -> violations.addAll(validator.validate((Object) phone)));
+
+		if(violations.isEmpty())
+			return null;
+
+		return violations.stream()
+				.map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+				.sorted()
+				.collect(Collectors.joining("; "));
+	}
+}
@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.util.Objects;
 import java.util.Set;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.venturasistemoj.restapi.domain.address.AddressDTO;
 import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
@@ -17,9 +18,13 @@ import lombok.NoArgsConstructor;
 /**
  * User data transfer class.
  *
+ * <p>Written through the <code>UserFields.FILTER</code> filter, which writes every property unless a response selects
+ * a sparse fieldset, see <code>UserFields</code>.</p>
+ *
  * @author Wilson Ventura
  */
 
+@JsonFilter(UserFields.FILTER)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,87 @@
+package com.venturasistemoj.restapi.domain.user;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * Sparse fieldset of a user response: the user properties to write and the relations to expand.
+ *
+ * <p>Parsed from the <code>fields</code> and <code>expand</code> request parameters, both comma separated lists.
+ * Without any of them the response is the whole user with address and phones (<code>ALL</code>). With
+ * <code>fields</code> only the listed properties are written, <code>userId</code> always included; with
+ * <code>expand</code> only the listed relations, <code>address</code> and/or <code>phones</code>, are read and
+ * written.</p>
+ * <p>The properties are selected by the <code>FILTER</code> Jackson filter of <code>UserDTO</code> and the relations
+ * by the fetch plan of the read, so a request without <code>expand</code> reads only the <code>users</code> table.</p>
+ *
+ * @author Wilson Ventura
+ */
+public record UserFields(Set<String> properties, boolean address, boolean phones) {
+
+	public static final String FILTER = "userFields";
+
+	public static final String ADDRESS = "address";
+	public static final String PHONES = "phones";
+
+	private static final List<String> USER_PROPERTIES = List.of("userId", "name", "surName", "birthDate", "cpf", "email");
+
+	public static final UserFields ALL = new UserFields(Set.copyOf(USER_PROPERTIES), true, true);
+
+	private static final String UNKNOWN_FIELD = "Unknown user field: ";
+	private static final String UNKNOWN_RELATION = "Unknown user relation: ";
+
+	/**
+	 * Parses the request parameters, <code>null</code> or blank when absent. Throws
+	 * <code>IllegalArgumentException</code> for an unknown property or relation.
+	 */
+	public static UserFields of(String fields, String expand) throws IllegalArgumentException {
+
+		boolean allFields = fields == null || fields.isBlank();
+		boolean allRelations = expand == null || expand.isBlank();
+
+		if(allFields && allRelations)
+			return ALL;
+
+		Set<String> properties = new HashSet<>(allFields ? USER_PROPERTIES : List.of("userId"));
+		for(String field : allFields ? List.<String>of() : split(fields)) {
+			if( ! USER_PROPERTIES.contains(field))
+				throw new IllegalArgumentException(UNKNOWN_FIELD + field);
+			properties.add(field);
+		}
+
+		List<String> relations = allRelations ? List.of() : split(expand);
+		for(String relation : relations)
+			if( ! relation.equals(ADDRESS) && ! relation.equals(PHONES))
+				throw new IllegalArgumentException(UNKNOWN_RELATION + relation);
+
+		return new UserFields(Set.copyOf(properties), relations.contains(ADDRESS), relations.contains(PHONES));
+	}
+
+	public boolean isAll() {
+		return address && phones && properties.size() == USER_PROPERTIES.size();
+	}
+
+	/**
+	 * Returns the Jackson filters that write only the properties and relations of this fieldset.
+	 */
+	public FilterProvider filters() {
+
+		Set<String> written = new HashSet<>(properties);
+		if(address)
+			written.add("addressDTO");
+		if(phones)
+			written.add("phonesDTO");
+
+		return new SimpleFilterProvider().addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(written));
+	}
+
+	private static List<String> split(String list) {
+		return Arrays.stream(list.split(",")).map(String::trim).filter(item -> ! item.isEmpty()).toList();
+	}
+}
@@ -0,0 +1,55 @@
+package com.venturasistemoj.restapi.domain.user;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Utility class that computes the identity fingerprint of a person.
+ *
+ * <p>The fingerprint is the SHA-256 digest of the normalized (trimmed and lower-cased) <code>name</code>,
+ * <code>surName</code>, <code>birthDate</code> and <code>email</code>, encoded as unpadded Base64. It has a fixed
+ * length of 43 characters, which keeps the <code>users.fingerprint</code> index compact and allows BR2 ("same person
+ * with different CPF") to be answered with a single indexed lookup instead of scanning the whole table.</p>
+ *
+ * @author Wilson Ventura
+ */
+public final class UserFingerprint {
+
+	public static final int LENGTH = 43;
+
+	private static final char SEPARATOR = '\u001F'; // ASCII unit separator, never typed by users
+
+	private UserFingerprint() {}
+
+	public static String of(String name, String surName, LocalDate birthDate, String email) {
+
+		if(name == null || surName == null || birthDate == null || email == null)
+			return null;
+
+		String normalized = new StringBuilder()
+				.append(normalize(name)).append(SEPARATOR)
+				.append(normalize(surName)).append(SEPARATOR)
+				.append(birthDate).append(SEPARATOR)
+				.append(normalize(email))
+				.toString();
+
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().withoutPadding().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // SHA-256 is mandatory on every Java platform
+		}
+	}
+
+	public static String of(UserDTO userDTO) {
+		return of(userDTO.getName(), userDTO.getSurName(), userDTO.getBirthDate(), userDTO.getEmail());
+	}
+
+	private static String normalize(String value) {
+		return value.trim().toLowerCase(Locale.ROOT);
+	}
+}
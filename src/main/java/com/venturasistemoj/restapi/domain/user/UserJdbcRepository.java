@@ -0,0 +1,153 @@
+package com.venturasistemoj.restapi.domain.user;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.venturasistemoj.restapi.domain.address.AddressJdbcRepository;
+import com.venturasistemoj.restapi.domain.phone.PhoneJdbcRepository;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+
+/**
+ * Read-only repository that builds <code>UserDTO</code> objects, with their address and phones, directly from SQL
+ * result sets.
+ *
+ * <p>Users are read in a single query left joining <code>adresses</code> and <code>phones</code>, ordered by
+ * <code>user_id</code>, so the rows of a user are consecutive and are grouped into one DTO in a single pass, without
+ * entity hydration, persistence context or MapStruct mapping.</p>
+ * <p>Used when <code>rest-api.read-path=jdbc</code>, see <code>ReadPath</code>, and for the sparse fieldsets (see
+ * <code>UserFields</code>) on both read paths: the query joins only the relations of the fieldset, so a user without
+ * expanded relations is read from the <code>users</code> table alone and its relations are left <code>null</code>.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Repository
+public class UserJdbcRepository {
+
+	private static final String USER_COLUMNS = "u.user_id, u.name, u.sur_name, u.birth_date, u.cpf, u.email";
+	private static final String ADDRESS_COLUMNS =
+			", a.address_id, a.public_place, a.street_address, a.complement, a.city, a.state, a.zip_code";
+	private static final String PHONE_COLUMNS = ", p.phone_id, p.type, p.number";
+
+	private static final String SELECT = select(UserFields.ALL);
+
+	@Autowired private NamedParameterJdbcTemplate jdbcTemplate;
+
+	public Optional<UserDTO> findById(Long userId) {
+		return findById(userId, UserFields.ALL);
+	}
+
+	public Optional<UserDTO> findById(Long userId, UserFields fields) {
+		return query(fields, "where u.user_id = :userId", Map.of("userId", userId)).stream().findFirst();
+	}
+
+	public List<UserDTO> findAll() {
+		return findAll(UserFields.ALL);
+	}
+
+	public List<UserDTO> findAll(UserFields fields) {
+		return query(fields, "", Map.of());
+	}
+
+	public List<UserDTO> findAllById(Collection<Long> userIds) {
+		return findAllById(userIds, UserFields.ALL);
+	}
+
+	public List<UserDTO> findAllById(Collection<Long> userIds, UserFields fields) {
+		return query(fields, "where u.user_id in (:userIds)", Map.of("userIds", userIds));
+	}
+
+	private List<UserDTO> query(UserFields fields, String where, Map<String, ?> parameters) {
+
+		String select = fields.address() && fields.phones() ? SELECT : select(fields);
+		String orderBy = fields.phones() ? " order by u.user_id, p.phone_id" : " order by u.user_id";
+
+		UserRowHandler handler = new UserRowHandler(fields);
+		jdbcTemplate.query(select + where + orderBy, parameters, handler);
+		return handler.finish();
+	}
+
+	// selects the user columns and joins only the relations of the fieldset
+	private static String select(UserFields fields) {
+
+		return "select " + USER_COLUMNS
+				+ (fields.address() ? ADDRESS_COLUMNS : "")
+				+ (fields.phones() ? PHONE_COLUMNS : "")
+				+ " from users u "
+				+ (fields.address() ? "left join adresses a on a.user_id = u.user_id " : "")
+				+ (fields.phones() ? "left join phones p on p.user_id = u.user_id " : "");
+	}
+
+	// groups the consecutive rows of each user
+	private static class UserRowHandler implements RowCallbackHandler {
+
+		private final UserFields fields;
+		private final List<UserDTO> users = new ArrayList<>();
+		private final List<PhoneNumberDTO> phones = new ArrayList<>();
+		private UserDTO current;
+
+		UserRowHandler(UserFields fields) {
+			this.fields = fields;
+		}
+
+		@Override
+		public void processRow(ResultSet rs) throws SQLException {
+
+			long userId = rs.getLong("user_id");
+
+			if(current == null || current.getUserId() != userId) {
+
+				completeCurrent();
+				current = UserDTO.builder()
+						.userId(userId)
+						.name(rs.getString("name"))
+						.surName(rs.getString("sur_name"))
+						.birthDate(rs.getObject("birth_date", LocalDate.class))
+						.cpf(rs.getString("cpf"))
+						.email(rs.getString("email"))
+						.build();
+
+				if(fields.address()) {
+					rs.getLong("address_id");
+					if( ! rs.wasNull()) {
+						current.setAddressDTO(AddressJdbcRepository.ROW_MAPPER.mapRow(rs, 0));
+						current.getAddressDTO().setUserDTO(current);
+					}
+				}
+			}
+
+			if(fields.phones()) {
+				rs.getLong("phone_id");
+				if( ! rs.wasNull())
+					phones.add(PhoneJdbcRepository.ROW_MAPPER.mapRow(rs, 0));
+			}
+		}
+
+		List<UserDTO> finish() {
+			completeCurrent();
+			return users;
+		}
+
+		private void completeCurrent() {
+
+			if(current == null)
+				return;
+
+			if(fields.phones())
+				current.setPhonesDTO(PhoneJdbcRepository.toPhoneSet(phones));
+			users.add(current);
+			phones.clear();
+		}
+	}
+}
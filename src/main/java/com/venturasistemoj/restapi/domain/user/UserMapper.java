@@ -6,10 +6,13 @@ import org.mapstruct.InheritInverseConfiguration;
 import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.Named;
 import org.mapstruct.ReportingPolicy;
 
+import com.venturasistemoj.restapi.domain.address.Address;
 import com.venturasistemoj.restapi.domain.address.AddressMapper;
 import com.venturasistemoj.restapi.domain.phone.PhoneMapper;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumber;
 
 /**
  * Interface used for mapping entities to DTOs and vice versa by MapStruct.
@@ -47,6 +50,32 @@ public interface UserMapper {
 	@IterableMapping(elementTargetType = User.class)
 	List<User> usersDTOToUsers(List<UserDTO> users);
 
-	@InheritInverseConfiguration
+	// maps each element with userToUserDTO, so the address and phones are mapped as well
 	List<UserDTO> usersToUsersDTO(List<User> users);
+
+	/**
+	 * Maps a new user with its nested address and phones, discarding the ids sent by the client and linking the
+	 * address and phones to the user, so that persisting the user persists the whole aggregate. <code>@Named</code>
+	 * keeps it out of the methods MapStruct selects for the mappings above.
+	 */
+	@Named("newUser")
+	default User userDTOToNewUser(UserDTO userDTO) {
+
+		User user = userDTOToUser(userDTO);
+		user.setUserId(null);
+
+		Address address = user.getAddress();
+		if(address != null) {
+			address.setAddressId(null);
+			address.setUser(user);
+		}
+
+		if(user.getPhones() != null)
+			for(PhoneNumber phone : user.getPhones()) {
+				phone.setPhoneId(null);
+				phone.setUser(user);
+			}
+
+		return user;
+	}
 }
@@ -1,12 +1,39 @@
 package com.venturasistemoj.restapi.domain.user;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.venturasistemoj.restapi.domain.pagination.KeysetPosition;
+
+import jakarta.persistence.QueryHint;
+
 /**
  * <p>Interface that extends <code>JpaRepository</code>, provided by Spring Data JPA with commonly used data access
  * methods for the <code>User</code> entity. In addition to the inherited methods, the custom method <code>findByCpf</code>
  * is responsible for searching for a user based on their CPF in order to avoid duplicate registration.</p>
+ * <p>The <code>existsBy...</code> derived queries back the BR2 identity checks with indexed lookups on the unique
+ * <code>cpf</code> column and on the <code>fingerprint</code> column, so their cost does not grow with the table.</p>
+ * <p>The <code>...WithAddressAndPhones...</code> queries apply the <code>User.WITH_ADDRESS_AND_PHONES</code> entity
+ * graph, so reading users with their address and phones costs one statement however many users are returned.
+ * <code>findIdsByUserIdGreaterThan</code> reads the ids of one keyset page of users ordered by id.</p>
+ * <p><code>streamAllWithAddressAndPhones</code> reads the whole aggregate as a forward-only stream, ordered by id so
+ * that the rows of each user are consecutive, for exports that must not materialize the table in memory.</p>
+ * <p><code>findCpfsByCpfIn</code> and <code>findFingerprintsByFingerprintIn</code> are the set-based versions of the BR2
+ * checks used by the bulk import.</p>
+ * <p>The <code>findPositionsBySearch...</code> queries read one keyset page of a prefix search on a search key column
+ * (see <code>UserSearchKey</code>), ordered by the key and the id as its index: the <code>LIKE</code> prefix and the
+ * <code>>= :key</code> bound delimit the index range, which is read from the position of the cursor and only up to the
+ * page limit.</p>
  *
  * @author Wilson Ventura
  */
@@ -15,4 +42,51 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
 	User findByCpf(String cpf);
 
+	boolean existsByCpf(String cpf);
+
+	boolean existsByFingerprintAndCpfNot(String fingerprint, String cpf);
+
+	boolean existsByFingerprintAndCpfNotAndUserIdNot(String fingerprint, String cpf, Long userId);
+
+	@Query("select u.cpf from User u where u.cpf in :cpfs")
+	Set<String> findCpfsByCpfIn(Collection<String> cpfs);
+
+	@Query("select u.fingerprint from User u where u.fingerprint in :fingerprints")
+	Set<String> findFingerprintsByFingerprintIn(Collection<String> fingerprints);
+
+	@Query("select u.userId from User u where u.userId > :userId")
+	List<Long> findIdsByUserIdGreaterThan(Long userId, Pageable pageable);
+
+	@Query("select new com.venturasistemoj.restapi.domain.pagination.KeysetPosition(u.searchName, u.userId) from User u "
+			+ "where u.searchName like :prefix escape '\\' and u.searchName >= :key "
+			+ "and (u.searchName > :key or u.userId > :userId) order by u.searchName, u.userId")
+	List<KeysetPosition> findPositionsBySearchName(String prefix, String key, Long userId, Pageable pageable);
+
+	@Query("select new com.venturasistemoj.restapi.domain.pagination.KeysetPosition(u.searchSurName, u.userId) from User u "
+			+ "where u.searchSurName like :prefix escape '\\' and u.searchSurName >= :key "
+			+ "and (u.searchSurName > :key or u.userId > :userId) order by u.searchSurName, u.userId")
+	List<KeysetPosition> findPositionsBySearchSurName(String prefix, String key, Long userId, Pageable pageable);
+
+	@Query("select new com.venturasistemoj.restapi.domain.pagination.KeysetPosition(u.searchEmail, u.userId) from User u "
+			+ "where u.searchEmail like :prefix escape '\\' and u.searchEmail >= :key "
+			+ "and (u.searchEmail > :key or u.userId > :userId) order by u.searchEmail, u.userId")
+	List<KeysetPosition> findPositionsBySearchEmail(String prefix, String key, Long userId, Pageable pageable);
+
+	@EntityGraph(User.WITH_ADDRESS_AND_PHONES)
+	@Query("select u from User u where u.userId = :userId")
+	Optional<User> findWithAddressAndPhonesById(Long userId);
+
+	@EntityGraph(User.WITH_ADDRESS_AND_PHONES)
+	@Query("select u from User u where u.userId in :userIds order by u.userId")
+	List<User> findAllWithAddressAndPhonesById(Collection<Long> userIds);
+
+	@EntityGraph(User.WITH_ADDRESS_AND_PHONES)
+	@Query("select u from User u order by u.userId")
+	List<User> findAllWithAddressAndPhones();
+
+	@EntityGraph(User.WITH_ADDRESS_AND_PHONES)
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+	@Query("select u from User u order by u.userId")
+	Stream<User> streamAllWithAddressAndPhones();
+
 }
@@ -0,0 +1,52 @@
+package com.venturasistemoj.restapi.domain.user;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class that computes the search keys of a user.
+ *
+ * <p>A search key is the value without accents (canonical decomposition with the combining marks removed), with
+ * runs of whitespace collapsed to one space, trimmed and lower-cased. The keys of <code>name</code>,
+ * <code>surName</code> and <code>email</code> are stored in indexed shadow columns of the <code>users</code> table, so a
+ * case and accent insensitive prefix search is an index range scan: <code>José</code> and <code>JOSE</code> are both
+ * found by <code>jos</code>.</p>
+ *
+ * @author Wilson Ventura
+ */
+public final class UserSearchKey {
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private UserSearchKey() {}
+
+	public static String of(String value) {
+
+		if(value == null)
+			return null;
+
+		String key = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+		return WHITESPACE.matcher(key).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Returns the <code>LIKE</code> pattern matching the keys that start with the key of <code>prefix</code>, with the
+	 * <code>\</code>, <code>%</code> and <code>_</code> wildcards escaped by <code>\</code>.
+	 */
+	public static String likePrefix(String prefix) {
+
+		String key = of(prefix);
+		StringBuilder pattern = new StringBuilder(key.length() + 2);
+
+		for(int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			if(c == '\\' || c == '%' || c == '_')
+				pattern.append('\\');
+			pattern.append(c);
+		}
+
+		return pattern.append('%').toString();
+	}
+}
@@ -1,10 +1,18 @@
 package com.venturasistemoj.restapi.domain.user;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.pagination.MultiGet;
+import com.venturasistemoj.restapi.exceptions.IllegalAddressStateException;
+import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
 import com.venturasistemoj.restapi.exceptions.IllegalUserStateException;
+import com.venturasistemoj.restapi.exceptions.PreconditionFailedException;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -18,12 +26,45 @@ public interface UserService {
 
 	UserDTO createUser(@Valid UserDTO userDTO) throws IllegalArgumentException, IllegalUserStateException;
 
+	UserDTO createUserAggregate(@Valid UserDTO userDTO) throws IllegalArgumentException, IllegalUserStateException,
+			IllegalAddressStateException, IllegalPhoneStateException;
+
+	UserDTO replaceUserAggregate(@NotNull Long userId, @Valid UserDTO userDTO, String ifMatch)
+			throws NotFoundException, IllegalArgumentException, IllegalUserStateException, IllegalAddressStateException,
+			IllegalPhoneStateException, PreconditionFailedException;
+
 	UserDTO updateUser(@NotNull Long userId, @Valid UserDTO userDTO)
 			throws NotFoundException, IllegalArgumentException, IllegalUserStateException;
 
+	UserDTO updateUser(@NotNull Long userId, @Valid UserDTO userDTO, String ifMatch)
+			throws NotFoundException, IllegalArgumentException, IllegalUserStateException, PreconditionFailedException;
+
+	String getUserTag(@NotNull Long userId) throws NotFoundException;
+
 	UserDTO getUserById(@NotNull Long userId) throws NotFoundException;
 
+	Tagged<UserDTO> getTaggedUser(@NotNull Long userId) throws NotFoundException;
+
+	UserDTO getUserById(@NotNull Long userId, UserFields fields) throws NotFoundException;
+
 	List<UserDTO> getUsers() throws NotFoundException;
 
+	List<UserDTO> getUsers(UserFields fields) throws NotFoundException;
+
+	CursorPage<UserDTO> getUsers(Integer limit, String after) throws NotFoundException, IllegalArgumentException;
+
+	MultiGet<UserDTO> getUsersById(List<Long> userIds, UserFields fields) throws IllegalArgumentException;
+
+	CursorPage<UserDTO> getUsers(Integer limit, String after, UserFields fields)
+			throws NotFoundException, IllegalArgumentException;
+
+	CursorPage<UserDTO> searchUsers(String name, String surName, String email, Integer limit, String after)
+			throws NotFoundException, IllegalArgumentException;
+
+	CursorPage<UserDTO> searchUsers(String name, String surName, String email, Integer limit, String after,
+			UserFields fields) throws NotFoundException, IllegalArgumentException;
+
 	void deleteUser(@NotNull Long userId) throws NotFoundException;
+
+	long exportUsers(OutputStream out) throws IOException;
 }
@@ -1,16 +1,57 @@
 package com.venturasistemoj.restapi.domain.user;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.venturasistemoj.restapi.aggregates.AggregateCounters;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.cache.SerializedResponse;
+import com.venturasistemoj.restapi.config.MetricsConfig;
+import com.venturasistemoj.restapi.config.ReadPath;
+import com.venturasistemoj.restapi.domain.address.Address;
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.pagination.MultiGet;
+import com.venturasistemoj.restapi.domain.pagination.KeysetPosition;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumber;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.exceptions.IllegalAddressStateException;
+import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
 import com.venturasistemoj.restapi.exceptions.IllegalUserStateException;
+import com.venturasistemoj.restapi.exceptions.PreconditionFailedException;
+import com.venturasistemoj.restapi.versioning.EntityTag;
+import com.venturasistemoj.restapi.versioning.EntityTagRepository;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
+import io.micrometer.core.annotation.Timed;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotNull;
 
 /**
@@ -20,13 +61,35 @@ import jakarta.validation.constraints.NotNull;
  */
 
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class UserServiceImpl implements UserService {
 
-	private final String CPF_INCOMPATIBILITY = "CPF incompatibility: same user with different CPF ou different user with same cpf!";
-	private final String INCOMPLETE_USER_DATA = "Incomplete user data!";
+	static final String CPF_INCOMPATIBILITY = "CPF incompatibility: same user with different CPF ou different user with same cpf!";
+	static final String INCOMPLETE_USER_DATA = "Incomplete user data!";
+
+	private static final String INVALID_SEARCH = "Search users by one of name, surName or email prefix!";
+	private static final String USER_CHANGED = "User changed since it was read!";
+
+	private static final int EXPORT_FLUSH_ROWS = 500;
 
 	@Autowired private UserRepository userRepository;
 	@Autowired private UserMapper userMapper;
+	@Autowired private UserJdbcRepository userJdbcRepository;
+	@Autowired private EntityTagRepository entityTagRepository;
+
+	@Autowired private DtoCache<Long, UserDTO> userCache;
+	@Autowired private DtoCache<Long, SerializedResponse> userResponseCache;
+	@Autowired private DtoCache<Long, Tagged<AddressDTO>> addressCache;
+	@Autowired private DtoCache<Long, Tagged<Set<PhoneNumberDTO>>> phonesCache;
+	@Autowired private DtoCache<String, String> entityTagCache;
+	@Autowired private AggregateCounters aggregateCounters;
+
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private Validator validator;
+	@PersistenceContext private EntityManager entityManager;
+
+	@Value("${rest-api.read-path:jpa}")
+	private ReadPath readPath;
 
 	/**
 	 * <bold>Creates a new user./<bold>
@@ -44,15 +107,97 @@ public class UserServiceImpl implements UserService {
 		if( ! checkUserState(userDTO))
 			throw new IllegalUserStateException(INCOMPLETE_USER_DATA); // BR1
 
-		if( userRepository.findByCpf(userDTO.getCpf()) != null || ! checkCpf(userDTO))
+		if( userRepository.existsByCpf(userDTO.getCpf()) || ! checkCpf(userDTO, null))
 			throw new IllegalArgumentException(CPF_INCOMPATIBILITY); // BR2
 
 		User user = userMapper.userDTOToUser(userDTO);
+		user.setUserId(null); // a new user, whatever id the client sent
 		User savedUser = userRepository.save(user);
+		aggregateCounters.addUser(savedUser);
 
 		return userMapper.userToUserDTO(savedUser);
 	}
 
+	/**
+	 * <bold>Creates a new user with its address and phones.</bold>
+	 *
+	 * <p>Persists the user of the <code>UserDTO</code> with its nested <code>addressDTO</code> and
+	 * <code>phonesDTO</code> in one transaction, so either the whole aggregate is created or nothing. The user, the
+	 * address and the phones are inserted with one JDBC batch per table, with ids from the pooled sequences, and the
+	 * user is not read again to link them.</p>
+	 * <p>BR1 and BR2 as <code>createUser</code>. If the user, address or a phone violates the constraints of its entity,
+	 * throws <code>IllegalUserStateException</code>, <code>IllegalAddressStateException</code> or
+	 * <code>IllegalPhoneStateException</code>.</p>
+	 * <p>Returns the created user with its address and phones.</p>
+	 */
+	@Override
+	@Transactional
+	public UserDTO createUserAggregate(@Valid UserDTO userDTO) throws IllegalArgumentException,
+			IllegalUserStateException, IllegalAddressStateException, IllegalPhoneStateException {
+
+		if( ! checkUserState(userDTO))
+			throw new IllegalUserStateException(INCOMPLETE_USER_DATA); // BR1
+
+		User user = userMapper.userDTOToNewUser(userDTO);
+		checkAggregate(user);
+
+		if( userRepository.existsByCpf(userDTO.getCpf()) || ! checkCpf(userDTO, null))
+			throw new IllegalArgumentException(CPF_INCOMPATIBILITY); // BR2
+
+		entityManager.persist(user); // cascades to address and phones
+		aggregateCounters.addUser(user); // after commit
+
+		return userMapper.userToUserDTO(user);
+	}
+
+	/**
+	 * <bold>Replaces a user with its address and phones.</bold>
+	 *
+	 * <p>Reads the user with its address and phones in one statement and makes them equal to the <code>UserDTO</code>
+	 * in one transaction: the address is updated, created or removed, the phones sent with the id, or else the number,
+	 * of a registered phone update it, the others are created, and the registered phones not sent are removed. Only
+	 * the changed rows are written, batched per table.</p>
+	 * <p>As <code>updateUser(userId, userDTO, ifMatch)</code>, <code>ifMatch</code> is checked against the tag of the
+	 * whole user, which covers its address and phones.</p>
+	 * <p>If the user does not exist, throws <code>NotFoundException</code>.</p>
+	 * <p>BR1 and BR2 as <code>updateUser</code>, the constraints as <code>createUserAggregate</code>.</p>
+	 * <p>Returns the replaced user with its address and phones.</p>
+	 */
+	@Override
+	@Transactional
+	public UserDTO replaceUserAggregate(@NotNull Long userId, @Valid UserDTO userDTO, String ifMatch)
+			throws NotFoundException, IllegalArgumentException, IllegalUserStateException, IllegalAddressStateException,
+			IllegalPhoneStateException, PreconditionFailedException {
+
+		User existingUser = userRepository.findWithAddressAndPhonesById(userId).orElseThrow(NotFoundException::new);
+
+		if(ifMatch != null && ! EntityTag.matchesStrongly(ifMatch,
+				entityTagRepository.findUserTag(userId).orElseThrow(NotFoundException::new)))
+			throw new PreconditionFailedException(USER_CHANGED);
+
+		if( ! checkUserState(userDTO))
+			throw new IllegalUserStateException(INCOMPLETE_USER_DATA); // BR1
+
+		User replacement = userMapper.userDTOToUser(userDTO); // with the ids sent, to match the registered phones
+		checkAggregate(replacement);
+
+		if( ! checkCpf(userDTO, userId))
+			throw new IllegalUserStateException(CPF_INCOMPATIBILITY); // BR2
+
+		aggregateCounters.changeBirthDate(existingUser.getBirthDate(), userDTO.getBirthDate()); // after commit
+		existingUser.setName(userDTO.getName());
+		existingUser.setSurName(userDTO.getSurName());
+		existingUser.setBirthDate(userDTO.getBirthDate());
+		existingUser.setCpf(userDTO.getCpf());
+		existingUser.setEmail(userDTO.getEmail());
+
+		replaceAddress(existingUser, replacement.getAddress());
+		replacePhones(existingUser, replacement.getPhones());
+
+		invalidateCaches(userId); // after commit
+		return userMapper.userToUserDTO(existingUser);
+	}
+
 	/**
 	 * <bold>Updates user data.</bold>
 	 *
@@ -69,15 +214,36 @@ public class UserServiceImpl implements UserService {
 	@Transactional(rollbackFor = {IllegalArgumentException.class, IllegalUserStateException.class })
 	public UserDTO updateUser(@NotNull Long userId, @Valid UserDTO userDTO)
 			throws NotFoundException, IllegalArgumentException, IllegalUserStateException {
+		return updateUser(userId, userDTO, null);
+	}
+
+	/**
+	 * <bold>Updates user data if the user was not changed since it was read.</bold>
+	 *
+	 * <p>As <code>updateUser(userId, userDTO)</code>, when <code>ifMatch</code>, an <code>If-Match</code> header, lists
+	 * the current <code>EntityTag</code> of the user or is <code>null</code>. Otherwise throws
+	 * <code>PreconditionFailedException</code>.</p>
+	 * <p>The tag is checked after the user is loaded, without locks: a change committed after the check makes the
+	 * versioned update fail with <code>OptimisticLockingFailureException</code>, so no update is lost.</p>
+	 */
+	@Override
+	@Transactional(rollbackFor = {IllegalArgumentException.class, IllegalUserStateException.class })
+	public UserDTO updateUser(@NotNull Long userId, @Valid UserDTO userDTO, String ifMatch)
+			throws NotFoundException, IllegalArgumentException, IllegalUserStateException, PreconditionFailedException {
 
 		User existingUser = userRepository.findById(userId).orElseThrow(NotFoundException::new);
 
+		if(ifMatch != null && ! EntityTag.matchesStrongly(ifMatch,
+				entityTagRepository.findUserTag(userId).orElseThrow(NotFoundException::new)))
+			throw new PreconditionFailedException(USER_CHANGED);
+
 		if( ! checkUserState(userDTO))
 			throw new IllegalUserStateException(INCOMPLETE_USER_DATA); // BR1
 
-		if( ! checkCpf(userDTO))
+		if( ! checkCpf(userDTO, userId))
 			throw new IllegalUserStateException(CPF_INCOMPATIBILITY); // BR2
 
+		aggregateCounters.changeBirthDate(existingUser.getBirthDate(), userDTO.getBirthDate()); // after commit
 		existingUser.setName(userDTO.getName());
 		existingUser.setSurName(userDTO.getSurName());
 		existingUser.setBirthDate(userDTO.getBirthDate());
@@ -85,44 +251,242 @@ public class UserServiceImpl implements UserService {
 		existingUser.setEmail(userDTO.getEmail());
 
 		User updatedUser = userRepository.save(existingUser);
+		userCache.invalidate(userId); // after commit
+		userResponseCache.invalidate(userId);
+		entityTagCache.invalidate(EntityTag.USERS + userId);
 		return userMapper.userToUserDTO(updatedUser);
 	}
 
+	/**
+	 * <bold>Gets the entity tag of a user.</bold>
+	 *
+	 * <p>Returns the <code>EntityTag</code> of the user with its address and phones, from <code>entityTagCache</code>
+	 * when present, otherwise read by a version-only query. No entity is loaded.</p>
+	 * <p>If the user does not exist, throws <code>NotFoundException</code>.</p>
+	 */
+	@Override
+	public String getUserTag(@NotNull Long userId) throws NotFoundException {
+		return entityTagCache.get(EntityTag.USERS + userId,
+				key -> entityTagRepository.findUserTag(userId).orElseThrow(NotFoundException::new));
+	}
+
 	/**
 	 * <bold>Gets an especific user.<bold>
 	 *
 	 * <p>Searches for the user in the database with the given <code>id</code>, converts <code>User</code> to
 	 * <code>UserDTO</code> with <code>UserMapper</code> and returns this DTO.</p>
+	 * <p>The DTO is served from <code>userCache</code> when present. On the JDBC read path it is read by
+	 * <code>UserJdbcRepository</code>.</p>
 	 */
 	@Override
 	@Transactional(readOnly = true)
 	public UserDTO getUserById(@NotNull Long id) throws NotFoundException {
 
+		if(readPath == ReadPath.JDBC)
+			return userCache.get(id, userId -> userJdbcRepository.findById(userId).orElseThrow(NotFoundException::new));
+
 		/**
 		 * <p><code>Optional.map</code> converts <code>Optional<User></code> to <code>Optional<UserDTO></code> using the
 		 * <code>userMapper</code> method reference.</p>
 		 * <p><code>Optional.orElseThrow</code> throws NotFoundException if the user is not found.</p>
 		 */
-		return userRepository.findById(id)
+		return userCache.get(id, userId -> userRepository.findWithAddressAndPhonesById(userId)
 				.map(userMapper::userToUserDTO)
+				.orElseThrow(NotFoundException::new));
+	}
+
+	/**
+	 * <bold>Gets an especific user with its entity tag.</bold>
+	 *
+	 * <p>Reads the user with its address and phones with a single statement and returns its DTO with the
+	 * <code>EntityTag</code> of the versions it was mapped from, for the cache of the serialized responses. The
+	 * <code>userCache</code> is not read: its DTO may be older than a tag read meanwhile.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Tagged<UserDTO> getTaggedUser(@NotNull Long userId) throws NotFoundException {
+		return userRepository.findWithAddressAndPhonesById(userId)
+				.map(user -> new Tagged<>(userMapper.userToUserDTO(user), EntityTag.user(user)))
 				.orElseThrow(NotFoundException::new);
 	}
 
+	/**
+	 * <bold>Gets the sparse fieldset of an especific user.</bold>
+	 *
+	 * <p>A cached user is returned whole, the response writes only the fields of the fieldset. Otherwise the user is
+	 * read by <code>UserJdbcRepository</code> with only the relations of the fieldset, and it is not cached.</p>
+	 * <p>If the user does not exist, throws <code>NotFoundException</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public UserDTO getUserById(@NotNull Long userId, UserFields fields) throws NotFoundException {
+
+		if(fields.isAll())
+			return getUserById(userId);
+
+		UserDTO cached = userCache.getIfPresent(userId);
+		if(cached != null)
+			return cached;
+
+		return userJdbcRepository.findById(userId, fields).orElseThrow(NotFoundException::new);
+	}
+
 	/**
 	 * <bold>Gets all database users.</bold>
 	 *
 	 * <p>Converts the list of <code>User</code> into a list of <code>UserDTO</code>
 	 * with <code>UserMapper</code> and returns that list./<p>
 	 * <p>If there are no users in the database, throws <code>NotFoundException</code>.</p>
+	 * <p>On the JDBC read path the DTOs are read by <code>UserJdbcRepository</code>.</p>
 	 */
 	@Override
 	@Transactional(readOnly = true)
 	public List<UserDTO> getUsers() throws NotFoundException {
 
-		if(userRepository.findAll().isEmpty())
+		if(readPath == ReadPath.JDBC) {
+			List<UserDTO> allUsers = userJdbcRepository.findAll();
+			if(allUsers.isEmpty())
+				throw new NotFoundException();
+			return allUsers;
+		}
+
+		List<User> allUsers = userRepository.findAllWithAddressAndPhones();
+
+		if(allUsers.isEmpty())
+			throw new NotFoundException();
+
+		return userMapper.usersToUsersDTO(allUsers);
+	}
+
+	/**
+	 * <bold>Gets the sparse fieldsets of all database users.</bold>
+	 *
+	 * <p>Reads the users with only the relations of the fieldset, see <code>UserFields</code>.</p>
+	 * <p>If there are no users in the database, throws <code>NotFoundException</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<UserDTO> getUsers(UserFields fields) throws NotFoundException {
+
+		if(fields.isAll())
+			return getUsers();
+
+		List<UserDTO> allUsers = userJdbcRepository.findAll(fields);
+
+		if(allUsers.isEmpty())
 			throw new NotFoundException();
 
-		return userMapper.usersToUsersDTO(userRepository.findAll());
+		return allUsers;
+	}
+
+	/**
+	 * <bold>Gets many users by id at once.</bold>
+	 *
+	 * <p>Returns the users of the distinct <code>userIds</code>, in their order, and the ids of the nonexistent ones.
+	 * See <code>MultiGet</code>. Whole users are served from <code>userCache</code> when present, the others are read
+	 * with their address and phones in a single <code>IN</code> query and cached. Sparse users are read with only the
+	 * relations of the fieldset and not cached.</p>
+	 * <p>If there are no ids, a <code>null</code> one or more than <code>MultiGet.MAX_IDS</code>, throws
+	 * <code>IllegalArgumentException</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public MultiGet<UserDTO> getUsersById(List<Long> userIds, UserFields fields) throws IllegalArgumentException {
+
+		List<Long> ids = MultiGet.ids(userIds);
+
+		Map<Long, UserDTO> users = fields.isAll()
+				? userCache.getAll(ids, missing -> byId(findAllById(missing, fields)))
+				: byId(findAllById(ids, fields));
+
+		return MultiGet.of(ids, users);
+	}
+
+	/**
+	 * <bold>Gets a page of database users.</bold>
+	 *
+	 * <p>Reads at most <code>limit</code> users with id greater than the <code>after</code> cursor, ordered by id, and
+	 * returns them with the cursor of the next page. See <code>CursorPage</code>.</p>
+	 * <p>The page ids are read first and the users of the page are then fetched with their address and phones in a
+	 * single query, since a collection fetch join cannot be combined with a row limit.</p>
+	 * <p>If there are no users in the database, throws <code>NotFoundException</code>.</p>
+	 * <p>If the cursor or the limit are invalid, throws <code>IllegalArgumentException</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPage<UserDTO> getUsers(Integer limit, String after) throws NotFoundException, IllegalArgumentException {
+		return getUsers(limit, after, UserFields.ALL);
+	}
+
+	/**
+	 * <bold>Gets a page of database users with a sparse fieldset.</bold>
+	 *
+	 * <p>As <code>getUsers(limit, after)</code>, the users of the page being read with only the relations of the
+	 * fieldset. See <code>UserFields</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPage<UserDTO> getUsers(Integer limit, String after, UserFields fields)
+			throws NotFoundException, IllegalArgumentException {
+
+		Pageable request = CursorPage.request(limit, "userId");
+		List<Long> userIds = userRepository.findIdsByUserIdGreaterThan(CursorPage.after(after), request);
+
+		if(userIds.isEmpty() && after == null)
+			throw new NotFoundException();
+
+		return CursorPage.of(userIds, request, Function.identity(), pageIds -> findAllById(pageIds, fields));
+	}
+
+	/**
+	 * <bold>Searches users by the prefix of their name, surname or e-mail.</bold>
+	 *
+	 * <p>Exactly one of <code>name</code>, <code>surName</code> and <code>email</code> must be given. The match is case
+	 * and accent insensitive (see <code>UserSearchKey</code>) and the results are ordered by the matched field and then
+	 * by id, in keyset pages of at most <code>limit</code> users. See <code>CursorPage</code>.</p>
+	 * <p>The positions of the page are read from the index of the matched field, then the users of the page are fetched
+	 * with their address and phones in a single query.</p>
+	 * <p>If no user matches, throws <code>NotFoundException</code>.</p>
+	 * <p>If the search, the cursor or the limit are invalid, throws <code>IllegalArgumentException</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPage<UserDTO> searchUsers(String name, String surName, String email, Integer limit, String after)
+			throws NotFoundException, IllegalArgumentException {
+		return searchUsers(name, surName, email, limit, after, UserFields.ALL);
+	}
+
+	/**
+	 * <bold>Searches users by the prefix of their name, surname or e-mail, with a sparse fieldset.</bold>
+	 *
+	 * <p>As <code>searchUsers(name, surName, email, limit, after)</code>, the users of the page being read with only
+	 * the relations of the fieldset. See <code>UserFields</code>.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPage<UserDTO> searchUsers(String name, String surName, String email, Integer limit, String after,
+			UserFields fields) throws NotFoundException, IllegalArgumentException {
+
+		int criteria = (isBlank(name) ? 0 : 1) + (isBlank(surName) ? 0 : 1) + (isBlank(email) ? 0 : 1);
+		if(criteria != 1)
+			throw new IllegalArgumentException(INVALID_SEARCH);
+
+		Pageable request = CursorPage.request(limit);
+		KeysetPosition position = CursorPage.afterPosition(after);
+
+		List<KeysetPosition> positions = ! isBlank(name)
+				? userRepository.findPositionsBySearchName(UserSearchKey.likePrefix(name), position.key(), position.id(), request)
+				: ! isBlank(surName)
+						? userRepository.findPositionsBySearchSurName(UserSearchKey.likePrefix(surName), position.key(),
+								position.id(), request)
+						: userRepository.findPositionsBySearchEmail(UserSearchKey.likePrefix(email), position.key(),
+								position.id(), request);
+
+		if(positions.isEmpty() && after == null)
+			throw new NotFoundException();
+
+		return CursorPage.ofPositions(positions, request, Function.identity(),
+				page -> findAllInOrder(page, fields));
 	}
 
 	/**
@@ -138,7 +502,199 @@ public class UserServiceImpl implements UserService {
 	public void deleteUser(@NotNull Long userId) throws NotFoundException {
 
 		User existingUser = userRepository.findById(userId).orElseThrow(NotFoundException::new);
+		aggregateCounters.removeUser(existingUser); // with its address and phones, after commit
 		userRepository.delete(existingUser);
+		invalidateCaches(userId); // after commit
+	}
+
+	/**
+	 * <bold>Exports all database users as newline-delimited JSON.</bold>
+	 *
+	 * <p>Users are read with their address and phones from a forward-only result stream, mapped and written one per
+	 * line and then detached from the persistence context, so heap use does not depend on the number of users. The
+	 * output is flushed every <code>EXPORT_FLUSH_ROWS</code> users.</p>
+	 * <p>Returns the number of exported users.</p>
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public long exportUsers(OutputStream out) throws IOException {
+
+		ObjectWriter writer = objectMapper.writerFor(UserDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		long exported = 0;
+
+		try (Stream<User> users = userRepository.streamAllWithAddressAndPhones();
+				JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.setRootValueSeparator(new SerializedString("\n"));
+
+			for(Iterator<User> iterator = users.iterator(); iterator.hasNext(); ) {
+
+				User user = iterator.next();
+				writer.writeValue(generator, userMapper.userToUserDTO(user));
+				entityManager.detach(user); // cascades to address and phones
+
+				if(++exported % EXPORT_FLUSH_ROWS == 0)
+					generator.flush();
+			}
+
+			if(exported > 0)
+				generator.writeRaw('\n'); // NDJSON terminates every line, the last one included
+		}
+
+		return exported;
+	}
+
+	// reads the users of the positions with the relations of the fieldset, in the order of the positions
+	private List<UserDTO> findAllInOrder(List<KeysetPosition> positions, UserFields fields) {
+
+		List<Long> userIds = positions.stream().map(KeysetPosition::id).toList();
+		Map<Long, UserDTO> users = byId(findAllById(userIds, fields));
+
+		return userIds.stream().map(users::get).toList();
+	}
+
+	private static Map<Long, UserDTO> byId(List<UserDTO> users) {
+		return users.stream().collect(Collectors.toMap(UserDTO::getUserId, Function.identity()));
+	}
+
+	// reads the users by id, ordered by id: whole on the configured read path, sparse ones with only their relations
+	private List<UserDTO> findAllById(List<Long> userIds, UserFields fields) {
+
+		if(userIds.isEmpty())
+			return List.of();
+
+		if( ! fields.isAll())
+			return userJdbcRepository.findAllById(userIds, fields);
+
+		return readPath == ReadPath.JDBC
+				? userJdbcRepository.findAllById(userIds)
+				: userMapper.usersToUsersDTO(userRepository.findAllWithAddressAndPhonesById(userIds));
+	}
+
+	// updates, creates or removes the address of the user, as the replacement
+	private void replaceAddress(User user, Address replacement) {
+
+		Address address = user.getAddress();
+
+		if(address != null)
+			aggregateCounters.removeAddress(address.getState(), address.getCity()); // after commit
+
+		if(replacement == null) {
+			if(address != null) {
+				user.setAddress(null);
+				entityManager.remove(address);
+			}
+			return;
+		}
+
+		aggregateCounters.addAddress(replacement.getState(), replacement.getCity());
+
+		if(address == null) {
+			replacement.setAddressId(null); // a new address, whatever id the client sent
+			replacement.setUser(user);
+			user.setAddress(replacement);
+			entityManager.persist(replacement);
+			return;
+		}
+
+		address.setPublicPlace(replacement.getPublicPlace());
+		address.setStreetAddress(replacement.getStreetAddress());
+		address.setComplement(replacement.getComplement());
+		address.setCity(replacement.getCity());
+		address.setState(replacement.getState());
+		address.setZipCode(replacement.getZipCode());
+	}
+
+	// makes the phones of the user equal to the replacements: a replacement with the id, or else the number, of a
+	// registered phone updates it, the others are created and the registered phones left are removed
+	private void replacePhones(User user, Set<PhoneNumber> replacements) {
+
+		Map<Long, PhoneNumber> byId = new HashMap<>();
+		Map<String, PhoneNumber> byNumber = new HashMap<>();
+		if(user.getPhones() != null)
+			for(PhoneNumber phone : user.getPhones()) {
+				byId.put(phone.getPhoneId(), phone);
+				byNumber.put(phone.getNumber(), phone);
+			}
+
+		List<PhoneNumber> phones = new ArrayList<>();
+		if(replacements != null)
+			for(PhoneNumber replacement : replacements) {
+
+				PhoneNumber phone = replacement.getPhoneId() != null ? byId.get(replacement.getPhoneId()) : null;
+				if(phone == null)
+					phone = byNumber.get(replacement.getNumber());
+
+				if(phone != null) {
+					byId.remove(phone.getPhoneId());
+					byNumber.remove(phone.getNumber());
+					aggregateCounters.changePhoneType(phone.getType(), replacement.getType()); // after commit
+					phone.setType(replacement.getType()); // written only if changed
+					phone.setNumber(replacement.getNumber());
+				} else {
+					phone = replacement;
+					phone.setPhoneId(null); // a new phone number, whatever id the client sent
+					phone.setUser(user);
+					entityManager.persist(phone);
+					aggregateCounters.addPhone(phone.getType());
+				}
+				phones.add(phone);
+			}
+
+		for(PhoneNumber removed : byId.values()) {
+			aggregateCounters.removePhone(removed.getType());
+			entityManager.remove(removed);
+		}
+
+		// a new set, since the numbers of the phones, their hash codes, may have changed
+		user.setPhones(new HashSet<>(phones));
+	}
+
+	// validates the user, its address and phones with the constraints of their entities
+	private void checkAggregate(User user)
+			throws IllegalUserStateException, IllegalAddressStateException, IllegalPhoneStateException {
+
+		String violations = violations(user);
+		if(violations != null)
+			throw new IllegalUserStateException(violations);
+
+		if(user.getAddress() != null && (violations = violations(user.getAddress())) != null)
+			throw new IllegalAddressStateException(violations);
+
+		if(user.getPhones() != null)
+			for(PhoneNumber phone : user.getPhones())
+				if((violations = violations(phone)) != null)
+					throw new IllegalPhoneStateException(violations);
+	}
+
+	// returns the constraint violation messages of the entity, or null if it is valid
+	private String violations(Object entity) {
+
+		Set<ConstraintViolation<Object>> violations = validator.validate(entity);
+
+		if(violations.isEmpty())
+			return null;
+
+		return violations.stream()
+				.map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+				.sorted()
+				.collect(Collectors.joining("; "));
+	}
+
+	// invalidates the cached user, address and phones, and their tags, after commit
+	private void invalidateCaches(Long userId) {
+		userCache.invalidate(userId);
+		userResponseCache.invalidate(userId);
+		addressCache.invalidate(userId);
+		phonesCache.invalidate(userId);
+		entityTagCache.invalidate(EntityTag.USERS + userId);
+		entityTagCache.invalidate(EntityTag.ADRESSES + userId);
+		entityTagCache.invalidate(EntityTag.PHONES + userId);
+	}
+
+	private static boolean isBlank(String value) {
+		return value == null || value.isBlank();
 	}
 
 	// checks user data consistency
@@ -154,29 +710,36 @@ public class UserServiceImpl implements UserService {
 		return true;
 	}
 
-	// checks same user with different CPF or different user with same CPF
-	private boolean checkCpf(UserDTO userDTO) {
+	/**
+	 * Checks same user with different CPF or different user with same CPF.
+	 *
+	 * <p>Both checks are indexed lookups: the first one on <code>users.fingerprint</code>, the second one on the unique
+	 * <code>users.cpf</code> column. <code>userId</code> is the user being updated, which is excluded from the
+	 * comparison, or <code>null</code> on creation.</p>
+	 */
+	private boolean checkCpf(UserDTO userDTO, Long userId) {
+
+		String fingerprint = UserFingerprint.of(userDTO);
+
+		boolean samePersonOtherCpf = userId == null
+				? userRepository.existsByFingerprintAndCpfNot(fingerprint, userDTO.getCpf())
+				: userRepository.existsByFingerprintAndCpfNotAndUserIdNot(fingerprint, userDTO.getCpf(), userId);
 
-		AtomicBoolean check = new AtomicBoolean(true);
+		if(samePersonOtherCpf)
+			return false;
+
+		if(userId == null)
+			return true; // on creation, any user with the same CPF was already rejected by existsByCpf
 
-		userRepository.findAll().forEach(user -> {
+		User sameCpf = userRepository.findByCpf(userDTO.getCpf());
 
-			if (user.getName().equals(userDTO.getName())
-					&& user.getSurName().equals(userDTO.getSurName())
-					&& user.getBirthDate().equals(userDTO.getBirthDate())
-					&& user.getEmail().equals(userDTO.getEmail())
-					&& !user.getCpf().equals(userDTO.getCpf()))
-				check.set(false);
-			else if (!user.getName().equals(userDTO.getName())
-					&& !user.getSurName().equals(userDTO.getSurName())
-					&& !user.getBirthDate().equals(userDTO.getBirthDate())
-					&& !user.getEmail().equals(userDTO.getEmail())
-					&& user.getCpf().equals(userDTO.getCpf()))
-				check.set(false);
-			else
-				check.set(true);
-		}); // forEach
+		if(sameCpf != null && ! userId.equals(sameCpf.getUserId())
+				&& ! sameCpf.getName().equals(userDTO.getName())
+				&& ! sameCpf.getSurName().equals(userDTO.getSurName())
+				&& ! sameCpf.getBirthDate().equals(userDTO.getBirthDate())
+				&& ! sameCpf.getEmail().equals(userDTO.getEmail()))
+			return false; // different user with same CPF
 
-		return check.get();
+		return true;
 	}
 }
@@ -0,0 +1,16 @@
+package com.venturasistemoj.restapi.exceptions;
+
+/**
+ * Exception that handles a write whose <code>If-Match</code> entity tag is not the current one of the resource: the
+ * resource was changed since the client read it.
+ *
+ * @author Wilson Ventura
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+	private static final long serialVersionUID = 6170538412903254473L;
+
+	public PreconditionFailedException(String message) {
+		super(message);
+	}
+}
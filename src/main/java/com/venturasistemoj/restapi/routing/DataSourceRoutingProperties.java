@@ -0,0 +1,69 @@
+package com.venturasistemoj.restapi.routing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Replica routing properties, bound from <code>rest-api.datasource.*</code>.
+ *
+ * <p>The primary is the <code>spring.datasource.*</code> data source. The replicas are listed with the bracket
+ * notation, <code>rest-api.datasource.replicas[0].url=jdbc:...</code>, and the routing is enabled by the first one.
+ * See <code>ReplicaRoutingDataSource</code>.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Data
+@ConfigurationProperties("rest-api.datasource")
+public class DataSourceRoutingProperties {
+
+	/**
+	 * Replicas receiving the read-only transactions.
+	 */
+	private List<Replica> replicas = new ArrayList<>();
+
+	/**
+	 * Selection of the replica of a read-only transaction.
+	 */
+	private ReplicaRoutingDataSource.Selection selection = ReplicaRoutingDataSource.Selection.ROUND_ROBIN;
+
+	/**
+	 * Time a client reads from the primary after a write, longer than the replication lag.
+	 */
+	private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+	/**
+	 * Time between the end of a health check of the replicas and the start of the next one.
+	 */
+	private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+	/**
+	 * Time a replica has to validate a connection in a health check, in whole seconds.
+	 */
+	private Duration healthCheckTimeout = Duration.ofSeconds(1);
+
+	@Data
+	public static class Replica {
+
+		/**
+		 * Name of the replica in the logs, the metrics and its connection pool, <code>replica-{index}</code> by default.
+		 */
+		private String name;
+
+		private String url;
+		private String username;
+		private String password;
+
+		private int maximumPoolSize = 10;
+
+		/**
+		 * Time a read waits for a connection of the replica before it is ejected and the read goes to the primary.
+		 */
+		private Duration connectionTimeout = Duration.ofSeconds(1);
+	}
+}
@@ -0,0 +1,71 @@
+package com.venturasistemoj.restapi.routing;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Pins the reads of a client to the primary for a short window after each of its writes, so the client reads its
+ * own writes while the replicas catch up.
+ *
+ * <p>The first write of a request pins the rest of the request and sets the <code>rest-api-primary-until</code>
+ * cookie with the end of the window, in epoch milliseconds. A request carrying the cookie before that time is pinned
+ * as a whole. The window, <code>rest-api.datasource.read-your-writes-window</code>, should exceed the replication lag
+ * of the replicas.</p>
+ *
+ * <p>The window is kept by the client, so it holds across the instances of the API, and the requests of clients
+ * without cookies are only pinned after their own writes.</p>
+ *
+ * @author Wilson Ventura
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	public static final String COOKIE = "rest-api-primary-until";
+
+	private final Duration window;
+
+	public ReadYourWritesFilter(Duration window) {
+		this.window = window;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		boolean pinned = pinnedUntil(request) > System.currentTimeMillis();
+
+		try (ReplicaRouting.Scope scope = ReplicaRouting.open(pinned, () -> pin(response))) {
+			filterChain.doFilter(request, response);
+		}
+	}
+
+	// written before the response is committed, by the first write of the request
+	private void pin(HttpServletResponse response) {
+
+		Cookie cookie = new Cookie(COOKIE, Long.toString(System.currentTimeMillis() + window.toMillis()));
+		cookie.setPath("/");
+		cookie.setHttpOnly(true);
+		cookie.setMaxAge((int) Math.max(1, window.toSeconds() + 1)); // the cookie value rules, this only discards it
+		response.addCookie(cookie);
+	}
+
+	private static long pinnedUntil(HttpServletRequest request) {
+
+		if(request.getCookies() != null)
+			for(Cookie cookie : request.getCookies())
+				if(COOKIE.equals(cookie.getName()))
+					try {
+						return Long.parseLong(cookie.getValue());
+					} catch (NumberFormatException e) {
+						return 0; // not ours, not pinned
+					}
+		return 0;
+	}
+}
@@ -0,0 +1,29 @@
+package com.venturasistemoj.restapi.routing;
+
+import java.time.Duration;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Periodic health check of the replicas of the <code>ReplicaRoutingDataSource</code>.
+ *
+ * <p>Runs at startup and then every <code>rest-api.datasource.health-check-interval</code> after the end of the
+ * previous run.</p>
+ *
+ * @author Wilson Ventura
+ */
+public class ReplicaHealthCheck {
+
+	private final ReplicaRoutingDataSource dataSource;
+	private final Duration timeout;
+
+	public ReplicaHealthCheck(ReplicaRoutingDataSource dataSource, Duration timeout) {
+		this.dataSource = dataSource;
+		this.timeout = timeout;
+	}
+
+	@Scheduled(initialDelay = 0, fixedDelayString = "${rest-api.datasource.health-check-interval:PT10S}")
+	public int check() {
+		return dataSource.checkHealth(timeout);
+	}
+}
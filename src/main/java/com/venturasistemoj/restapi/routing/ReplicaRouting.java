@@ -0,0 +1,88 @@
+package com.venturasistemoj.restapi.routing;
+
+/**
+ * Pins the connections of the current thread to the primary data source inside open scopes.
+ *
+ * <p><code>ReplicaRoutingDataSource</code> sends the read-only transactions to a replica unless a scope open on the
+ * thread is pinned. Scopes are opened:</p>
+ * <ul>
+ * <li>for each HTTP request by <code>ReadYourWritesFilter</code>, pinned if the client wrote within the
+ * read-your-writes window, and pinned by the first write of the request itself, which notifies the filter;
+ * <li>around the reads that must see every committed write, such as the loads of the DTO caches, which would
+ * otherwise put a value older than the last invalidation back in the cache, with <code>primary()</code>.
+ * </ul>
+ * <p>Scopes may be nested and must be closed in the reverse order they were opened, with try-with-resources. Without
+ * replicas nothing reads them.</p>
+ *
+ * @author Wilson Ventura
+ */
+public final class ReplicaRouting {
+
+	private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+	private ReplicaRouting() {}
+
+	/**
+	 * Opens the scope of a request, <code>pinned</code> if the client is in its read-your-writes window.
+	 * <code>onFirstWrite</code> runs at the first write of the request, which pins the rest of it.
+	 */
+	public static Scope open(boolean pinned, Runnable onFirstWrite) {
+		Scope scope = new Scope(CURRENT.get(), pinned, onFirstWrite);
+		CURRENT.set(scope);
+		return scope;
+	}
+
+	/**
+	 * Opens a scope pinned to the primary.
+	 */
+	public static Scope primary() {
+		return open(true, null);
+	}
+
+	/**
+	 * Whether a scope open on the current thread is pinned to the primary.
+	 */
+	static boolean isPinned() {
+		for(Scope scope = CURRENT.get(); scope != null; scope = scope.parent)
+			if(scope.pinned)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Records a write of the current thread: pins the open scopes and notifies the ones not yet written.
+	 */
+	static void wrote() {
+		for(Scope scope = CURRENT.get(); scope != null; scope = scope.parent)
+			if( ! scope.wrote) {
+				scope.wrote = true;
+				scope.pinned = true;
+				if(scope.onFirstWrite != null)
+					scope.onFirstWrite.run();
+			}
+	}
+
+	public static final class Scope implements AutoCloseable {
+
+		private final Scope parent;
+		private final Runnable onFirstWrite;
+		private boolean pinned;
+		private boolean wrote;
+
+		private Scope(Scope parent, boolean pinned, Runnable onFirstWrite) {
+			this.parent = parent;
+			this.pinned = pinned;
+			this.onFirstWrite = onFirstWrite;
+		}
+
+		@Override
+		public void close() {
+			if(CURRENT.get() == this) {
+				if(parent == null)
+					CURRENT.remove();
+				else
+					CURRENT.set(parent);
+			}
+		}
+	}
+}
@@ -0,0 +1,246 @@
+package com.venturasistemoj.restapi.routing;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Data source that sends the read-only transactions to a pool of replicas and everything else to the primary.
+ *
+ * <p>A transaction is routed when it runs its first statement, not when it begins: as a
+ * <code>LazyConnectionDataSourceProxy</code> this data source hands out a connection handle whose target is fetched
+ * at the first statement, after the transaction manager has marked the transaction read-only. Then:</p>
+ * <ul>
+ * <li>a read-only transaction goes to an available replica, selected round-robin or by the fewest active connections,
+ * unless the thread is pinned to the primary (see <code>ReplicaRouting</code>) or no replica is available;
+ * <li>a read-write transaction goes to the primary and pins the current request, so the client reads its own writes;
+ * <li>statements outside a transaction go to the primary.
+ * </ul>
+ *
+ * <p>A replica that fails to hand out a connection is ejected, and the read falls back to the primary.
+ * <code>checkHealth</code> validates every replica, ejecting the failing ones and reinstating the recovered ones.</p>
+ *
+ * <p>The connections handed out are counted in <code>rest-api.datasource.connections</code>, tagged by
+ * <code>datasource</code> and <code>access</code> (<code>read</code> for read-only transactions, <code>write</code>
+ * otherwise), the ejections in <code>rest-api.datasource.ejections</code> and the availability of each replica is the
+ * <code>rest-api.datasource.available</code> gauge.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+	public static final String PRIMARY = "primary";
+
+	public static final String CONNECTIONS = "rest-api.datasource.connections";
+	public static final String EJECTIONS = "rest-api.datasource.ejections";
+	public static final String AVAILABLE = "rest-api.datasource.available";
+
+	/**
+	 * Selection of the replica of a read-only transaction among the available ones.
+	 */
+	public enum Selection { ROUND_ROBIN, LEAST_CONNECTIONS }
+
+	/**
+	 * A replica: its data source and the number of connections it has in use.
+	 */
+	public static final class Replica {
+
+		private final String name;
+		private final DataSource dataSource;
+		private final IntSupplier activeConnections;
+		private final AtomicBoolean available = new AtomicBoolean(true);
+
+		// registered by the routing data source
+		private Counter reads;
+		private Counter ejections;
+
+		public Replica(String name, DataSource dataSource, IntSupplier activeConnections) {
+			this.name = name;
+			this.dataSource = dataSource;
+			this.activeConnections = activeConnections;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public boolean isAvailable() {
+			return available.get();
+		}
+	}
+
+	@FunctionalInterface
+	private interface Connector {
+		Connection connect(DataSource dataSource) throws SQLException;
+	}
+
+	private final DataSource primary;
+	private final List<Replica> replicas;
+	private final Selection selection;
+	private final Counter primaryReads;
+	private final Counter primaryWrites;
+	private final AtomicInteger next = new AtomicInteger();
+
+	public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, Selection selection,
+			MeterRegistry meterRegistry) {
+
+		this.primary = primary;
+		this.replicas = List.copyOf(replicas);
+		this.selection = selection;
+
+		// registered once: a connection is handed out per transaction
+		this.primaryReads = connections(meterRegistry, PRIMARY, true);
+		this.primaryWrites = connections(meterRegistry, PRIMARY, false);
+
+		for(Replica replica : this.replicas) {
+			replica.reads = connections(meterRegistry, replica.name, true);
+			replica.ejections = Counter.builder(EJECTIONS)
+					.tag("datasource", replica.name)
+					.description("Replicas ejected from the read-only transactions")
+					.register(meterRegistry);
+			Gauge.builder(AVAILABLE, replica, available -> available.isAvailable() ? 1 : 0)
+					.tag("datasource", replica.name)
+					.description("Whether the replica receives read-only transactions")
+					.register(meterRegistry);
+		}
+
+		setTargetDataSource(new AbstractDataSource() {
+
+			@Override
+			public Connection getConnection() throws SQLException {
+				return connect(DataSource::getConnection);
+			}
+
+			@Override
+			public Connection getConnection(String username, String password) throws SQLException {
+				return connect(dataSource -> dataSource.getConnection(username, password));
+			}
+		});
+		afterPropertiesSet(); // reads the default auto-commit and isolation of the primary
+	}
+
+	/**
+	 * Validates every replica within <code>timeout</code>: ejects the ones failing and reinstates the recovered ones.
+	 * Returns the number of available replicas.
+	 */
+	public int checkHealth(Duration timeout) {
+
+		int seconds = (int) Math.max(1, timeout.toSeconds());
+		int available = 0;
+
+		for(Replica replica : replicas) {
+
+			boolean valid;
+			try (Connection connection = replica.dataSource.getConnection()) {
+				valid = connection.isValid(seconds);
+			} catch (SQLException e) {
+				valid = false;
+			}
+
+			if( ! valid)
+				eject(replica, "failed its health check");
+			else {
+				if(replica.available.compareAndSet(false, true))
+					log.info("Replica {} reinstated", replica.name);
+				available++;
+			}
+		}
+		return available;
+	}
+
+	/**
+	 * Whether the named replica receives read-only transactions.
+	 */
+	public boolean isAvailable(String replica) {
+		return replicas.stream().anyMatch(candidate -> candidate.name.equals(replica) && candidate.isAvailable());
+	}
+
+	@Override
+	public void close() throws IOException {
+
+		List<DataSource> dataSources = new ArrayList<>(List.of(primary));
+		replicas.forEach(replica -> dataSources.add(replica.dataSource));
+
+		for(DataSource dataSource : dataSources)
+			if(dataSource instanceof Closeable closeable)
+				closeable.close();
+	}
+
+	// the replica of a read-only transaction, falling back to the primary when none is available or it fails
+	private Connection connect(Connector connector) throws SQLException {
+
+		boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+
+		if(readOnly && ! ReplicaRouting.isPinned()) {
+			Replica replica = select();
+			if(replica != null)
+				try {
+					Connection connection = connector.connect(replica.dataSource);
+					replica.reads.increment();
+					return connection;
+				} catch (SQLException e) {
+					eject(replica, e.getMessage());
+				}
+		}
+
+		if( ! readOnly && TransactionSynchronizationManager.isActualTransactionActive())
+			ReplicaRouting.wrote();
+
+		Connection connection = connector.connect(primary);
+		(readOnly ? primaryReads : primaryWrites).increment();
+		return connection;
+	}
+
+	private Replica select() {
+
+		List<Replica> available = replicas.stream().filter(Replica::isAvailable).toList();
+
+		if(available.isEmpty())
+			return null;
+
+		if(selection == Selection.LEAST_CONNECTIONS)
+			return available.stream()
+					.min(Comparator.comparingInt(replica -> replica.activeConnections.getAsInt()))
+					.orElseThrow();
+
+		return available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+	}
+
+	private void eject(Replica replica, String cause) {
+
+		if( ! replica.available.compareAndSet(true, false))
+			return; // already ejected
+
+		log.warn("Replica {} ejected: {}", replica.name, cause);
+		replica.ejections.increment();
+	}
+
+	private static Counter connections(MeterRegistry meterRegistry, String dataSource, boolean readOnly) {
+		return Counter.builder(CONNECTIONS)
+				.tag("datasource", dataSource)
+				.tag("access", readOnly ? "read" : "write")
+				.description("Connections handed out by the routing data source")
+				.register(meterRegistry);
+	}
+}
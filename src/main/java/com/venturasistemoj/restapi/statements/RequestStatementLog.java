@@ -0,0 +1,62 @@
+package com.venturasistemoj.restapi.statements;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Statements of the last request of each route, recorded by <code>StatementBudgetFilter</code>.
+ *
+ * <p>Test API to assert the exact number of statements of an endpoint called through a real HTTP server, registered
+ * only with <code>rest-api.statements.log-requests=true</code>:</p>
+ * <pre>
+ * statementLog.clear();
+ * restTemplate.getForEntity("/rest-api/users/" + userId, UserDTO.class);
+ * assertEquals(1, statementLog.await("GET /rest-api/users/{userId}").count());
+ * </pre>
+ *
+ * <p>The statements are recorded when the request completes, which may be after the client received the response, so
+ * <code>await</code> waits for the record.</p>
+ *
+ * @author Wilson Ventura
+ */
+public class RequestStatementLog {
+
+	private static final Duration AWAIT_TIMEOUT = Duration.ofSeconds(5);
+	private static final long POLL_MILLIS = 5;
+
+	private final Map<String, RequestStatements> lastByRoute = new ConcurrentHashMap<>();
+
+	void record(RequestStatements statements) {
+		lastByRoute.put(statements.route(), statements);
+	}
+
+	public void clear() {
+		lastByRoute.clear();
+	}
+
+	/**
+	 * Returns the statements of the last request of the route recorded since the last <code>clear()</code>, waiting up
+	 * to 5 seconds for it. If no request of the route is recorded, throws <code>IllegalStateException</code>.
+	 */
+	public RequestStatements await(String route) {
+
+		long deadline = System.nanoTime() + AWAIT_TIMEOUT.toNanos();
+
+		for(RequestStatements statements = lastByRoute.get(route); ; statements = lastByRoute.get(route)) {
+
+			if(statements != null)
+				return statements;
+
+			if(System.nanoTime() > deadline)
+				throw new IllegalStateException("No request recorded for " + route);
+
+			try {
+				Thread.sleep(POLL_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package com.venturasistemoj.restapi.statements;
+
+import java.util.Map;
+
+/**
+ * SQL statements executed by an HTTP request: the route (<code>METHOD pattern</code>), the number of statements and the
+ * number of executions of each SQL fingerprint.
+ *
+ * @author Wilson Ventura
+ */
+public record RequestStatements(String route, int count, Map<String, Integer> fingerprints) {
+}
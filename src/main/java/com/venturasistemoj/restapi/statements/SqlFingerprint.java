@@ -0,0 +1,31 @@
+package com.venturasistemoj.restapi.statements;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Fingerprint of a SQL statement: the statement with its literals and <code>IN</code> lists replaced by
+ * <code>?</code>, whitespace collapsed and lower-cased, so the executions of the same query with different
+ * parameters have the same fingerprint.
+ *
+ * @author Wilson Ventura
+ */
+public final class SqlFingerprint {
+
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+	private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private SqlFingerprint() {}
+
+	public static String of(String sql) {
+
+		String fingerprint = STRING_LITERAL.matcher(sql).replaceAll("?");
+		fingerprint = NUMBER_LITERAL.matcher(fingerprint).replaceAll("?");
+		fingerprint = IN_LIST.matcher(fingerprint).replaceAll("in (?)");
+		fingerprint = WHITESPACE.matcher(fingerprint).replaceAll(" ");
+
+		return fingerprint.trim().toLowerCase(Locale.ROOT);
+	}
+}
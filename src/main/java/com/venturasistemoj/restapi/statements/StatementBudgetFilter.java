@@ -0,0 +1,108 @@
+package com.venturasistemoj.restapi.statements;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Counts the SQL statements of each HTTP request and checks them against the budget of its route.
+ *
+ * <p>The route is the request method and the matched handler pattern (<code>GET /rest-api/users/{userId}</code>), or
+ * <code>UNMATCHED</code> when no handler matched. For every request:</p>
+ * <ul>
+ * <li>the count is recorded in the <code>rest-api.request.statements</code> summary, tagged by <code>route</code>;
+ * <li>over budget, the route, count, budget and the executions of each SQL fingerprint are logged as a warning and the
+ * <code>rest-api.request.statement-budget.exceeded</code> counter is incremented;
+ * <li>with a <code>RequestStatementLog</code> (tests only), the count and the SQL fingerprints are recorded in it.
+ * </ul>
+ *
+ * <p>The fingerprints are only computed for these last two, never for a request within its budget.</p>
+ *
+ * <p>Only the statements of the request thread are counted: the work of a streamed response (NDJSON export) runs on
+ * another thread after the filter returns.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Slf4j
+public class StatementBudgetFilter extends OncePerRequestFilter {
+
+	public static final String REQUEST_STATEMENTS = "rest-api.request.statements";
+	public static final String BUDGET_EXCEEDED = "rest-api.request.statement-budget.exceeded";
+
+	private static final String UNMATCHED = "UNMATCHED";
+
+	private final StatementBudgetProperties properties;
+	private final RequestStatementLog statementLog; // null unless rest-api.statements.log-requests
+	private final MeterRegistry meterRegistry;
+
+	public StatementBudgetFilter(StatementBudgetProperties properties, RequestStatementLog statementLog,
+			MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.statementLog = statementLog;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+
+		try (StatementCounter.Scope scope = StatementCounter.open()) {
+			try {
+				filterChain.doFilter(request, response);
+			} finally {
+				check(route(request), scope);
+			}
+		}
+	}
+
+	private void check(String route, StatementCounter.Scope scope) {
+
+		int count = scope.count();
+		int budget = properties.budgetOf(route);
+
+		DistributionSummary.builder(REQUEST_STATEMENTS)
+				.tag("route", route)
+				.description("SQL statements executed by the request")
+				.register(meterRegistry)
+				.record(count);
+
+		boolean exceeded = budget >= 0 && count > budget;
+		if( ! exceeded && statementLog == null)
+			return;
+
+		Map<String, Integer> fingerprints = scope.fingerprints();
+
+		if(statementLog != null)
+			statementLog.record(new RequestStatements(route, count, fingerprints));
+
+		if(exceeded) {
+
+			Counter.builder(BUDGET_EXCEEDED)
+					.tag("route", route)
+					.description("Requests that executed more SQL statements than the budget of the route")
+					.register(meterRegistry)
+					.increment();
+
+			log.warn("Statement budget exceeded by {}: {} statements, budget {}, fingerprints {}",
+					route, count, budget, fingerprints);
+		}
+	}
+
+	private static String route(HttpServletRequest request) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		return pattern == null ? UNMATCHED : request.getMethod() + " " + pattern;
+	}
+}
@@ -0,0 +1,48 @@
+package com.venturasistemoj.restapi.statements;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Statement budget properties, bound from <code>rest-api.statements.*</code>.
+ *
+ * <p>Routes are keyed as <code>METHOD pattern</code>, such as <code>GET /rest-api/users/{userId}</code>, and written in
+ * <code>application.properties</code> with the bracket notation and escaped spaces:
+ * <code>rest-api.statements.budgets[GET\ /rest-api/users/{userId}]=1</code>. A negative budget disables the check of
+ * the route.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Data
+@ConfigurationProperties("rest-api.statements")
+public class StatementBudgetProperties {
+
+	/**
+	 * Whether the statements are counted at all (the data source is proxied).
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Budget of the routes without their own budget.
+	 */
+	private int defaultBudget = 10;
+
+	/**
+	 * Budgets by route.
+	 */
+	private Map<String, Integer> budgets = new HashMap<>();
+
+	/**
+	 * Whether the statements of each request are kept in the <code>RequestStatementLog</code>, for the tests.
+	 */
+	private boolean logRequests = false;
+
+	public int budgetOf(String route) {
+		return budgets.getOrDefault(route, defaultBudget);
+	}
+}
@@ -0,0 +1,90 @@
+package com.venturasistemoj.restapi.statements;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the SQL statements executed by the current thread inside open scopes.
+ *
+ * <p>Scopes are opened by the HTTP requests (<code>StatementBudgetFilter</code>), by the service methods
+ * (<code>StatementCountingAspect</code>) or directly by tests, and may be nested: a statement is counted in every scope
+ * open on the thread. Scopes must be closed in the reverse order they were opened, with try-with-resources:</p>
+ * <pre>
+ * try (StatementCounter.Scope scope = StatementCounter.open()) {
+ *     userService.getUserById(userId);
+ *     assertEquals(1, scope.count());
+ * }
+ * </pre>
+ *
+ * <p>Statements executed by other threads, such as the streamed NDJSON export, are not counted in the scopes of the
+ * thread that started them.</p>
+ *
+ * @author Wilson Ventura
+ */
+public final class StatementCounter {
+
+	private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+	private StatementCounter() {}
+
+	public static Scope open() {
+		Scope scope = new Scope(CURRENT.get());
+		CURRENT.set(scope);
+		return scope;
+	}
+
+	/**
+	 * Counts one execution of the statement in all the scopes open on the current thread.
+	 */
+	static void record(String sql) {
+		for(Scope scope = CURRENT.get(); scope != null; scope = scope.parent)
+			scope.add(sql);
+	}
+
+	public static final class Scope implements AutoCloseable {
+
+		private final Scope parent;
+		private final Map<String, Integer> executions = new HashMap<>(); // by SQL, fingerprinted on demand
+		private int count;
+
+		private Scope(Scope parent) {
+			this.parent = parent;
+		}
+
+		private void add(String sql) {
+			count++;
+			executions.merge(sql, 1, Integer::sum);
+		}
+
+		/**
+		 * Returns the number of statements executed in the scope.
+		 */
+		public int count() {
+			return count;
+		}
+
+		/**
+		 * Returns the number of executions of each SQL fingerprint, most executed first.
+		 */
+		public Map<String, Integer> fingerprints() {
+			return executions.entrySet().stream()
+					.collect(Collectors.toMap(entry -> SqlFingerprint.of(entry.getKey()), Map.Entry::getValue, Integer::sum))
+					.entrySet().stream()
+					.sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()))
+					.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+		}
+
+		@Override
+		public void close() {
+			if(CURRENT.get() == this) {
+				if(parent == null)
+					CURRENT.remove();
+				else
+					CURRENT.set(parent);
+			}
+		}
+	}
+}
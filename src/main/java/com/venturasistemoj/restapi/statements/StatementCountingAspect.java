@@ -0,0 +1,50 @@
+package com.venturasistemoj.restapi.statements;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts the SQL statements of each call of the service methods (the public methods of the
+ * <code>@Timed</code> classes of the domain) in the <code>rest-api.service.statements</code> summary, tagged by
+ * <code>class</code> and <code>method</code> like the <code>rest-api.service</code> timer.
+ *
+ * <p>The aspect runs before the transaction advice, so the statements of the flush at commit are counted too.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StatementCountingAspect {
+
+	public static final String SERVICE_STATEMENTS = "rest-api.service.statements";
+
+	private final MeterRegistry meterRegistry;
+
+	public StatementCountingAspect(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Around("@within(io.micrometer.core.annotation.Timed) && within(com.venturasistemoj.restapi.domain..*)")
+	public Object count(ProceedingJoinPoint joinPoint) throws Throwable {
+
+		try (StatementCounter.Scope scope = StatementCounter.open()) {
+			try {
+				return joinPoint.proceed();
+			} finally {
+				DistributionSummary.builder(SERVICE_STATEMENTS)
+						.tag("class", joinPoint.getSignature().getDeclaringTypeName())
+						.tag("method", joinPoint.getSignature().getName())
+						.description("SQL statements executed by the service method")
+						.register(meterRegistry)
+						.record(scope.count());
+			}
+		}
+	}
+}
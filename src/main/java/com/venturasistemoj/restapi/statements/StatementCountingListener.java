@@ -0,0 +1,27 @@
+package com.venturasistemoj.restapi.statements;
+
+import java.util.List;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+/**
+ * datasource-proxy listener that counts every statement execution in the open <code>StatementCounter</code> scopes.
+ *
+ * <p>A JDBC batch of a prepared statement is one execution (one round trip), whatever the number of rows.</p>
+ *
+ * @author Wilson Ventura
+ */
+public class StatementCountingListener implements QueryExecutionListener {
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		for(QueryInfo queryInfo : queryInfoList)
+			StatementCounter.record(queryInfo.getQuery());
+	}
+}
@@ -0,0 +1,32 @@
+package com.venturasistemoj.restapi.validation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+/**
+ * The annotated value must be a brazilian CEP (zip code), formatted or not.
+ *
+ * <p><code>null</code> is valid, as with <code>@Pattern</code>: combine with <code>@NotNull</code>. See
+ * <code>CepValidator</code>.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Documented
+@Constraint(validatedBy = CepValidator.class)
+@Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.ANNOTATION_TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cep {
+
+	String message() default "Invalid brazilian CEP!";
+
+	Class<?>[] groups() default {};
+
+	Class<? extends Payload>[] payload() default {};
+}
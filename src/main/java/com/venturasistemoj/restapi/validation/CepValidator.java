@@ -0,0 +1,48 @@
+package com.venturasistemoj.restapi.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validator of <code>@Cep</code>: 8 digits, as <code>99.999-999</code> with optional separators.
+ *
+ * <p>Scans the characters once and allocates nothing, accepting exactly the strings matched by
+ * <code>REGEXP</code>, the <code>@Pattern</code> it replaces.</p>
+ *
+ * @author Wilson Ventura
+ */
+public class CepValidator implements ConstraintValidator<Cep, CharSequence> {
+
+	public static final String REGEXP = "^[\\d]{2}\\.?[\\d]{3}\\-?[\\d]{3}$";
+
+	@Override
+	public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+		return value == null || isValid(value);
+	}
+
+	public static boolean isValid(CharSequence cep) {
+
+		int i = Chars.digits(cep, 0, 2);
+		i = Chars.digits(cep, Chars.optional(cep, i, '.'), 3);
+		i = Chars.digits(cep, Chars.optional(cep, i, '-'), 3);
+
+		return i == cep.length();
+	}
+
+	/**
+	 * Returns the digits of <code>cep</code>, the form in which it is indexed: <code>24.020-000</code> and
+	 * <code>24020000</code> are both <code>24020000</code>.
+	 */
+	public static String digits(CharSequence cep) {
+
+		if(cep == null)
+			return null;
+
+		StringBuilder digits = new StringBuilder(8);
+		for(int i = 0; i < cep.length(); i++)
+			if(Chars.isDigit(cep.charAt(i)))
+				digits.append(cep.charAt(i));
+
+		return digits.toString();
+	}
+}
@@ -0,0 +1,43 @@
+package com.venturasistemoj.restapi.validation;
+
+/**
+ * ASCII character classes and scanning steps shared by the validators of this package. As in the regular
+ * expressions they replace, digits and letters are ASCII only.
+ *
+ * @author Wilson Ventura
+ */
+final class Chars {
+
+	private Chars() {}
+
+	static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	static boolean isLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	/**
+	 * Returns the index after <code>count</code> digits starting at <code>from</code>, or -1 if there are not as many
+	 * digits there.
+	 */
+	static int digits(CharSequence value, int from, int count) {
+
+		if(from < 0 || from + count > value.length())
+			return -1;
+
+		for(int i = from; i < from + count; i++)
+			if( ! isDigit(value.charAt(i)))
+				return -1;
+
+		return from + count;
+	}
+
+	/**
+	 * Returns the index after the optional <code>separator</code> at <code>from</code>.
+	 */
+	static int optional(CharSequence value, int from, char separator) {
+		return from >= 0 && from < value.length() && value.charAt(from) == separator ? from + 1 : from;
+	}
+}
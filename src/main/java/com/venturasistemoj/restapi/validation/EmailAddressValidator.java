@@ -0,0 +1,81 @@
+package com.venturasistemoj.restapi.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validator of <code>@EmailAddress</code>.
+ *
+ * <p>The local part is made of dot separated, non-empty atoms of letters, digits, <code>_</code> and <code>-</code>,
+ * the first atom also accepting <code>+</code>. The domain has at least two dot separated, non-empty labels: the
+ * first of letters, digits and <code>-</code>, the middle ones of letters and digits and the last of two or more
+ * letters.</p>
+ * <p>Scans the characters once, without the backtracking of the nested quantifiers of <code>REGEXP</code>, the
+ * <code>@Pattern</code> it replaces, and allocates nothing, accepting exactly the strings matched by it.</p>
+ *
+ * @author Wilson Ventura
+ */
+public class EmailAddressValidator implements ConstraintValidator<EmailAddress, CharSequence> {
+
+	// https://www.w3schools.blog/validate-email-regular-expression-regex-java
+	public static final String REGEXP =
+			"^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$";
+
+	@Override
+	public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+		return value == null || isValid(value);
+	}
+
+	public static boolean isValid(CharSequence email) {
+
+		int length = email.length();
+		int i = 0;
+
+		// local part, up to the @
+		for(boolean firstAtom = true; ; firstAtom = false) {
+
+			int start = i;
+			while(i < length && isLocalChar(email.charAt(i), firstAtom))
+				i++;
+
+			if(i == start || i == length)
+				return false;
+
+			char separator = email.charAt(i++);
+			if(separator == '@')
+				break;
+			if(separator != '.')
+				return false;
+		}
+
+		// domain labels
+		for(boolean firstLabel = true; ; firstLabel = false) {
+
+			int start = i;
+			boolean letters = true;
+
+			for(; i < length; i++) {
+				char c = email.charAt(i);
+				if(Chars.isLetter(c))
+					continue;
+				if(Chars.isDigit(c) || (c == '-' && firstLabel))
+					letters = false;
+				else
+					break;
+			}
+
+			if(i == start)
+				return false;
+
+			if(i == length) // the last label
+				return ! firstLabel && letters && i - start >= 2;
+
+			if(email.charAt(i++) != '.')
+				return false;
+		}
+	}
+
+	private static boolean isLocalChar(char c, boolean firstAtom) {
+		return Chars.isLetter(c) || Chars.isDigit(c) || c == '_' || c == '-' || (c == '+' && firstAtom);
+	}
+}
@@ -0,0 +1,32 @@
+package com.venturasistemoj.restapi.validation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+/**
+ * The annotated value must be a brazilian phone number, landline or mobile, with area code.
+ *
+ * <p><code>null</code> is valid, as with <code>@Pattern</code>: combine with <code>@NotNull</code>. See
+ * <code>PhoneValidator</code>.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Documented
+@Constraint(validatedBy = PhoneValidator.class)
+@Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.ANNOTATION_TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Phone {
+
+	String message() default "Invalid phone number!";
+
+	Class<?>[] groups() default {};
+
+	Class<? extends Payload>[] payload() default {};
+}
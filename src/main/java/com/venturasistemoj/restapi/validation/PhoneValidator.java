@@ -0,0 +1,57 @@
+package com.venturasistemoj.restapi.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validator of <code>@Phone</code>: a two digit area code, optionally in parentheses and followed by a space, then
+ * a landline number (<code>2</code> to <code>8</code> and 7 digits) or a mobile number (<code>9</code>, a non-zero
+ * digit and 7 digits), with an optional hyphen before the last four digits.
+ *
+ * <p>Scans the characters once and allocates nothing, accepting exactly the strings matched by
+ * <code>REGEXP</code>, the <code>@Pattern</code> it replaces.</p>
+ *
+ * @author Wilson Ventura
+ */
+public class PhoneValidator implements ConstraintValidator<Phone, CharSequence> {
+
+	public static final String REGEXP = "^\\(?[1-9]{2}\\)? ?(?:[2-8]|9[1-9])[0-9]{3}\\-?[0-9]{4}$";
+
+	@Override
+	public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+		return value == null || isValid(value);
+	}
+
+	public static boolean isValid(CharSequence phone) {
+
+		int length = phone.length();
+
+		int i = Chars.optional(phone, 0, '(');
+		if(i + 2 > length || ! isAreaDigit(phone.charAt(i)) || ! isAreaDigit(phone.charAt(i + 1)))
+			return false;
+		i = Chars.optional(phone, i + 2, ')');
+		i = Chars.optional(phone, i, ' ');
+
+		if(i == length)
+			return false;
+
+		// the digits before the hyphen: 4 for landlines, 5 for mobiles
+		char first = phone.charAt(i);
+		int prefix;
+		if(first >= '2' && first <= '8')
+			prefix = 4;
+		else if(first == '9' && i + 1 < length && isAreaDigit(phone.charAt(i + 1)))
+			prefix = 5;
+		else
+			return false;
+
+		i = Chars.digits(phone, i, prefix);
+		i = Chars.digits(phone, Chars.optional(phone, i, '-'), 4);
+
+		return i == length;
+	}
+
+	private static boolean isAreaDigit(char c) {
+		return c >= '1' && c <= '9';
+	}
+}
@@ -0,0 +1,156 @@
+package com.venturasistemoj.restapi.versioning;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+
+import com.venturasistemoj.restapi.domain.address.Address;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumber;
+import com.venturasistemoj.restapi.domain.user.User;
+
+/**
+ * Strong entity tags of the user, address and phone set representations, derived from the <code>@Version</code> of
+ * their entities.
+ *
+ * <p>The tag of an address is <code>a{addressId}.{version}</code>, the tag of a phone set the number of its phones and
+ * a digest of their ids and versions in id order, <code>p{count}.{digest}</code>: a phone added, removed or updated
+ * changes it, and its length does not grow with the phones. The tag of a user, which is represented with its address and phones, is
+ * <code>{userId}.{version}-{address tag}-{phone set tag}</code>, with <code>a</code> and <code>p</code> for a missing
+ * address and an empty phone set.</p>
+ *
+ * <p>The tags are read by <code>EntityTagRepository</code> with version-only queries, or derived from the loaded
+ * entities a body is mapped from, never by hashing a response body: two different versions of a representation never share a tag, but for a collision of the 128-bit digest of
+ * a phone set.</p>
+ *
+ * @author Wilson Ventura
+ */
+public final class EntityTag {
+
+	/**
+	 * Keys of the tags in the <code>entityTagCache</code>, followed by the <code>userId</code>.
+	 */
+	public static final String USERS = "users/";
+	public static final String ADRESSES = "adresses/";
+	public static final String PHONES = "phones/";
+
+	static final String NO_ADDRESS = "a";
+
+	private EntityTag() {}
+
+	static String user(long userId, long version, String address, String phones) {
+		return userId + "." + version + "-" + address + "-" + phones;
+	}
+
+	public static String address(long addressId, long version) {
+		return NO_ADDRESS + addressId + "." + version;
+	}
+
+	/**
+	 * Returns the tag of a loaded user with its address and phones, the one <code>EntityTagRepository</code> reads.
+	 */
+	public static String user(User user) {
+		return user(user.getUserId(), user.getVersion(),
+				user.getAddress() == null ? NO_ADDRESS : address(user.getAddress()), phones(user.getPhones()));
+	}
+
+	public static String address(Address address) {
+		return address(address.getAddressId(), address.getVersion());
+	}
+
+	/**
+	 * Returns the tag of a loaded phone set, <code>p</code> for an empty or <code>null</code> one.
+	 */
+	public static String phones(Collection<PhoneNumber> phones) {
+
+		PhoneSet phoneSet = new PhoneSet();
+		if(phones != null)
+			phones.stream()
+					.sorted(Comparator.comparing(PhoneNumber::getPhoneId))
+					.forEach(phone -> phoneSet.add(phone.getPhoneId(), phone.getVersion()));
+		return phoneSet.toString();
+	}
+
+	/**
+	 * Accumulates the tag of a phone set from its phones, in id order: <code>p</code> for an empty set.
+	 */
+	static final class PhoneSet {
+
+		private static final int DIGEST_BYTES = 16;
+
+		private final MessageDigest digest;
+		private final ByteBuffer pair = ByteBuffer.allocate(2 * Long.BYTES);
+		private int count;
+		private String tag;
+
+		PhoneSet() {
+			try {
+				digest = MessageDigest.getInstance("SHA-256");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e); // SHA-256 is mandatory on every Java platform
+			}
+		}
+
+		void add(long phoneId, long version) {
+			digest.update(pair.clear().putLong(phoneId).putLong(version).array());
+			count++;
+		}
+
+		boolean isEmpty() {
+			return count == 0;
+		}
+
+		// the digest is computed once, the set is complete when its tag is read
+		@Override
+		public String toString() {
+			if(tag == null)
+				tag = isEmpty() ? "p" : "p" + count + "." + Base64.getUrlEncoder().withoutPadding()
+						.encodeToString(Arrays.copyOf(digest.digest(), DIGEST_BYTES));
+			return tag;
+		}
+	}
+
+	/**
+	 * Weak comparison of an <code>If-None-Match</code> header: whether it lists the tag, with or without the
+	 * <code>W/</code> prefix, or is <code>*</code>. <code>false</code> for a <code>null</code> header.
+	 */
+	public static boolean matches(String ifNoneMatch, String tag) {
+		return matches(ifNoneMatch, tag, true);
+	}
+
+	/**
+	 * Strong comparison of an <code>If-Match</code> header: whether it lists the tag, without the <code>W/</code>
+	 * prefix, or is <code>*</code>. <code>false</code> for a <code>null</code> header.
+	 */
+	public static boolean matchesStrongly(String ifMatch, String tag) {
+		return matches(ifMatch, tag, false);
+	}
+
+	// the tags have no commas, so the list is split at the commas
+	private static boolean matches(String header, String tag, boolean weak) {
+
+		if(header == null)
+			return false;
+
+		for(String listed : header.split(",")) {
+
+			listed = listed.trim();
+			if(listed.equals("*"))
+				return true;
+
+			if(listed.startsWith("W/")) {
+				if( ! weak)
+					continue;
+				listed = listed.substring(2);
+			}
+
+			if(listed.length() == tag.length() + 2 && listed.startsWith("\"") && listed.endsWith("\"")
+					&& listed.regionMatches(1, tag, 0, tag.length()))
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,82 @@
+package com.venturasistemoj.restapi.versioning;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads the <code>EntityTag</code> of a user, of its address or of its phone set with a single query of ids and
+ * versions only, through the <code>user_id</code> indexes of the foreign keys: no entity is loaded or mapped.
+ *
+ * @author Wilson Ventura
+ */
+
+@Repository
+public class EntityTagRepository {
+
+	private static final String USER_VERSIONS = "select u.version, a.address_id, a.version as address_version, "
+			+ "p.phone_id, p.version as phone_version from users u "
+			+ "left join adresses a on a.user_id = u.user_id "
+			+ "left join phones p on p.user_id = u.user_id "
+			+ "where u.user_id = :userId order by p.phone_id";
+
+	private static final String ADDRESS_VERSION = "select address_id, version from adresses where user_id = :userId";
+
+	private static final String PHONE_VERSIONS =
+			"select phone_id, version from phones where user_id = :userId order by phone_id";
+
+	@Autowired private NamedParameterJdbcTemplate jdbcTemplate;
+
+	/**
+	 * Returns the tag of the user with its address and phones, empty if the user does not exist.
+	 */
+	public Optional<String> findUserTag(Long userId) {
+
+		return jdbcTemplate.query(USER_VERSIONS, Map.of("userId", userId), rs -> {
+
+			if( ! rs.next())
+				return Optional.empty();
+
+			long version = rs.getLong("version");
+			long addressId = rs.getLong("address_id");
+			String address = rs.wasNull()
+					? EntityTag.NO_ADDRESS
+					: EntityTag.address(addressId, rs.getLong("address_version"));
+
+			EntityTag.PhoneSet phones = new EntityTag.PhoneSet();
+			do {
+				long phoneId = rs.getLong("phone_id");
+				if( ! rs.wasNull())
+					phones.add(phoneId, rs.getLong("phone_version"));
+			} while(rs.next());
+
+			return Optional.of(EntityTag.user(userId, version, address, phones.toString()));
+		});
+	}
+
+	/**
+	 * Returns the tag of the user's address, empty if the user or the address does not exist.
+	 */
+	public Optional<String> findAddressTag(Long userId) {
+
+		return jdbcTemplate.query(ADDRESS_VERSION, Map.of("userId", userId), rs -> rs.next()
+				? Optional.of(EntityTag.address(rs.getLong("address_id"), rs.getLong("version")))
+				: Optional.empty());
+	}
+
+	/**
+	 * Returns the tag of the user's phone set, empty if the user does not exist or has no phones.
+	 */
+	public Optional<String> findPhonesTag(Long userId) {
+
+		EntityTag.PhoneSet phones = new EntityTag.PhoneSet();
+		jdbcTemplate.query(PHONE_VERSIONS, Map.of("userId", userId),
+				(RowCallbackHandler) rs -> phones.add(rs.getLong("phone_id"), rs.getLong("version")));
+
+		return phones.isEmpty() ? Optional.empty() : Optional.of(phones.toString());
+	}
+}
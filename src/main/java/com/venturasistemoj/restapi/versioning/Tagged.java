@@ -0,0 +1,24 @@
+package com.venturasistemoj.restapi.versioning;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A response body and its <code>EntityTag</code>, cached together in one entry.
+ *
+ * <p>The tag is derived from the <code>@Version</code> of the entities the body was mapped from, so the tag sent with
+ * a body is always the tag of that body, even when the body is a cached copy older than the database.</p>
+ *
+ * @author Wilson Ventura
+ */
+public record Tagged<T>(T body, String eTag) {
+
+	/**
+	 * Returns the bodies of the tagged values, in the order of the map.
+	 */
+	public static <K, T> Map<K, T> bodies(Map<K, Tagged<T>> tagged) {
+		Map<K, T> bodies = new LinkedHashMap<>();
+		tagged.forEach((key, value) -> bodies.put(key, value.body()));
+		return bodies;
+	}
+}
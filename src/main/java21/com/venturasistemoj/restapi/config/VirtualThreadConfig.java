@@ -0,0 +1,48 @@
+package com.venturasistemoj.restapi.config;
+
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+/**
+ * This class provides the virtual thread execution mode, enabled with <code>rest-api.virtual-threads.enabled=true</code>
+ * on a build with the <code>java21</code> Maven profile, which is the only one that compiles it.
+ *
+ * <p>Requests are handled by Tomcat on a new virtual thread each, instead of the bounded pool of platform threads, so a
+ * request blocked on a JDBC round trip parks its virtual thread and releases the carrier thread. Async work, the MVC
+ * async requests (e.g. the NDJSON export) and <code>@Async</code> methods, also runs on virtual threads through the
+ * <code>applicationTaskExecutor</code>.</p>
+ *
+ * <p>Database concurrency is still bounded by the HikariCP pool: virtual threads waiting for a connection park in the
+ * pool without holding a monitor, so they do not pin their carrier. See the <code>java21</code> profile in the
+ * <code>pom.xml</code> for the audit of the synchronized sections of the persistence stack.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@Configuration
+@ConditionalOnProperty(name = "rest-api.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+		return protocolHandler -> protocolHandler.setExecutor(
+				Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+	}
+
+	@Bean(name = {
+			TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+			AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+	public AsyncTaskExecutor applicationTaskExecutor() {
+		return new TaskExecutorAdapter(
+				Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-vt-", 0).factory()));
+	}
+}
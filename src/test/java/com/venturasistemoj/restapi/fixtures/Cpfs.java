@@ -0,0 +1,38 @@
+package com.venturasistemoj.restapi.fixtures;
+
+/**
+ * Valid CPFs for the test, benchmark and load generator data, whose sources see the test classes.
+ *
+ * <p>The check digits are computed here as the Receita Federal specifies them, apart from <code>CpfValidator</code>,
+ * so the tests of the validator check it against an independent implementation.</p>
+ *
+ * @author Wilson Ventura
+ */
+public final class Cpfs {
+
+	private Cpfs() {}
+
+	/**
+	 * Returns the unformatted CPF, 11 digits, of the nine digit <code>number</code> followed by its check digits.
+	 */
+	public static String withCheckDigits(long number) {
+
+		if(number < 0 || number > 999_999_999)
+			throw new IllegalArgumentException("A CPF number has nine digits: " + number);
+
+		String digits = String.format("%09d", number);
+		digits += checkDigit(digits);
+		return digits + checkDigit(digits);
+	}
+
+	// weights from 2 on the last digit, increasing to the left; 0 for a remainder under 2
+	private static int checkDigit(String digits) {
+
+		int sum = 0;
+		for(int i = 0; i < digits.length(); i++)
+			sum += (digits.charAt(i) - '0') * (digits.length() + 1 - i);
+
+		int remainder = sum % 11;
+		return remainder < 2 ? 0 : 11 - remainder;
+	}
+}
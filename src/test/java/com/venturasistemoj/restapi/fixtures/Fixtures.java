@@ -0,0 +1,74 @@
+package com.venturasistemoj.restapi.fixtures;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+
+/**
+ * Users, adresses and phone numbers for the tests, valid for the constraints of their DTOs.
+ *
+ * <p>Every <code>cpf()</code> is a valid CPF not handed out before in the JVM, so the test classes sharing an
+ * application context, and its database, never register the same CPF. The e-mail of a user is derived from its
+ * CPF.</p>
+ *
+ * @author Wilson Ventura
+ */
+public final class Fixtures {
+
+	public static final LocalDate BIRTH_DATE = LocalDate.of(1980, Month.JANUARY, 1);
+
+	private static final AtomicLong NEXT_CPF = new AtomicLong(100_000_000);
+
+	private Fixtures() {}
+
+	/**
+	 * Returns a valid CPF, unique in the JVM.
+	 */
+	public static String cpf() {
+
+		long number = NEXT_CPF.getAndIncrement();
+		while(number % 111_111_111 == 0) // a single repeated digit is not a CPF
+			number = NEXT_CPF.getAndIncrement();
+
+		return Cpfs.withCheckDigits(number);
+	}
+
+	/**
+	 * Returns a user without address and phones, with a new CPF.
+	 */
+	public static UserDTO user(String name) {
+		return user(name, cpf());
+	}
+
+	/**
+	 * Returns a user without address and phones: the same CPF gives the same e-mail, so a user rebuilt with another
+	 * name stays the same person.
+	 */
+	public static UserDTO user(String name, String cpf) {
+		return UserDTO.builder()
+				.name(name)
+				.surName("Fixture")
+				.birthDate(BIRTH_DATE)
+				.cpf(cpf)
+				.email("user" + cpf + "@prov.com")
+				.build();
+	}
+
+	public static AddressDTO address(String city, String state) {
+		return AddressDTO.builder()
+				.publicPlace("Rua")
+				.streetAddress("Sete de Setembro, 1")
+				.city(city)
+				.state(state)
+				.zipCode("24.020-000")
+				.build();
+	}
+
+	public static PhoneNumberDTO phone(String type, String number) {
+		return PhoneNumberDTO.builder().type(type).number(number).build();
+	}
+}
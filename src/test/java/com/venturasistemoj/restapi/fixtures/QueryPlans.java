@@ -0,0 +1,88 @@
+package com.venturasistemoj.restapi.fixtures;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+
+/**
+ * Query plans of the selects an operation sends to the database.
+ *
+ * <p>While the operation runs, a listener on the datasource-proxy <code>ProxyDataSource</code> of the statement
+ * counting (see <code>StatementBudgetConfig</code>) records each select as sent by Hibernate, with the values bound to
+ * its parameters. Each one is then run with <code>EXPLAIN</code> and the same values, so the plan is the one of the
+ * query the application executes and not of a hand-written copy.</p>
+ *
+ * @author Wilson Ventura
+ */
+public final class QueryPlans {
+
+	@FunctionalInterface
+	public interface Operation {
+		void run() throws Exception;
+	}
+
+	private record Select(String sql, List<ParameterSetOperation> parameters) {}
+
+	private QueryPlans() {}
+
+	/**
+	 * Runs the operation and returns the H2 plans of the selects it executed, in their order.
+	 */
+	public static List<String> explainSelects(DataSource dataSource, Operation operation) throws Exception {
+
+		if( ! (dataSource instanceof ProxyDataSource proxy))
+			throw new IllegalArgumentException("Not a statement counting data source: " + dataSource);
+
+		List<Select> selects = new ArrayList<>();
+		QueryExecutionListener listener = new QueryExecutionListener() {
+
+			@Override
+			public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+			}
+
+			@Override
+			public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+				for(QueryInfo queryInfo : queryInfoList)
+					if(queryInfo.getQuery().startsWith("select"))
+						selects.add(new Select(queryInfo.getQuery(), queryInfo.getParametersList().isEmpty()
+								? List.of()
+								: List.copyOf(queryInfo.getParametersList().get(0))));
+			}
+		};
+
+		ChainListener listeners = proxy.getProxyConfig().getQueryListener();
+		listeners.addListener(listener);
+		try {
+			operation.run();
+		} finally {
+			listeners.getListeners().remove(listener);
+		}
+
+		List<String> plans = new ArrayList<>();
+		try (Connection connection = dataSource.getConnection()) {
+			for(Select select : selects)
+				try (PreparedStatement explain = connection.prepareStatement("explain " + select.sql())) {
+
+					for(ParameterSetOperation parameter : select.parameters())
+						parameter.getMethod().invoke(explain, parameter.getArgs()); // setString(1, "29%"), ...
+
+					try (ResultSet plan = explain.executeQuery()) {
+						plan.next();
+						plans.add(plan.getString(1));
+					}
+				}
+		}
+		return plans;
+	}
+}
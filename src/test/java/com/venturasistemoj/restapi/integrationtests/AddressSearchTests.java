@@ -0,0 +1,175 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.address.AddressService;
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+import com.venturasistemoj.restapi.fixtures.QueryPlans;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * <h2>Integration tests for the address location search.</h2>
+ *
+ * <p>Checks the search by CEP prefix, with or without separators, by state and by state and city, the keyset
+ * pagination of each one, and with H2 <code>EXPLAIN</code> of the statements the search executes that each query is a
+ * range scan of its location index read in the index order, without a sort.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest
+@Transactional
+class AddressSearchTests {
+
+	@Autowired private UserService userService;
+	@Autowired private AddressService addressService;
+	@Autowired private EntityManager entityManager;
+	@Autowired private DataSource dataSource;
+
+	@BeforeEach
+	public void beforeTestMethods() throws Exception {
+
+		String[][] adresses = {
+				{ "Vitória", "ES", "29.010-000" },
+				{ "Vila Velha", "ES", "29100-010" },
+				{ "Vitória", "ES", "29.015-120" },
+				{ "Belo Horizonte", "MG", "30130-010" },
+				{ "Vila Velha", "ES", "29101000" } };
+
+		for(int i = 0; i < adresses.length; i++) {
+
+			Long userId = userService.createUser(UserDTO.builder()
+					.name("Location" + i)
+					.surName("Surname" + i)
+					.birthDate(LocalDate.of(1982, Month.APRIL, 1).plusDays(i))
+					.cpf(Cpfs.withCheckDigits(700_000 + i))
+					.email("location" + i + "@prov.com")
+					.build()).getUserId();
+
+			addressService.createAddress(userId, AddressDTO.builder()
+					.publicPlace("Rua")
+					.streetAddress("Street " + i)
+					.city(adresses[i][0])
+					.state(adresses[i][1])
+					.zipCode(adresses[i][2])
+					.build());
+		}
+
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	public void cepPrefixTest() throws NotFoundException {
+
+		assertEquals(List.of("Street 0", "Street 2"), streets(addressService.searchAdresses("29.01", null, null, null, null)));
+		assertEquals(List.of("Street 1", "Street 4"), streets(addressService.searchAdresses("291", null, null, null, null)));
+		assertEquals(List.of("Street 3"), streets(addressService.searchAdresses("30130-010", null, null, null, null)));
+
+		// the informed zip code is kept, the digits are only indexed
+		assertEquals("29100-010", addressService.searchAdresses("291", null, null, null, null).getItems().get(0).getZipCode());
+
+		assertEquals(List.of("Street 0", "Street 2", "Street 1", "Street 4"), allStreets("29", null, null, 3));
+		assertThrows(NotFoundException.class, () -> addressService.searchAdresses("99", null, null, null, null));
+	}
+
+	@Test
+	public void stateAndCityTest() throws NotFoundException {
+
+		// by state, ordered by city and id
+		assertEquals(List.of("Street 1", "Street 4", "Street 0", "Street 2"), allStreets(null, "es", null, 3));
+		assertEquals(List.of("Street 1", "Street 4", "Street 0", "Street 2"), allStreets(null, "ES", null, 1));
+
+		// by state and city, ordered by id
+		assertEquals(List.of("Street 0", "Street 2"), allStreets(null, "ES", " Vitória ", 1));
+		assertEquals(List.of("Street 3"), streets(addressService.searchAdresses(null, "MG", "Belo Horizonte", null, null)));
+
+		CursorPage<AddressDTO> all = addressService.searchAdresses(null, "ES", "Vila Velha", 2, null);
+		assertEquals(2, all.getItems().size());
+		assertNull(all.getNextCursor());
+
+		assertThrows(NotFoundException.class, () -> addressService.searchAdresses(null, "ES", "Serra", null, null));
+	}
+
+	@Test
+	public void invalidSearchTest() {
+
+		assertThrows(IllegalArgumentException.class, () -> addressService.searchAdresses(null, null, null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> addressService.searchAdresses(null, null, "Vitória", null, null));
+		assertThrows(IllegalArgumentException.class, () -> addressService.searchAdresses("29", "ES", null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> addressService.searchAdresses("29x", null, null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> addressService.searchAdresses("290100001", null, null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> addressService.searchAdresses("29", null, null, 0, null));
+		assertThrows(IllegalArgumentException.class, () -> addressService.searchAdresses(null, "ES", "Vitória", null, "bad"));
+	}
+
+	@Test
+	public void indexRangeScanTest() throws Exception {
+
+		// one select per search: the page of adresses with their users
+		String plan = explainSearch("29", null, null);
+		assertTrue(plan.contains("IDX_ADRESSES_CEP"), plan);
+		assertTrue(plan.contains("index sorted"), plan);
+
+		plan = explainSearch(null, "ES", null);
+		assertTrue(plan.contains("IDX_ADRESSES_STATE_CITY"), plan);
+		assertTrue(plan.contains("index sorted"), plan);
+
+		plan = explainSearch(null, "ES", "Vitória");
+		assertTrue(plan.contains("IDX_ADRESSES_STATE_CITY"), plan);
+		assertTrue(plan.contains("index sorted"), plan);
+	}
+
+	// explains the select of the second page of the search, after a cursor
+	private String explainSearch(String cep, String state, String city) throws Exception {
+
+		String after = addressService.searchAdresses(cep, state, city, 1, null).getNextCursor();
+		List<String> plans = QueryPlans.explainSelects(dataSource,
+				() -> addressService.searchAdresses(cep, state, city, 1, after));
+
+		assertEquals(1, plans.size(), plans.toString());
+		return plans.get(0);
+	}
+
+	// follows the cursors of a search with the given page limit
+	private List<String> allStreets(String cep, String state, String city, int limit) throws NotFoundException {
+
+		List<String> streets = new ArrayList<>();
+		String after = null;
+
+		do {
+			CursorPage<AddressDTO> page = addressService.searchAdresses(cep, state, city, limit, after);
+			assertTrue(page.getItems().size() <= limit);
+			streets.addAll(streets(page));
+			after = page.getNextCursor();
+		} while(after != null);
+
+		return streets;
+	}
+
+	private static List<String> streets(CursorPage<AddressDTO> page) {
+		return page.getItems().stream().map(AddressDTO::getStreetAddress).toList();
+	}
+}
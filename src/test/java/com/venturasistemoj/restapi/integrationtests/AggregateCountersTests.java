@@ -0,0 +1,204 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.venturasistemoj.restapi.aggregates.AggregateCounters;
+import com.venturasistemoj.restapi.aggregates.Aggregates;
+import com.venturasistemoj.restapi.aggregates.AggregatesJdbcRepository;
+import com.venturasistemoj.restapi.aggregates.AggregatesReconciler;
+import com.venturasistemoj.restapi.domain.address.AddressService;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneService;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
+import com.venturasistemoj.restapi.fixtures.Fixtures;
+
+/**
+ * <h2>Integration tests for the aggregate counters.</h2>
+ *
+ * <p>Writes through the services, which commit, and checks that the counters follow every change and stay equal to
+ * the counts recomputed from the database, that a rolled back write changes no counter, that the reconciliation
+ * corrects a write made behind the services and that it corrects nothing that was right while writers race it.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest
+class AggregateCountersTests {
+
+	@Autowired private UserService userService;
+	@Autowired private AddressService addressService;
+	@Autowired private PhoneService phoneService;
+	@Autowired private AggregateCounters aggregateCounters;
+	@Autowired private AggregatesJdbcRepository aggregatesJdbcRepository;
+	@Autowired private AggregatesReconciler aggregatesReconciler;
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private TransactionTemplate transactionTemplate;
+
+	private static final int WRITERS = 4;
+
+	private final List<Long> createdUsers = Collections.synchronizedList(new ArrayList<>());
+
+	@BeforeEach
+	public void beforeTestMethods() {
+		aggregatesReconciler.reconcile(); // waits for the reconciliation at startup, if still running
+	}
+
+	@AfterEach
+	public void afterTestMethods() throws NotFoundException {
+		for(Long userId : createdUsers)
+			userService.deleteUser(userId);
+	}
+
+	@Test
+	public void servicesMaintainCountersTest() throws NotFoundException {
+
+		Aggregates before = aggregateCounters.snapshot();
+
+		UserDTO secondUser = user(LocalDate.of(1992, Month.MARCH, 9));
+		Long first = createUser(user(LocalDate.of(1975, Month.JUNE, 1)));
+		Long second = createUser(secondUser);
+		// one transaction, so its changes are applied together after commit
+		PhoneNumberDTO phone = transactionTemplate.execute(status -> {
+			try {
+				addressService.createAddress(first, Fixtures.address("Vitória", "ES"));
+				addressService.createAddress(second, Fixtures.address("Vitória", "ES"));
+				phoneService.createPhoneNumber(second, PhoneNumberDTO.builder()
+						.type("Aggregate").number("(27) 2687-8776").build());
+				return phoneService.createPhoneNumber(first, PhoneNumberDTO.builder()
+						.type("Aggregate").number("(27) 96687-8776").build());
+			} catch (NotFoundException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		Aggregates created = aggregateCounters.snapshot();
+		assertEquals(before.getUsers() + 2, created.getUsers());
+		assertEquals(count(before.getUsersByState(), "ES") + 2, count(created.getUsersByState(), "ES"));
+		assertEquals(count(before.getAdressesByCity(), "Vitória/ES") + 2, count(created.getAdressesByCity(), "Vitória/ES"));
+		assertEquals(count(before.getPhonesByType(), "Aggregate") + 2, count(created.getPhonesByType(), "Aggregate"));
+		assertEquals(count(before.getUsersByBirthDecade(), "1970") + 1, count(created.getUsersByBirthDecade(), "1970"));
+		assertEquals(count(before.getUsersByBirthDecade(), "1990") + 1, count(created.getUsersByBirthDecade(), "1990"));
+		assertEquals(aggregatesJdbcRepository.countAll(), created);
+
+		// changes move the counts between keys
+		addressService.updateAddress(second, Fixtures.address("Vila Velha", "ES"));
+		phoneService.updatePhoneNumber(first, phone.getPhoneId(), PhoneNumberDTO.builder()
+				.type("Home").number(phone.getNumber()).build());
+		secondUser.setBirthDate(LocalDate.of(1989, Month.MARCH, 9));
+		userService.updateUser(second, secondUser);
+
+		Aggregates changed = aggregateCounters.snapshot();
+		assertEquals(count(created.getAdressesByCity(), "Vitória/ES") - 1, count(changed.getAdressesByCity(), "Vitória/ES"));
+		assertEquals(count(created.getAdressesByCity(), "Vila Velha/ES") + 1, count(changed.getAdressesByCity(), "Vila Velha/ES"));
+		assertEquals(count(created.getPhonesByType(), "Aggregate") - 1, count(changed.getPhonesByType(), "Aggregate"));
+		assertEquals(count(created.getUsersByBirthDecade(), "1980") + 1, count(changed.getUsersByBirthDecade(), "1980"));
+		assertEquals(aggregatesJdbcRepository.countAll(), changed);
+
+		// a rolled back write changes nothing: the type change is discarded with the invalid number
+		assertThrows(IllegalPhoneStateException.class, () -> phoneService.updatePhoneNumber(first, phone.getPhoneId(),
+				PhoneNumberDTO.builder().type("Other").number("123").build()));
+		assertEquals(changed, aggregateCounters.snapshot());
+
+		// a user is removed with its address and phones
+		userService.deleteUser(first);
+		createdUsers.remove(first);
+
+		Aggregates removed = aggregateCounters.snapshot();
+		assertEquals(changed.getUsers() - 1, removed.getUsers());
+		assertEquals(count(changed.getAdressesByCity(), "Vitória/ES") - 1, count(removed.getAdressesByCity(), "Vitória/ES"));
+		assertEquals(count(changed.getPhonesByType(), "Home") - 1, count(removed.getPhonesByType(), "Home"));
+		assertEquals(aggregatesJdbcRepository.countAll(), removed);
+		assertEquals(0, aggregatesReconciler.reconcile());
+	}
+
+	@Test
+	public void reconciliationTest() {
+
+		Long userId = createUser(user(LocalDate.of(2001, Month.JANUARY, 1)));
+		Aggregates before = aggregateCounters.snapshot();
+		long corrections = aggregateCounters.correctionCount();
+
+		// behind the services
+		jdbcTemplate.update("insert into phones (phone_id, type, number, user_id) values (?, ?, ?, ?)",
+				-userId, "Behind", "(27) 2687-8776", userId);
+
+		assertEquals(before, aggregateCounters.snapshot());
+		assertEquals(1, aggregatesReconciler.reconcile());
+		assertEquals(corrections + 1, aggregateCounters.correctionCount());
+
+		Aggregates reconciled = aggregateCounters.snapshot();
+		assertEquals(1, count(reconciled.getPhonesByType(), "Behind"));
+		assertEquals(aggregatesJdbcRepository.countAll(), reconciled);
+		assertTrue(reconciled.getUsersByBirthDecade().containsKey("2000"));
+	}
+
+	@Test
+	public void concurrentReconciliationTest() throws Exception {
+
+		ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+		List<Future<?>> writes = new ArrayList<>();
+		for(int w = 0; w < WRITERS; w++)
+			writes.add(writers.submit(() -> {
+				for(int i = 0; i < 25; i++) {
+					UserDTO user = Fixtures.user("Concurrent");
+					user.setAddressDTO(Fixtures.address("Serra", "ES"));
+					user.setPhonesDTO(Set.of(Fixtures.phone("Concurrent", "(27) 2687-8776")));
+					Long userId = userService.createUserAggregate(user).getUserId();
+
+					if(i % 2 == 0)
+						createdUsers.add(userId);
+					else
+						userService.deleteUser(userId);
+				}
+				return null;
+			}));
+		writers.shutdown();
+
+		while( ! writers.isTerminated())
+			aggregatesReconciler.reconcile();
+
+		for(Future<?> write : writes)
+			write.get();
+		assertEquals(aggregatesJdbcRepository.countAll(), aggregateCounters.snapshot());
+	}
+
+	private Long createUser(UserDTO user) {
+		Long userId = userService.createUser(user).getUserId();
+		createdUsers.add(userId);
+		return userId;
+	}
+
+	private static UserDTO user(LocalDate birthDate) {
+		UserDTO user = Fixtures.user("Aggregate");
+		user.setBirthDate(birthDate);
+		return user;
+	}
+
+	private static long count(Map<String, Long> counts, String key) {
+		return counts.getOrDefault(key, 0L);
+	}
+}
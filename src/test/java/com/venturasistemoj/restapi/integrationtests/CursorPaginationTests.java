@@ -0,0 +1,88 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+
+/**
+ * <h2>Integration tests for the keyset (cursor) pagination of listings.</h2>
+ *
+ * <p>Walks the users listing page by page and checks that every user is returned exactly once, in id order, and that
+ * the last page has no next cursor.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest
+@Transactional
+class CursorPaginationTests {
+
+	@Autowired private UserService userService;
+
+	private final List<Long> createdIds = new ArrayList<>();
+
+	@BeforeEach
+	public void beforeTestMethods() {
+
+		for(int i = 0; i < 5; i++)
+			createdIds.add(userService.createUser(UserDTO.builder()
+					.name("Name" + i)
+					.surName("Surname" + i)
+					.birthDate(LocalDate.of(1980, Month.MARCH, 1).plusDays(i))
+					.cpf(Cpfs.withCheckDigits(100 + i))
+					.email("user" + i + "@prov.com")
+					.build()).getUserId());
+	}
+
+	@Test
+	public void walkUsersPagesTest() throws NotFoundException {
+
+		List<Long> walkedIds = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+
+		do {
+			CursorPage<UserDTO> page = userService.getUsers(2, cursor);
+			page.getItems().forEach(user -> walkedIds.add(user.getUserId()));
+			cursor = page.getNextCursor();
+			pages++;
+		} while(cursor != null);
+
+		assertEquals(3, pages);
+		assertEquals(createdIds, walkedIds);
+	}
+
+	@Test
+	public void lastPageTest() throws NotFoundException {
+
+		CursorPage<UserDTO> page = userService.getUsers(5, null);
+
+		assertEquals(5, page.getItems().size());
+		assertNull(page.getNextCursor());
+	}
+
+	@Test
+	public void invalidCursorAndLimitTest() {
+
+		assertThrows(IllegalArgumentException.class, () -> userService.getUsers(2, "not a cursor"));
+		assertThrows(IllegalArgumentException.class, () -> userService.getUsers(0, null));
+		assertThrows(IllegalArgumentException.class, () -> userService.getUsers(CursorPage.MAX_LIMIT + 1, null));
+	}
+}
@@ -0,0 +1,257 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.cache.SerializedResponse;
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberPatch;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Fixtures;
+import com.venturasistemoj.restapi.statements.RequestStatementLog;
+import com.venturasistemoj.restapi.versioning.EntityTag;
+
+/**
+ * <h2>Integration tests for the entity tags of the users, adresses and phone sets.</h2>
+ *
+ * <p>Checks through <code>MockMvc</code> that the reads are served with an <code>ETag</code>, answered with 304 Not
+ * Modified without a statement while it is cached, that every write changes the tags it covers, that a body is
+ * served with its own tag when a write committed before its cache entry was evicted, and that a <code>PUT</code> with
+ * a stale <code>If-Match</code> is refused with 412 Precondition Failed.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class EntityTagTests {
+
+	private static final String USER_ROUTE = "GET /rest-api/users/{userId}";
+
+	@Autowired private MockMvc mockMvc;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private RequestStatementLog statementLog;
+	@Autowired private UserService userService;
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private DtoCache<String, String> entityTagCache;
+	@Autowired private DtoCache<Long, SerializedResponse> userResponseCache;
+
+	private final String cpf = Fixtures.cpf();
+	private Long userId;
+	private Long phoneId;
+
+	@BeforeEach
+	public void beforeTestMethods() throws Exception {
+
+		String created = mockMvc.perform(post("/rest-api/users")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(Fixtures.user("Tagged", cpf))))
+				.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+		userId = objectMapper.readValue(created, UserDTO.class).getUserId();
+
+		mockMvc.perform(post("/rest-api/adresses/{userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(Fixtures.address("Centro", "RJ"))))
+				.andExpect(status().isCreated());
+
+		created = mockMvc.perform(post("/rest-api/phones/{userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(Fixtures.phone("Cel", "(21) 96687-8776"))))
+				.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+		phoneId = objectMapper.readValue(created, PhoneNumberDTO.class).getPhoneId();
+	}
+
+	@AfterEach
+	public void afterTestMethods() throws Exception {
+		userService.deleteUser(userId);
+	}
+
+	@Test
+	public void notModifiedTest() throws Exception {
+
+		for(String resource : new String[] { "/rest-api/users/{userId}", "/rest-api/adresses/{userId}",
+				"/rest-api/phones/{userId}" }) {
+
+			String tag = tag(resource);
+
+			MockHttpServletResponse notModified = mockMvc.perform(get(resource, userId)
+					.header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + tag))
+					.andExpect(status().isNotModified()).andReturn().getResponse();
+			assertEquals(tag, notModified.getHeader(HttpHeaders.ETAG));
+			assertEquals(0, notModified.getContentLength());
+
+			mockMvc.perform(get(resource, userId).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+					.andExpect(status().isOk());
+		}
+
+		// the cached tag, without a statement
+		statementLog.clear();
+		mockMvc.perform(get("/rest-api/users/{userId}", userId)
+				.header(HttpHeaders.IF_NONE_MATCH, tag("/rest-api/users/{userId}")))
+				.andExpect(status().isNotModified());
+		assertEquals(0, statementLog.await(USER_ROUTE).count());
+	}
+
+	@Test
+	public void writesChangeTagsTest() throws Exception {
+
+		String user = tag("/rest-api/users/{userId}");
+		String address = tag("/rest-api/adresses/{userId}");
+		String phones = tag("/rest-api/phones/{userId}");
+
+		write(put("/rest-api/adresses/{userId}", userId), Fixtures.address("Centro", "SP"), status().isOk());
+		assertNotEquals(address, tag("/rest-api/adresses/{userId}"));
+		assertNotEquals(user, user = tag("/rest-api/users/{userId}"));
+		assertEquals(phones, tag("/rest-api/phones/{userId}"));
+
+		write(patch("/rest-api/phones"), List.of(PhoneNumberPatch.builder()
+				.userId(userId).phoneId(phoneId).type("Home").build()), status().isOk());
+		assertNotEquals(phones, phones = tag("/rest-api/phones/{userId}"));
+		assertNotEquals(user, user = tag("/rest-api/users/{userId}"));
+
+		write(post("/rest-api/phones/{userId}", userId), Fixtures.phone("Cel", "(21) 2687-8776"), status().isCreated());
+		assertNotEquals(phones, tag("/rest-api/phones/{userId}"));
+		assertNotEquals(user, user = tag("/rest-api/users/{userId}"));
+
+		// the user alone does not change the tags of its address and phones
+		address = tag("/rest-api/adresses/{userId}");
+		write(put("/rest-api/users/{userId}", userId), Fixtures.user("Renamed", cpf), status().isOk());
+		assertNotEquals(user, tag("/rest-api/users/{userId}"));
+		assertEquals(address, tag("/rest-api/adresses/{userId}"));
+	}
+
+	@Test
+	public void tagOfTheCachedBodyTest() throws Exception {
+
+		String address = tag("/rest-api/adresses/{userId}");
+		String phones = tag("/rest-api/phones/{userId}");
+		String user = tag("/rest-api/users/{userId}");
+
+		// a write committed: its tags are evicted, the cached bodies not yet
+		jdbcTemplate.update("update adresses set state = 'SP', version = version + 1 where user_id = ?", userId);
+		jdbcTemplate.update("update phones set type = 'Home', version = version + 1 where user_id = ?", userId);
+		entityTagCache.invalidateAll();
+
+		// the tags read alone are newer than the cached bodies, which keep their own tags
+		MockHttpServletResponse stale = mockMvc.perform(get("/rest-api/adresses/{userId}", userId)
+				.header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+				.andExpect(status().isOk()).andReturn().getResponse();
+		assertNotEquals(address, "\"" + entityTagCache.getIfPresent(EntityTag.ADRESSES + userId) + "\"");
+		assertEquals(address, stale.getHeader(HttpHeaders.ETAG));
+		assertEquals("RJ", objectMapper.readValue(stale.getContentAsString(), AddressDTO.class).getState());
+
+		stale = mockMvc.perform(get("/rest-api/phones/{userId}", userId).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+				.andExpect(status().isOk()).andReturn().getResponse();
+		assertNotEquals(phones, "\"" + entityTagCache.getIfPresent(EntityTag.PHONES + userId) + "\"");
+		assertEquals(phones, stale.getHeader(HttpHeaders.ETAG));
+		assertEquals("Cel", objectMapper.readValue(stale.getContentAsString(), PhoneNumberDTO[].class)[0].getType());
+
+		// a serialized user is not built from the cached user
+		userResponseCache.invalidateAll();
+		MockHttpServletResponse fresh = mockMvc.perform(get("/rest-api/users/{userId}", userId))
+				.andExpect(status().isOk()).andReturn().getResponse();
+		assertNotEquals(user, fresh.getHeader(HttpHeaders.ETAG));
+		assertEquals("SP", objectMapper.readValue(fresh.getContentAsString(), UserDTO.class).getAddressDTO().getState());
+		mockMvc.perform(get("/rest-api/users/{userId}", userId)
+				.header(HttpHeaders.IF_NONE_MATCH, fresh.getHeader(HttpHeaders.ETAG)))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	public void phoneSetTagTest() throws Exception {
+
+		String single = tag("/rest-api/phones/{userId}");
+
+		PhoneNumberDTO last = null;
+		for(int i = 0; i < 30; i++) {
+			String created = mockMvc.perform(post("/rest-api/phones/{userId}", userId)
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(Fixtures.phone("Cel", String.format("(21) 2600-%04d", i)))))
+					.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+			last = objectMapper.readValue(created, PhoneNumberDTO.class);
+		}
+
+		// the tag does not grow with the phones
+		String phones = tag("/rest-api/phones/{userId}");
+		assertTrue(phones.length() <= single.length() + 1, phones);
+		assertTrue(tag("/rest-api/users/{userId}").length() < 80);
+
+		write(delete("/rest-api/phones/{userId}", userId), last, status().isNoContent());
+		assertNotEquals(phones, tag("/rest-api/phones/{userId}"));
+	}
+
+	@Test
+	public void ifMatchTest() throws Exception {
+
+		String user = tag("/rest-api/users/{userId}");
+		String address = tag("/rest-api/adresses/{userId}");
+		String phones = tag("/rest-api/phones/{userId}");
+
+		write(put("/rest-api/users/{userId}", userId).header(HttpHeaders.IF_MATCH, user), Fixtures.user("First", cpf),
+				status().isOk());
+		// lost update: the second writer read the same version
+		write(put("/rest-api/users/{userId}", userId).header(HttpHeaders.IF_MATCH, user), Fixtures.user("Second", cpf),
+				status().isPreconditionFailed());
+		assertEquals("First", userService.getUserById(userId).getName());
+		// the weak tag does not match
+		String weak = "W/" + tag("/rest-api/users/{userId}");
+		write(put("/rest-api/users/{userId}", userId).header(HttpHeaders.IF_MATCH, weak), Fixtures.user("Third", cpf),
+				status().isPreconditionFailed());
+
+		write(put("/rest-api/adresses/{userId}", userId).header(HttpHeaders.IF_MATCH, address), Fixtures.address("Centro", "MG"),
+				status().isOk());
+		write(put("/rest-api/adresses/{userId}", userId).header(HttpHeaders.IF_MATCH, address), Fixtures.address("Centro", "ES"),
+				status().isPreconditionFailed());
+
+		write(put("/rest-api/phones/{userId}/{phoneId}", userId, phoneId).header(HttpHeaders.IF_MATCH, phones),
+				Fixtures.phone("Cel", "(21) 96687-0000"), status().isOk());
+		write(put("/rest-api/phones/{userId}/{phoneId}", userId, phoneId).header(HttpHeaders.IF_MATCH, phones),
+				Fixtures.phone("Cel", "(21) 96687-1111"), status().isPreconditionFailed());
+
+		write(put("/rest-api/users/{userId}", userId).header(HttpHeaders.IF_MATCH, "*"), Fixtures.user("Any", cpf), status().isOk());
+	}
+
+	private String tag(String resource) throws Exception {
+
+		String tag = mockMvc.perform(get(resource, userId)).andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		assertNotNull(tag, resource);
+		assertTrue(tag.startsWith("\""), tag);
+		return tag;
+	}
+
+	private void write(MockHttpServletRequestBuilder request, Object body, ResultMatcher expectedStatus)
+			throws Exception {
+		mockMvc.perform(request.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body)))
+				.andExpect(expectedStatus);
+	}
+}
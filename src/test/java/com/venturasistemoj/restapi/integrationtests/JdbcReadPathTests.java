@@ -0,0 +1,176 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.address.AddressMapper;
+import com.venturasistemoj.restapi.domain.address.AddressRepository;
+import com.venturasistemoj.restapi.domain.address.AddressService;
+import com.venturasistemoj.restapi.domain.phone.PhoneMapper;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneRepository;
+import com.venturasistemoj.restapi.domain.phone.PhoneService;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserMapper;
+import com.venturasistemoj.restapi.domain.user.UserRepository;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * <h2>Integration tests for the JDBC read path.</h2>
+ *
+ * <p>With <code>rest-api.read-path=jdbc</code>, checks that the services serialize to the same JSON as the entities
+ * read by the JPA repositories and mapped by MapStruct, for users with and without address and phones and for phone
+ * numbers shared by different users. On both paths the phone sets are in id order.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest(properties = "rest-api.read-path=jdbc")
+@Transactional
+class JdbcReadPathTests {
+
+	@Autowired private UserService userService;
+	@Autowired private AddressService addressService;
+	@Autowired private PhoneService phoneService;
+
+	@Autowired private UserRepository userRepository;
+	@Autowired private AddressRepository addressRepository;
+	@Autowired private PhoneRepository phoneRepository;
+
+	@Autowired private UserMapper userMapper;
+	@Autowired private AddressMapper addressMapper;
+	@Autowired private PhoneMapper phoneMapper;
+
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private EntityManager entityManager;
+
+	private final List<Long> userIds = new ArrayList<>();
+
+	@BeforeEach
+	public void beforeTestMethods() throws NotFoundException {
+
+		for(int i = 0; i < 6; i++) {
+
+			Long userId = userService.createUser(UserDTO.builder()
+					.name("Name" + i)
+					.surName("Surname" + i)
+					.birthDate(LocalDate.of(1985, Month.MARCH, 10).plusDays(i))
+					.cpf(Cpfs.withCheckDigits(900 + i))
+					.email("jdbc" + i + "@prov.com")
+					.build()).getUserId();
+			userIds.add(userId);
+
+			if(i % 3 == 0)
+				continue; // no address and no phones
+
+			addressService.createAddress(userId, AddressDTO.builder()
+					.publicPlace("Rua")
+					.streetAddress("Conde Deu, " + i)
+					.complement(i % 2 == 0 ? null : "Apto " + i)
+					.city("Niterói")
+					.state("RJ")
+					.zipCode("24.020-000")
+					.build());
+
+			if(i % 3 == 1)
+				continue; // address only
+
+			phoneService.createPhoneNumber(userId, PhoneNumberDTO.builder().type("Cel").number("(21) 9668" + i + "-8776").build());
+			phoneService.createPhoneNumber(userId, PhoneNumberDTO.builder().type("Home").number("(21) 2687-877" + i).build());
+			phoneService.createPhoneNumber(userId, PhoneNumberDTO.builder().type("Work").number("(21) 3333-4444").build());
+		}
+
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	public void getUsersTest() throws NotFoundException, JsonProcessingException {
+		assertSameJson(userMapper.usersToUsersDTO(userRepository.findAllWithAddressAndPhones()), userService.getUsers());
+	}
+
+	@Test
+	public void getUsersPageTest() throws NotFoundException, JsonProcessingException {
+		assertSameJson(userMapper.usersToUsersDTO(userRepository.findAllWithAddressAndPhonesById(userIds.subList(0, 4))),
+				userService.getUsers(4, null).getItems());
+	}
+
+	@Test
+	public void getUserByIdTest() throws NotFoundException, JsonProcessingException {
+
+		for(Long userId : userIds)
+			assertSameJson(userMapper.userToUserDTO(userRepository.findWithAddressAndPhonesById(userId).orElseThrow()),
+					userService.getUserById(userId));
+
+		assertThrows(NotFoundException.class, () -> userService.getUserById(-1L));
+	}
+
+	@Test
+	public void getAdressesTest() throws NotFoundException, JsonProcessingException {
+		assertSameJson(addressMapper.adressesToAdressesDTO(addressRepository.findAll()), addressService.getAdresses());
+	}
+
+	@Test
+	public void getPhoneNumbersTest() throws NotFoundException, JsonProcessingException {
+		assertSameJson(phoneMapper.phoneNumbersToPhoneNumbersDTO(phoneRepository.findAll(Sort.by("phoneId")).stream()
+				.collect(Collectors.toSet())), phoneService.getPhoneNumbers());
+	}
+
+	@Test
+	public void phoneSetsInIdOrderTest() throws NotFoundException {
+
+		for(Long userId : userIds) {
+			assertInIdOrder(userMapper.userToUserDTO(userRepository.findWithAddressAndPhonesById(userId).orElseThrow())
+					.getPhonesDTO());
+			assertInIdOrder(userService.getUserById(userId).getPhonesDTO());
+		}
+
+		Set<PhoneNumberDTO> allPhones = phoneService.getPhoneNumbers();
+		assertInIdOrder(allPhones);
+
+		// the number shared by two users is the one of the first
+		Long sharedId = phoneRepository.findAll().stream()
+				.filter(phone -> phone.getNumber().equals("(21) 3333-4444"))
+				.map(phone -> phone.getPhoneId())
+				.min(Long::compare)
+				.orElseThrow();
+		assertEquals(1, allPhones.stream().filter(phone -> phone.getNumber().equals("(21) 3333-4444")).count());
+		assertEquals(sharedId, allPhones.stream()
+				.filter(phone -> phone.getNumber().equals("(21) 3333-4444"))
+				.findFirst().orElseThrow().getPhoneId());
+	}
+
+	private static void assertInIdOrder(Set<PhoneNumberDTO> phones) {
+
+		if(phones == null)
+			return;
+
+		List<Long> phoneIds = phones.stream().map(PhoneNumberDTO::getPhoneId).toList();
+		assertEquals(phoneIds.stream().sorted().toList(), phoneIds);
+	}
+
+	private void assertSameJson(Object jpa, Object jdbc) throws JsonProcessingException {
+		assertEquals(objectMapper.writeValueAsString(jpa), objectMapper.writeValueAsString(jdbc));
+	}
+}
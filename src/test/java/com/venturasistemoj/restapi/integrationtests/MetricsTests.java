@@ -0,0 +1,84 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+
+/**
+ * <h2>Integration tests for the Prometheus metrics endpoint.</h2>
+ *
+ * <p>Calls the users API and checks that <code>/actuator/prometheus</code> exports the route latency histogram, the
+ * service timers and the Hibernate, HikariCP and cache metrics.</p>
+ *
+ * <p><code>@AutoConfigureObservability</code> enables the metrics export, which is disabled by default in tests.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTests {
+
+	@Autowired private MockMvc mockMvc;
+	@Autowired private UserService userService;
+
+	@Test
+	public void prometheusTest() throws Exception {
+
+		Long userId = userService.createUser(UserDTO.builder()
+				.name("Metrics")
+				.surName("Test")
+				.birthDate(LocalDate.of(1980, Month.JUNE, 6))
+				.cpf("555.555.550-40")
+				.email("metrics@prov.com")
+				.build()).getUserId();
+
+		mockMvc.perform(get("/rest-api/users/{userId}", userId)).andExpect(status().isOk());
+		mockMvc.perform(get("/rest-api/users/{userId}", -1)).andExpect(status().isNotFound());
+
+		String metrics = mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		userService.deleteUser(userId);
+
+		assertContains(metrics, "http_server_requests_seconds_bucket{", "uri=\"/rest-api/users/{userId}\"", "status=\"200\"");
+		assertContains(metrics, "http_server_requests_seconds_count{", "uri=\"/rest-api/users/{userId}\"", "status=\"404\"");
+		assertContains(metrics, "rest_api_service_seconds_bucket{", "class=\"com.venturasistemoj.restapi.domain.user.UserServiceImpl\"",
+				"method=\"getTaggedUser\"");
+		assertContains(metrics, "hibernate_statements_total{");
+		assertContains(metrics, "hibernate_entities_loads_total{");
+		assertContains(metrics, "hibernate_collections_fetches_total{");
+		assertContains(metrics, "hibernate_cache_query_plan_total{");
+		assertContains(metrics, "hikaricp_connections_active{");
+		assertContains(metrics, "hikaricp_connections_acquire_seconds_bucket{");
+		assertContains(metrics, "cache_gets_total{", "cache=\"users\"");
+		assertContains(metrics, "cache_invalidations_total{", "cache=\"users\"");
+	}
+
+	// checks that a sample line of the metric has all the given labels
+	private static void assertContains(String metrics, String metric, String... labels) {
+		assertTrue(metrics.lines().anyMatch(line -> {
+			if( ! line.startsWith(metric))
+				return false;
+			for(String label : labels)
+				if( ! line.contains(label))
+					return false;
+			return true;
+		}), metric + " " + String.join(",", labels));
+	}
+}
@@ -0,0 +1,234 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.pagination.MultiGet;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+import com.venturasistemoj.restapi.statements.RequestStatementLog;
+import com.venturasistemoj.restapi.statements.RequestStatements;
+import com.venturasistemoj.restapi.versioning.Tagged;
+
+/**
+ * <h2>Integration tests for the multi-get of users, adresses and phones.</h2>
+ *
+ * <p>Checks through <code>MockMvc</code> that a list of ids is read in the order of the request, with the missing ids
+ * reported, and with the <code>RequestStatementLog</code> that the ids not cached are read with a single statement
+ * however many they are.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MultiGetTests {
+
+	private static final int USERS = 60;
+
+	@Autowired private MockMvc mockMvc;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private RequestStatementLog statementLog;
+	@Autowired private UserService userService;
+	@Autowired private DtoCache<Long, UserDTO> userCache;
+	@Autowired private DtoCache<Long, Tagged<AddressDTO>> addressCache;
+	@Autowired private DtoCache<Long, Tagged<Set<PhoneNumberDTO>>> phonesCache;
+
+	private final List<Long> userIds = new ArrayList<>();
+
+	@BeforeEach
+	public void beforeTestMethods() throws Exception {
+
+		for(int i = 0; i < USERS; i++) {
+
+			String created = mockMvc.perform(post("/rest-api/users")
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(UserDTO.builder()
+							.name("Multi" + i)
+							.surName("Get")
+							.birthDate(LocalDate.of(1985, Month.APRIL, 1 + i % 28))
+							.cpf(Cpfs.withCheckDigits(888_888_000 + i))
+							.email("multi" + i + "@prov.com")
+							.build())))
+					.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+			Long userId = objectMapper.readValue(created, UserDTO.class).getUserId();
+			userIds.add(userId);
+
+			if(i % 2 == 0) // every other user has an address and two phones
+				create("/rest-api/adresses/{userId}", userId, AddressDTO.builder()
+						.publicPlace("Rua")
+						.streetAddress("Sete de Setembro, " + i)
+						.city("Niterói")
+						.state("RJ")
+						.zipCode("24.020-000")
+						.build());
+
+			if(i % 2 == 0)
+				for(String number : new String[] { "(21) 96687-87%02d", "(21) 2687-87%02d" })
+					create("/rest-api/phones/{userId}", userId,
+							PhoneNumberDTO.builder().type("Cel").number(String.format(number, i)).build());
+		}
+
+		userCache.invalidateAll();
+		addressCache.invalidateAll();
+		phonesCache.invalidateAll();
+	}
+
+	@AfterEach
+	public void afterTestMethods() throws Exception {
+		for(Long userId : userIds)
+			userService.deleteUser(userId);
+	}
+
+	@Test
+	public void usersInRequestOrderTest() throws Exception {
+
+		List<Long> ids = new ArrayList<>(userIds);
+		Collections.reverse(ids);
+		Long nonexistent = userIds.get(USERS - 1) + 1000;
+		ids.add(USERS / 2, nonexistent);
+		ids.add(userIds.get(0)); // repeated
+
+		statementLog.clear();
+		JsonNode users = read(get("/rest-api/users").param("ids", join(ids)));
+
+		// users, adresses and phones in one statement
+		RequestStatements statements = statementLog.await("GET /rest-api/users");
+		assertEquals(1, statements.count(), statements.toString());
+
+		List<Long> returned = new ArrayList<>();
+		users.get("items").fieldNames().forEachRemaining(id -> returned.add(Long.valueOf(id)));
+		assertEquals(ids.stream().filter(id -> ! id.equals(nonexistent)).distinct().toList(), returned);
+		assertEquals(List.of(nonexistent), longs(users.get("missing")));
+
+		JsonNode first = users.get("items").get(userIds.get(0).toString());
+		assertEquals("Multi0", first.get("name").asText());
+		assertEquals("Niterói", first.get("addressDTO").get("city").asText());
+		assertEquals(2, first.get("phonesDTO").size());
+
+		// now cached: only the missing ids are read again
+		statementLog.clear();
+		read(post("/rest-api/users/lookup")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(userIds)));
+		assertEquals(0, statementLog.await("POST /rest-api/users/lookup").count());
+
+		// sparse, not cached
+		JsonNode sparse = read(get("/rest-api/users").param("ids", join(userIds.subList(0, 3))).param("fields", "name"));
+		sparse.get("items").forEach(user -> assertEquals(Set.of("userId", "name"), names(user)));
+	}
+
+	@Test
+	public void childrenByUserTest() throws Exception {
+
+		statementLog.clear();
+		JsonNode adresses = read(get("/rest-api/adresses").param("userIds", join(userIds)));
+		assertEquals(1, statementLog.await("GET /rest-api/adresses").count());
+
+		// every other user has no address
+		assertEquals(USERS / 2, adresses.get("items").size());
+		assertEquals(LongStream.range(0, USERS).filter(i -> i % 2 == 1).mapToObj(i -> userIds.get((int) i)).toList(),
+				longs(adresses.get("missing")));
+		assertEquals("Sete de Setembro, 2", adresses.get("items").get(userIds.get(2).toString())
+				.get("streetAddress").asText());
+
+		statementLog.clear();
+		JsonNode phones = read(post("/rest-api/phones/lookup")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(userIds)));
+		assertEquals(1, statementLog.await("POST /rest-api/phones/lookup").count());
+
+		assertEquals(USERS / 2, phones.get("items").size());
+		JsonNode phoneSet = phones.get("items").get(userIds.get(4).toString());
+		Set<String> numbers = new HashSet<>();
+		phoneSet.forEach(phone -> numbers.add(phone.get("number").asText()));
+		assertEquals(Set.of("(21) 96687-8704", "(21) 2687-8704"), numbers);
+
+		// now cached: only the users without phones are read again
+		List<Long> withPhones = LongStream.range(0, USERS).filter(i -> i % 2 == 0)
+				.mapToObj(i -> userIds.get((int) i)).toList();
+		statementLog.clear();
+		read(get("/rest-api/phones").param("userIds", join(withPhones)));
+		assertEquals(0, statementLog.await("GET /rest-api/phones").count());
+	}
+
+	@Test
+	public void invalidIdsTest() throws Exception {
+
+		List<Long> tooMany = LongStream.rangeClosed(1, MultiGet.MAX_IDS + 1).boxed().toList();
+
+		mockMvc.perform(post("/rest-api/users/lookup")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(tooMany)))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/rest-api/adresses/lookup")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[]"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/rest-api/phones").param("userIds", "1,x"))
+				.andExpect(status().isBadRequest());
+
+		// all missing is not an error
+		JsonNode none = read(get("/rest-api/users").param("ids", "-1,-2"));
+		assertFalse(none.get("items").fieldNames().hasNext());
+		assertEquals(List.of(-1L, -2L), longs(none.get("missing")));
+	}
+
+	private void create(String route, Long userId, Object body) throws Exception {
+		mockMvc.perform(post(route, userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(body)))
+				.andExpect(status().isCreated());
+	}
+
+	private JsonNode read(RequestBuilder request) throws Exception {
+		return objectMapper.readTree(mockMvc.perform(request).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+	}
+
+	private static String join(List<Long> ids) {
+		return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+	}
+
+	private static List<Long> longs(JsonNode array) {
+		List<Long> values = new ArrayList<>();
+		array.forEach(value -> values.add(value.asLong()));
+		return values;
+	}
+
+	private static Set<String> names(JsonNode node) {
+		Set<String> names = new HashSet<>();
+		node.fieldNames().forEachRemaining(names::add);
+		return names;
+	}
+}
@@ -0,0 +1,237 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.domain.phone.PhoneJdbcRepository;
+import com.venturasistemoj.restapi.domain.phone.PhoneJdbcRepository.VersionedPhone;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberPatch;
+import com.venturasistemoj.restapi.domain.phone.PhoneService;
+import com.venturasistemoj.restapi.domain.user.BulkImportReport;
+import com.venturasistemoj.restapi.domain.user.UserBulkService;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+import com.venturasistemoj.restapi.statements.StatementCounter;
+
+/**
+ * <h2>Integration tests for the targeted and bulk phone number updates.</h2>
+ *
+ * <p>Checks with <code>StatementCounter</code> that updating one phone of a user with many phones reads and writes
+ * only that phone, that a bulk patch reads all its phones with one statement and writes them in JDBC batches, that
+ * only the changed columns are written, and that a failed patch, or one racing a concurrent write, changes nothing.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest
+class PhoneUpdateTests {
+
+	private static final int PHONES_PER_USER = 60;
+
+	@Autowired private UserService userService;
+	@Autowired private PhoneService phoneService;
+	@Autowired private UserBulkService userBulkService;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private PhoneJdbcRepository phoneJdbcRepository;
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private TransactionTemplate transactionTemplate;
+
+	private final List<Long> userIds = new ArrayList<>();
+	private final List<List<PhoneNumberDTO>> phones = new ArrayList<>();
+
+	// imports two users with PHONES_PER_USER phones each
+	@BeforeEach
+	public void beforeTestMethods() throws IOException, NotFoundException {
+
+		List<UserDTO> users = new ArrayList<>();
+		for(int u = 0; u < 2; u++) {
+
+			UserDTO user = UserDTO.builder()
+					.name("Phones" + u)
+					.surName("Test")
+					.birthDate(LocalDate.of(1985, Month.MARCH, 1 + u))
+					.cpf(Cpfs.withCheckDigits(333_333_300 + u))
+					.email("phones" + u + "@prov.com")
+					.build();
+
+			Set<PhoneNumberDTO> userPhones = new HashSet<>();
+			for(int i = 0; i < PHONES_PER_USER; i++)
+				userPhones.add(PhoneNumberDTO.builder().type("Cel").number(number(u, i, 9)).userDTO(user).build());
+			user.setPhonesDTO(userPhones);
+
+			users.add(user);
+		}
+
+		BulkImportReport report = userBulkService.importUsers(new ByteArrayInputStream(objectMapper.writeValueAsBytes(users)));
+
+		for(int u = 0; u < 2; u++) {
+			Long userId = report.getRows().get(u).getUserId();
+			userIds.add(userId);
+			phones.add(phoneService.getPhonesByUserId(userId).stream()
+					.sorted(Comparator.comparing(PhoneNumberDTO::getNumber))
+					.toList());
+		}
+	}
+
+	@AfterEach
+	public void afterTestMethods() throws NotFoundException {
+		for(Long userId : userIds)
+			userService.deleteUser(userId);
+	}
+
+	@Test
+	public void updateOnePhoneTest() throws NotFoundException {
+
+		PhoneNumberDTO phone = phones.get(0).get(7);
+
+		try (StatementCounter.Scope scope = StatementCounter.open()) {
+
+			PhoneNumberDTO updated = phoneService.updatePhoneNumber(userIds.get(0), phone.getPhoneId(),
+					PhoneNumberDTO.builder().type("Cel").number(number(0, 7, 8)).build());
+
+			assertEquals(number(0, 7, 8), updated.getNumber());
+			// the phone with its owner, then the number only
+			assertEquals(2, scope.count(), scope.fingerprints().toString());
+			assertEquals(1, scope.fingerprints()
+					.get("update phones set number=?,version=? where phone_id=? and version=?"));
+		}
+
+		try (StatementCounter.Scope scope = StatementCounter.open()) {
+			phoneService.updatePhoneNumber(userIds.get(0), phone.getPhoneId(),
+					PhoneNumberDTO.builder().type("Cel").number(number(0, 7, 8)).build());
+			assertEquals(1, scope.count()); // unchanged: nothing written
+		}
+
+		assertTrue(phoneService.getPhonesByUserId(userIds.get(0)).stream()
+				.anyMatch(stored -> stored.getNumber().equals(number(0, 7, 8))));
+
+		// phone of another user
+		assertThrows(NotFoundException.class, () -> phoneService.updatePhoneNumber(userIds.get(1), phone.getPhoneId(),
+				PhoneNumberDTO.builder().type("Cel").number(number(0, 7, 9)).build()));
+		assertThrows(IllegalPhoneStateException.class, () -> phoneService.updatePhoneNumber(userIds.get(0),
+				phone.getPhoneId(), PhoneNumberDTO.builder().type("Cel").number("123").build()));
+	}
+
+	@Test
+	public void patchPhonesTest() throws NotFoundException {
+
+		List<PhoneNumberPatch> patches = new ArrayList<>();
+		for(int u = 0; u < 2; u++)
+			for(int i = 0; i < PHONES_PER_USER; i++)
+				patches.add(PhoneNumberPatch.builder()
+						.userId(userIds.get(u))
+						.phoneId(phones.get(u).get(i).getPhoneId())
+						.number(number(u, i, 8))
+						.build());
+
+		try (StatementCounter.Scope scope = StatementCounter.open()) {
+
+			List<PhoneNumberDTO> updated = phoneService.patchPhoneNumbers(patches);
+
+			assertEquals(120, updated.size());
+			assertEquals(number(1, 5, 8), updated.get(PHONES_PER_USER + 5).getNumber());
+			// one select, then the 120 updates of the number in one batch
+			assertEquals(2, scope.count(), scope.fingerprints().toString());
+			assertEquals(1, scope.fingerprints()
+					.get("update phones set number = ?, version = version + ? where phone_id = ? and version = ?"));
+		}
+
+		try (StatementCounter.Scope scope = StatementCounter.open()) {
+			phoneService.patchPhoneNumbers(List.of(PhoneNumberPatch.builder()
+					.userId(userIds.get(1))
+					.phoneId(phones.get(1).get(0).getPhoneId())
+					.type("Home")
+					.build()));
+			assertEquals(1, scope.fingerprints()
+					.get("update phones set type = ?, version = version + ? where phone_id = ? and version = ?"));
+		}
+
+		assertTrue(phoneService.getPhonesByUserId(userIds.get(1)).stream()
+				.allMatch(stored -> stored.getNumber().startsWith("(21) 98")));
+		assertEquals(1, phoneService.getPhonesByUserId(userIds.get(1)).stream()
+				.filter(stored -> stored.getType().equals("Home")).count());
+	}
+
+	@Test
+	public void failedPatchChangesNothingTest() throws NotFoundException {
+
+		PhoneNumberPatch valid = PhoneNumberPatch.builder()
+				.userId(userIds.get(0))
+				.phoneId(phones.get(0).get(0).getPhoneId())
+				.number(number(0, 0, 8))
+				.build();
+
+		// phone of another user
+		assertThrows(NotFoundException.class, () -> phoneService.patchPhoneNumbers(List.of(valid,
+				PhoneNumberPatch.builder().userId(userIds.get(0)).phoneId(phones.get(1).get(0).getPhoneId()).type("Home").build())));
+
+		// invalid number after a valid change
+		assertThrows(IllegalPhoneStateException.class, () -> phoneService.patchPhoneNumbers(List.of(valid,
+				PhoneNumberPatch.builder().userId(userIds.get(0)).phoneId(phones.get(0).get(1).getPhoneId()).number("123").build())));
+
+		assertTrue(phoneService.getPhonesByUserId(userIds.get(0)).stream()
+				.noneMatch(stored -> stored.getNumber().equals(number(0, 0, 8))));
+
+		List<PhoneNumberPatch> tooMany = new ArrayList<>();
+		for(int i = 0; i <= 1000; i++)
+			tooMany.add(valid);
+		assertThrows(IllegalArgumentException.class, () -> phoneService.patchPhoneNumbers(tooMany));
+	}
+
+	@Test
+	public void concurrentWriteFailsPatchTest() {
+
+		Long first = phones.get(0).get(0).getPhoneId();
+		Long second = phones.get(0).get(1).getPhoneId();
+
+		// as the patch: reads both phones, another transaction commits a change of the second, then writes both
+		assertThrows(OptimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+			Map<Long, VersionedPhone> read = phoneJdbcRepository.findAllWithOwnerById(List.of(first, second));
+			CompletableFuture.runAsync(() -> jdbcTemplate.update(
+					"update phones set type = 'Work', version = version + 1 where phone_id = ?", second)).join();
+			phoneJdbcRepository.updateChangedColumns(List.of(
+					new VersionedPhone(PhoneNumberDTO.builder().phoneId(first).number(number(0, 0, 8)).build(),
+							read.get(first).version()),
+					new VersionedPhone(PhoneNumberDTO.builder().phoneId(second).number(number(0, 1, 8)).build(),
+							read.get(second).version())));
+		}));
+
+		// the update of the first phone is rolled back, the concurrent write is not lost
+		Map<Long, VersionedPhone> stored = phoneJdbcRepository.findAllWithOwnerById(List.of(first, second));
+		assertEquals(phones.get(0).get(0).getNumber(), stored.get(first).phone().getNumber());
+		assertEquals(phones.get(0).get(1).getNumber(), stored.get(second).phone().getNumber());
+		assertEquals("Work", stored.get(second).phone().getType());
+	}
+
+	// valid and distinct numbers, (21) 99... or (21) 98...
+	private static String number(int user, int phone, int prefix) {
+		return String.format("(21) 9%d%03d-%04d", prefix, user, phone);
+	}
+}
@@ -0,0 +1,271 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+import com.venturasistemoj.restapi.routing.ReadYourWritesFilter;
+import com.venturasistemoj.restapi.routing.ReplicaHealthCheck;
+import com.venturasistemoj.restapi.routing.ReplicaRoutingDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+
+/**
+ * <h2>Integration tests for the routing of read-only transactions to replicas.</h2>
+ *
+ * <p>Two H2 in-memory databases stand for the replicas: <code>replica</code>, refreshed from the primary by
+ * <code>replicate</code>, so a write not yet replicated is missing from it as from a lagging replica, and
+ * <code>unreachable</code>, which does not exist until a test creates it.</p>
+ * <p>Checks that the read-only transactions read the replica and the writes the primary, that a client reads its own
+ * writes within the read-your-writes window, that a failing replica is ejected and reinstated once it recovers, and
+ * the routing metrics.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest(properties = {
+		"rest-api.datasource.replicas[0].name=replica",
+		"rest-api.datasource.replicas[0].url=" + ReplicaRoutingTests.REPLICA + ";IFEXISTS=TRUE",
+		"rest-api.datasource.replicas[0].username=sa",
+		"rest-api.datasource.replicas[0].connection-timeout=PT0.25S",
+		"rest-api.datasource.replicas[1].name=unreachable",
+		"rest-api.datasource.replicas[1].url=" + ReplicaRoutingTests.UNREACHABLE + ";IFEXISTS=TRUE",
+		"rest-api.datasource.replicas[1].username=sa",
+		"rest-api.datasource.replicas[1].connection-timeout=PT0.25S",
+		"rest-api.datasource.health-check-interval=PT1H",
+		"rest-api.datasource.read-your-writes-window=PT1M" })
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+	static final String REPLICA = "jdbc:h2:mem:replica";
+	static final String UNREACHABLE = "jdbc:h2:mem:unreachable";
+
+	// kept open by DB_CLOSE_DELAY until the JVM exits, like a replica outliving the application
+	static {
+		try (Connection connection = DriverManager.getConnection(REPLICA + ";DB_CLOSE_DELAY=-1", "sa", "")) {
+			// created
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Autowired private MockMvc mockMvc;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private UserService userService;
+	@Autowired private DataSource dataSource;
+	@Autowired private ReplicaHealthCheck healthCheck;
+	@Autowired private MeterRegistry meterRegistry;
+
+	private final List<Long> userIds = new ArrayList<>();
+
+	@BeforeEach
+	public void beforeTestMethods() throws Exception {
+		replicate(REPLICA);
+		assertEquals(1, healthCheck.check()); // unreachable ejected
+	}
+
+	@AfterEach
+	public void afterTestMethods() throws NotFoundException {
+		for(Long userId : userIds)
+			userService.deleteUser(userId);
+	}
+
+	@Test
+	public void readOnlyTransactionsReadTheReplicaTest() throws Exception {
+
+		createUser("Lagging");
+
+		// the write went to the primary, the replica has not caught up yet
+		assertFalse(names().contains("Lagging"));
+
+		replicate(REPLICA);
+		assertTrue(names().contains("Lagging"));
+	}
+
+	@Test
+	public void readYourWritesTest() throws Exception {
+
+		MockHttpServletResponse created = mockMvc.perform(post("/rest-api/users")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(user("Writer"))))
+				.andExpect(status().isCreated())
+				.andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+				.andExpect(cookie().httpOnly(ReadYourWritesFilter.COOKIE, true))
+				.andReturn().getResponse();
+		userIds.add(objectMapper.readValue(created.getContentAsString(StandardCharsets.UTF_8), UserDTO.class).getUserId());
+
+		Cookie pinned = created.getCookie(ReadYourWritesFilter.COOKIE);
+		assertTrue(Long.parseLong(pinned.getValue()) > System.currentTimeMillis());
+
+		// the writer reads the primary within its window, other clients read the replica
+		assertTrue(names(get("/rest-api/users").cookie(pinned)).contains("Writer"));
+		assertFalse(names(get("/rest-api/users")).contains("Writer"));
+
+		Cookie expired = new Cookie(ReadYourWritesFilter.COOKIE, Long.toString(System.currentTimeMillis() - 1));
+		assertFalse(names(get("/rest-api/users").cookie(expired)).contains("Writer"));
+
+		// reads do not pin
+		mockMvc.perform(get("/rest-api/users")).andExpect(cookie().doesNotExist(ReadYourWritesFilter.COOKIE));
+	}
+
+	@Test
+	public void ejectionAndReinstatementTest() throws Exception {
+
+		createUser("Recovered");
+		replicate(REPLICA);
+		assertTrue(names().contains("Recovered"));
+
+		// the replica comes up, with the writes of the primary
+		try (Connection unreachable = DriverManager.getConnection(UNREACHABLE + ";DB_CLOSE_DELAY=-1", "sa", "")) {
+
+			replicate(UNREACHABLE);
+			assertEquals(2, check(2)); // once its pool has connected again
+			assertTrue(dataSource.unwrap(ReplicaRoutingDataSource.class).isAvailable("unreachable"));
+
+			for(int i = 0; i < 4; i++)
+				assertTrue(names().contains("Recovered")); // from either replica
+
+			// and goes down again
+			try (Statement statement = unreachable.createStatement()) {
+				statement.execute("SHUTDOWN");
+			}
+		}
+
+		assertEquals(1, check(1));
+		assertFalse(dataSource.unwrap(ReplicaRoutingDataSource.class).isAvailable("unreachable"));
+		assertTrue(names().contains("Recovered"));
+	}
+
+	@Test
+	public void metricsTest() throws Exception {
+
+		createUser("Metrics");
+		names();
+
+		assertTrue(meterRegistry.get(ReplicaRoutingDataSource.CONNECTIONS)
+				.tags("datasource", "replica", "access", "read").counter().count() > 0);
+		assertTrue(meterRegistry.get(ReplicaRoutingDataSource.CONNECTIONS)
+				.tags("datasource", ReplicaRoutingDataSource.PRIMARY, "access", "write").counter().count() > 0);
+
+		assertEquals(1, meterRegistry.get(ReplicaRoutingDataSource.AVAILABLE).tag("datasource", "replica").gauge().value());
+		assertEquals(0, meterRegistry.get(ReplicaRoutingDataSource.AVAILABLE).tag("datasource", "unreachable").gauge().value());
+		assertTrue(meterRegistry.get(ReplicaRoutingDataSource.EJECTIONS).tag("datasource", "unreachable").counter().count() > 0);
+
+		// the pool of each replica
+		assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "replica").gauge());
+	}
+
+	// runs the health check as the scheduled job would, until it finds the expected replicas or for 10 seconds
+	private int check(int expected) throws InterruptedException {
+
+		long deadline = System.currentTimeMillis() + 10_000;
+		int available = healthCheck.check();
+		while(available != expected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+			available = healthCheck.check();
+		}
+		return available;
+	}
+
+	private Long createUser(String name) throws Exception {
+		Long userId = userService.createUser(user(name)).getUserId();
+		userIds.add(userId);
+		return userId;
+	}
+
+	// the names of the users read by a read-only transaction
+	private Set<String> names() {
+		try {
+			return userService.getUsers().stream().map(UserDTO::getName).collect(Collectors.toSet());
+		} catch (NotFoundException e) {
+			return Set.of();
+		}
+	}
+
+	private Set<String> names(MockHttpServletRequestBuilder request) throws Exception {
+
+		MockHttpServletResponse response = mockMvc.perform(request).andReturn().getResponse();
+		if(response.getStatus() == 404)
+			return Set.of();
+
+		return Arrays.stream(objectMapper.readValue(response.getContentAsString(StandardCharsets.UTF_8), UserDTO[].class))
+				.map(UserDTO::getName).collect(Collectors.toSet());
+	}
+
+	// copies the primary into the replica, as the replication would
+	private void replicate(String replica) throws SQLException {
+
+		Path script;
+		try {
+			script = Files.createTempFile("replica", ".sql");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		try (Connection primary = dataSource.getConnection(); Statement statement = primary.createStatement()) {
+			statement.execute("SCRIPT TO '" + script + "'");
+		}
+
+		try (Connection connection = DriverManager.getConnection(replica, "sa", "");
+				Statement statement = connection.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+			statement.execute("RUNSCRIPT FROM '" + script + "'");
+		} finally {
+			script.toFile().delete();
+		}
+	}
+
+	private int sequence = 0;
+
+	private UserDTO user(String name) {
+		sequence++;
+		return UserDTO.builder()
+				.name(name)
+				.surName("Replica")
+				.birthDate(LocalDate.of(1981, Month.MAY, 5))
+				.cpf(Cpfs.withCheckDigits(777_777_700 + sequence))
+				.email("replica" + sequence + "@prov.com")
+				.build();
+	}
+}
@@ -36,6 +36,7 @@ import com.venturasistemoj.restapi.exceptions.IllegalAddressStateException;
 import com.venturasistemoj.restapi.exceptions.IllegalOperationException;
 import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
 import com.venturasistemoj.restapi.exceptions.IllegalUserStateException;
+import com.venturasistemoj.restapi.statements.RequestStatementLog;
 
 /**
  * <h2>Class of integration tests for managing <code>user</code>, <code>addresses</code> and <code>phones</code> RESTful APIs.</h2>
@@ -98,6 +99,9 @@ class SpringRestApiTests {
 	@Autowired private AddressService addressService;
 	@Autowired private PhoneService phoneService;
 
+	// SQL statements of the last request of each route.
+	@Autowired private RequestStatementLog statementLog;
+
 	private UserDTO userTest;
 	private AddressDTO addressTest;
 	private PhoneNumberDTO phoneTest;
@@ -114,7 +118,7 @@ class SpringRestApiTests {
 				.name("Luiz Inacio")
 				.surName("da Silva")
 				.birthDate(LocalDate.of(1972, Month.FEBRUARY, 22))
-				.cpf("123.456.789-10")
+				.cpf("123.456.789-09")
 				.email("lula@prov.com")
 				.build();
 
@@ -149,7 +153,8 @@ class SpringRestApiTests {
 
 	/**
 	 * Sends a POST request to the user's API URL with the user in the request body.
-	 * Checks response status and returned user data with helper method.
+	 * Checks response status and returned user data with helper method, and the SQL statements of the request:
+	 * CPF and identity checks, sequence and insert (the id of the test user is discarded).
 	 * @throws NotFoundException
 	 * @throws <code>IllegalUserStateException</code>
 	 * @throws <code>IllegalArgumentException</code>
@@ -158,11 +163,13 @@ class SpringRestApiTests {
 	@Order(1)
 	public void createUserTest() throws IllegalUserStateException, IllegalArgumentException, NotFoundException {
 
+		statementLog.clear();
 		ResponseEntity<UserDTO> response = restTemplate.postForEntity(USERS_API_URL, userTest, UserDTO.class);
 
 		assertEquals(HttpStatus.CREATED, response.getStatusCode());
 		assertNotNull(response.getBody().getUserId());
 		assertUser(response);
+		assertEquals(4, statementLog.await("POST " + USERS_API_URL).count());
 	}
 
 	/**
@@ -314,7 +321,7 @@ class SpringRestApiTests {
 				.name("Dilma")
 				.surName("Rousseff")
 				.birthDate(LocalDate.of(1956, Month.OCTOBER, 26))
-				.cpf("789.456.123-10")
+				.cpf("789.456.123-19")
 				.email("dilmae@prov.com")
 				.build();
 
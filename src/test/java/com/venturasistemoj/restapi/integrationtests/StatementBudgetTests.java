@@ -0,0 +1,186 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Fixtures;
+import com.venturasistemoj.restapi.statements.RequestStatementLog;
+import com.venturasistemoj.restapi.statements.RequestStatements;
+import com.venturasistemoj.restapi.statements.StatementBudgetFilter;
+import com.venturasistemoj.restapi.statements.StatementCounter;
+import com.venturasistemoj.restapi.statements.StatementCountingAspect;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * <h2>Integration tests for the SQL statement budgets.</h2>
+ *
+ * <p>Calls each endpoint through <code>MockMvc</code> and asserts its exact number of statements with the
+ * <code>RequestStatementLog</code>, so an N+1 regression fails here before reaching production. Also checks the
+ * warning and the counter of a request over the budget of its route, and the <code>StatementCounter</code> scopes
+ * around service calls.</p>
+ *
+ * <p>The endpoint test runs first: the first insert of each entity also fetches its pooled sequence.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest(properties = "rest-api.statements.budgets[GET\\ /rest-api/users/{userId}]=0")
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class StatementBudgetTests {
+
+	private static final String USER_ROUTE = "GET /rest-api/users/{userId}";
+
+	@Autowired private MockMvc mockMvc;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private RequestStatementLog statementLog;
+	@Autowired private MeterRegistry meterRegistry;
+	@Autowired private UserService userService;
+	@Autowired private DtoCache<Long, UserDTO> userCache;
+
+	@Test
+	@Order(1)
+	public void endpointStatementsTest() throws Exception {
+
+		UserDTO user = Fixtures.user("Budget1");
+
+		// sequence, CPF and identity checks, insert
+		String created = perform("POST /rest-api/users", 4, status().isCreated(), post("/rest-api/users")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(user)));
+		Long userId = objectMapper.readValue(created, UserDTO.class).getUserId();
+
+		// user with address, sequence, insert
+		perform("POST /rest-api/adresses/{userId}", 3, status().isCreated(), post("/rest-api/adresses/{userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(Fixtures.address("Niterói", "RJ"))));
+
+		perform("POST /rest-api/phones/{userId}", 3, status().isCreated(), post("/rest-api/phones/{userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(Fixtures.phone("Cel", "(21) 96687-8776"))));
+
+		// children with their user by foreign key in a single query, tagged by their versions
+		perform("GET /rest-api/adresses/{userId}", 1, status().isOk(), get("/rest-api/adresses/{userId}", userId));
+		perform("GET /rest-api/phones/{userId}", 1, status().isOk(), get("/rest-api/phones/{userId}", userId));
+		perform("GET /rest-api/adresses/{userId}", 1, status().isNotFound(), get("/rest-api/adresses/{userId}", userId + 1000));
+		perform("GET /rest-api/phones/{userId}", 1, status().isNotFound(), get("/rest-api/phones/{userId}", userId + 1000));
+
+		// user, address and phones in a single query, tagged by their versions, then from the cache
+		RequestStatements miss = statements(USER_ROUTE, 1, status().isOk(), get("/rest-api/users/{userId}", userId));
+		assertEquals(1, miss.fingerprints().size());
+		assertTrue(miss.fingerprints().keySet().stream().allMatch(sql -> sql.contains("left join phones")));
+		perform(USER_ROUTE, 0, status().isOk(), get("/rest-api/users/{userId}", userId));
+
+		// page of ids, then the page with address and phones
+		RequestStatements page = statements("GET /rest-api/users", 2, status().isOk(), get("/rest-api/users").param("limit", "10"));
+		assertTrue(page.fingerprints().keySet().stream().anyMatch(sql -> sql.contains("in (?)")));
+		perform("GET /rest-api/users", 1, status().isOk(), get("/rest-api/users"));
+
+		// served from the in-memory counters
+		perform("GET /rest-api/aggregates", 0, status().isOk(), get("/rest-api/aggregates"));
+
+		user.setName("Renamed");
+		perform("PUT /rest-api/users/{userId}", 5, status().isOk(), put("/rest-api/users/{userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(user)));
+
+		// user, phones, then one delete of each table
+		perform("DELETE /rest-api/users/{userId}", 5, status().isNoContent(), delete("/rest-api/users/{userId}", userId));
+		perform(USER_ROUTE, 1, status().isNotFound(), get("/rest-api/users/{userId}", userId));
+	}
+
+	@Test
+	@Order(2)
+	public void budgetExceededTest(CapturedOutput output) throws Exception {
+
+		Long userId = userService.createUser(Fixtures.user("Budget2")).getUserId();
+		userCache.invalidateAll();
+		double exceeded = exceededCount();
+
+		perform(USER_ROUTE, 1, status().isOk(), get("/rest-api/users/{userId}", userId)); // budget 0
+		perform(USER_ROUTE, 0, status().isOk(), get("/rest-api/users/{userId}", userId)); // cached, within budget
+
+		userService.deleteUser(userId);
+
+		assertEquals(exceeded + 1, exceededCount());
+		assertTrue(output.getOut().contains("Statement budget exceeded by " + USER_ROUTE + ": 1 statements, budget 0"));
+		assertTrue(output.getOut().contains("from users u1_0 left join adresses"));
+		assertEquals(1, meterRegistry.find(StatementBudgetFilter.REQUEST_STATEMENTS).tag("route", USER_ROUTE)
+				.summary().max());
+	}
+
+	@Test
+	@Order(3)
+	public void serviceScopeTest() throws Exception {
+
+		Long userId = userService.createUser(Fixtures.user("Budget3")).getUserId();
+		userCache.invalidateAll();
+
+		try (StatementCounter.Scope outer = StatementCounter.open()) {
+
+			try (StatementCounter.Scope inner = StatementCounter.open()) {
+				userService.getUserById(userId);
+				assertEquals(1, inner.count());
+			}
+
+			userService.getUserById(userId); // cached
+			userService.deleteUser(userId);
+
+			assertEquals(4, outer.count()); // 1 + the delete of a user without address and phones: user, phones, delete
+		}
+
+		assertTrue(meterRegistry.find(StatementCountingAspect.SERVICE_STATEMENTS)
+				.tag("method", "getUserById")
+				.summary().count() >= 2);
+	}
+
+	private String perform(String route, int expectedStatements, ResultMatcher expectedStatus, RequestBuilder request)
+			throws Exception {
+
+		statementLog.clear();
+		String body = mockMvc.perform(request).andExpect(expectedStatus).andReturn().getResponse().getContentAsString();
+
+		RequestStatements statements = statementLog.await(route);
+		assertEquals(expectedStatements, statements.count(), statements.toString());
+		return body;
+	}
+
+	private RequestStatements statements(String route, int expectedStatements, ResultMatcher expectedStatus,
+			RequestBuilder request) throws Exception {
+		perform(route, expectedStatements, expectedStatus, request);
+		return statementLog.await(route);
+	}
+
+	private double exceededCount() {
+		Counter counter = meterRegistry.find(StatementBudgetFilter.BUDGET_EXCEEDED).tag("route", USER_ROUTE).counter();
+		return counter == null ? 0 : counter.count();
+	}
+}
@@ -0,0 +1,198 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.aggregates.AggregateCounters;
+import com.venturasistemoj.restapi.aggregates.Aggregates;
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneService;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserRepository;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Fixtures;
+import com.venturasistemoj.restapi.statements.RequestStatementLog;
+import com.venturasistemoj.restapi.statements.RequestStatements;
+
+/**
+ * <h2>Integration tests for the creation and replacement of a user with its address and phones.</h2>
+ *
+ * <p>Checks through <code>MockMvc</code> that the whole aggregate is written in one request and one transaction, with
+ * the inserts batched per table (counted with the <code>RequestStatementLog</code>), that an invalid part leaves
+ * nothing written, and that a replacement keeps the phones it matches and removes the ones not sent.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserAggregateTests {
+
+	@Autowired private MockMvc mockMvc;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private RequestStatementLog statementLog;
+	@Autowired private UserService userService;
+	@Autowired private PhoneService phoneService;
+	@Autowired private UserRepository userRepository;
+	@Autowired private AggregateCounters aggregateCounters;
+
+	private final String cpf = Fixtures.cpf();
+	private Long userId;
+
+	@AfterEach
+	public void afterTestMethods() throws Exception {
+		if(userId != null)
+			userService.deleteUser(userId);
+	}
+
+	@Test
+	public void createTest() throws Exception {
+
+		Aggregates before = aggregateCounters.snapshot();
+
+		statementLog.clear();
+		UserDTO created = write(post("/rest-api/users/aggregate"), user("Aggregate", address("Niterói"),
+				phone(null, "Cel", "(21) 96687-8701"),
+				phone(null, "Cel", "(21) 96687-8702"),
+				phone(null, "Home", "(21) 2687-8703")), status().isCreated());
+		userId = created.getUserId();
+
+		// 2 BR2 checks and 3 batched inserts, whatever the number of phones, plus the pooled sequences due
+		RequestStatements statements = statementLog.await("POST /rest-api/users/aggregate");
+		assertEquals(5, statements.fingerprints().entrySet().stream()
+				.filter(execution -> ! execution.getKey().startsWith("select next value"))
+				.mapToInt(Map.Entry::getValue).sum(), statements.toString());
+		assertEquals(3, statements.fingerprints().entrySet().stream()
+				.filter(execution -> execution.getKey().startsWith("insert"))
+				.mapToInt(Map.Entry::getValue).sum(), statements.toString());
+
+		assertNotNull(created.getAddressDTO().getAddressId());
+		assertEquals(3, created.getPhonesDTO().size());
+		created.getPhonesDTO().forEach(phone -> assertNotNull(phone.getPhoneId()));
+
+		UserDTO read = userService.getUserById(userId);
+		assertEquals("Niterói", read.getAddressDTO().getCity());
+		assertEquals(numbers(created), numbers(read));
+
+		Aggregates after = aggregateCounters.snapshot();
+		assertEquals(before.getUsers() + 1, after.getUsers());
+		assertEquals(before.getPhonesByType().getOrDefault("Cel", 0L) + 2, after.getPhonesByType().get("Cel"));
+	}
+
+	@Test
+	public void invalidPartTest() throws Exception {
+
+		write(post("/rest-api/users/aggregate"), user("Invalid", address("Niterói"),
+				phone(null, "Cel", "(21) 96687-8701"),
+				phone(null, "Cel", "not a number")), status().isBadRequest());
+
+		UserDTO noZipCode = user("Invalid", address("Niterói"));
+		noZipCode.getAddressDTO().setZipCode(null);
+		write(post("/rest-api/users/aggregate"), noZipCode, status().isBadRequest());
+
+		// nothing written
+		assertNull(userRepository.findByCpf(cpf));
+	}
+
+	@Test
+	public void replaceTest() throws Exception {
+
+		UserDTO created = write(post("/rest-api/users/aggregate"), user("Aggregate", address("Niterói"),
+				phone(null, "Cel", "(21) 96687-8701"),
+				phone(null, "Cel", "(21) 96687-8702"),
+				phone(null, "Home", "(21) 2687-8703")), status().isCreated());
+		userId = created.getUserId();
+
+		Map<String, Long> phoneIds = created.getPhonesDTO().stream()
+				.collect(Collectors.toMap(PhoneNumberDTO::getNumber, PhoneNumberDTO::getPhoneId));
+		String tag = mockMvc.perform(get("/rest-api/users/{userId}", userId))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		UserDTO replaced = write(put("/rest-api/users/{userId}/aggregate", userId).header(HttpHeaders.IF_MATCH, tag),
+				user("Replaced", address("Maricá"),
+						phone(phoneIds.get("(21) 96687-8701"), "Work", "(21) 96687-8711"), // by id, new number
+						phone(null, "Cel", "(21) 96687-8702"), // by number
+						phone(null, "Cel", "(21) 96687-8704")), // new, and the third one removed
+				status().isOk());
+
+		assertEquals("Replaced", replaced.getName());
+		assertEquals(created.getAddressDTO().getAddressId(), replaced.getAddressDTO().getAddressId());
+		assertEquals("Maricá", replaced.getAddressDTO().getCity());
+
+		Map<String, PhoneNumberDTO> phones = userService.getUserById(userId).getPhonesDTO().stream()
+				.collect(Collectors.toMap(PhoneNumberDTO::getNumber, phone -> phone));
+		assertEquals(Set.of("(21) 96687-8711", "(21) 96687-8702", "(21) 96687-8704"), phones.keySet());
+		assertEquals(phoneIds.get("(21) 96687-8701"), phones.get("(21) 96687-8711").getPhoneId());
+		assertEquals("Work", phones.get("(21) 96687-8711").getType());
+		assertEquals(phoneIds.get("(21) 96687-8702"), phones.get("(21) 96687-8702").getPhoneId());
+
+		// the tag read before the replacement is stale
+		write(put("/rest-api/users/{userId}/aggregate", userId).header(HttpHeaders.IF_MATCH, tag),
+				user("Stale", null), status().isPreconditionFailed());
+
+		// no address and no phones sent: both removed
+		UserDTO bare = write(put("/rest-api/users/{userId}/aggregate", userId), user("Bare", null), status().isOk());
+		assertNull(bare.getAddressDTO());
+		assertThrows(NotFoundException.class, () -> phoneService.getPhonesByUserId(userId));
+		assertNull(userService.getUserById(userId).getAddressDTO());
+
+		write(put("/rest-api/users/{userId}/aggregate", -1L), user("Nobody", null), status().isNotFound());
+	}
+
+	private UserDTO write(MockHttpServletRequestBuilder request, UserDTO body, ResultMatcher expectedStatus)
+			throws Exception {
+
+		String response = mockMvc.perform(request
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(body)))
+				.andExpect(expectedStatus).andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+		return response.startsWith("{") ? objectMapper.readValue(response, UserDTO.class) : null;
+	}
+
+	private static Set<String> numbers(UserDTO user) {
+		return user.getPhonesDTO().stream().map(PhoneNumberDTO::getNumber).collect(Collectors.toSet());
+	}
+
+	private UserDTO user(String name, AddressDTO address, PhoneNumberDTO... phones) {
+		UserDTO user = Fixtures.user(name, cpf);
+		user.setAddressDTO(address);
+		user.setPhonesDTO(phones.length == 0 ? null : Set.of(phones));
+		return user;
+	}
+
+	private static AddressDTO address(String city) {
+		return Fixtures.address(city, "RJ");
+	}
+
+	private static PhoneNumberDTO phone(Long phoneId, String type, String number) {
+		PhoneNumberDTO phone = Fixtures.phone(type, number);
+		phone.setPhoneId(phoneId);
+		return phone;
+	}
+}
@@ -0,0 +1,240 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.domain.user.BulkImportReport.Status;
+import com.venturasistemoj.restapi.domain.user.BulkImportReport;
+import com.venturasistemoj.restapi.domain.user.UserBulkService;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Fixtures;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * <h2>Integration tests for the bulk user import.</h2>
+ *
+ * <p>Imports JSON arrays through <code>UserBulkService</code> with a small chunk size and checks the per-row report,
+ * the rejection of invalid and duplicated rows, the rollback of a chunk refused by the database, the report of the rows
+ * imported before a JSON error, and that inserts are sent to the database as JDBC batches.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"rest-api.users.bulk.chunk-size=50" })
+@Transactional
+class UserBulkImportTests {
+
+	@Autowired private UserBulkService userBulkService;
+	@Autowired private UserService userService;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	private final Map<Integer, String> cpfs = new HashMap<>();
+
+	@BeforeEach
+	public void beforeTestMethods() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	public void importReportTest() throws IOException, NotFoundException {
+
+		UserDTO registered = user(0);
+		registered.setAddressDTO(null);
+		registered.setPhonesDTO(null);
+		userService.createUser(registered);
+
+		List<Object> rows = new ArrayList<>();
+		rows.add(user(1));
+		rows.add(user(0)); // registered user
+		rows.add(user(1)); // duplicated in the list
+		rows.add(Map.of("name", "Broken", "birthDate", "not a date")); // unreadable
+		UserDTO invalidCpf = user(2);
+		invalidCpf.setCpf("123");
+		rows.add(invalidCpf);
+		rows.add(user(3));
+
+		BulkImportReport report = importUsers(rows);
+
+		assertEquals(6, report.getReceived());
+		assertEquals(2, report.getCreated());
+		assertEquals(4, report.getRejected());
+
+		List<Status> statuses = report.getRows().stream().map(BulkImportReport.Row::getStatus).toList();
+		assertEquals(List.of(Status.CREATED, Status.REJECTED, Status.REJECTED, Status.REJECTED, Status.REJECTED,
+				Status.CREATED), statuses);
+
+		Long userId = report.getRows().get(0).getUserId();
+		UserDTO imported = userService.getUserById(userId);
+		assertEquals("Name1", imported.getName());
+		assertEquals("RJ", imported.getAddressDTO().getState());
+		assertEquals(2, imported.getPhonesDTO().size());
+		assertTrue(report.getRows().get(4).getMessage().contains("cpf"));
+	}
+
+	@Test
+	public void rejectedRowKeysTest() throws IOException {
+
+		UserDTO sameCpf = user(21);
+		sameCpf.setCpf(user(20).getCpf());
+
+		List<Object> rows = new ArrayList<>();
+		rows.add(user(20));
+		rows.add(sameCpf); // duplicated CPF, its person not kept
+		rows.add(user(21)); // same person as the rejected row only
+
+		BulkImportReport report = importUsers(rows);
+
+		List<Status> statuses = report.getRows().stream().map(BulkImportReport.Row::getStatus).toList();
+		assertEquals(List.of(Status.CREATED, Status.REJECTED, Status.CREATED), statuses);
+	}
+
+	@Test
+	public void duplicateInLaterChunkTest() throws IOException {
+
+		List<Object> rows = new ArrayList<>();
+		for(int i = 400; i < 450; i++)
+			rows.add(user(i));
+		rows.add(user(400)); // second chunk, created by the first
+		UserDTO samePerson = user(401);
+		samePerson.setCpf(user(450).getCpf());
+		rows.add(samePerson); // second chunk, same person as a user of the first with another CPF
+
+		BulkImportReport report = importUsers(rows);
+
+		assertEquals(50, report.getCreated());
+		assertEquals("Duplicated user in the imported list!", report.getRows().get(50).getMessage());
+		assertEquals("Duplicated user in the imported list!", report.getRows().get(51).getMessage());
+	}
+
+	// not transactional: each chunk commits or rolls back on its own
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void chunkRolledBackTest() throws IOException, NotFoundException {
+
+		List<Object> rows = new ArrayList<>();
+		for(int i = 200; i < 251; i++)
+			rows.add(user(i));
+
+		UserDTO tooLong = user(200);
+		tooLong.setName("N".repeat(300)); // valid, but longer than the name column
+		rows.set(0, tooLong);
+
+		BulkImportReport report = importUsers(rows);
+
+		// the first chunk of 50 rolled back whole, the import went on with the second
+		assertEquals(51, report.getReceived());
+		assertEquals(1, report.getCreated());
+		for(int i = 0; i < 50; i++) {
+			assertEquals(Status.REJECTED, report.getRows().get(i).getStatus());
+			assertTrue(report.getRows().get(i).getMessage().startsWith("Chunk rolled back: "),
+					report.getRows().get(i).getMessage());
+		}
+
+		BulkImportReport.Row created = report.getRows().get(50);
+		assertEquals(Status.CREATED, created.getStatus());
+		assertEquals("Name250", userService.getUserById(created.getUserId()).getName());
+
+		userService.deleteUser(created.getUserId());
+	}
+
+	@Test
+	public void brokenJsonReportTest() throws IOException {
+
+		List<Object> rows = new ArrayList<>();
+		for(int i = 300; i < 355; i++)
+			rows.add(user(i));
+
+		// a second chunk of 5 rows, then a broken row
+		String json = objectMapper.writeValueAsString(rows);
+		json = json.substring(0, json.length() - 1) + ",{\"name\": broken}]";
+
+		BulkImportReport report = userBulkService.importUsers(
+				new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(55, report.getReceived());
+		assertEquals(55, report.getCreated());
+
+		BulkImportReport.Failure failure = report.getFailure();
+		assertNotNull(failure);
+		assertEquals(55, failure.getIndex());
+		assertEquals(1, failure.getLine());
+		// the position is in bytes, at the end of the unrecognized token
+		int brokenRow = json.substring(0, json.indexOf("broken")).getBytes(StandardCharsets.UTF_8).length;
+		assertTrue(failure.getColumn() > brokenRow, failure.getMessage());
+	}
+
+	@Test
+	public void importBatchesInsertsTest() throws IOException {
+
+		List<Object> rows = new ArrayList<>();
+		for(int i = 10; i < 130; i++)
+			rows.add(user(i));
+
+		statistics.clear();
+		BulkImportReport report = importUsers(rows);
+
+		assertEquals(120, report.getCreated());
+		// 120 users, adresses and 240 phones: without batching, at least one statement per row
+		assertTrue(statistics.getPrepareStatementCount() < 60, "statements: " + statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	public void notAnArrayTest() throws IOException {
+
+		assertThrows(IllegalArgumentException.class, () -> userBulkService.importUsers(
+				new ByteArrayInputStream("{\"name\":\"x\"}".getBytes(StandardCharsets.UTF_8))));
+		assertThrows(JsonProcessingException.class, () -> userBulkService.importUsers(
+				new ByteArrayInputStream("name".getBytes(StandardCharsets.UTF_8))));
+
+		BulkImportReport truncated = userBulkService.importUsers(
+				new ByteArrayInputStream("[{\"name\":\"x\"}".getBytes(StandardCharsets.UTF_8)));
+		assertEquals(1, truncated.getRejected());
+		assertEquals(1, truncated.getFailure().getIndex());
+	}
+
+	private BulkImportReport importUsers(List<Object> rows) throws IOException {
+		byte[] json = objectMapper.writeValueAsBytes(rows);
+		BulkImportReport report = userBulkService.importUsers(new ByteArrayInputStream(json));
+		assertNotNull(report);
+		return report;
+	}
+
+	// the same row index is the same user, with its CPF, within a test
+	private UserDTO user(int i) {
+
+		UserDTO user = Fixtures.user("Name" + i, cpfs.computeIfAbsent(i, index -> Fixtures.cpf()));
+		user.setAddressDTO(Fixtures.address("Niterói", "RJ"));
+		user.setPhonesDTO(Set.of(Fixtures.phone("Cel", "(21) 96687-8776"), Fixtures.phone("Home", "(21) 2687-8776")));
+		return user;
+	}
+}
@@ -0,0 +1,133 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.venturasistemoj.restapi.domain.user.User;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserRepository;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.exceptions.IllegalUserStateException;
+import com.venturasistemoj.restapi.fixtures.Fixtures;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * <h2>Integration tests for the BR2 identity-conflict checks of <code>UserServiceImpl</code>.</h2>
+ *
+ * <p>Besides the business rule itself, asserts that creating a user does not load any existing <code>User</code>
+ * entity and issues the same number of statements whether the table holds a handful or hundreds of rows, i.e. the
+ * conflict detection is served by indexed lookups instead of a full table scan.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class UserConflictCheckTests {
+
+	@Autowired private UserService userService;
+	@Autowired private UserRepository userRepository;
+	@Autowired private EntityManager entityManager;
+	@Autowired private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	public void beforeTestMethods() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	public void samePersonWithDifferentCpfTest() {
+
+		userService.createUser(user("Luiz Inacio", "da Silva", "123.456.789-09", "lula@prov.com"));
+
+		UserDTO samePerson = user(" LUIZ INACIO", "da Silva", "109.876.543-57", "lula@prov.com");
+
+		assertThrows(IllegalArgumentException.class, () -> userService.createUser(samePerson));
+	}
+
+	@Test
+	public void differentPersonWithSameCpfTest() {
+
+		userService.createUser(user("Luiz Inacio", "da Silva", "123.456.789-09", "lula@prov.com"));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> userService.createUser(user("Dilma", "Rousseff", "123.456.789-09", "dilma@prov.com")));
+	}
+
+	@Test
+	public void updateKeepsOwnCpfTest() throws Exception {
+
+		UserDTO saved = userService.createUser(user("Luiz Inacio", "da Silva", "123.456.789-09", "lula@prov.com"));
+		UserDTO other = userService.createUser(user("Dilma", "Rousseff", "789.456.123-19", "dilma@prov.com"));
+
+		// same user fixing a typo in the e-mail keeps its CPF
+		UserDTO updated = userService.updateUser(saved.getUserId(),
+				user("Luiz Inacio", "da Silva", "123.456.789-09", "lula@prov.com.br"));
+		assertEquals("lula@prov.com.br", updated.getEmail());
+
+		// another person taking over the updated user's identity is rejected
+		assertThrows(IllegalUserStateException.class, () -> userService.updateUser(other.getUserId(),
+				user("Luiz Inacio", "da Silva", "789.456.123-19", "lula@prov.com.br")));
+	}
+
+	@Test
+	public void createCostDoesNotGrowWithTableTest() {
+
+		long smallTableStatements = createAndCountStatements(10, 0);
+		long largeTableStatements = createAndCountStatements(500, 1);
+
+		assertEquals(smallTableStatements, largeTableStatements);
+	}
+
+	// seeds the table and counts statements and loaded entities of a single createUser call
+	private long createAndCountStatements(int rows, int round) {
+
+		List<User> seed = new ArrayList<>(rows);
+		for(int i = 0; i < rows; i++) {
+			User user = new User();
+			user.setName("Name" + round + "-" + i);
+			user.setSurName("Surname");
+			user.setBirthDate(LocalDate.of(1980, Month.JANUARY, 1).plusDays(i));
+			user.setCpf(Fixtures.cpf());
+			user.setEmail("user" + round + "-" + i + "@prov.com");
+			seed.add(user);
+		}
+		userRepository.saveAll(seed);
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics.clear();
+		userService.createUser(user("Probe", "User" + round, Fixtures.cpf(), "probe" + round + "@prov.com"));
+		entityManager.flush();
+
+		assertEquals(0, statistics.getEntityLoadCount());
+		return statistics.getPrepareStatementCount();
+	}
+
+	private static UserDTO user(String name, String surName, String cpf, String email) {
+		return UserDTO.builder()
+				.name(name)
+				.surName(surName)
+				.birthDate(LocalDate.of(1972, Month.FEBRUARY, 22))
+				.cpf(cpf)
+				.email(email)
+				.build();
+	}
+}
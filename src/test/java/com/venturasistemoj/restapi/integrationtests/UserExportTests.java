@@ -0,0 +1,100 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Month;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.address.AddressService;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneService;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * <h2>Integration tests for the NDJSON export of users.</h2>
+ *
+ * <p>Checks that each user is written exactly once, on its own line, with its address and phones, and that the whole
+ * export is read with a single streamed query.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class UserExportTests {
+
+	@Autowired private UserService userService;
+	@Autowired private AddressService addressService;
+	@Autowired private PhoneService phoneService;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private EntityManager entityManager;
+	@Autowired private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	public void exportUsersTest() throws IOException, NotFoundException {
+
+		for(int i = 0; i < 5; i++) {
+
+			Long userId = userService.createUser(UserDTO.builder()
+					.name("Name" + i)
+					.surName("Surname" + i)
+					.birthDate(LocalDate.of(1990, Month.MAY, 1).plusDays(i))
+					.cpf(Cpfs.withCheckDigits(700 + i))
+					.email("export" + i + "@prov.com")
+					.build()).getUserId();
+
+			addressService.createAddress(userId, AddressDTO.builder()
+					.publicPlace("Rua")
+					.streetAddress("Conde Deu, " + i)
+					.city("Niterói")
+					.state("RJ")
+					.zipCode("24.020-000")
+					.build());
+
+			phoneService.createPhoneNumber(userId, PhoneNumberDTO.builder().type("Cel").number("(21) 96687-8776").build());
+			phoneService.createPhoneNumber(userId, PhoneNumberDTO.builder().type("Home").number("(21) 2687-8776").build());
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long exported = userService.exportUsers(out);
+
+		String ndjson = out.toString(StandardCharsets.UTF_8);
+		String[] lines = ndjson.split("\n");
+
+		assertEquals(5, exported);
+		assertEquals(5, lines.length);
+		assertTrue(ndjson.endsWith("\n"));
+		assertEquals(1, statistics.getPrepareStatementCount());
+
+		for(int i = 0; i < lines.length; i++) {
+			UserDTO user = objectMapper.readValue(lines[i], UserDTO.class);
+			assertEquals("Name" + i, user.getName());
+			assertEquals("RJ", user.getAddressDTO().getState());
+			assertEquals(2, user.getPhonesDTO().size());
+		}
+	}
+}
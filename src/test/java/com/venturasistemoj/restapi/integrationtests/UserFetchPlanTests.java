@@ -0,0 +1,164 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.Month;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.address.AddressService;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneService;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * <h2>Integration tests for the fetch plan of users read with their address and phones.</h2>
+ *
+ * <p>Asserts that the number of SQL statements issued by <code>getUsers</code> and <code>getUserById</code> does not
+ * depend on the number of users returned, i.e. there is no N+1 select on <code>User.address</code> or
+ * <code>User.phones</code>, and that the pages of adresses and phones do not read their users one by one.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+class UserFetchPlanTests {
+
+	@Autowired private UserService userService;
+	@Autowired private AddressService addressService;
+	@Autowired private PhoneService phoneService;
+	@Autowired private EntityManager entityManager;
+	@Autowired private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private int createdUsers;
+
+	@BeforeEach
+	public void beforeTestMethods() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	public void getUsersStatementCountTest() throws NotFoundException {
+
+		createUsers(2);
+		long fewUsersStatements = countStatements(() -> userService.getUsers());
+
+		createUsers(8);
+		long manyUsersStatements = countStatements(() -> userService.getUsers());
+
+		assertEquals(1, fewUsersStatements);
+		assertEquals(fewUsersStatements, manyUsersStatements);
+	}
+
+	@Test
+	public void getUsersPageStatementCountTest() throws NotFoundException {
+
+		createUsers(2);
+		long fewUsersStatements = countStatements(() -> userService.getUsers(10, null));
+
+		createUsers(8);
+		long manyUsersStatements = countStatements(() -> userService.getUsers(10, null));
+
+		assertEquals(2, fewUsersStatements); // page ids + users with address and phones
+		assertEquals(fewUsersStatements, manyUsersStatements);
+	}
+
+	@Test
+	public void getAdressesPageStatementCountTest() throws NotFoundException {
+
+		createUsers(2);
+		long fewAdressesStatements = countStatements(() -> addressService.getAdresses(10, null));
+
+		createUsers(8);
+		long manyAdressesStatements = countStatements(() -> addressService.getAdresses(10, null));
+
+		assertEquals(1, fewAdressesStatements); // adresses with their users
+		assertEquals(fewAdressesStatements, manyAdressesStatements);
+	}
+
+	@Test
+	public void getPhonesPageStatementCountTest() throws NotFoundException {
+
+		createUsers(2);
+		long fewPhonesStatements = countStatements(() -> phoneService.getPhoneNumbers(10, null));
+
+		createUsers(8);
+		long manyPhonesStatements = countStatements(() -> phoneService.getPhoneNumbers(10, null));
+
+		assertEquals(1, fewPhonesStatements); // phones with their owners
+		assertEquals(fewPhonesStatements, manyPhonesStatements);
+	}
+
+	@Test
+	public void getUserByIdStatementCountTest() throws NotFoundException {
+
+		Long userId = createUsers(1);
+
+		UserDTO[] user = new UserDTO[1];
+		long statements = countStatements(() -> user[0] = userService.getUserById(userId));
+
+		assertEquals(1, statements);
+		assertEquals(2, user[0].getPhonesDTO().size());
+		assertEquals("RJ", user[0].getAddressDTO().getState());
+	}
+
+	// creates users with an address and two phones each, returns the id of the last one
+	private Long createUsers(int count) throws NotFoundException {
+
+		Long userId = null;
+		for(int i = 0; i < count; i++, createdUsers++) {
+
+			userId = userService.createUser(UserDTO.builder()
+					.name("Name" + createdUsers)
+					.surName("Surname" + createdUsers)
+					.birthDate(LocalDate.of(1980, Month.MARCH, 1).plusDays(createdUsers))
+					.cpf(Cpfs.withCheckDigits(createdUsers + 1))
+					.email("user" + createdUsers + "@prov.com")
+					.build()).getUserId();
+
+			addressService.createAddress(userId, AddressDTO.builder()
+					.publicPlace("Rua")
+					.streetAddress("Conde Deu, " + createdUsers)
+					.city("Niterói")
+					.state("RJ")
+					.zipCode("24.020-000")
+					.build());
+
+			phoneService.createPhoneNumber(userId, PhoneNumberDTO.builder().type("Cel").number("(21) 96687-8776").build());
+			phoneService.createPhoneNumber(userId, PhoneNumberDTO.builder().type("Home").number("(21) 2687-8776").build());
+		}
+
+		entityManager.flush();
+		entityManager.clear();
+		return userId;
+	}
+
+	private long countStatements(ServiceCall call) throws NotFoundException {
+
+		entityManager.clear();
+		statistics.clear();
+		call.run();
+		return statistics.getPrepareStatementCount();
+	}
+
+	@FunctionalInterface
+	private interface ServiceCall {
+		void run() throws NotFoundException;
+	}
+}
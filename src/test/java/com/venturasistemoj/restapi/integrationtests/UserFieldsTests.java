@@ -0,0 +1,166 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.domain.address.AddressDTO;
+import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+import com.venturasistemoj.restapi.statements.RequestStatementLog;
+import com.venturasistemoj.restapi.statements.RequestStatements;
+
+/**
+ * <h2>Integration tests for the sparse fieldsets of the user responses.</h2>
+ *
+ * <p>Checks through <code>MockMvc</code> that <code>fields</code> writes only the listed properties and
+ * <code>expand</code> only the listed relations, and with the <code>RequestStatementLog</code> that a sparse read
+ * queries only the tables of the requested relations.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserFieldsTests {
+
+	private static final String USER_ROUTE = "GET /rest-api/users/{userId}";
+
+	@Autowired private MockMvc mockMvc;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private RequestStatementLog statementLog;
+	@Autowired private UserService userService;
+	@Autowired private DtoCache<Long, UserDTO> userCache;
+
+	private final List<Long> createdUsers = new ArrayList<>();
+	private Long userId;
+
+	@BeforeEach
+	public void beforeTestMethods() throws Exception {
+
+		String created = mockMvc.perform(post("/rest-api/users")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(UserDTO.builder()
+						.name("Sparse")
+						.surName("Fieldset")
+						.birthDate(LocalDate.of(1984, Month.MAY, 5))
+						.cpf(Cpfs.withCheckDigits(555_555_500))
+						.email("sparse@prov.com")
+						.build())))
+				.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+		userId = objectMapper.readValue(created, UserDTO.class).getUserId();
+		createdUsers.add(userId);
+
+		mockMvc.perform(post("/rest-api/adresses/{userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(AddressDTO.builder()
+						.publicPlace("Rua")
+						.streetAddress("Sete de Setembro, 1")
+						.city("Niterói")
+						.state("RJ")
+						.zipCode("24.020-000")
+						.build())))
+				.andExpect(status().isCreated());
+
+		mockMvc.perform(post("/rest-api/phones/{userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(PhoneNumberDTO.builder().type("Cel").number("(21) 96687-8776").build())))
+				.andExpect(status().isCreated());
+
+		userCache.invalidateAll();
+	}
+
+	@AfterEach
+	public void afterTestMethods() throws Exception {
+		for(Long createdUser : createdUsers)
+			userService.deleteUser(createdUser);
+	}
+
+	@Test
+	public void sparseFieldsTest() throws Exception {
+
+		statementLog.clear();
+		JsonNode user = read(get("/rest-api/users/{userId}", userId).param("fields", "name, email"));
+
+		assertEquals(Set.of("userId", "name", "email"), names(user));
+		assertEquals("Sparse", user.get("name").asText());
+
+		// only the users table
+		RequestStatements statements = statementLog.await(USER_ROUTE);
+		assertEquals(1, statements.count(), statements.toString());
+		String sql = statements.fingerprints().keySet().iterator().next();
+		assertFalse(sql.contains("adresses"), sql);
+		assertFalse(sql.contains("phones"), sql);
+
+		// not cached: the full user is read afterwards
+		assertTrue(names(read(get("/rest-api/users/{userId}", userId))).containsAll(Set.of("addressDTO", "phonesDTO")));
+	}
+
+	@Test
+	public void expandTest() throws Exception {
+
+		statementLog.clear();
+		JsonNode user = read(get("/rest-api/users/{userId}", userId).param("expand", "address"));
+
+		assertEquals(Set.of("userId", "name", "surName", "birthDate", "cpf", "email", "addressDTO"), names(user));
+		assertEquals("Niterói", user.get("addressDTO").get("city").asText());
+
+		RequestStatements statements = statementLog.await(USER_ROUTE);
+		assertEquals(1, statements.count(), statements.toString());
+		assertFalse(statements.fingerprints().keySet().iterator().next().contains("phones"));
+
+		user = read(get("/rest-api/users/{userId}", userId).param("fields", "cpf").param("expand", "phones"));
+		assertEquals(Set.of("userId", "cpf", "phonesDTO"), names(user));
+		assertEquals("(21) 96687-8776", user.get("phonesDTO").get(0).get("number").asText());
+
+		// the pages take the fieldset too
+		JsonNode page = read(get("/rest-api/users").param("limit", "50").param("fields", "name"));
+		page.get("items").forEach(item -> assertEquals(Set.of("userId", "name"), names(item)));
+	}
+
+	@Test
+	public void unknownFieldTest() throws Exception {
+
+		mockMvc.perform(get("/rest-api/users/{userId}", userId).param("fields", "password"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/rest-api/users").param("expand", "orders"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private JsonNode read(RequestBuilder request) throws Exception {
+		return objectMapper.readTree(mockMvc.perform(request).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8));
+	}
+
+	private static Set<String> names(JsonNode node) {
+		Set<String> names = new HashSet<>();
+		node.fieldNames().forEachRemaining(names::add);
+		return names;
+	}
+}
@@ -0,0 +1,145 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.cache.SerializedResponse;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Fixtures;
+
+/**
+ * <h2>Integration tests for the cache of the serialized user responses.</h2>
+ *
+ * <p>Checks through <code>MockMvc</code> that <code>GET /rest-api/users/{userId}</code> is served from the cached
+ * bytes, gzip-encoded to the clients that accept it, and that writes of the user, its address and phones evict
+ * them.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest(properties = "rest-api.cache.responses.gzip-min-size=0")
+@AutoConfigureMockMvc
+class UserResponseCacheTests {
+
+	@Autowired private MockMvc mockMvc;
+	@Autowired private ObjectMapper objectMapper;
+	@Autowired private UserService userService;
+	@Autowired private DtoCache<Long, SerializedResponse> userResponseCache;
+
+	private final String cpf = Fixtures.cpf();
+	private Long userId;
+
+	@BeforeEach
+	public void beforeTestMethods() throws Exception {
+
+		String created = mockMvc.perform(post("/rest-api/users")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(Fixtures.user("Cached", cpf))))
+				.andExpect(status().isCreated()).andReturn().getResponse().getContentAsString();
+		userId = objectMapper.readValue(created, UserDTO.class).getUserId();
+
+		for(String number : new String[] { "(21) 96687-8776", "(21) 2687-8776", "(21) 97687-8776" })
+			mockMvc.perform(post("/rest-api/phones/{userId}", userId)
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(objectMapper.writeValueAsString(Fixtures.phone("Cel", number))))
+					.andExpect(status().isCreated());
+	}
+
+	@AfterEach
+	public void afterTestMethods() throws Exception {
+		userService.deleteUser(userId);
+	}
+
+	@Test
+	public void cachedBytesTest() throws Exception {
+
+		long hits = userResponseCache.stats().hitCount();
+
+		MockHttpServletResponse plain = perform(get("/rest-api/users/{userId}", userId));
+		assertNull(plain.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertTrue(plain.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+		assertEquals(3, objectMapper.readValue(plain.getContentAsByteArray(), UserDTO.class).getPhonesDTO().size());
+
+		// the same bytes, compressed
+		MockHttpServletResponse gzip = perform(get("/rest-api/users/{userId}", userId)
+				.header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"));
+		assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+		assertArrayEquals(plain.getContentAsByteArray(), gunzip(gzip.getContentAsByteArray()));
+		assertTrue(gzip.getContentAsByteArray().length < plain.getContentAsByteArray().length);
+
+		MockHttpServletResponse refused = perform(get("/rest-api/users/{userId}", userId)
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"));
+		assertNull(refused.getHeader(HttpHeaders.CONTENT_ENCODING));
+
+		assertEquals(hits + 2, userResponseCache.stats().hitCount());
+		SerializedResponse cached = userResponseCache.getIfPresent(userId);
+		assertEquals(plain.getContentAsByteArray().length + gzip.getContentAsByteArray().length
+				+ cached.eTag().length(), cached.weight());
+	}
+
+	@Test
+	public void writesEvictTest() throws Exception {
+
+		perform(get("/rest-api/users/{userId}", userId));
+
+		mockMvc.perform(post("/rest-api/adresses/{userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(Fixtures.address("Niterói", "RJ"))))
+				.andExpect(status().isCreated());
+		assertEquals("RJ", read().getAddressDTO().getState());
+
+		mockMvc.perform(post("/rest-api/phones/{userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(Fixtures.phone("Home", "(21) 2687-0000"))))
+				.andExpect(status().isCreated());
+		assertEquals(4, read().getPhonesDTO().size());
+
+		UserDTO renamed = Fixtures.user("Renamed", cpf);
+		mockMvc.perform(put("/rest-api/users/{userId}", userId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(renamed)))
+				.andExpect(status().isOk());
+		assertEquals("Renamed", read().getName());
+	}
+
+	private UserDTO read() throws Exception {
+		return objectMapper.readValue(perform(get("/rest-api/users/{userId}", userId)).getContentAsByteArray(),
+				UserDTO.class);
+	}
+
+	private MockHttpServletResponse perform(RequestBuilder request) throws Exception {
+		return mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse();
+	}
+
+	private static byte[] gunzip(byte[] gzip) throws IOException {
+		try (InputStream json = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+			return json.readAllBytes();
+		}
+	}
+}
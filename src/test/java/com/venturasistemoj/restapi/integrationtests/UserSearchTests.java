@@ -0,0 +1,139 @@
+package com.venturasistemoj.restapi.integrationtests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+import com.venturasistemoj.restapi.fixtures.QueryPlans;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * <h2>Integration tests for the user search.</h2>
+ *
+ * <p>Checks the case and accent insensitive prefix matching on name, surname and e-mail, the keyset pagination of the
+ * results ordered by the matched field, and with H2 <code>EXPLAIN</code> of the statements the search executes that a
+ * page is read from the search index in its order, without a table scan or a sort.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+@SpringBootTest
+@Transactional
+class UserSearchTests {
+
+	@Autowired private UserService userService;
+	@Autowired private EntityManager entityManager;
+	@Autowired private DataSource dataSource;
+
+	@BeforeEach
+	public void beforeTestMethods() {
+
+		String[][] users = {
+				{ "José", "Conceição", "jose.c@prov.com" },
+				{ "JOSEFA", "Souza", "josefa@prov.com" },
+				{ "Joséfina", "Araújo", "fina@mail.com" },
+				{ "Joana", "D'Arc", "joana@prov.com" },
+				{ "Márcia", "CONCEICAO", "marcia_1@prov.com" } };
+
+		for(int i = 0; i < users.length; i++)
+			userService.createUser(UserDTO.builder()
+					.name(users[i][0])
+					.surName(users[i][1])
+					.birthDate(LocalDate.of(1975, Month.JUNE, 1).plusDays(i))
+					.cpf(Cpfs.withCheckDigits(600_000 + i))
+					.email(users[i][2])
+					.build());
+
+		entityManager.flush();
+	}
+
+	@Test
+	public void prefixMatchTest() throws NotFoundException {
+
+		assertEquals(List.of("José", "JOSEFA", "Joséfina"), names(userService.searchUsers("jose", null, null, null, null)));
+		assertEquals(List.of("José", "JOSEFA", "Joséfina"), names(userService.searchUsers(" JOSÉ", null, null, null, null)));
+		assertEquals(List.of("Joséfina"), names(userService.searchUsers("josefi", null, null, null, null)));
+		assertEquals(List.of("José", "Márcia"), names(userService.searchUsers(null, "conceiç", null, null, null)));
+		assertEquals(List.of("Joana", "José", "JOSEFA"), names(userService.searchUsers(null, null, "jo", null, null)));
+
+		// wildcards are literal
+		assertEquals(List.of("Márcia"), names(userService.searchUsers(null, null, "marcia_", null, null)));
+		assertThrows(NotFoundException.class, () -> userService.searchUsers(null, null, "marci%", null, null));
+		assertThrows(NotFoundException.class, () -> userService.searchUsers("zz", null, null, null, null));
+	}
+
+	@Test
+	public void paginationTest() throws NotFoundException {
+
+		List<String> names = new ArrayList<>();
+		String after = null;
+		int pages = 0;
+
+		do {
+			CursorPage<UserDTO> page = userService.searchUsers("jo", null, null, 1, after);
+			names.addAll(names(page));
+			after = page.getNextCursor();
+			pages++;
+		} while(after != null);
+
+		assertEquals(List.of("Joana", "José", "JOSEFA", "Joséfina"), names);
+		assertEquals(4, pages);
+
+		CursorPage<UserDTO> all = userService.searchUsers("jo", null, null, 4, null);
+		assertEquals(4, all.getItems().size());
+		assertNull(all.getNextCursor());
+	}
+
+	@Test
+	public void invalidSearchTest() {
+
+		assertThrows(IllegalArgumentException.class, () -> userService.searchUsers(null, null, null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> userService.searchUsers(" ", null, null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> userService.searchUsers("jo", "co", null, null, null));
+		assertThrows(IllegalArgumentException.class, () -> userService.searchUsers("jo", null, null, 0, null));
+		assertThrows(IllegalArgumentException.class, () -> userService.searchUsers("jo", null, null, null, "bad cursor"));
+	}
+
+	@Test
+	public void indexRangeScanTest() throws Exception {
+
+		String after = userService.searchUsers("jo", null, null, 1, null).getNextCursor();
+
+		// the first select of a search is the page of positions, then the users of the page
+		List<String> plans = QueryPlans.explainSelects(dataSource, () -> userService.searchUsers("jo", null, null, 2, after));
+		assertTrue(plans.get(0).contains("IDX_USERS_SEARCH_NAME"), plans.get(0));
+		assertTrue(plans.get(0).contains("index sorted"), plans.get(0)); // read in index order, stops at the limit
+
+		plans = QueryPlans.explainSelects(dataSource, () -> userService.searchUsers(null, "con", null, null, null));
+		assertTrue(plans.get(0).contains("IDX_USERS_SEARCH_SUR_NAME"), plans.get(0));
+		assertTrue(plans.get(0).contains("index sorted"), plans.get(0));
+
+		plans = QueryPlans.explainSelects(dataSource, () -> userService.searchUsers(null, null, "jo", null, null));
+		assertTrue(plans.get(0).contains("IDX_USERS_SEARCH_EMAIL"), plans.get(0));
+		assertTrue(plans.get(0).contains("index sorted"), plans.get(0));
+	}
+
+	private static List<String> names(CursorPage<UserDTO> page) {
+		return page.getItems().stream().map(UserDTO::getName).toList();
+	}
+}
@@ -23,6 +23,7 @@ import com.venturasistemoj.restapi.controllers.AddressController;
 import com.venturasistemoj.restapi.domain.address.AddressDTO;
 import com.venturasistemoj.restapi.domain.address.AddressService;
 import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
 public class JUnitAddressTests {
 
@@ -47,7 +48,7 @@ public class JUnitAddressTests {
 				.name("Luiz Inacio")
 				.surName("da Silva")
 				.birthDate(LocalDate.of(1972, Month.FEBRUARY, 22))
-				.cpf("123.456.789-10")
+				.cpf("123.456.789-09")
 				.email("lula@prov.com")
 				.build();
 
@@ -88,10 +89,10 @@ public class JUnitAddressTests {
 				.zipCode("69.069-069")
 				.build();
 
-		when(addressService.updateAddress(ID, newAddress)).thenReturn(newAddress);
+		when(addressService.updateAddress(ID, newAddress, null)).thenReturn(newAddress);
 		when(addressService.getAddressByUserId(ID)).thenReturn(newAddress);
 
-		ResponseEntity<?> response = addressController.updateAddress(ID, newAddress);
+		ResponseEntity<?> response = addressController.updateAddress(ID, newAddress, null);
 
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 		assertEquals(newAddress.getPublicPlace(), ((AddressDTO) response.getBody()).getPublicPlace());
@@ -104,9 +105,9 @@ public class JUnitAddressTests {
 
 	void testGetAddressByUserId() throws NotFoundException {
 
-		when(addressService.getAddressByUserId(ID)).thenReturn(addressDTO);
+		when(addressService.getTaggedAddress(ID)).thenReturn(new Tagged<>(addressDTO, "a1.0"));
 
-		ResponseEntity<?> response = addressController.getAddressByUserId(ID);
+		ResponseEntity<?> response = addressController.getAddressByUserId(ID, null);
 
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 		assertEquals(addressDTO, response.getBody());
@@ -0,0 +1,168 @@
+package com.venturasistemoj.restapi.unitests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.venturasistemoj.restapi.cache.DtoCache;
+
+/**
+ * <p>JUnit test class for <code>DtoCache</code>, covering read-through loading, statistics, invalidation after commit
+ * and the race between a reader loading an old value and a committed write, the bound by weight and the bulk
+ * loading of many keys.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+class JUnitDtoCacheTests {
+
+	private DtoCache<Long, String> cache;
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@BeforeEach
+	void setup() {
+		cache = new DtoCache<>("test", 100, Duration.ofMinutes(1));
+	}
+
+	@AfterEach
+	void cleanup() {
+		if(TransactionSynchronizationManager.isSynchronizationActive())
+			TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void testReadThrough() throws NotFoundException {
+
+		assertEquals("v1", cache.get(1L, this::load));
+		assertEquals("v1", cache.get(1L, this::load));
+
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.stats().hitCount());
+		assertEquals(1, cache.stats().missCount());
+	}
+
+	@Test
+	void testNotFoundIsNotCached() {
+
+		assertThrows(NotFoundException.class, () -> cache.get(1L, key -> { throw new NotFoundException(); }));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void testInvalidateWithoutTransaction() throws NotFoundException {
+
+		cache.get(1L, this::load);
+		cache.invalidate(1L);
+
+		assertEquals("v2", cache.get(1L, this::load));
+	}
+
+	@Test
+	void testInvalidateAfterCommit() throws NotFoundException {
+
+		cache.get(1L, this::load);
+
+		TransactionSynchronizationManager.initSynchronization();
+		cache.invalidate(1L);
+
+		assertEquals("v1", cache.get(1L, this::load)); // not committed yet
+
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		TransactionSynchronizationManager.clearSynchronization();
+
+		assertEquals("v2", cache.get(1L, this::load));
+	}
+
+	@Test
+	void testRollbackKeepsEntry() throws NotFoundException {
+
+		cache.get(1L, this::load);
+
+		TransactionSynchronizationManager.initSynchronization();
+		cache.invalidate(1L);
+		TransactionSynchronizationManager.getSynchronizations()
+				.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+		TransactionSynchronizationManager.clearSynchronization();
+
+		assertEquals("v1", cache.get(1L, this::load));
+	}
+
+	@Test
+	void testWriteCommittedWhileLoading() throws NotFoundException {
+
+		// the reader loads the old value, then the write commits and invalidates before the reader caches it
+		String loaded = cache.get(1L, key -> {
+			String old = load(key);
+			cache.invalidate(key);
+			return old;
+		});
+
+		assertEquals("v1", loaded);
+		assertEquals(0, cache.size()); // the possibly stale value was not kept
+		assertEquals("v2", cache.get(1L, this::load));
+	}
+
+	@Test
+	void testWeightBound() throws NotFoundException {
+
+		DtoCache<Long, String> weighted = new DtoCache<>("weighted", 10, (key, value) -> value.length(),
+				Duration.ofMinutes(1));
+
+		for(long key = 1; key <= 3; key++)
+			assertEquals("abcd", weighted.get(key, k -> "abcd"));
+
+		assertEquals(8, weighted.weight()); // the third entry of 4 evicts one
+		assertEquals(2, weighted.size());
+		assertEquals(1, weighted.stats().evictionCount());
+	}
+
+	@Test
+	void testGetAll() throws NotFoundException {
+
+		cache.get(2L, this::load); // v1
+		AtomicInteger bulkLoads = new AtomicInteger();
+
+		// only the missing keys are loaded, at once, and the keys without a value are left out
+		Map<Long, String> values = cache.getAll(List.of(3L, 2L, 4L, 1L), keys -> {
+			bulkLoads.incrementAndGet();
+			assertEquals(List.of(3L, 4L, 1L), keys);
+			return keys.stream().filter(key -> key != 4L).collect(Collectors.toMap(key -> key, key -> "b" + key));
+		});
+
+		assertEquals(List.of(3L, 2L, 1L), List.copyOf(values.keySet()));
+		assertEquals(List.of("b3", "v1", "b1"), List.copyOf(values.values()));
+		assertEquals(1, bulkLoads.get());
+
+		// cached
+		assertEquals(Map.of(1L, "b1", 3L, "b3"), cache.getAll(List.of(1L, 3L), keys -> Map.of()));
+		assertEquals(3, cache.size());
+	}
+
+	@Test
+	void testWriteCommittedWhileBulkLoading() {
+
+		Map<Long, String> values = cache.getAll(List.of(1L, 2L), keys -> {
+			cache.invalidate(1L); // a write of another key also discards the whole bulk load
+			return Map.of(1L, "old1", 2L, "old2");
+		});
+
+		assertEquals(Map.of(1L, "old1", 2L, "old2"), values);
+		assertEquals(0, cache.size());
+	}
+
+	private String load(Long key) {
+		return "v" + loads.incrementAndGet();
+	}
+}
@@ -0,0 +1,102 @@
+package com.venturasistemoj.restapi.unitests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.config.JacksonConfig;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+
+/**
+ * <p>JUnit test class for the <code>JacksonConfig</code> <code>LocalDate</code> codec: on fixed vectors and on random
+ * mutations of them, it must write and read exactly the dates of the 'dd/MM/yyyy' <code>DateTimeFormatter</code> it
+ * replaces, and fail with the same errors.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+class JUnitLocalDateCodecTests {
+
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(JacksonConfig.DATE_PATTERN);
+
+	private static final int MUTATIONS = 20_000;
+
+	private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void setUp() {
+		Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+		new JacksonConfig().customizeJacksonObjectMapper().customize(builder);
+		objectMapper = builder.build();
+	}
+
+	@Test
+	void testSerialize() throws Exception {
+
+		for(LocalDate date = LocalDate.of(1, Month.JANUARY, 1); date.getYear() < 10_000; date = date.plusDays(13))
+			assertEquals('"' + FORMATTER.format(date) + '"', objectMapper.writeValueAsString(date));
+
+		// formatted by the DateTimeFormatter
+		for(LocalDate date : List.of(LocalDate.of(0, Month.JUNE, 1), LocalDate.of(-45, Month.MARCH, 15),
+				LocalDate.of(10_000, Month.JANUARY, 1), LocalDate.MAX, LocalDate.MIN))
+			assertEquals('"' + FORMATTER.format(date) + '"', objectMapper.writeValueAsString(date));
+
+		assertEquals("\"01/01/0001\"", objectMapper.writeValueAsString(LocalDate.of(1, Month.JANUARY, 1)));
+		assertEquals("\"31/12/9999\"", objectMapper.writeValueAsString(LocalDate.of(9999, Month.DECEMBER, 31)));
+	}
+
+	@Test
+	void testDeserialize() throws Exception {
+
+		List<String> vectors = List.of("10/03/1985", "01/01/0001", "31/12/9999", "29/02/2000", "29/02/1900",
+				"31/04/2023", "31/02/2023", "00/01/2000", "32/01/2000", "01/00/2000", "01/13/2000", "01/01/0000",
+				"1/3/1985", "10-03-1985", "10/03/85", "10/03/+10000", " 10/03/1985", "10/03/1985 ", "1a/03/1985",
+				"10/03/19８5", "", "//////////");
+
+		for(String vector : vectors)
+			assertSameDate(vector);
+
+		Random random = new Random(20);
+		String chars = "0123456789/-+ a";
+
+		for(int i = 0; i < MUTATIONS; i++) {
+			StringBuilder date = new StringBuilder(vectors.get(random.nextInt(7)));
+			date.setCharAt(random.nextInt(date.length()), chars.charAt(random.nextInt(chars.length())));
+			assertSameDate(date.toString());
+		}
+
+		// in a bean, from the byte parser
+		UserDTO user = objectMapper.readValue("{\"birthDate\":\"31/02/2023\"}".getBytes(), UserDTO.class);
+		assertEquals(LocalDate.of(2023, Month.FEBRUARY, 28), user.getBirthDate());
+	}
+
+	// the codec reads the same date as the DateTimeFormatter or fails with the same error
+	private void assertSameDate(String text) throws Exception {
+
+		String json = '"' + text + '"';
+
+		LocalDate expected;
+		try {
+			expected = LocalDate.parse(text, FORMATTER);
+		} catch (DateTimeParseException e) {
+			DateTimeParseException actual = assertThrows(DateTimeParseException.class,
+					() -> objectMapper.readValue(json, LocalDate.class), text);
+			assertEquals(e.getMessage(), actual.getMessage());
+			return;
+		}
+
+		assertEquals(expected, objectMapper.readValue(json, LocalDate.class), text);
+		assertEquals(expected, objectMapper.readValue(json.getBytes(), LocalDate.class), text);
+	}
+}
@@ -24,6 +24,7 @@ import com.venturasistemoj.restapi.controllers.PhoneController;
 import com.venturasistemoj.restapi.domain.phone.PhoneNumberDTO;
 import com.venturasistemoj.restapi.domain.phone.PhoneService;
 import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
 public class JUnitPhoneTests {
 
@@ -48,7 +49,7 @@ public class JUnitPhoneTests {
 				.name("Luiz Inacio")
 				.surName("da Silva")
 				.birthDate(LocalDate.of(1972, Month.FEBRUARY, 22))
-				.cpf("123.456.789-10")
+				.cpf("123.456.789-09")
 				.email("lula@prov.com")
 				.build();
 
@@ -83,10 +84,10 @@ public class JUnitPhoneTests {
 		Set<PhoneNumberDTO> phonesDTO = new HashSet<>();
 		phonesDTO.add(updatedPhone);
 
-		when(phoneService.updatePhoneNumber(ID, updatedPhone)).thenReturn(phonesDTO);
+		when(phoneService.updatePhoneNumber(ID, updatedPhone, null)).thenReturn(phonesDTO);
 		when(phoneService.getPhonesByUserId(ID)).thenReturn(phonesDTO);
 
-		ResponseEntity<?> response = phoneController.updatePhoneNumber(ID, updatedPhone);
+		ResponseEntity<?> response = phoneController.updatePhoneNumber(ID, updatedPhone, null);
 
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 		@SuppressWarnings("unchecked")
@@ -100,9 +101,9 @@ public class JUnitPhoneTests {
 		Set<PhoneNumberDTO> phoneSet = new HashSet<>();
 		phoneSet.add(numberDTO);
 
-		when(phoneService.getPhonesByUserId(ID)).thenReturn(phoneSet);
+		when(phoneService.getTaggedPhones(ID)).thenReturn(new Tagged<>(phoneSet, "p1.0"));
 
-		ResponseEntity<?> response = phoneController.getPhonesByUserId(ID);
+		ResponseEntity<?> response = phoneController.getPhonesByUserId(ID, null);
 
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 		@SuppressWarnings("unchecked")
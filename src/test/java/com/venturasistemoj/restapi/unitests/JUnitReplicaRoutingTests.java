@@ -0,0 +1,207 @@
+package com.venturasistemoj.restapi.unitests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.venturasistemoj.restapi.routing.ReplicaRouting;
+import com.venturasistemoj.restapi.routing.ReplicaRoutingDataSource;
+import com.venturasistemoj.restapi.routing.ReplicaRoutingDataSource.Replica;
+import com.venturasistemoj.restapi.routing.ReplicaRoutingDataSource.Selection;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * <p>JUnit test class for <code>ReplicaRoutingDataSource</code>, covering the routing of read-write and read-only
+ * transactions, the round-robin and least-connections selections, the ejection of a failing replica and its
+ * reinstatement, and the pinning of reads to the primary after a write.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+class JUnitReplicaRoutingTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private DataSource primary;
+	private DataSource replica1;
+	private DataSource replica2;
+
+	private final AtomicInteger active1 = new AtomicInteger();
+	private final AtomicInteger active2 = new AtomicInteger();
+
+	@BeforeEach
+	void setup() throws SQLException {
+		primary = dataSource();
+		replica1 = dataSource();
+		replica2 = dataSource();
+	}
+
+	@AfterEach
+	void cleanup() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		TransactionSynchronizationManager.setActualTransactionActive(false);
+	}
+
+	@Test
+	void testWritesGoToThePrimary() throws SQLException {
+
+		ReplicaRoutingDataSource routing = routing(Selection.ROUND_ROBIN);
+		double writes = writes(); // the connection reading the defaults of the primary
+
+		transaction(false);
+		assertSame(target(primary), connect(routing));
+
+		assertEquals(writes + 1, writes());
+	}
+
+	@Test
+	void testRoundRobin() throws SQLException {
+
+		ReplicaRoutingDataSource routing = routing(Selection.ROUND_ROBIN);
+
+		transaction(true);
+		assertSame(target(replica1), connect(routing));
+		assertSame(target(replica2), connect(routing));
+		assertSame(target(replica1), connect(routing));
+
+		assertEquals(2, meterRegistry.get(ReplicaRoutingDataSource.CONNECTIONS)
+				.tags("datasource", "replica1", "access", "read").counter().count());
+	}
+
+	@Test
+	void testLeastConnections() throws SQLException {
+
+		ReplicaRoutingDataSource routing = routing(Selection.LEAST_CONNECTIONS);
+
+		active1.set(3);
+		active2.set(1);
+
+		transaction(true);
+		assertSame(target(replica2), connect(routing));
+		assertSame(target(replica2), connect(routing));
+
+		active2.set(5);
+		assertSame(target(replica1), connect(routing));
+	}
+
+	@Test
+	void testFailingReplicaIsEjected() throws SQLException {
+
+		ReplicaRoutingDataSource routing = routing(Selection.ROUND_ROBIN);
+		when(replica1.getConnection()).thenThrow(new SQLException("Connection is not available"));
+
+		transaction(true);
+		assertSame(target(primary), connect(routing)); // the read falls back to the primary
+
+		assertFalse(routing.isAvailable("replica1"));
+		assertEquals(1, meterRegistry.get(ReplicaRoutingDataSource.EJECTIONS).tag("datasource", "replica1").counter().count());
+		assertEquals(0, meterRegistry.get(ReplicaRoutingDataSource.AVAILABLE).tag("datasource", "replica1").gauge().value());
+
+		assertSame(target(replica2), connect(routing)); // only the available replica is selected
+		assertSame(target(replica2), connect(routing));
+	}
+
+	@Test
+	void testHealthCheckReinstatesReplica() throws SQLException {
+
+		ReplicaRoutingDataSource routing = routing(Selection.ROUND_ROBIN);
+		Connection recovered = target(replica1);
+		when(replica1.getConnection()).thenThrow(new SQLException("Connection refused")).thenReturn(recovered);
+
+		assertEquals(1, routing.checkHealth(Duration.ofSeconds(1)));
+		assertFalse(routing.isAvailable("replica1"));
+
+		assertEquals(2, routing.checkHealth(Duration.ofSeconds(1)));
+		assertTrue(routing.isAvailable("replica1"));
+		assertEquals(1, meterRegistry.get(ReplicaRoutingDataSource.AVAILABLE).tag("datasource", "replica1").gauge().value());
+	}
+
+	@Test
+	void testPinnedScopeReadsThePrimary() throws SQLException {
+
+		ReplicaRoutingDataSource routing = routing(Selection.ROUND_ROBIN);
+		transaction(true);
+
+		try (ReplicaRouting.Scope scope = ReplicaRouting.primary()) {
+			assertSame(target(primary), connect(routing));
+		}
+		assertSame(target(replica1), connect(routing));
+	}
+
+	@Test
+	void testWritePinsTheRequest() throws SQLException {
+
+		ReplicaRoutingDataSource routing = routing(Selection.ROUND_ROBIN);
+		AtomicInteger firstWrites = new AtomicInteger();
+
+		try (ReplicaRouting.Scope request = ReplicaRouting.open(false, firstWrites::incrementAndGet)) {
+
+			transaction(true);
+			assertSame(target(replica1), connect(routing));
+
+			transaction(false);
+			connect(routing);
+			connect(routing);
+			assertEquals(1, firstWrites.get());
+
+			transaction(true);
+			assertSame(target(primary), connect(routing)); // reads its own write
+		}
+
+		assertSame(target(replica2), connect(routing)); // the next request is not pinned
+	}
+
+	private ReplicaRoutingDataSource routing(Selection selection) {
+		return new ReplicaRoutingDataSource(primary, List.of(
+				new Replica("replica1", replica1, active1::get),
+				new Replica("replica2", replica2, active2::get)), selection, meterRegistry);
+	}
+
+	private double writes() {
+		return meterRegistry.get(ReplicaRoutingDataSource.CONNECTIONS)
+				.tags("datasource", ReplicaRoutingDataSource.PRIMARY, "access", "write").counter().count();
+	}
+
+	private static void transaction(boolean readOnly) {
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+	}
+
+	// the routing data source hands out lazy handles: the target is fetched here
+	private static Connection connect(DataSource dataSource) throws SQLException {
+		return ((ConnectionProxy) dataSource.getConnection()).getTargetConnection();
+	}
+
+	private static Connection target(DataSource dataSource) throws SQLException {
+		return dataSource.getConnection();
+	}
+
+	private static DataSource dataSource() throws SQLException {
+
+		Connection connection = mock(Connection.class);
+		when(connection.isValid(anyInt())).thenReturn(true);
+
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+		return dataSource;
+	}
+}
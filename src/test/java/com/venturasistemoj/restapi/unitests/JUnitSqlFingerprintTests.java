@@ -0,0 +1,32 @@
+package com.venturasistemoj.restapi.unitests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import com.venturasistemoj.restapi.statements.SqlFingerprint;
+
+/**
+ * <p>JUnit test class for <code>SqlFingerprint</code>: executions of the same statement with different literals or
+ * <code>IN</code> list sizes must have the same fingerprint.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+class JUnitSqlFingerprintTests {
+
+	@Test
+	void testLiteralsAndWhitespace() {
+		assertEquals("select * from users where cpf=? and user_id>?",
+				SqlFingerprint.of("SELECT *  FROM users\n WHERE cpf='123.456.789-10' AND user_id>42"));
+		assertEquals("select * from users where name=?", SqlFingerprint.of("select * from users where name='D''Avila'"));
+	}
+
+	@Test
+	void testInLists() {
+		assertEquals(SqlFingerprint.of("select * from users where user_id in (?)"),
+				SqlFingerprint.of("select * from users where user_id IN (?, ?,?)"));
+		assertEquals("insert into phones (number,type) values (?,?)",
+				SqlFingerprint.of("insert into phones (number,type) values (?,?)"));
+	}
+}
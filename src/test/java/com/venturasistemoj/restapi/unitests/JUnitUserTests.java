@@ -1,11 +1,17 @@
 package com.venturasistemoj.restapi.unitests;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.ArrayList;
@@ -16,13 +22,25 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.cache.DtoCache;
+import com.venturasistemoj.restapi.cache.SerializedResponse;
+import com.venturasistemoj.restapi.config.JacksonConfig;
 import com.venturasistemoj.restapi.controllers.UserController;
+import com.venturasistemoj.restapi.domain.pagination.CursorPage;
+import com.venturasistemoj.restapi.domain.user.BulkImportReport;
+import com.venturasistemoj.restapi.domain.user.UserBulkService;
 import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserFields;
 import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.exceptions.IllegalPhoneStateException;
+import com.venturasistemoj.restapi.versioning.Tagged;
 
 /**
  * <p>JUnit test class for <code>UserController</code>, focusing on operations related to user management.
@@ -33,11 +51,11 @@ import com.venturasistemoj.restapi.domain.user.UserService;
  * <p>The test methods cover the following scenarios:</p>
  * <ul>
  * <li>1. Creates a user by simulating the <code>createUser</code> method of <code>UserService</code> and asserts the
- * HTTP response.
+ * HTTP response, and the same for a user with its address and phones and <code>createUserAggregate</code>.
  * <li>2. Updates a user by simulating the <code>getUserById</code> and <code>updateUser</code> methods of
  * <code>UserService</code> and asserts the response.
  * <li>3. Retrieves a user by simulating <code>getUserById</code> from <code>UserService</code> and validates the returned
- * response.
+ * response, serialized once and then served from the response cache.
  * <li>4. List users by simulating the <code>getUsers</code> method of <code>UserService</code> and compare the expected
  * list with the response.
  * <li>5. Deletes a user by simulating <code>getUserById</code> from <code>UserService</code> and verifies the deletion
@@ -55,6 +73,16 @@ class JUnitUserTests {
 	@Mock
 	private UserService userService;
 
+	@Mock
+	private UserBulkService userBulkService;
+
+	@Spy
+	private DtoCache<Long, SerializedResponse> userResponseCache =
+			new DtoCache<>("user-responses", 1 << 20, (userId, response) -> response.weight(), Duration.ofMinutes(1));
+
+	@Spy
+	private ObjectMapper objectMapper = objectMapper();
+
 	@InjectMocks
 	private UserController userController;
 
@@ -73,7 +101,7 @@ class JUnitUserTests {
 				.name("Luiz Inacio")
 				.surName("da Silva")
 				.birthDate(LocalDate.of(1972, Month.FEBRUARY, 22))
-				.cpf("123.456.789-10")
+				.cpf("123.456.789-09")
 				.email("lula@prov.com")
 				.build();
 	}
@@ -89,6 +117,37 @@ class JUnitUserTests {
 		assertEquals(userDTO, response.getBody());
 	}
 
+	@Test
+	void testCreateUserAggregate() {
+
+		when(userService.createUserAggregate(userDTO)).thenReturn(userDTO);
+
+		ResponseEntity<?> response = userController.createUserAggregate(userDTO);
+
+		assertEquals(HttpStatus.CREATED, response.getStatusCode());
+		assertEquals(userDTO, response.getBody());
+
+		when(userService.createUserAggregate(userDTO)).thenThrow(new IllegalPhoneStateException("number: Invalid!"));
+
+		response = userController.createUserAggregate(userDTO);
+
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+		assertEquals("number: Invalid!", response.getBody());
+	}
+
+	@Test
+	void testCreateUsers() throws IOException {
+
+		InputStream body = new ByteArrayInputStream("[]".getBytes());
+		BulkImportReport report = new BulkImportReport();
+		when(userBulkService.importUsers(body)).thenReturn(report);
+
+		ResponseEntity<?> response = userController.createUsers(body);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(report, response.getBody());
+	}
+
 	@Test
 	void testUpdateUser() throws NotFoundException {
 
@@ -97,13 +156,13 @@ class JUnitUserTests {
 				.name("Dilma")
 				.surName("Rousseff")
 				.birthDate(LocalDate.of(1956, Month.OCTOBER, 26))
-				.cpf("789.456.123-10")
+				.cpf("789.456.123-19")
 				.email("dilma@prov.com")
 				.build();
 
-		when(userService.updateUser(userId, updatedUser)).thenReturn(updatedUser);
+		when(userService.updateUser(userId, updatedUser, null)).thenReturn(updatedUser);
 
-		ResponseEntity<?> response = userController.updateUser(userId, updatedUser);
+		ResponseEntity<?> response = userController.updateUser(userId, updatedUser, null);
 
 		assertEquals(HttpStatus.OK, response.getStatusCode());
 		assertEquals(updatedUser.getName(), ((UserDTO) response.getBody()).getName());
@@ -114,14 +173,25 @@ class JUnitUserTests {
 	}
 
 	@Test
-	void testGetUserById() throws NotFoundException {
+	void testGetUserById() throws NotFoundException, IOException {
 
-		when(userService.getUserById(userId)).thenReturn(userDTO);
+		when(userService.getTaggedUser(userId)).thenReturn(new Tagged<>(userDTO, "1.0-a-p"));
 
-		ResponseEntity<?> response = userController.getUserById(userId);
+		ResponseEntity<?> response = userController.getUserById(userId, null, null, null, null);
 
 		assertEquals(HttpStatus.OK, response.getStatusCode());
-		assertEquals(userDTO, response.getBody());
+		assertEquals("\"1.0-a-p\"", response.getHeaders().getETag());
+		assertEquals(userDTO, objectMapper.readValue((byte[]) response.getBody(), UserDTO.class));
+
+		// cached bytes
+		ResponseEntity<?> cached = userController.getUserById(userId, null, null, null, null);
+		assertArrayEquals((byte[]) response.getBody(), (byte[]) cached.getBody());
+
+		// the client has them
+		ResponseEntity<?> notModified = userController.getUserById(userId, null, null, null, "\"1.0-a-p\"");
+		assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+		assertNull(notModified.getBody());
+		verify(userService, times(1)).getTaggedUser(userId);
 	}
 
 	@Test
@@ -129,9 +199,9 @@ class JUnitUserTests {
 
 		List<UserDTO> userList = new ArrayList<>();
 		userList.add(userDTO);
-		when(userService.getUsers()).thenReturn(userList);
+		when(userService.getUsers(UserFields.ALL)).thenReturn(userList);
 
-		ResponseEntity<?> response = userController.getUsers();
+		ResponseEntity<?> response = userController.getUsers(null, null);
 
 		@SuppressWarnings("unchecked")
 		List<UserDTO> expectedList = (List<UserDTO>) response.getBody();
@@ -140,6 +210,28 @@ class JUnitUserTests {
 		assertEquals(userList, response.getBody());
 	}
 
+	@Test
+	void testGetUsersPage() throws NotFoundException {
+
+		CursorPage<UserDTO> page = new CursorPage<>(List.of(userDTO), "MQ");
+		when(userService.getUsers(1, null, UserFields.ALL)).thenReturn(page);
+
+		ResponseEntity<?> response = userController.getUsers(1, null, null, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(page, response.getBody());
+	}
+
+	@Test
+	void testGetUsersInvalidCursor() throws NotFoundException {
+
+		when(userService.getUsers(1, "?", UserFields.ALL)).thenThrow(new IllegalArgumentException("Invalid pagination cursor!"));
+
+		ResponseEntity<?> response = userController.getUsers(1, "?", null, null);
+
+		assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+	}
+
 	@Test
 	void testDeleteUser() throws NotFoundException {
 
@@ -150,4 +242,11 @@ class JUnitUserTests {
 		assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
 		verify(userService, times(1)).deleteUser(userId);
 	}
+
+	// as Spring builds it, with the JacksonConfig codec and filters
+	private static ObjectMapper objectMapper() {
+		Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder();
+		new JacksonConfig().customizeJacksonObjectMapper().customize(builder);
+		return builder.build();
+	}
 }
@@ -0,0 +1,143 @@
+package com.venturasistemoj.restapi.unitests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+import com.venturasistemoj.restapi.validation.CepValidator;
+import com.venturasistemoj.restapi.validation.CpfValidator;
+import com.venturasistemoj.restapi.validation.EmailAddressValidator;
+import com.venturasistemoj.restapi.validation.PhoneValidator;
+
+/**
+ * <p>JUnit test class for the CPF, e-mail, phone and CEP validators: on fixed vectors and on random mutations of
+ * them, each validator must accept exactly the strings matched by the regular expression it replaces, and the CPF
+ * validator must also verify the check digits.</p>
+ *
+ * @author Wilson Ventura
+ */
+
+class JUnitValidatorsTests {
+
+	private static final int MUTATIONS = 20_000;
+
+	@Test
+	void testCpf() {
+
+		List.of("123.456.789-09", "12345678909", "529.982.247-25", "529982247-25", "529.98224725", "000.000.001-91")
+				.forEach(cpf -> assertTrue(CpfValidator.isValid(cpf), cpf));
+
+		List.of("123.456.789-10", "529.982.247-52", "000.000.000-00", "111.111.111-11", "999.999.999-99",
+				"123.456.789-0", "123.456.789-099", "123..456.789-09", "123-456-789.09", " 12345678909", "123", "")
+				.forEach(cpf -> assertFalse(CpfValidator.isValid(cpf), cpf));
+
+		assertEquals("12345678909", Cpfs.withCheckDigits(123_456_789));
+		assertEquals("00000070050", Cpfs.withCheckDigits(700));
+		assertTrue(CpfValidator.isValid(Cpfs.withCheckDigits(700)));
+		for(long number = 1; number < 999_999_999; number += 7_777_777) // the test data is valid
+			assertTrue(number % 111_111_111 == 0 || CpfValidator.isValid(Cpfs.withCheckDigits(number)), "" + number);
+		assertThrows(IllegalArgumentException.class, () -> Cpfs.withCheckDigits(1_000_000_000L));
+
+		Pattern format = Pattern.compile(CpfValidator.REGEXP);
+		assertSameAsRegex(cpf -> format.matcher(cpf).matches() && hasCheckDigits(cpf), CpfValidator::isValid,
+				List.of("123.456.789-09", "52998224725"), "0123456789.-x ");
+	}
+
+	@Test
+	void testEmail() {
+
+		List.of("user@prov.com", "first.last@mail.prov.com.br", "a+tag@b-c.d1.io", "_x-@y.zz")
+				.forEach(email -> assertTrue(EmailAddressValidator.isValid(email), email));
+
+		List.of("user@prov", "user@prov.c", "user@prov.c0m", ".user@prov.com", "user.@prov.com", "us..er@prov.com",
+				"a.b+c@prov.com", "user@-prov.com.", "user@prov.b-r.com", "user@@prov.com", "@prov.com", "")
+				.forEach(email -> assertEquals(Pattern.matches(EmailAddressValidator.REGEXP, email),
+						EmailAddressValidator.isValid(email), email));
+
+		assertFalse(EmailAddressValidator.isValid("a.b+c@prov.com"));
+		assertTrue(EmailAddressValidator.isValid("user@-prov.com"));
+
+		Pattern regex = Pattern.compile(EmailAddressValidator.REGEXP);
+		assertSameAsRegex(email -> regex.matcher(email).matches(), EmailAddressValidator::isValid,
+				List.of("user@prov.com", "first.last+x@mail-1.prov2.com.br"), "aZ09_-+.@");
+	}
+
+	@Test
+	void testPhone() {
+
+		List.of("(21) 96687-8776", "(21) 2687-8776", "21966878776", "2126878776", "(21)96687-8776", "21 2687-8776")
+				.forEach(phone -> assertTrue(PhoneValidator.isValid(phone), phone));
+
+		List.of("(21) 90687-8776", "(21) 1687-8776", "(01) 2687-8776", "(21) 966878-776", "(21) 9668-8776",
+				"((21) 2687-8776", "(21)  2687-8776", "123", "")
+				.forEach(phone -> assertFalse(PhoneValidator.isValid(phone), phone));
+
+		Pattern regex = Pattern.compile(PhoneValidator.REGEXP);
+		assertSameAsRegex(phone -> regex.matcher(phone).matches(), PhoneValidator::isValid,
+				List.of("(21) 96687-8776", "(21) 2687-8776"), "0129()- ");
+	}
+
+	@Test
+	void testCep() {
+
+		List.of("24.020-000", "24020-000", "24.020000", "24020000")
+				.forEach(cep -> assertTrue(CepValidator.isValid(cep), cep));
+
+		List.of("24-020.000", "2402-0000", "24.020-00", "24.020-0000", "")
+				.forEach(cep -> assertFalse(CepValidator.isValid(cep), cep));
+
+		Pattern regex = Pattern.compile(CepValidator.REGEXP);
+		assertSameAsRegex(cep -> regex.matcher(cep).matches(), CepValidator::isValid, List.of("24.020-000"), "09.-x");
+	}
+
+	// compares the validator with the expected predicate on random insertions, removals and replacements of chars
+	private static void assertSameAsRegex(Predicate<String> expected, Predicate<String> validator, List<String> seeds,
+			String alphabet) {
+
+		Random random = new Random(42);
+
+		for(int n = 0; n < MUTATIONS; n++) {
+
+			StringBuilder value = new StringBuilder(seeds.get(n % seeds.size()));
+			for(int m = random.nextInt(4); m > 0; m--) {
+
+				int at = random.nextInt(value.length() + 1);
+				char c = alphabet.charAt(random.nextInt(alphabet.length()));
+
+				switch(random.nextInt(3)) {
+					case 0 -> value.insert(at, c);
+					case 1 -> { if(at < value.length()) value.deleteCharAt(at); }
+					default -> { if(at < value.length()) value.setCharAt(at, c); }
+				}
+			}
+
+			String mutated = value.toString();
+			assertEquals(expected.test(mutated), validator.test(mutated), mutated);
+		}
+	}
+
+	// reference implementation of the CPF check digits and of the repeated digits rule
+	private static boolean hasCheckDigits(String cpf) {
+
+		int[] digits = cpf.chars().filter(Character::isDigit).map(c -> c - '0').toArray();
+
+		for(int position = 9; position <= 10; position++) {
+			int sum = 0;
+			for(int i = 0; i < position; i++)
+				sum += digits[i] * (position + 1 - i);
+			if(digits[position] != (sum * 10 % 11) % 10)
+				return false;
+		}
+
+		return cpf.chars().filter(Character::isDigit).distinct().count() > 1;
+	}
+}
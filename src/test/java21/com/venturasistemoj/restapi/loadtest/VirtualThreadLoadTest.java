@@ -0,0 +1,199 @@
+package com.venturasistemoj.restapi.loadtest;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.venturasistemoj.restapi.RestApiApplication;
+import com.venturasistemoj.restapi.domain.user.UserBulkService;
+import com.venturasistemoj.restapi.domain.user.UserDTO;
+import com.venturasistemoj.restapi.domain.user.UserService;
+import com.venturasistemoj.restapi.fixtures.Cpfs;
+
+/**
+ * <h2>Load test of the virtual thread execution mode against the platform thread default.</h2>
+ *
+ * <p>Starts the application twice, with <code>rest-api.virtual-threads.enabled</code> false and then true, seeds
+ * <code>users</code> users and drives <code>clients</code> concurrent closed-loop clients (one virtual thread each)
+ * against the paged users listing, which is not cached and takes two JDBC round trips per request. After
+ * <code>warmup</code> seconds, latencies are recorded for <code>duration</code> seconds and the throughput and the
+ * p50, p99 and maximum latencies of both modes are printed.</p>
+ *
+ * <p>Run with the <code>java21</code> profile, which also enables <code>-Djdk.tracePinnedThreads=short</code> to
+ * report the stacks that pin a carrier thread:</p>
+ * <pre>
+ * mvn -P java21 test-compile exec:exec@load-test -Dloadtest.args="clients=2000 duration=60"
+ * </pre>
+ *
+ * @author Wilson Ventura
+ */
+public final class VirtualThreadLoadTest {
+
+	private static final int PAGE_SIZE = 20;
+
+	private VirtualThreadLoadTest() {}
+
+	record Result(String mode, long requests, long errors, double throughput, double p50, double p99, double max) {
+
+		@Override
+		public String toString() {
+			return String.format("%-8s requests=%d errors=%d throughput=%.0f req/s p50=%.1f ms p99=%.1f ms max=%.1f ms",
+					mode, requests, errors, throughput, p50, p99, max);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		Map<String, String> options = Arrays.stream(args)
+				.map(arg -> arg.split("=", 2))
+				.collect(Collectors.toMap(option -> option[0], option -> option[1]));
+
+		int clients = Integer.parseInt(options.getOrDefault("clients", "1000"));
+		int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+		int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+		int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		Result platform = run(false, clients, users, warmup, duration);
+		Result virtual = run(true, clients, users, warmup, duration);
+
+		System.out.println(clients + " clients, " + duration + " s");
+		System.out.println(platform);
+		System.out.println(virtual);
+	}
+
+	private static Result run(boolean virtualThreads, int clients, int users, int warmup, int duration)
+			throws Exception {
+
+		try (var context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(RestApiApplication.class)
+				.properties(
+						"server.port=0",
+						"spring.main.banner-mode=off",
+						"logging.level.root=warn",
+						"server.tomcat.accept-count=" + clients,
+						"rest-api.virtual-threads.enabled=" + virtualThreads)
+				.run()) {
+
+			List<URI> uris = seed(context, users);
+
+			HttpClient client = HttpClient.newBuilder()
+					.executor(Executors.newVirtualThreadPerTaskExecutor())
+					.connectTimeout(Duration.ofSeconds(30))
+					.build();
+
+			long start = System.nanoTime();
+			long measureFrom = start + Duration.ofSeconds(warmup).toNanos();
+			long end = measureFrom + Duration.ofSeconds(duration).toNanos();
+
+			List<Future<long[]>> results = new ArrayList<>(clients);
+			try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+				for(int i = 0; i < clients; i++)
+					results.add(executor.submit(() -> clientLoop(client, uris, measureFrom, end)));
+			} // waits for all clients
+
+			// each client returns its latencies followed by its error count
+			long errors = 0;
+			List<long[]> latencies = new ArrayList<>(clients);
+			for(Future<long[]> result : results) {
+				long[] samples = result.get();
+				errors += samples[samples.length - 1];
+				latencies.add(Arrays.copyOf(samples, samples.length - 1));
+			}
+
+			long[] all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+
+			return new Result(virtualThreads ? "virtual" : "platform", all.length, errors,
+					all.length / (double) duration, millis(all, 0.50), millis(all, 0.99), millis(all, 1.0));
+		}
+	}
+
+	// closed loop: sends the next request as soon as the previous one completes
+	private static long[] clientLoop(HttpClient client, List<URI> uris, long measureFrom, long end) {
+
+		long[] samples = new long[1024];
+		int count = 0;
+		long errors = 0;
+
+		for(long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+
+			URI uri = uris.get(ThreadLocalRandom.current().nextInt(uris.size()));
+			boolean ok;
+			try {
+				ok = client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding())
+						.statusCode() == 200;
+			} catch (Exception e) {
+				ok = false;
+			}
+
+			long latency = System.nanoTime() - now;
+			if(now < measureFrom)
+				continue;
+
+			if( ! ok)
+				errors++;
+			else {
+				if(count == samples.length)
+					samples = Arrays.copyOf(samples, count * 2);
+				samples[count++] = latency;
+			}
+		}
+
+		long[] result = Arrays.copyOf(samples, count + 1);
+		result[count] = errors;
+		return result;
+	}
+
+	// imports the users and returns the URIs of all their pages
+	private static List<URI> seed(ServletWebServerApplicationContext context, int users) throws Exception {
+
+		List<UserDTO> rows = new ArrayList<>(users);
+		for(int i = 1; i <= users; i++)
+			rows.add(UserDTO.builder()
+					.name("Name" + i)
+					.surName("Surname" + i)
+					.birthDate(LocalDate.of(1970, Month.JANUARY, 1).plusDays(i))
+					.cpf(Cpfs.withCheckDigits(i))
+					.email("user" + i + "@prov.com")
+					.build());
+
+		byte[] json = context.getBean(ObjectMapper.class).writeValueAsBytes(rows);
+		context.getBean(UserBulkService.class).importUsers(new ByteArrayInputStream(json));
+
+		String base = "http://localhost:" + context.getWebServer().getPort() + "/rest-api/users?limit=" + PAGE_SIZE;
+		UserService userService = context.getBean(UserService.class);
+
+		List<URI> uris = new ArrayList<>();
+		uris.add(URI.create(base));
+		for(String after = userService.getUsers(PAGE_SIZE, null).getNextCursor(); after != null;
+				after = userService.getUsers(PAGE_SIZE, after).getNextCursor())
+			uris.add(URI.create(base + "&after=" + after));
+
+		return uris;
+	}
+
+	private static double millis(long[] sorted, double quantile) {
+		if(sorted.length == 0)
+			return Double.NaN;
+		int rank = Math.max(0, (int) Math.ceil(quantile * sorted.length) - 1); // nearest rank
+		return sorted[rank] / 1_000_000.0;
+	}
+}